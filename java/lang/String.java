@@ -27,6 +27,8 @@ package java.lang;
 
 import java.io.ObjectStreamField;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -587,6 +589,36 @@ public final class String
         this(bytes, 0, bytes.length, charset);
     }
 
+    /**
+     * Constructs a new {@code String} by decoding the remaining bytes of
+     * the specified buffer using the specified {@linkplain
+     * java.nio.charset.Charset charset}.  The bytes are read in place,
+     * whether the buffer is backed by an array or is a direct buffer, and
+     * the position of the buffer is advanced to its limit.  The length of
+     * the new {@code String} is a function of the charset, and hence may
+     * not be equal to the number of bytes.
+     *
+     * <p> This method always replaces malformed-input and unmappable-character
+     * sequences with this charset's default replacement string.  The {@link
+     * java.nio.charset.CharsetDecoder} class should be used when more control
+     * over the decoding process is required.
+     *
+     * @param  bytes
+     *         The buffer whose remaining bytes are to be decoded into
+     *         characters
+     *
+     * @param  charset
+     *         The {@linkplain java.nio.charset.Charset charset} to be used to
+     *         decode the {@code bytes}
+     *
+     * @since  1.8
+     */
+    public String(ByteBuffer bytes, Charset charset) {
+        if (charset == null)
+            throw new NullPointerException("charset");
+        this.value = StringCoding.decode(charset, bytes);
+    }
+
     /**
      * Constructs a new {@code String} by decoding the specified subarray of
      * bytes using the platform's default charset.  The length of the new
@@ -1013,6 +1045,43 @@ public final class String
         return StringCoding.encode(charset, value, 0, value.length);
     }
 
+    /**
+     * Encodes this {@code String} into a sequence of bytes using the given
+     * {@linkplain java.nio.charset.Charset charset}, storing the result into
+     * the given buffer at its current position.  The bytes are written in
+     * place, whether the buffer is backed by an array or is a direct
+     * buffer, and the position of the buffer is advanced past them.
+     *
+     * <p> This method always replaces malformed-input and unmappable-character
+     * sequences with this charset's default replacement byte array.  The
+     * {@link java.nio.charset.CharsetEncoder} class should be used when more
+     * control over the encoding process is required.
+     *
+     * @param  dst
+     *         The buffer to store the bytes into
+     *
+     * @param  charset
+     *         The {@linkplain java.nio.charset.Charset} to be used to encode
+     *         the {@code String}
+     *
+     * @return  The number of bytes written
+     *
+     * @throws  java.nio.BufferOverflowException
+     *          If the buffer does not have room for all of the bytes.  The
+     *          position of the buffer is then unchanged, but the bytes after
+     *          it may have been modified.
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If the buffer is read-only
+     *
+     * @since  1.8
+     */
+    public int getBytes(ByteBuffer dst, Charset charset) {
+        if (charset == null) throw new NullPointerException();
+        if (dst.isReadOnly()) throw new ReadOnlyBufferException();
+        return StringCoding.encode(charset, value, 0, value.length, dst);
+    }
+
     /**
      * Encodes this {@code String} into a sequence of bytes using the
      * platform's default charset, storing the result into a new byte array.
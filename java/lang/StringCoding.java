@@ -27,6 +27,7 @@ package java.lang;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.ref.SoftReference;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -36,6 +37,7 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
 import sun.misc.MessageUtils;
@@ -117,6 +119,324 @@ class StringCoding {
         }
     }
 
+    // -- Standard charsets --
+    //
+    // ISO-8859-1, US-ASCII and UTF-8 are coded here directly, in a single
+    // pass and without creating a CharsetDecoder or CharsetEncoder.  The
+    // results are those of the charsets' own coders with malformed and
+    // unmappable input replaced.
+
+    private static final int NOT_STANDARD = 0;
+    private static final int ISO_8859_1 = 1;
+    private static final int US_ASCII = 2;
+    private static final int UTF_8 = 3;
+
+    private static int standard(Charset cs) {
+        if (cs == StandardCharsets.UTF_8)
+            return UTF_8;
+        if (cs == StandardCharsets.ISO_8859_1)
+            return ISO_8859_1;
+        if (cs == StandardCharsets.US_ASCII)
+            return US_ASCII;
+        return NOT_STANDARD;
+    }
+
+    // Decodes the given bytes with a standard charset.
+    //
+    private static char[] decodeStandard(int std, byte[] ba, int off, int len) {
+        if (std == UTF_8)
+            return decodeUTF8(ba, off, len);
+        char[] ca = new char[len];
+        if (std == ISO_8859_1) {
+            for (int i = 0; i < len; i++)
+                ca[i] = (char)(ba[off + i] & 0xff);
+        } else {
+            for (int i = 0; i < len; i++) {
+                byte b = ba[off + i];
+                ca[i] = (b >= 0) ? (char)b : '\ufffd';
+            }
+        }
+        return ca;
+    }
+
+    private static boolean isNotContinuation(int b) {
+        return (b & 0xc0) != 0x80;
+    }
+
+    //  [E0]     [A0..BF] [80..BF]
+    //  [E1..EF] [80..BF] [80..BF]
+    private static boolean isMalformed3(int b1, int b2, int b3) {
+        return (b1 == (byte)0xe0 && (b2 & 0xe0) == 0x80) ||
+               (b2 & 0xc0) != 0x80 || (b3 & 0xc0) != 0x80;
+    }
+
+    // Only the first two bytes of a three byte sequence are present.
+    private static boolean isMalformed3_2(int b1, int b2) {
+        return (b1 == (byte)0xe0 && (b2 & 0xe0) == 0x80) ||
+               (b2 & 0xc0) != 0x80;
+    }
+
+    //  [F0]     [90..BF] [80..BF] [80..BF]
+    //  [F1..F3] [80..BF] [80..BF] [80..BF]
+    //  [F4]     [80..8F] [80..BF] [80..BF]
+    //  Only the continuation bytes are checked; the range of the code
+    //  point is checked after it is decoded.
+    private static boolean isMalformed4(int b2, int b3, int b4) {
+        return (b2 & 0xc0) != 0x80 || (b3 & 0xc0) != 0x80 ||
+               (b4 & 0xc0) != 0x80;
+    }
+
+    // Only the first two bytes of a four byte sequence are present, as
+    // unsigned values.
+    private static boolean isMalformed4_2(int b1, int b2) {
+        return (b1 == 0xf0 && (b2 < 0x90 || b2 > 0xbf)) ||
+               (b1 == 0xf4 && (b2 & 0xf0) != 0x80) ||
+               (b2 & 0xc0) != 0x80;
+    }
+
+    // Returns the length of the malformed prefix of the three byte
+    // sequence at sp, which is replaced by a single U+FFFD.
+    private static int malformed3(byte[] ba, int sp) {
+        int b1 = ba[sp];
+        int b2 = ba[sp + 1];
+        return ((b1 == (byte)0xe0 && (b2 & 0xe0) == 0x80) ||
+                isNotContinuation(b2)) ? 1 : 2;
+    }
+
+    // Same as above, for a four byte sequence.
+    private static int malformed4(byte[] ba, int sp) {
+        int b1 = ba[sp] & 0xff;
+        int b2 = ba[sp + 1] & 0xff;
+        if (b1 > 0xf4 ||
+            (b1 == 0xf0 && (b2 < 0x90 || b2 > 0xbf)) ||
+            (b1 == 0xf4 && (b2 & 0xf0) != 0x80) ||
+            isNotContinuation(b2))
+            return 1;
+        if (isNotContinuation(ba[sp + 2]))
+            return 2;
+        return 3;
+    }
+
+    // Decodes UTF-8 in a single pass, widening any leading ASCII bytes
+    // and then continuing from the first other byte.  Malformed input is
+    // replaced by U+FFFD exactly as by the UTF-8 charset's decoder, with
+    // one replacement for each malformed prefix of a sequence, for each
+    // encoded surrogate, and for a sequence truncated by the end of the
+    // input.  The result is trimmed if shorter than the input.
+    //
+    private static char[] decodeUTF8(byte[] ba, int off, int len) {
+        char[] ca = new char[len];
+        int sp = off;
+        int sl = off + len;
+        int dp = 0;
+        while (sp < sl && ba[sp] >= 0)
+            ca[dp++] = (char)ba[sp++];
+        while (sp < sl) {
+            int b1 = ba[sp++];
+            if (b1 >= 0) {
+                // 1 byte, 7 bits: 0xxxxxxx
+                ca[dp++] = (char)b1;
+            } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
+                // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
+                if (sp < sl) {
+                    int b2 = ba[sp++];
+                    if (isNotContinuation(b2)) {
+                        ca[dp++] = '\ufffd';
+                        sp--;
+                    } else {
+                        ca[dp++] = (char)(((b1 << 6) ^ b2) ^
+                                          (((byte)0xc0 << 6) ^
+                                           ((byte)0x80 << 0)));
+                    }
+                    continue;
+                }
+                ca[dp++] = '\ufffd';
+                break;
+            } else if ((b1 >> 4) == -2) {
+                // 3 bytes, 16 bits: 1110xxxx 10xxxxxx 10xxxxxx
+                if (sp + 1 < sl) {
+                    int b2 = ba[sp++];
+                    int b3 = ba[sp++];
+                    if (isMalformed3(b1, b2, b3)) {
+                        ca[dp++] = '\ufffd';
+                        sp -= 3;
+                        sp += malformed3(ba, sp);
+                    } else {
+                        char c = (char)((b1 << 12) ^
+                                        (b2 <<  6) ^
+                                        (b3 ^
+                                         (((byte)0xe0 << 12) ^
+                                          ((byte)0x80 <<  6) ^
+                                          ((byte)0x80 <<  0))));
+                        ca[dp++] = Character.isSurrogate(c) ? '\ufffd' : c;
+                    }
+                    continue;
+                }
+                if (sp < sl && isMalformed3_2(b1, ba[sp])) {
+                    ca[dp++] = '\ufffd';
+                    continue;
+                }
+                ca[dp++] = '\ufffd';
+                break;
+            } else if ((b1 >> 3) == -2) {
+                // 4 bytes, 21 bits: 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
+                if (sp + 2 < sl) {
+                    int b2 = ba[sp++];
+                    int b3 = ba[sp++];
+                    int b4 = ba[sp++];
+                    int uc = ((b1 << 18) ^
+                              (b2 << 12) ^
+                              (b3 <<  6) ^
+                              (b4 ^
+                               (((byte)0xf0 << 18) ^
+                                ((byte)0x80 << 12) ^
+                                ((byte)0x80 <<  6) ^
+                                ((byte)0x80 <<  0))));
+                    if (isMalformed4(b2, b3, b4) ||
+                        // shortest form check
+                        !Character.isSupplementaryCodePoint(uc)) {
+                        ca[dp++] = '\ufffd';
+                        sp -= 4;
+                        sp += malformed4(ba, sp);
+                    } else {
+                        ca[dp++] = Character.highSurrogate(uc);
+                        ca[dp++] = Character.lowSurrogate(uc);
+                    }
+                    continue;
+                }
+                b1 &= 0xff;
+                if (b1 > 0xf4 ||
+                    (sp < sl && isMalformed4_2(b1, ba[sp] & 0xff))) {
+                    ca[dp++] = '\ufffd';
+                    continue;
+                }
+                sp++;
+                if (sp < sl && isNotContinuation(ba[sp])) {
+                    ca[dp++] = '\ufffd';
+                    continue;
+                }
+                ca[dp++] = '\ufffd';
+                break;
+            } else {
+                ca[dp++] = '\ufffd';
+            }
+        }
+        return (dp == len) ? ca : Arrays.copyOf(ca, dp);
+    }
+
+    // Returns the number of bytes the given chars encode to in a standard
+    // charset.  A malformed or unmappable char, or surrogate pair, is
+    // replaced by a single '?'.
+    //
+    private static int encodedLength(int std, char[] ca, int off, int len) {
+        int n = 0;
+        for (int sp = off, sl = off + len; sp < sl; ) {
+            char c = ca[sp++];
+            if (c < 0x80) {
+                n++;
+            } else if (std != UTF_8) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp]))
+                    sp++;
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp])) {
+                    sp++;
+                    n += 4;
+                } else {
+                    n++;
+                }
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
+    // Encodes the given chars with a standard charset into the given
+    // array, which has room for all of them, and returns the new offset.
+    //
+    private static int encodeStandard(int std, char[] ca, int off, int len,
+                                      byte[] da, int dp) {
+        int max = (std == ISO_8859_1) ? 0x100 : 0x80;
+        for (int sp = off, sl = off + len; sp < sl; ) {
+            char c = ca[sp++];
+            if (c < max) {
+                da[dp++] = (byte)c;
+            } else if (std != UTF_8) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp]))
+                    sp++;
+                da[dp++] = (byte)'?';
+            } else if (c < 0x800) {
+                da[dp++] = (byte)(0xc0 | (c >> 6));
+                da[dp++] = (byte)(0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp])) {
+                    int uc = Character.toCodePoint(c, ca[sp++]);
+                    da[dp++] = (byte)(0xf0 | (uc >> 18));
+                    da[dp++] = (byte)(0x80 | ((uc >> 12) & 0x3f));
+                    da[dp++] = (byte)(0x80 | ((uc >> 6) & 0x3f));
+                    da[dp++] = (byte)(0x80 | (uc & 0x3f));
+                } else {
+                    da[dp++] = (byte)'?';
+                }
+            } else {
+                da[dp++] = (byte)(0xe0 | (c >> 12));
+                da[dp++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+                da[dp++] = (byte)(0x80 | (c & 0x3f));
+            }
+        }
+        return dp;
+    }
+
+    // Same as above, for a buffer that has no accessible array.
+    //
+    private static void encodeStandard(int std, char[] ca, int off, int len,
+                                       ByteBuffer bb) {
+        int max = (std == ISO_8859_1) ? 0x100 : 0x80;
+        for (int sp = off, sl = off + len; sp < sl; ) {
+            char c = ca[sp++];
+            if (c < max) {
+                bb.put((byte)c);
+            } else if (std != UTF_8) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp]))
+                    sp++;
+                bb.put((byte)'?');
+            } else if (c < 0x800) {
+                bb.put((byte)(0xc0 | (c >> 6)));
+                bb.put((byte)(0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && sp < sl &&
+                    Character.isLowSurrogate(ca[sp])) {
+                    int uc = Character.toCodePoint(c, ca[sp++]);
+                    bb.put((byte)(0xf0 | (uc >> 18)));
+                    bb.put((byte)(0x80 | ((uc >> 12) & 0x3f)));
+                    bb.put((byte)(0x80 | ((uc >> 6) & 0x3f)));
+                    bb.put((byte)(0x80 | (uc & 0x3f)));
+                } else {
+                    bb.put((byte)'?');
+                }
+            } else {
+                bb.put((byte)(0xe0 | (c >> 12)));
+                bb.put((byte)(0x80 | ((c >> 6) & 0x3f)));
+                bb.put((byte)(0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    private static byte[] encodeStandard(int std, char[] ca, int off, int len) {
+        byte[] ba = new byte[(std == UTF_8) ? encodedLength(std, ca, off, len)
+                                            : len];
+        int blen = encodeStandard(std, ca, off, len, ba, 0);
+        // Surrogate pairs shrink when replaced
+        return (blen == ba.length) ? ba : Arrays.copyOf(ba, blen);
+    }
 
     // -- Decoding --
     private static class StringDecoder {
@@ -124,10 +444,12 @@ class StringCoding {
         private final Charset cs;
         private final CharsetDecoder cd;
         private final boolean isTrusted;
+        private final int std;
 
         private StringDecoder(Charset cs, String rcn) {
             this.requestedCharsetName = rcn;
             this.cs = cs;
+            this.std = standard(cs);
             this.cd = cs.newDecoder()
                 .onMalformedInput(CodingErrorAction.REPLACE)
                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
@@ -145,6 +467,8 @@ class StringCoding {
         }
 
         char[] decode(byte[] ba, int off, int len) {
+            if (std != NOT_STANDARD)
+                return decodeStandard(std, ba, off, len);
             int en = scale(len, cd.maxCharsPerByte());
             char[] ca = new char[en];
             if (len == 0)
@@ -210,6 +534,9 @@ class StringCoding {
         // check (... && (isTrusted || SM == null || getClassLoader0())) in trim
         // but it then can be argued that the SM is null when the opertaion
         // is started...
+        int std = standard(cs);
+        if (std != NOT_STANDARD)
+            return decodeStandard(std, ba, off, len);
         CharsetDecoder cd = cs.newDecoder();
         int en = scale(len, cd.maxCharsPerByte());
         char[] ca = new char[en];
@@ -247,6 +574,59 @@ class StringCoding {
         }
     }
 
+    static char[] decode(Charset cs, ByteBuffer bb) {
+        int len = bb.remaining();
+        if (bb.hasArray()) {
+            int off = bb.arrayOffset() + bb.position();
+            bb.position(bb.limit());
+            return decode(cs, bb.array(), off, len);
+        }
+        int std = standard(cs);
+        if (std == UTF_8) {
+            // Copy the bytes out in bulk and decode them in a single pass
+            byte[] ba = new byte[len];
+            bb.get(ba);
+            return decodeUTF8(ba, 0, len);
+        }
+        if (std != NOT_STANDARD) {
+            char[] ca = new char[len];
+            if (std == ISO_8859_1) {
+                for (int i = 0; i < len; i++)
+                    ca[i] = (char)(bb.get() & 0xff);
+            } else {
+                for (int i = 0; i < len; i++) {
+                    byte b = bb.get();
+                    ca[i] = (b >= 0) ? (char)b : '\ufffd';
+                }
+            }
+            return ca;
+        }
+        CharsetDecoder cd = cs.newDecoder();
+        char[] ca = new char[scale(len, cd.maxCharsPerByte())];
+        if (len == 0)
+            return ca;
+        boolean isTrusted = false;
+        if (System.getSecurityManager() != null)
+            isTrusted = (cs.getClass().getClassLoader0() == null);
+        cd.onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE)
+          .reset();
+        CharBuffer cb = CharBuffer.wrap(ca);
+        try {
+            CoderResult cr = cd.decode(bb, cb, true);
+            if (!cr.isUnderflow())
+                cr.throwException();
+            cr = cd.flush(cb);
+            if (!cr.isUnderflow())
+                cr.throwException();
+        } catch (CharacterCodingException x) {
+            // Substitution is always enabled,
+            // so this shouldn't happen
+            throw new Error(x);
+        }
+        return safeTrim(ca, cb.position(), cs, isTrusted);
+    }
+
     static char[] decode(byte[] ba, int off, int len) {
         String csn = Charset.defaultCharset().name();
         try {
@@ -275,10 +655,12 @@ class StringCoding {
         private CharsetEncoder ce;
         private final String requestedCharsetName;
         private final boolean isTrusted;
+        private final int std;
 
         private StringEncoder(Charset cs, String rcn) {
             this.requestedCharsetName = rcn;
             this.cs = cs;
+            this.std = standard(cs);
             this.ce = cs.newEncoder()
                 .onMalformedInput(CodingErrorAction.REPLACE)
                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
@@ -296,6 +678,8 @@ class StringCoding {
         }
 
         byte[] encode(char[] ca, int off, int len) {
+            if (std != NOT_STANDARD)
+                return encodeStandard(std, ca, off, len);
             int en = scale(len, ce.maxBytesPerChar());
             byte[] ba = new byte[en];
             if (len == 0)
@@ -345,6 +729,9 @@ class StringCoding {
     }
 
     static byte[] encode(Charset cs, char[] ca, int off, int len) {
+        int std = standard(cs);
+        if (std != NOT_STANDARD)
+            return encodeStandard(std, ca, off, len);
         CharsetEncoder ce = cs.newEncoder();
         int en = scale(len, ce.maxBytesPerChar());
         byte[] ba = new byte[en];
@@ -380,6 +767,46 @@ class StringCoding {
         }
     }
 
+    static int encode(Charset cs, char[] ca, int off, int len, ByteBuffer bb) {
+        int pos = bb.position();
+        int std = standard(cs);
+        if (std != NOT_STANDARD) {
+            if (encodedLength(std, ca, off, len) > bb.remaining())
+                throw new BufferOverflowException();
+            if (bb.hasArray()) {
+                int dp = bb.arrayOffset() + pos;
+                bb.position(pos + encodeStandard(std, ca, off, len,
+                                                 bb.array(), dp) - dp);
+            } else {
+                encodeStandard(std, ca, off, len, bb);
+            }
+            return bb.position() - pos;
+        }
+        if (System.getSecurityManager() != null &&
+            cs.getClass().getClassLoader0() != null) {
+            ca =  Arrays.copyOfRange(ca, off, off + len);
+            off = 0;
+        }
+        CharsetEncoder ce = cs.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer cb = CharBuffer.wrap(ca, off, len);
+        try {
+            CoderResult cr = ce.encode(cb, bb, true);
+            if (cr.isUnderflow())
+                cr = ce.flush(bb);
+            if (cr.isOverflow()) {
+                bb.position(pos);
+                throw new BufferOverflowException();
+            }
+            if (!cr.isUnderflow())
+                cr.throwException();
+        } catch (CharacterCodingException x) {
+            throw new Error(x);
+        }
+        return bb.position() - pos;
+    }
+
     static byte[] encode(char[] ca, int off, int len) {
         String csn = Charset.defaultCharset().name();
         try {
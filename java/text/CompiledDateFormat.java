@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.text;
+
+import java.util.Date;
+import java.util.TimeZone;
+import sun.util.calendar.CalendarUtils;
+import static java.text.DateFormatSymbols.*;
+
+/**
+ * An immutable, thread-safe form of a {@link SimpleDateFormat}, obtained
+ * from {@link SimpleDateFormat#compile()}.
+ *
+ * <p> A compiled format formats dates exactly as the date format it was
+ * compiled from did at the time, with the same pattern, symbols, number
+ * format, calendar and time zone.  Unlike the date format, it does not
+ * keep the date being formatted in a shared <code>Calendar</code>, so it
+ * can be kept in a static field and used by any number of threads at
+ * once:
+ *
+ * <blockquote><pre>{@code
+ * static final CompiledDateFormat STAMP =
+ *     new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS Z").compile();
+ *
+ * STAMP.format(System.currentTimeMillis(), sb);
+ * }</pre></blockquote>
+ *
+ * <p> When the calendar is a <code>GregorianCalendar</code> with the
+ * default cutover, the number format writes plain digits, and the pattern
+ * uses none of the letters <code>w W Y z L</code>, the fields of dates
+ * from the year 1600 to 9999 are computed from the time value directly
+ * and written to the given <code>StringBuilder</code>.  Other dates, and
+ * all dates of other formats, are formatted by a copy of the original
+ * date format that is confined to the current thread.
+ *
+ * @see SimpleDateFormat#compile()
+ * @since 1.8
+ */
+public final class CompiledDateFormat {
+
+    // The default Gregorian cutover, October 15, 1582
+    static final long DEFAULT_GREGORIAN_CUTOVER = -12219292800000L;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // 1600-01-01T00:00:00.000 and 9999-12-31T23:59:59.999 local time
+    private static final long MIN_LOCAL_MILLIS = -11676096000000L;
+    private static final long MAX_LOCAL_MILLIS = 253402300799999L;
+
+    // Days before the first day of each month in a common year
+    private static final int[] DAYS_BEFORE_MONTH = {
+        0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334
+    };
+
+    private final SimpleDateFormat format;
+    private final ThreadLocal<SimpleDateFormat> formats;
+
+    private final char[] pattern;
+    private final TimeZone zone;
+    private final char zero;
+    private final String[] eras;
+    private final String[] months;
+    private final String[] shortMonths;
+    private final String[] weekdays;
+    private final String[] shortWeekdays;
+    private final String[] ampm;
+
+    /**
+     * Creates a compiled form of the given format, which must not be
+     * modified afterwards.  The compiled pattern is null if the fields
+     * cannot be computed directly.
+     */
+    CompiledDateFormat(SimpleDateFormat format, char[] compiledPattern,
+                       DateFormatSymbols symbols, char zero) {
+        this.format = format;
+        this.formats = ThreadLocal.withInitial(
+            () -> (SimpleDateFormat) format.clone());
+        this.pattern = compiledPattern;
+        this.zone = (TimeZone) format.getTimeZone().clone();
+        this.zero = zero;
+        this.eras = symbols.getEras();
+        this.months = symbols.getMonths();
+        this.shortMonths = symbols.getShortMonths();
+        this.weekdays = symbols.getWeekdays();
+        this.shortWeekdays = symbols.getShortWeekdays();
+        this.ampm = symbols.getAmPmStrings();
+    }
+
+    /**
+     * Returns true if the fields of each of the pattern letters of the
+     * given compiled pattern can be computed directly.
+     */
+    static boolean isSupported(char[] compiledPattern,
+                               boolean forceStandaloneForm) {
+        for (int i = 0; i < compiledPattern.length; ) {
+            int tag = compiledPattern[i] >>> 8;
+            int count = compiledPattern[i++] & 0xff;
+            if (count == 255) {
+                count = compiledPattern[i++] << 16;
+                count |= compiledPattern[i++];
+            }
+            switch (tag) {
+            case SimpleDateFormat.TAG_QUOTE_CHARS:
+                i += count;
+                break;
+            case SimpleDateFormat.TAG_QUOTE_ASCII_CHAR:
+            case PATTERN_ERA:
+            case PATTERN_DAY_OF_WEEK:
+            case PATTERN_AM_PM:
+            case PATTERN_ZONE_VALUE:
+            case PATTERN_ISO_ZONE:
+                break;
+            case PATTERN_MONTH:
+                if (count >= 3 && forceStandaloneForm)
+                    return false;
+                // fall through
+            case PATTERN_YEAR:
+            case PATTERN_DAY_OF_MONTH:
+            case PATTERN_HOUR_OF_DAY1:
+            case PATTERN_HOUR_OF_DAY0:
+            case PATTERN_MINUTE:
+            case PATTERN_SECOND:
+            case PATTERN_MILLISECOND:
+            case PATTERN_DAY_OF_YEAR:
+            case PATTERN_DAY_OF_WEEK_IN_MONTH:
+            case PATTERN_HOUR1:
+            case PATTERN_HOUR0:
+            case PATTERN_ISO_DAY_OF_WEEK:
+                // Wider numbers are left to the number format
+                if (count > 20)
+                    return false;
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Formats a time value, given in milliseconds from the epoch, and
+     * appends the result to the given builder.
+     *
+     * @param epochMillis the time value to format
+     * @param result where the text is to be appended
+     * @return the builder
+     */
+    public StringBuilder format(long epochMillis, StringBuilder result) {
+        if (pattern == null || !append(result, epochMillis))
+            result.append(formats.get().format(new Date(epochMillis)));
+        return result;
+    }
+
+    /**
+     * Formats a date and appends the result to the given builder.
+     *
+     * @param date the date to format
+     * @param result where the text is to be appended
+     * @return the builder
+     */
+    public StringBuilder format(Date date, StringBuilder result) {
+        return format(date.getTime(), result);
+    }
+
+    /**
+     * Formats a time value, given in milliseconds from the epoch.
+     *
+     * @param epochMillis the time value to format
+     * @return the formatted string
+     */
+    public String format(long epochMillis) {
+        return format(epochMillis, new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats a date.
+     *
+     * @param date the date to format
+     * @return the formatted string
+     */
+    public String format(Date date) {
+        return format(date.getTime(), new StringBuilder()).toString();
+    }
+
+    /**
+     * Returns the time zone dates are formatted in.
+     *
+     * @return a copy of the time zone
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * Returns a new date format with the pattern, symbols and settings
+     * this format was compiled from.
+     *
+     * @return a new date format
+     */
+    public SimpleDateFormat toFormat() {
+        return (SimpleDateFormat) format.clone();
+    }
+
+    /**
+     * Returns the pattern this format was compiled from.
+     *
+     * @return the pattern
+     */
+    @Override
+    public String toString() {
+        return format.toPattern();
+    }
+
+    /**
+     * Appends a time value whose local date lies in the supported range,
+     * returning false otherwise.
+     */
+    private boolean append(StringBuilder result, long epochMillis) {
+        int offset = zone.getOffset(epochMillis);
+        long local = epochMillis + offset;
+        if (local < MIN_LOCAL_MILLIS || local > MAX_LOCAL_MILLIS)
+            return false;
+        long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(local, MILLIS_PER_DAY);
+
+        // Shift to a year starting in March, so that the leap day is last
+        long z = epochDay + 719468;
+        int era = (int) Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                         - dayOfEra / 146096) / 365;
+        int dayOfShiftedYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4
+                                           - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfShiftedYear + 2) / 153;
+        int dayOfMonth = dayOfShiftedYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = (shiftedMonth < 10) ? shiftedMonth + 2 : shiftedMonth - 10;
+        int year = yearOfEra + era * 400 + ((month < 2) ? 1 : 0);
+
+        boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+        int dayOfYear = DAYS_BEFORE_MONTH[month] + dayOfMonth
+            + ((leap && month >= 2) ? 1 : 0);
+        int dayOfWeek = (int) Math.floorMod(epochDay + 4, 7L) + 1; // SUNDAY == 1
+        int hour = millisOfDay / 3600000;
+        int minute = millisOfDay / 60000 % 60;
+        int second = millisOfDay / 1000 % 60;
+        int millis = millisOfDay % 1000;
+
+        char[] pattern = this.pattern;
+        for (int i = 0; i < pattern.length; ) {
+            int tag = pattern[i] >>> 8;
+            int count = pattern[i++] & 0xff;
+            if (count == 255) {
+                count = pattern[i++] << 16;
+                count |= pattern[i++];
+            }
+
+            switch (tag) {
+            case SimpleDateFormat.TAG_QUOTE_ASCII_CHAR:
+                result.append((char)count);
+                break;
+            case SimpleDateFormat.TAG_QUOTE_CHARS:
+                result.append(pattern, i, count);
+                i += count;
+                break;
+            case PATTERN_ERA:
+                // Only dates of the AD era are supported
+                if (eras.length > 1)
+                    result.append(eras[1]);
+                break;
+            case PATTERN_YEAR:
+                if (count != 2)
+                    appendNumber(result, year, count);
+                else
+                    appendNumber(result, year % 100, 2);
+                break;
+            case PATTERN_MONTH:
+                if (count >= 4)
+                    result.append(months[month]);
+                else if (count == 3)
+                    result.append(shortMonths[month]);
+                else
+                    appendNumber(result, month + 1, count);
+                break;
+            case PATTERN_DAY_OF_MONTH:
+                appendNumber(result, dayOfMonth, count);
+                break;
+            case PATTERN_HOUR_OF_DAY1:
+                appendNumber(result, (hour == 0) ? 24 : hour, count);
+                break;
+            case PATTERN_HOUR_OF_DAY0:
+                appendNumber(result, hour, count);
+                break;
+            case PATTERN_MINUTE:
+                appendNumber(result, minute, count);
+                break;
+            case PATTERN_SECOND:
+                appendNumber(result, second, count);
+                break;
+            case PATTERN_MILLISECOND:
+                appendNumber(result, millis, count);
+                break;
+            case PATTERN_DAY_OF_WEEK:
+                result.append((count >= 4) ? weekdays[dayOfWeek]
+                                           : shortWeekdays[dayOfWeek]);
+                break;
+            case PATTERN_DAY_OF_YEAR:
+                appendNumber(result, dayOfYear, count);
+                break;
+            case PATTERN_DAY_OF_WEEK_IN_MONTH:
+                appendNumber(result, (dayOfMonth - 1) / 7 + 1, count);
+                break;
+            case PATTERN_AM_PM:
+                result.append(ampm[(hour < 12) ? 0 : 1]);
+                break;
+            case PATTERN_HOUR1:
+                appendNumber(result, (hour % 12 == 0) ? 12 : hour % 12, count);
+                break;
+            case PATTERN_HOUR0:
+                appendNumber(result, hour % 12, count);
+                break;
+            case PATTERN_ISO_DAY_OF_WEEK:
+                appendNumber(result, (dayOfWeek == 1) ? 7 : dayOfWeek - 1,
+                             count);
+                break;
+            case PATTERN_ZONE_VALUE: {
+                // "-/+hhmm"
+                int value = offset / 60000;
+                int width = 4;
+                if (value >= 0) {
+                    result.append('+');
+                } else {
+                    width++;
+                }
+                CalendarUtils.sprintf0d(result,
+                                        (value / 60) * 100 + (value % 60), width);
+                break;
+            }
+            case PATTERN_ISO_ZONE: {
+                if (offset == 0) {
+                    result.append('Z');
+                    break;
+                }
+                int value = offset / 60000;
+                if (value >= 0) {
+                    result.append('+');
+                } else {
+                    result.append('-');
+                    value = -value;
+                }
+                CalendarUtils.sprintf0d(result, value / 60, 2);
+                if (count == 1)
+                    break;
+                if (count == 3)
+                    result.append(':');
+                CalendarUtils.sprintf0d(result, value % 60, 2);
+                break;
+            }
+            default:
+                throw new InternalError("Unsupported pattern letter " + tag);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a non-negative number in the digits of the number format,
+     * padded with zeros to the given number of digits.
+     */
+    private void appendNumber(StringBuilder result, int value, int minDigits) {
+        int digits = 1;
+        for (int n = value; n >= 10; n /= 10)
+            digits++;
+        for (int i = digits; i < minDigits; i++)
+            result.append(zero);
+        int start = result.length();
+        result.append(value);
+        if (zero != '0') {
+            int delta = zero - '0';
+            for (int i = start; i < start + digits; i++)
+                result.setCharAt(i, (char)(result.charAt(i) + delta));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.text;
+
+import java.math.RoundingMode;
+
+/**
+ * An immutable, thread-safe form of a {@link DecimalFormat}, obtained
+ * from {@link DecimalFormat#compile()}.
+ *
+ * <p> A compiled format formats numbers exactly as the decimal format it
+ * was compiled from did at the time, without the synchronization, the
+ * <code>FieldPosition</code> and the <code>StringBuffer</code> that the
+ * <code>Format</code> methods require.  It can therefore be kept in a
+ * static field and shared by any number of threads, where a decimal
+ * format has to be confined to one thread or cloned for each use:
+ *
+ * <blockquote><pre>{@code
+ * static final CompiledDecimalFormat AMOUNT =
+ *     new DecimalFormat("#,##0.00").compile();
+ *
+ * AMOUNT.format(total, sb);
+ * }</pre></blockquote>
+ *
+ * <p> Numbers are written directly to the given
+ * <code>StringBuilder</code> when the pattern has no exponent and no
+ * multiplier, which covers the usual grouping and fraction patterns.
+ * <code>long</code> values are written this way whatever the rounding
+ * mode, and <code>double</code> values whenever the rounding mode is
+ * {@link RoundingMode#HALF_EVEN HALF_EVEN}, {@link RoundingMode#HALF_UP
+ * HALF_UP} or {@link RoundingMode#HALF_DOWN HALF_DOWN} and the value does
+ * not lie too close to the midpoint between two results.  Other values,
+ * and all values of other patterns, are formatted by a copy of the
+ * original decimal format that is confined to the current thread.
+ *
+ * @see DecimalFormat#compile()
+ * @since 1.8
+ */
+public final class CompiledDecimalFormat {
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
+    // Scaled doubles at least this large may have lost the digit that
+    // decides the rounding
+    private static final double MAX_SCALED = 1e12;
+
+    // Scaled doubles this close to a midpoint may round either way
+    private static final double MIDPOINT_MARGIN = 1e-3;
+
+    private final DecimalFormat format;
+    private final ThreadLocal<DecimalFormat> formats;
+
+    private final boolean fast;
+    private final boolean roundsToNearest;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final char zero;
+    private final char grouping;
+    private final char decimal;
+    private final int groupingSize;
+    private final boolean decimalSeparatorAlwaysShown;
+    private final int minIntDigits;
+    private final int maxIntDigits;
+    private final int minFraDigits;
+    private final int maxFraDigits;
+
+    /**
+     * Creates a compiled form of the given format, which must not be
+     * modified afterwards.
+     */
+    CompiledDecimalFormat(DecimalFormat format, boolean isCurrencyFormat,
+                          boolean useExponentialNotation) {
+        this.format = format;
+        this.formats = ThreadLocal.withInitial(
+            () -> (DecimalFormat) format.clone());
+
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        positivePrefix = format.getPositivePrefix();
+        positiveSuffix = format.getPositiveSuffix();
+        negativePrefix = format.getNegativePrefix();
+        negativeSuffix = format.getNegativeSuffix();
+        zero = symbols.getZeroDigit();
+        grouping = symbols.getGroupingSeparator();
+        decimal = isCurrencyFormat ? symbols.getMonetaryDecimalSeparator()
+                                   : symbols.getDecimalSeparator();
+        groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+        decimalSeparatorAlwaysShown = format.isDecimalSeparatorAlwaysShown();
+        minIntDigits = format.getMinimumIntegerDigits();
+        maxIntDigits = format.getMaximumIntegerDigits();
+        minFraDigits = format.getMinimumFractionDigits();
+        maxFraDigits = format.getMaximumFractionDigits();
+
+        RoundingMode mode = format.getRoundingMode();
+        roundsToNearest = (mode == RoundingMode.HALF_EVEN
+                           || mode == RoundingMode.HALF_UP
+                           || mode == RoundingMode.HALF_DOWN);
+        fast = !useExponentialNotation && format.getMultiplier() == 1
+            && minIntDigits < POWERS_OF_TEN.length
+            && minFraDigits < POWERS_OF_TEN.length;
+    }
+
+    /**
+     * Formats a long and appends the result to the given builder.
+     *
+     * @param number the long to format
+     * @param result where the text is to be appended
+     * @return the builder
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to RoundingMode.UNNECESSARY
+     */
+    public StringBuilder format(long number, StringBuilder result) {
+        if (!fast || number == Long.MIN_VALUE
+            || !append(result, number < 0, Math.abs(number), 0, 0)) {
+            result.append(formats.get().format(number));
+        }
+        return result;
+    }
+
+    /**
+     * Formats a double and appends the result to the given builder.
+     *
+     * @param number the double to format
+     * @param result where the text is to be appended
+     * @return the builder
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to RoundingMode.UNNECESSARY
+     */
+    public StringBuilder format(double number, StringBuilder result) {
+        if (!fast || !appendDouble(result, number))
+            result.append(formats.get().format(number));
+        return result;
+    }
+
+    /**
+     * Formats a long.
+     *
+     * @param number the long to format
+     * @return the formatted string
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to RoundingMode.UNNECESSARY
+     */
+    public String format(long number) {
+        return format(number, new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats a double.
+     *
+     * @param number the double to format
+     * @return the formatted string
+     * @exception ArithmeticException if rounding is needed with rounding
+     *            mode being set to RoundingMode.UNNECESSARY
+     */
+    public String format(double number) {
+        return format(number, new StringBuilder()).toString();
+    }
+
+    /**
+     * Returns a new decimal format with the pattern, symbols and settings
+     * this format was compiled from.
+     *
+     * @return a new decimal format
+     */
+    public DecimalFormat toFormat() {
+        return (DecimalFormat) format.clone();
+    }
+
+    /**
+     * Returns the pattern this format was compiled from.
+     *
+     * @return the pattern
+     */
+    @Override
+    public String toString() {
+        return format.toPattern();
+    }
+
+    /**
+     * Appends a double if its rounding can be decided exactly, returning
+     * false otherwise.
+     */
+    private boolean appendDouble(StringBuilder result, double number) {
+        if (Double.isNaN(number) || Double.isInfinite(number))
+            return false;
+        // -0.0 keeps its sign, as it does in DecimalFormat
+        boolean isNegative = number < 0.0 || (number == 0.0 && 1/number < 0.0);
+        double value = Math.abs(number);
+        if (value == Math.rint(value) && value < 1e15)
+            return append(result, isNegative, (long) value, 0, 0);
+        if (!roundsToNearest || maxFraDigits >= POWERS_OF_TEN.length)
+            return false;
+        long scale = POWERS_OF_TEN[maxFraDigits];
+        double scaled = value * scale;
+        if (scaled >= MAX_SCALED)
+            return false;
+        double rounded = Math.rint(scaled);
+        if (Math.abs(scaled - rounded) > 0.5 - MIDPOINT_MARGIN)
+            return false;
+        long digits = (long) rounded;
+        return append(result, isNegative, digits / scale, digits % scale,
+                      maxFraDigits);
+    }
+
+    /**
+     * Appends a number given as its integer part and the given number of
+     * fraction digits, returning false if it has more integer digits than
+     * may be shown.
+     */
+    private boolean append(StringBuilder result, boolean isNegative,
+                           long integer, long fraction, int fractionDigits) {
+        int digits = 0;
+        while (digits < POWERS_OF_TEN.length
+               && integer >= POWERS_OF_TEN[digits])
+            digits++;
+        if (digits > maxIntDigits)
+            return false;
+
+        // Only significant fraction digits are shown beyond the minimum
+        if (fractionDigits < minFraDigits)
+            fractionDigits = minFraDigits;   // the fraction is zero
+        while (fractionDigits > minFraDigits && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        int zeroDelta = zero - '0';
+
+        result.append(isNegative ? negativePrefix : positivePrefix);
+        int count = Math.max(minIntDigits, digits);
+        for (int i = count - 1; i >= 0; --i) {
+            int digit = (i < digits)
+                ? (int) (integer / POWERS_OF_TEN[i] % 10) : 0;
+            result.append((char) ('0' + digit + zeroDelta));
+            if (i > 0 && groupingSize != 0 && i % groupingSize == 0)
+                result.append(grouping);
+        }
+        boolean fractionPresent = fractionDigits > 0;
+        if (!fractionPresent && count == 0)
+            result.append(zero);
+        if (decimalSeparatorAlwaysShown || fractionPresent)
+            result.append(decimal);
+        for (int i = fractionDigits - 1; i >= 0; --i) {
+            int digit = (int) (fraction / POWERS_OF_TEN[i] % 10);
+            result.append((char) ('0' + digit + zeroDelta));
+        }
+        result.append(isNegative ? negativeSuffix : positiveSuffix);
+        return true;
+    }
+}
@@ -2693,6 +2693,37 @@ public class DecimalFormat extends NumberFormat {
         return other;
     }
 
+    /**
+     * Returns an immutable, thread-safe form of this format with its
+     * current pattern, symbols and settings.  Later changes to this
+     * format do not affect the compiled form.
+     *
+     * @return a compiled form of this format
+     * @see CompiledDecimalFormat
+     * @since 1.8
+     */
+    public CompiledDecimalFormat compile() {
+        return new CompiledDecimalFormat((DecimalFormat) clone(),
+                                         isCurrencyFormat,
+                                         useExponentialNotation);
+    }
+
+    /**
+     * Returns the zero digit if this format writes a non-negative long as
+     * its digits alone, with no affixes, grouping, decimal separator,
+     * fraction digits, exponent or multiplier, or 0 otherwise.
+     * SimpleDateFormat writes such numbers itself.
+     */
+    char plainZeroDigit() {
+        if ((isGroupingUsed() && groupingSize > 0) || useExponentialNotation
+            || decimalSeparatorAlwaysShown || getMinimumFractionDigits() > 0
+            || multiplier != 1 || !positivePrefix.isEmpty()
+            || !positiveSuffix.isEmpty()) {
+            return 0;
+        }
+        return symbols.getZeroDigit();
+    }
+
     /**
      * Overrides equals
      */
@@ -483,8 +483,8 @@ public class SimpleDateFormat extends DateFormat {
     /**
      * Tags for the compiled pattern.
      */
-    private final static int TAG_QUOTE_ASCII_CHAR       = 100;
-    private final static int TAG_QUOTE_CHARS            = 101;
+    final static int TAG_QUOTE_ASCII_CHAR       = 100;
+    final static int TAG_QUOTE_CHARS            = 101;
 
     /**
      * Locale dependent digit zero.
@@ -2326,6 +2326,36 @@ public class SimpleDateFormat extends DateFormat {
         return other;
     }
 
+    /**
+     * Returns an immutable, thread-safe form of this date format, which
+     * formats dates the way this format does now.  Later changes to this
+     * format, its calendar or its number format do not affect the
+     * compiled format.
+     *
+     * @return a compiled form of this date format
+     * @see CompiledDateFormat
+     * @since 1.8
+     */
+    public CompiledDateFormat compile() {
+        SimpleDateFormat format = (SimpleDateFormat) clone();
+        DateFormatSymbols symbols = useDateFormatSymbols()
+            ? format.formatData : DateFormatSymbols.getInstance(locale);
+
+        char zero = 0;
+        if (format.numberFormat.getClass() == DecimalFormat.class) {
+            zero = ((DecimalFormat) format.numberFormat).plainZeroDigit();
+        }
+        boolean gregorian = format.calendar.getClass() == GregorianCalendar.class
+            && ((GregorianCalendar) format.calendar).getGregorianChange().getTime()
+               == CompiledDateFormat.DEFAULT_GREGORIAN_CUTOVER;
+        char[] pattern = null;
+        if (zero != 0 && gregorian
+            && CompiledDateFormat.isSupported(compiledPattern, forceStandaloneForm)) {
+            pattern = compiledPattern.clone();
+        }
+        return new CompiledDateFormat(format, pattern, symbols, zero);
+    }
+
     /**
      * Returns the hash code value for this <code>SimpleDateFormat</code> object.
      *
@@ -65,6 +65,7 @@ import static java.time.temporal.ChronoField.DAY_OF_MONTH;
 import static java.time.temporal.ChronoField.DAY_OF_WEEK;
 import static java.time.temporal.ChronoField.DAY_OF_YEAR;
 import static java.time.temporal.ChronoField.HOUR_OF_DAY;
+import static java.time.temporal.ChronoField.INSTANT_SECONDS;
 import static java.time.temporal.ChronoField.MINUTE_OF_HOUR;
 import static java.time.temporal.ChronoField.MONTH_OF_YEAR;
 import static java.time.temporal.ChronoField.NANO_OF_SECOND;
@@ -77,12 +78,16 @@ import java.text.Format;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.Period;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.chrono.Chronology;
 import java.time.chrono.IsoChronology;
 import java.time.format.DateTimeFormatterBuilder.CompositePrinterParser;
+import java.time.format.DateTimeFormatterBuilder.FixedWidthPrinterParser;
 import java.time.temporal.ChronoField;
 import java.time.temporal.IsoFields;
 import java.time.temporal.TemporalAccessor;
@@ -486,6 +491,10 @@ public final class DateTimeFormatter {
      * The printer and/or parser to use, not null.
      */
     private final CompositePrinterParser printerParser;
+    /**
+     * The fixed-width form of the printer/parser, null if there is none.
+     */
+    private final FixedWidthPrinterParser fixedWidthPrinterParser;
     /**
      * The locale to use for formatting, not null.
      */
@@ -1362,6 +1371,7 @@ public final class DateTimeFormatter {
      * Constructor.
      *
      * @param printerParser  the printer/parser to use, not null
+     * @param fixedWidthPrinterParser  the fixed-width form of the printer/parser, null if none
      * @param locale  the locale to use, not null
      * @param decimalStyle  the DecimalStyle to use, not null
      * @param resolverStyle  the resolver style to use, not null
@@ -1370,10 +1380,12 @@ public final class DateTimeFormatter {
      * @param zone  the zone to use, null for no override
      */
     DateTimeFormatter(CompositePrinterParser printerParser,
+            FixedWidthPrinterParser fixedWidthPrinterParser,
             Locale locale, DecimalStyle decimalStyle,
             ResolverStyle resolverStyle, Set<TemporalField> resolverFields,
             Chronology chrono, ZoneId zone) {
         this.printerParser = Objects.requireNonNull(printerParser, "printerParser");
+        this.fixedWidthPrinterParser = fixedWidthPrinterParser;
         this.resolverFields = resolverFields;
         this.locale = Objects.requireNonNull(locale, "locale");
         this.decimalStyle = Objects.requireNonNull(decimalStyle, "decimalStyle");
@@ -1410,7 +1422,7 @@ public final class DateTimeFormatter {
         if (this.locale.equals(locale)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1435,7 +1447,7 @@ public final class DateTimeFormatter {
         if (this.decimalStyle.equals(decimalStyle)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1489,7 +1501,7 @@ public final class DateTimeFormatter {
         if (Objects.equals(this.chrono, chrono)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1546,7 +1558,7 @@ public final class DateTimeFormatter {
         if (Objects.equals(this.zone, zone)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1588,7 +1600,7 @@ public final class DateTimeFormatter {
         if (Objects.equals(this.resolverStyle, resolverStyle)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1653,7 +1665,7 @@ public final class DateTimeFormatter {
         if (Objects.equals(this.resolverFields, fields)) {
             return this;
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, fields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, fields, chrono, zone);
     }
 
     /**
@@ -1702,7 +1714,7 @@ public final class DateTimeFormatter {
         if (resolverFields != null) {
             resolverFields = Collections.unmodifiableSet(new HashSet<>(resolverFields));
         }
-        return new DateTimeFormatter(printerParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
+        return new DateTimeFormatter(printerParser, fixedWidthPrinterParser, locale, decimalStyle, resolverStyle, resolverFields, chrono, zone);
     }
 
     //-----------------------------------------------------------------------
@@ -1755,6 +1767,39 @@ public final class DateTimeFormatter {
         }
     }
 
+    /**
+     * Formats an instant at an offset using this formatter, appending to a builder.
+     * <p>
+     * This is equivalent to formatting
+     * {@code OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nanoOfSecond), offset)}
+     * to the builder, but avoids creating the date-time objects.
+     * Formatters made only of literals and numeric ISO fields, fractions of the
+     * second, offset IDs and instants, such as {@link #ISO_LOCAL_DATE_TIME},
+     * {@link #ISO_OFFSET_DATE_TIME} and {@link #ISO_INSTANT}, format the
+     * instant directly for years from 1 to 9999.
+     *
+     * @param epochSecond  the epoch-second of the instant
+     * @param nanoOfSecond  the nano-of-second of the instant, from 0 to 999,999,999
+     * @param offset  the offset to format the instant at, not null
+     * @param buf  the builder to append to, not null
+     * @throws DateTimeException if an error occurs during formatting
+     * @since 1.8
+     */
+    public void formatTo(long epochSecond, int nanoOfSecond, ZoneOffset offset, StringBuilder buf) {
+        Objects.requireNonNull(offset, "offset");
+        Objects.requireNonNull(buf, "buf");
+        NANO_OF_SECOND.checkValidValue(nanoOfSecond);
+        FixedWidthPrinterParser fixedWidth = fixedWidthPrinterParser();
+        if (fixedWidth != null) {
+            int length = buf.length();
+            if (fixedWidth.format(epochSecond, nanoOfSecond, offset, buf)) {
+                return;
+            }
+            buf.setLength(length);
+        }
+        formatTo(OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nanoOfSecond), offset), buf);
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Fully parses the text producing a temporal object.
@@ -1910,6 +1955,77 @@ public final class DateTimeFormatter {
         }
     }
 
+    /**
+     * Fully parses a region of the text to an instant, returning its epoch-second.
+     * <p>
+     * This parses the text from {@code start} to {@code end}, which must be
+     * parsed entirely, to an instant. If the parsed text has no instant, the
+     * local date-time it contains is taken to be at the specified offset.
+     * The nano-of-second of the instant is stored in the first element of the
+     * {@code nanoOfSecond} array, if one is specified.
+     * <p>
+     * The result is the same as parsing the region with {@link #parse(CharSequence)}
+     * and converting the parsed result to an {@code Instant}, but avoids creating
+     * the region, the parsed fields and the date-time objects.
+     * Formatters made only of literals and numeric ISO fields, fractions of the
+     * second, offset IDs and instants, such as {@link #ISO_LOCAL_DATE_TIME},
+     * {@link #ISO_OFFSET_DATE_TIME} and {@link #ISO_INSTANT}, parse valid text
+     * with four digit years directly.
+     *
+     * @param text  the text to parse, not null
+     * @param start  the start index of the region, inclusive
+     * @param end  the end index of the region, exclusive
+     * @param offset  the offset of a parsed local date-time, not null
+     * @param nanoOfSecond  the array to store the nano-of-second in, null to ignore it
+     * @return the epoch-second of the parsed instant
+     * @throws DateTimeParseException if unable to parse the requested result
+     * @throws IndexOutOfBoundsException if the region is invalid
+     * @since 1.8
+     */
+    public long parseEpochSecond(CharSequence text, int start, int end, ZoneOffset offset, int[] nanoOfSecond) {
+        Objects.requireNonNull(text, "text");
+        Objects.requireNonNull(offset, "offset");
+        if (start < 0 || start > end || end > text.length()) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + text.length());
+        }
+        FixedWidthPrinterParser fixedWidth = fixedWidthPrinterParser();
+        if (fixedWidth != null) {
+            long epochSecond = fixedWidth.parse(text, start, end, offset, resolverStyle, nanoOfSecond);
+            if (epochSecond != FixedWidthPrinterParser.FAILED) {
+                return epochSecond;
+            }
+        }
+        CharSequence region = text.subSequence(start, end);
+        try {
+            TemporalAccessor parsed = parseResolved0(region, null);
+            Instant instant = (parsed.isSupported(INSTANT_SECONDS) ? Instant.from(parsed) :
+                    LocalDateTime.from(parsed).toInstant(offset));
+            if (nanoOfSecond != null) {
+                nanoOfSecond[0] = instant.getNano();
+            }
+            return instant.getEpochSecond();
+        } catch (DateTimeParseException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw createError(region, ex);
+        }
+    }
+
+    /**
+     * Returns the fixed-width form of the printer/parser if the settings of
+     * this formatter allow it to be used, null otherwise.
+     *
+     * @return the fixed-width printer/parser, null if it cannot be used
+     */
+    private FixedWidthPrinterParser fixedWidthPrinterParser() {
+        if (fixedWidthPrinterParser == null || zone != null || resolverFields != null ||
+                (chrono != null && chrono != IsoChronology.INSTANCE) ||
+                decimalStyle.equals(DecimalStyle.STANDARD) == false) {
+            return null;
+        }
+        return fixedWidthPrinterParser;
+    }
+
     private DateTimeParseException createError(CharSequence text, RuntimeException ex) {
         String abbr;
         if (text.length() > 64) {
@@ -2068,13 +2068,29 @@ public final class DateTimeFormatterBuilder {
      * @return the created formatter, not null
      */
     private DateTimeFormatter toFormatter(Locale locale, ResolverStyle resolverStyle, Chronology chrono) {
+        return toFormatter(locale, resolverStyle, chrono, true);
+    }
+
+    /**
+     * Completes this builder by creating the formatter.
+     * <p>
+     * Formatters that are only used for their printer-parser, such as those
+     * built while parsing an instant, skip compiling the fixed-width form.
+     *
+     * @param locale  the locale to use for formatting, not null
+     * @param chrono  the chronology to use, may be null
+     * @param fixedWidth  whether to compile the fixed-width form of the formatter
+     * @return the created formatter, not null
+     */
+    private DateTimeFormatter toFormatter(Locale locale, ResolverStyle resolverStyle, Chronology chrono,
+                                          boolean fixedWidth) {
         Objects.requireNonNull(locale, "locale");
         while (active.parent != null) {
             optionalEnd();
         }
         CompositePrinterParser pp = new CompositePrinterParser(printerParsers, false);
-        return new DateTimeFormatter(pp, locale, DecimalStyle.STANDARD,
-                resolverStyle, null, chrono, null);
+        return new DateTimeFormatter(pp, fixedWidth ? FixedWidthPrinterParser.of(pp) : null,
+                locale, DecimalStyle.STANDARD, resolverStyle, null, chrono, null);
     }
 
     //-----------------------------------------------------------------------
@@ -2228,6 +2244,791 @@ public final class DateTimeFormatterBuilder {
         }
     }
 
+    //-----------------------------------------------------------------------
+    /**
+     * Fixed-width form of a composite printer-parser, formatting and parsing
+     * instants without a context, a map of parsed fields or boxed values.
+     * <p>
+     * A formatter is compiled to this form when it is made only of literals,
+     * fixed-width and ISO year values of the ISO date and time fields,
+     * fractions of the second, offset IDs and instants, such as the
+     * ISO local date-time, offset date-time and instant formatters.
+     * <p>
+     * Each method only succeeds where the composite printer-parser would
+     * give exactly the same result, and reports failure otherwise, leaving
+     * the caller to use the composite printer-parser, which also produces
+     * the errors. It assumes a strict parse, the standard decimal style,
+     * the ISO chronology and no override zone.
+     */
+    static final class FixedWidthPrinterParser {
+        /**
+         * The result of a parse that failed or needs the composite printer-parser.
+         */
+        static final long FAILED = Long.MIN_VALUE;
+
+        // Instructions, followed by their operands
+        private static final int LITERAL = 0;         // char
+        private static final int VALUE = 1;           // field, minWidth, maxWidth, subsequentWidth, exceedsPad
+        private static final int FRACTION = 2;        // minWidth, maxWidth, decimalPoint
+        private static final int OFFSET = 3;          // type, noOffsetText index
+        private static final int INSTANT = 4;         // fractionalDigits, index after the instant end
+        private static final int INSTANT_END = 5;
+        private static final int OPTIONAL_START = 6;  // index after the optional end
+        private static final int OPTIONAL_END = 7;
+
+        // Parsed fields, as bit numbers
+        private static final int YEAR_FIELD = 0;
+        private static final int YEAR_OF_ERA_FIELD = 1;
+        private static final int MONTH_FIELD = 2;
+        private static final int DAY_FIELD = 3;
+        private static final int HOUR_FIELD = 4;
+        private static final int MINUTE_FIELD = 5;
+        private static final int SECOND_FIELD = 6;
+        private static final int NANO_FIELD = 7;
+        private static final int OFFSET_FIELD = 8;
+        private static final int INSTANT_FIELD = 9;
+        private static final TemporalField[] FIELDS = {
+            YEAR, ChronoField.YEAR_OF_ERA, MONTH_OF_YEAR, DAY_OF_MONTH,
+            HOUR_OF_DAY, MINUTE_OF_HOUR, SECOND_OF_MINUTE,
+        };
+        private static final int DATE_TIME_FIELDS =
+                1 << MONTH_FIELD | 1 << DAY_FIELD | 1 << HOUR_FIELD;
+
+        // Results of parsing an element that did not succeed
+        private static final long NO_MATCH = -1;
+        private static final long UNDECIDED = -2;
+        // The value of a fraction that was not present
+        private static final int NO_FRACTION = 1 << 30;
+
+        private static final int MAX_OPTIONAL_DEPTH = 2;
+        private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+        private static final int SECONDS_PER_DAY = 86400;
+        private static final long DAYS_0000_TO_1970 = (146097L * 5L) - (30L * 365L + 7L);
+        // 0001-01-01 and 9999-12-31
+        private static final long MIN_EPOCH_DAY = -719162L;
+        private static final long MAX_EPOCH_DAY = 2932896L;
+        private static final int[] POWERS_OF_TEN = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000,
+        };
+
+        private final int[] code;
+        private final String[] noOffsetTexts;
+
+        private FixedWidthPrinterParser(int[] code, String[] noOffsetTexts) {
+            this.code = code;
+            this.noOffsetTexts = noOffsetTexts;
+        }
+
+        /**
+         * Compiles a composite printer-parser.
+         *
+         * @param printerParser  the printer-parser to compile, not null
+         * @return the fixed-width printer-parser, null if the printer-parser cannot be compiled
+         */
+        static FixedWidthPrinterParser of(CompositePrinterParser printerParser) {
+            List<Integer> code = new ArrayList<>();
+            List<String> noOffsetTexts = new ArrayList<>();
+            int fields = compile(printerParser.printerParsers, code, noOffsetTexts, 0);
+            if (fields < 0) {
+                return null;
+            }
+            if ((fields & 1 << INSTANT_FIELD) != 0) {
+                if (fields != 1 << INSTANT_FIELD) {
+                    return null;  // an instant is parsed in a context of its own
+                }
+            } else if ((fields & DATE_TIME_FIELDS) != DATE_TIME_FIELDS ||
+                    (fields & (1 << YEAR_FIELD | 1 << YEAR_OF_ERA_FIELD)) == 0) {
+                return null;  // never resolves to an instant
+            }
+            int[] array = new int[code.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = code.get(i);
+            }
+            return new FixedWidthPrinterParser(array, noOffsetTexts.toArray(new String[noOffsetTexts.size()]));
+        }
+
+        /**
+         * Compiles printer-parsers, returning the bits of the fields used,
+         * or -1 if they cannot be compiled.
+         */
+        private static int compile(DateTimePrinterParser[] printerParsers,
+                List<Integer> code, List<String> noOffsetTexts, int depth) {
+            int fields = 0;
+            for (DateTimePrinterParser pp : printerParsers) {
+                if (pp instanceof CharLiteralPrinterParser) {
+                    code.add(LITERAL);
+                    code.add((int) ((CharLiteralPrinterParser) pp).literal);
+                } else if (pp instanceof StringLiteralPrinterParser) {
+                    String literal = ((StringLiteralPrinterParser) pp).literal;
+                    for (int i = 0; i < literal.length(); i++) {
+                        code.add(LITERAL);
+                        code.add((int) literal.charAt(i));
+                    }
+                } else if (pp == SettingsParser.SENSITIVE || pp == SettingsParser.INSENSITIVE ||
+                        pp == SettingsParser.STRICT) {
+                    // literals that differ only in case are left to the composite
+                } else if (pp.getClass() == NumberPrinterParser.class) {
+                    NumberPrinterParser npp = (NumberPrinterParser) pp;
+                    int field = Arrays.asList(FIELDS).indexOf(npp.field);
+                    boolean fixedWidth = npp.minWidth == npp.maxWidth &&
+                            npp.signStyle == SignStyle.NOT_NEGATIVE;
+                    if (field < 0 || npp.minWidth > 9 ||
+                            (fixedWidth == false && npp.signStyle != SignStyle.EXCEEDS_PAD)) {
+                        return -1;
+                    }
+                    addValue(code, field, npp.minWidth, npp.maxWidth,
+                            Math.max(npp.subsequentWidth, 0), !fixedWidth);
+                    fields |= 1 << field;
+                } else if (pp instanceof FractionPrinterParser) {
+                    FractionPrinterParser fpp = (FractionPrinterParser) pp;
+                    if (fpp.field != NANO_OF_SECOND) {
+                        return -1;
+                    }
+                    addFraction(code, fpp.minWidth, fpp.maxWidth, fpp.decimalPoint);
+                    fields |= 1 << NANO_FIELD;
+                } else if (pp instanceof OffsetIdPrinterParser) {
+                    OffsetIdPrinterParser opp = (OffsetIdPrinterParser) pp;
+                    if (opp.noOffsetText.isEmpty()) {
+                        return -1;
+                    }
+                    code.add(OFFSET);
+                    code.add(opp.type);
+                    code.add(noOffsetTexts.size());
+                    noOffsetTexts.add(opp.noOffsetText);
+                    fields |= 1 << OFFSET_FIELD;
+                } else if (pp instanceof InstantPrinterParser) {
+                    // the instant is parsed as the fields of an ISO date-time in UTC,
+                    // which cannot have a fraction of no digits
+                    int fractionalDigits = ((InstantPrinterParser) pp).fractionalDigits;
+                    if (depth > 0 || (fields & 1 << INSTANT_FIELD) != 0 || fractionalDigits == 0) {
+                        return -1;
+                    }
+                    int start = code.size();
+                    code.add(INSTANT);
+                    code.add(fractionalDigits);
+                    code.add(0);
+                    addValue(code, YEAR_FIELD, 4, 10, 0, true);
+                    addLiteral(code, '-');
+                    addValue(code, MONTH_FIELD, 2, 2, 0, false);
+                    addLiteral(code, '-');
+                    addValue(code, DAY_FIELD, 2, 2, 0, false);
+                    addLiteral(code, 'T');
+                    addValue(code, HOUR_FIELD, 2, 2, 0, false);
+                    addLiteral(code, ':');
+                    addValue(code, MINUTE_FIELD, 2, 2, 0, false);
+                    addLiteral(code, ':');
+                    addValue(code, SECOND_FIELD, 2, 2, 0, false);
+                    addFraction(code, Math.max(fractionalDigits, 0),
+                            fractionalDigits < 0 ? 9 : fractionalDigits, true);
+                    addLiteral(code, 'Z');
+                    code.add(INSTANT_END);
+                    code.set(start + 2, code.size());
+                    fields |= 1 << INSTANT_FIELD;
+                } else if (pp instanceof CompositePrinterParser) {
+                    CompositePrinterParser cpp = (CompositePrinterParser) pp;
+                    int start = code.size();
+                    int nestedDepth = depth;
+                    if (cpp.optional) {
+                        nestedDepth++;
+                        if (nestedDepth > MAX_OPTIONAL_DEPTH) {
+                            return -1;
+                        }
+                        code.add(OPTIONAL_START);
+                        code.add(0);
+                    }
+                    int nested = compile(cpp.printerParsers, code, noOffsetTexts, nestedDepth);
+                    if (nested < 0) {
+                        return -1;
+                    }
+                    if (cpp.optional) {
+                        code.add(OPTIONAL_END);
+                        code.set(start + 1, code.size());
+                    }
+                    fields |= nested;
+                } else {
+                    return -1;
+                }
+            }
+            return fields;
+        }
+
+        private static void addLiteral(List<Integer> code, char literal) {
+            code.add(LITERAL);
+            code.add((int) literal);
+        }
+
+        private static void addValue(List<Integer> code, int field, int minWidth, int maxWidth,
+                int subsequentWidth, boolean exceedsPad) {
+            code.add(VALUE);
+            code.add(field);
+            code.add(minWidth);
+            code.add(maxWidth);
+            code.add(subsequentWidth);
+            code.add(exceedsPad ? 1 : 0);
+        }
+
+        private static void addFraction(List<Integer> code, int minWidth, int maxWidth, boolean decimalPoint) {
+            code.add(FRACTION);
+            code.add(minWidth);
+            code.add(maxWidth);
+            code.add(decimalPoint ? 1 : 0);
+        }
+
+        //-----------------------------------------------------------------------
+        /**
+         * Formats an instant at an offset.
+         *
+         * @param epochSecond  the epoch-second of the instant
+         * @param nano  the nano-of-second of the instant, from 0 to 999,999,999
+         * @param offset  the offset to format the instant at, not null
+         * @param buf  the buffer to append to, not null
+         * @return true if formatted, false if the composite printer-parser is needed,
+         *  in which case the buffer may have been appended to
+         */
+        boolean format(long epochSecond, int nano, ZoneOffset offset, StringBuilder buf) {
+            int offsetSecs = offset.getTotalSeconds();
+            long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+            if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+                return false;
+            }
+            long localSecond = epochSecond + offsetSecs;
+            long localEpochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+            if (localEpochDay < MIN_EPOCH_DAY || localEpochDay > MAX_EPOCH_DAY) {
+                return false;
+            }
+            int date = toDate(localEpochDay);
+            int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+            int[] code = this.code;
+            int pc = 0;
+            while (pc < code.length) {
+                switch (code[pc]) {
+                    case LITERAL:
+                        buf.append((char) code[pc + 1]);
+                        pc += 2;
+                        break;
+                    case VALUE: {
+                        int value;
+                        switch (code[pc + 1]) {
+                            case YEAR_FIELD:
+                            case YEAR_OF_ERA_FIELD: value = date / 10000; break;
+                            case MONTH_FIELD: value = date / 100 % 100; break;
+                            case DAY_FIELD: value = date % 100; break;
+                            case HOUR_FIELD: value = secondOfDay / 3600; break;
+                            case MINUTE_FIELD: value = secondOfDay / 60 % 60; break;
+                            default: value = secondOfDay % 60; break;
+                        }
+                        int minWidth = code[pc + 2];
+                        if (value >= POWERS_OF_TEN[minWidth]) {
+                            return false;  // needs a sign or is too wide
+                        }
+                        appendPadded(buf, value, minWidth);
+                        pc += 6;
+                        break;
+                    }
+                    case FRACTION:
+                        formatFraction(nano, code[pc + 1], code[pc + 2], code[pc + 3] != 0, buf);
+                        pc += 4;
+                        break;
+                    case OFFSET:
+                        formatOffset(offsetSecs, code[pc + 1], noOffsetTexts[code[pc + 2]], buf);
+                        pc += 3;
+                        break;
+                    case INSTANT:
+                        formatInstant(epochSecond, epochDay, nano, code[pc + 1], buf);
+                        pc = code[pc + 2];
+                        break;
+                    default:
+                        pc++;  // optional sections always print, as all fields are available
+                        break;
+                }
+            }
+            return true;
+        }
+
+        private static void formatInstant(long epochSecond, long epochDay, int nano,
+                int fractionalDigits, StringBuilder buf) {
+            // as InstantPrinterParser for years from 1 to 9999
+            int date = toDate(epochDay);
+            int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+            appendPadded(buf, date / 10000, 4);
+            buf.append('-');
+            appendPadded(buf, date / 100 % 100, 2);
+            buf.append('-');
+            appendPadded(buf, date % 100, 2);
+            buf.append('T');
+            appendPadded(buf, secondOfDay / 3600, 2);
+            buf.append(':');
+            appendPadded(buf, secondOfDay / 60 % 60, 2);
+            buf.append(':');
+            appendPadded(buf, secondOfDay % 60, 2);
+            int inNano = nano;
+            if ((fractionalDigits < 0 && inNano > 0) || fractionalDigits > 0) {
+                buf.append('.');
+                int div = 100_000_000;
+                for (int i = 0; ((fractionalDigits == -1 && inNano > 0) ||
+                                    (fractionalDigits == -2 && (inNano > 0 || (i % 3) != 0)) ||
+                                    i < fractionalDigits); i++) {
+                    int digit = inNano / div;
+                    buf.append((char) (digit + '0'));
+                    inNano = inNano - (digit * div);
+                    div = div / 10;
+                }
+            }
+            buf.append('Z');
+        }
+
+        private static void formatFraction(int nano, int minWidth, int maxWidth,
+                boolean decimalPoint, StringBuilder buf) {
+            // as FractionPrinterParser for the nano-of-second
+            if (nano == 0) {
+                if (minWidth > 0) {
+                    if (decimalPoint) {
+                        buf.append('.');
+                    }
+                    for (int i = 0; i < minWidth; i++) {
+                        buf.append('0');
+                    }
+                }
+            } else {
+                int scale = 9;
+                for (int n = nano; n % 10 == 0; n /= 10) {
+                    scale--;
+                }
+                int outputScale = Math.min(Math.max(scale, minWidth), maxWidth);
+                if (decimalPoint) {
+                    buf.append('.');
+                }
+                appendPadded(buf, nano / POWERS_OF_TEN[9 - outputScale], outputScale);
+            }
+        }
+
+        private static void formatOffset(int totalSecs, int type, String noOffsetText, StringBuilder buf) {
+            // as OffsetIdPrinterParser
+            if (totalSecs == 0) {
+                buf.append(noOffsetText);
+            } else {
+                int absHours = Math.abs((totalSecs / 3600) % 100);
+                int absMinutes = Math.abs((totalSecs / 60) % 60);
+                int absSeconds = Math.abs(totalSecs % 60);
+                int bufPos = buf.length();
+                int output = absHours;
+                buf.append(totalSecs < 0 ? '-' : '+');
+                appendPadded(buf, absHours, 2);
+                if (type >= 3 || (type >= 1 && absMinutes > 0)) {
+                    if ((type % 2) == 0) {
+                        buf.append(':');
+                    }
+                    appendPadded(buf, absMinutes, 2);
+                    output += absMinutes;
+                    if (type >= 7 || (type >= 5 && absSeconds > 0)) {
+                        if ((type % 2) == 0) {
+                            buf.append(':');
+                        }
+                        appendPadded(buf, absSeconds, 2);
+                        output += absSeconds;
+                    }
+                }
+                if (output == 0) {
+                    buf.setLength(bufPos);
+                    buf.append(noOffsetText);
+                }
+            }
+        }
+
+        private static void appendPadded(StringBuilder buf, int value, int width) {
+            for (int i = width - 1; i > 0 && value < POWERS_OF_TEN[i]; i--) {
+                buf.append('0');
+            }
+            buf.append(value);
+        }
+
+        /**
+         * Converts an epoch-day from 0001-01-01 to 9999-12-31 to a date
+         * packed as {@code year * 10000 + month * 100 + day}.
+         */
+        private static int toDate(long epochDay) {
+            // as LocalDate.ofEpochDay, the day being after 0000-03-01
+            long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+            long yearEst = (400 * zeroDay + 591) / 146097;
+            long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+            if (doyEst < 0) {
+                yearEst--;
+                doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+            }
+            int marchDoy0 = (int) doyEst;
+            int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+            int month = (marchMonth0 + 2) % 12 + 1;
+            int dom = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+            int year = (int) yearEst + marchMonth0 / 10;
+            return year * 10000 + month * 100 + dom;
+        }
+
+        /**
+         * Converts a valid ISO date to an epoch-day, as LocalDate.toEpochDay.
+         */
+        private static long toEpochDay(int year, int month, int day) {
+            long y = year;
+            long total = 365 * y;
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+            total += (367 * month - 362) / 12;
+            total += day - 1;
+            if (month > 2) {
+                total--;
+                if (IsoChronology.INSTANCE.isLeapYear(year) == false) {
+                    total--;
+                }
+            }
+            return total - DAYS_0000_TO_1970;
+        }
+
+        private static boolean isValidDate(int year, int month, int day) {
+            if (month < 1 || month > 12 || day < 1) {
+                return false;
+            }
+            int length = (month == 2 ? (IsoChronology.INSTANCE.isLeapYear(year) ? 29 : 28) :
+                    (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31);
+            return day <= length;
+        }
+
+        //-----------------------------------------------------------------------
+        /**
+         * Parses a region of text to an instant.
+         *
+         * @param text  the text to parse, not null
+         * @param start  the start of the region, valid
+         * @param end  the end of the region, valid
+         * @param offset  the offset to use if the text has no offset or instant, not null
+         * @param resolverStyle  the resolver style, not null
+         * @param nanoOfSecond  the array to store the nano-of-second in, null to not store it
+         * @return the epoch-second, {@code FAILED} if the composite printer-parser is needed
+         */
+        long parse(CharSequence text, int start, int end, ZoneOffset offset,
+                ResolverStyle resolverStyle, int[] nanoOfSecond) {
+            int year = 0, yearOfEra = 0, month = 0, day = 0;
+            int hour = 0, minute = 0, second = 0, nano = 0, offsetSecs = 0;
+            long instantSecs = 0;
+            int parsed = 0;  // bits of the fields parsed
+            // state to restore when an optional section fails
+            int depth = 0;
+            int outerPos = 0, outerParsed = 0, outerEnd = 0;
+            int innerPos = 0, innerParsed = 0, innerEnd = 0;
+            int pos = start;
+            int[] code = this.code;
+            int pc = 0;
+            while (pc < code.length) {
+                long result;
+                int field = -1;
+                switch (code[pc]) {
+                    case LITERAL:
+                        result = parseLiteral(text, pos, end, (char) code[pc + 1]);
+                        pc += 2;
+                        break;
+                    case VALUE:
+                        field = code[pc + 1];
+                        result = parseValue(text, pos, end, code[pc + 2], code[pc + 3],
+                                code[pc + 4], code[pc + 5] != 0);
+                        pc += 6;
+                        break;
+                    case FRACTION:
+                        field = NANO_FIELD;
+                        result = parseFraction(text, pos, end, code[pc + 1], code[pc + 2], code[pc + 3] != 0);
+                        pc += 4;
+                        break;
+                    case OFFSET:
+                        field = OFFSET_FIELD;
+                        result = parseOffset(text, pos, end, code[pc + 1], noOffsetTexts[code[pc + 2]]);
+                        pc += 3;
+                        break;
+                    case INSTANT:
+                        pc += 3;
+                        continue;
+                    case INSTANT_END:
+                        // as InstantPrinterParser, leaving the end of day and leap seconds to it
+                        if (isValidDate(year, month, day) == false ||
+                                hour > 23 || minute > 59 || second > 59) {
+                            return FAILED;
+                        }
+                        instantSecs = toEpochDay(year, month, day) * SECONDS_PER_DAY +
+                                hour * 3600 + minute * 60 + second;
+                        if ((parsed & 1 << NANO_FIELD) == 0) {
+                            nano = 0;
+                        }
+                        parsed = 1 << INSTANT_FIELD | 1 << NANO_FIELD;
+                        pc++;
+                        continue;
+                    case OPTIONAL_START:
+                        if (depth++ == 0) {
+                            outerPos = pos;
+                            outerParsed = parsed;
+                            outerEnd = code[pc + 1];
+                        } else {
+                            innerPos = pos;
+                            innerParsed = parsed;
+                            innerEnd = code[pc + 1];
+                        }
+                        pc += 2;
+                        continue;
+                    default:  // OPTIONAL_END
+                        depth--;
+                        pc++;
+                        continue;
+                }
+                if (result < 0) {
+                    if (result == UNDECIDED || depth == 0) {
+                        return FAILED;
+                    }
+                    // skip the optional section
+                    if (depth-- == 1) {
+                        pos = outerPos;
+                        parsed = outerParsed;
+                        pc = outerEnd;
+                    } else {
+                        pos = innerPos;
+                        parsed = innerParsed;
+                        pc = innerEnd;
+                    }
+                    continue;
+                }
+                pos = (int) result;
+                int value = (int) (result >>> 32);
+                if (field < 0 || (field == NANO_FIELD && value == NO_FRACTION)) {
+                    continue;
+                }
+                if ((parsed & 1 << field) != 0) {
+                    return FAILED;  // the same field parsed twice
+                }
+                parsed |= 1 << field;
+                switch (field) {
+                    case YEAR_FIELD: year = value; break;
+                    case YEAR_OF_ERA_FIELD: yearOfEra = value; break;
+                    case MONTH_FIELD: month = value; break;
+                    case DAY_FIELD: day = value; break;
+                    case HOUR_FIELD: hour = value; break;
+                    case MINUTE_FIELD: minute = value; break;
+                    case SECOND_FIELD: second = value; break;
+                    case NANO_FIELD: nano = value; break;
+                    default: offsetSecs = value - MAX_OFFSET_SECONDS; break;
+                }
+            }
+            if (pos != end) {
+                return FAILED;
+            }
+
+            long epochSecond;
+            if ((parsed & 1 << INSTANT_FIELD) != 0) {
+                epochSecond = instantSecs;
+            } else {
+                // resolve as Parsed does for valid values
+                if ((parsed & 1 << YEAR_OF_ERA_FIELD) != 0) {
+                    if ((parsed & 1 << YEAR_FIELD) != 0 || yearOfEra < 1 ||
+                            resolverStyle == ResolverStyle.STRICT) {
+                        return FAILED;
+                    }
+                    year = yearOfEra;
+                    parsed |= 1 << YEAR_FIELD;
+                }
+                if ((parsed & (1 << YEAR_FIELD | DATE_TIME_FIELDS)) != (1 << YEAR_FIELD | DATE_TIME_FIELDS)) {
+                    return FAILED;
+                }
+                boolean hasMinute = (parsed & 1 << MINUTE_FIELD) != 0;
+                boolean hasSecond = (parsed & 1 << SECOND_FIELD) != 0;
+                boolean hasNano = (parsed & 1 << NANO_FIELD) != 0;
+                if ((hasMinute == false && (hasSecond || hasNano)) || (hasSecond == false && hasNano)) {
+                    return FAILED;
+                }
+                if (isValidDate(year, month, day) == false || hour > 23 || minute > 59 || second > 59) {
+                    return FAILED;
+                }
+                if (hasNano == false) {
+                    nano = 0;
+                }
+                if ((parsed & 1 << OFFSET_FIELD) == 0) {
+                    offsetSecs = offset.getTotalSeconds();
+                }
+                epochSecond = toEpochDay(year, month, day) * SECONDS_PER_DAY +
+                        hour * 3600 + minute * 60 + second - offsetSecs;
+            }
+            if (nanoOfSecond != null) {
+                nanoOfSecond[0] = nano;
+            }
+            return epochSecond;
+        }
+
+        /**
+         * Packs a parsed value and the position after it.
+         */
+        private static long result(int value, int pos) {
+            return ((long) value << 32) | pos;
+        }
+
+        /**
+         * Returns true if the characters could be equal in a case insensitive parse.
+         */
+        private static boolean equalsIgnoreCase(char ch1, char ch2) {
+            return Character.toUpperCase(ch1) == Character.toUpperCase(ch2) ||
+                    Character.toLowerCase(ch1) == Character.toLowerCase(ch2);
+        }
+
+        private static long parseLiteral(CharSequence text, int pos, int end, char literal) {
+            // as CharLiteralPrinterParser
+            if (pos == end) {
+                return NO_MATCH;
+            }
+            char ch = text.charAt(pos);
+            if (ch != literal) {
+                return equalsIgnoreCase(ch, literal) ? UNDECIDED : NO_MATCH;
+            }
+            return result(0, pos + 1);
+        }
+
+        private static long parseValue(CharSequence text, int pos, int end, int minWidth, int maxWidth,
+                int subsequentWidth, boolean exceedsPad) {
+            // as NumberPrinterParser in a strict parse, leaving signs to it
+            if (pos == end) {
+                return NO_MATCH;
+            }
+            char sign = text.charAt(pos);
+            if (sign == '+' || sign == '-') {
+                return exceedsPad ? UNDECIDED : NO_MATCH;
+            }
+            if (pos + minWidth > end) {
+                return NO_MATCH;
+            }
+            int maxEnd = Math.min(pos + maxWidth + subsequentWidth, end);
+            int digitsEnd = pos;
+            while (digitsEnd < maxEnd && isDigit(text.charAt(digitsEnd))) {
+                digitsEnd++;
+            }
+            int width = digitsEnd - pos;
+            if (width < minWidth) {
+                return NO_MATCH;
+            }
+            if (subsequentWidth > 0) {
+                width = Math.max(minWidth, width - subsequentWidth);
+            }
+            if (width > minWidth) {
+                return NO_MATCH;  // a wider value needs a sign
+            }
+            int value = 0;
+            for (int i = pos; i < pos + width; i++) {
+                value = value * 10 + (text.charAt(i) - '0');
+            }
+            return result(value, pos + width);
+        }
+
+        private static long parseFraction(CharSequence text, int pos, int end, int minWidth, int maxWidth,
+                boolean decimalPoint) {
+            // as FractionPrinterParser in a strict parse for the nano-of-second
+            if (pos == end) {
+                return (minWidth > 0 ? NO_MATCH : result(NO_FRACTION, pos));
+            }
+            if (decimalPoint) {
+                if (text.charAt(pos) != '.') {
+                    return (minWidth > 0 ? NO_MATCH : result(NO_FRACTION, pos));
+                }
+                pos++;
+            }
+            if (pos + minWidth > end) {
+                return NO_MATCH;
+            }
+            int maxEnd = Math.min(pos + maxWidth, end);
+            int value = 0;
+            int digitsEnd = pos;
+            while (digitsEnd < maxEnd && isDigit(text.charAt(digitsEnd))) {
+                value = value * 10 + (text.charAt(digitsEnd++) - '0');
+            }
+            int width = digitsEnd - pos;
+            if (width < minWidth) {
+                return NO_MATCH;
+            }
+            return result(value * POWERS_OF_TEN[9 - width], digitsEnd);
+        }
+
+        private static long parseOffset(CharSequence text, int pos, int end, int type, String noOffsetText) {
+            // as OffsetIdPrinterParser, returning the offset plus the maximum
+            if (pos == end) {
+                return NO_MATCH;
+            }
+            int noOffsetLen = noOffsetText.length();
+            if (pos + noOffsetLen <= end) {
+                boolean equal = true;
+                for (int i = 0; i < noOffsetLen; i++) {
+                    char ch = text.charAt(pos + i);
+                    char expected = noOffsetText.charAt(i);
+                    if (ch != expected) {
+                        if (equalsIgnoreCase(ch, expected)) {
+                            return UNDECIDED;
+                        }
+                        equal = false;
+                        break;
+                    }
+                }
+                if (equal) {
+                    return result(MAX_OFFSET_SECONDS, pos + noOffsetLen);
+                }
+            }
+            char sign = text.charAt(pos);
+            if (sign != '+' && sign != '-') {
+                return NO_MATCH;
+            }
+            long hours = parseOffsetNumber(text, pos + 1, end, false);
+            if (hours < 0) {
+                return NO_MATCH;
+            }
+            int minutes = 0;
+            int seconds = 0;
+            int p = (int) hours;
+            if ((type + 3) / 2 >= 2) {
+                long number = parseOffsetNumber(text, p, end, (type % 2) == 0);
+                if (number >= 0) {
+                    minutes = (int) (number >>> 32);
+                    p = (int) number;
+                } else if (type >= 3) {
+                    return NO_MATCH;
+                }
+            }
+            if ((type + 3) / 2 >= 3) {
+                long number = parseOffsetNumber(text, p, end, (type % 2) == 0);
+                if (number >= 0) {
+                    seconds = (int) (number >>> 32);
+                    p = (int) number;
+                }
+            }
+            int totalSecs = (int) (hours >>> 32) * 3600 + minutes * 60 + seconds;
+            if (totalSecs > MAX_OFFSET_SECONDS) {
+                return UNDECIDED;  // left to the composite to report
+            }
+            return result(MAX_OFFSET_SECONDS + (sign == '-' ? -totalSecs : totalSecs), p);
+        }
+
+        private static long parseOffsetNumber(CharSequence text, int pos, int end, boolean colon) {
+            // as OffsetIdPrinterParser.parseNumber
+            if (colon) {
+                if (pos + 1 > end || text.charAt(pos) != ':') {
+                    return NO_MATCH;
+                }
+                pos++;
+            }
+            if (pos + 2 > end) {
+                return NO_MATCH;
+            }
+            char ch1 = text.charAt(pos);
+            char ch2 = text.charAt(pos + 1);
+            if (isDigit(ch1) == false || isDigit(ch2) == false) {
+                return NO_MATCH;
+            }
+            int value = (ch1 - '0') * 10 + (ch2 - '0');
+            if (value > 59) {
+                return NO_MATCH;
+            }
+            return result(value, pos + 2);
+        }
+
+        private static boolean isDigit(char ch) {
+            return ch >= '0' && ch <= '9';
+        }
+    }
+
     //-----------------------------------------------------------------------
     /**
      * Pads the output to a fixed width.
@@ -3249,7 +4050,8 @@ public final class DateTimeFormatterBuilder {
                     .appendValue(SECOND_OF_MINUTE, 2)
                     .appendFraction(NANO_OF_SECOND, minDigits, maxDigits, true)
                     .appendLiteral('Z')
-                    .toFormatter().toPrinterParser(false);
+                    .toFormatter(Locale.getDefault(Locale.Category.FORMAT), ResolverStyle.SMART, null, false)
+                    .toPrinterParser(false);
             DateTimeParseContext newContext = context.copy();
             int pos = parser.parse(newContext, text, position);
             if (pos < 0) {
@@ -4369,7 +5171,8 @@ public final class DateTimeFormatterBuilder {
             DateTimeFormatter formatter = FORMATTER_CACHE.get(key);
             if (formatter == null) {
                 String pattern = getLocalizedDateTimePattern(dateStyle, timeStyle, chrono, locale);
-                formatter = new DateTimeFormatterBuilder().appendPattern(pattern).toFormatter(locale);
+                formatter = new DateTimeFormatterBuilder().appendPattern(pattern)
+                        .toFormatter(locale, ResolverStyle.SMART, null, false);
                 DateTimeFormatter old = FORMATTER_CACHE.putIfAbsent(key, formatter);
                 if (old != null) {
                     formatter = old;
@@ -1457,4 +1457,37 @@ public class ArrayList<E> extends AbstractList<E>
         }
         modCount++;
     }
+
+    /**
+     * Sorts this list according to the order induced by the specified
+     * {@link Comparator}, in parallel.  The sort is stable: equal elements
+     * are not reordered.  This is equivalent to {@link #sort}, except
+     * that the elements are sorted in place in the list's backing array
+     * by {@link Arrays#parallelSort(Object[], int, int, Comparator)
+     * Arrays.parallelSort}, rather than by a sequential sort.
+     *
+     * <p>The comparator may be invoked concurrently from multiple
+     * threads, and so must be safe to use from them.
+     *
+     * @param c the {@code Comparator} used to compare list elements.
+     *          A {@code null} value indicates that the elements'
+     *          {@linkplain Comparable natural ordering} should be used
+     * @throws ClassCastException if the list contains elements that are not
+     *         <i>mutually comparable</i> using the specified comparator
+     * @throws IllegalArgumentException
+     *         (optional) if the comparator is found to violate the
+     *         {@link Comparator} contract
+     * @throws ConcurrentModificationException if the list is structurally
+     *         modified while it is being sorted
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelSort(Comparator<? super E> c) {
+        final int expectedModCount = modCount;
+        Arrays.parallelSort((E[]) elementData, 0, size, c);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
 }
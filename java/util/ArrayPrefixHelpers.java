@@ -38,7 +38,8 @@ import java.util.function.LongBinaryOperator;
 import java.util.function.DoubleBinaryOperator;
 
 /**
- * ForkJoin tasks to perform Arrays.parallelPrefix operations.
+ * ForkJoin tasks to perform Arrays.parallelPrefix operations, and the
+ * exclusive and segmented variants of those on primitive arrays.
  *
  * @author Doug Lea
  * @since 1.8
@@ -83,6 +84,15 @@ class ArrayPrefixHelpers {
      * method loops starting with the current task, moving if possible
      * to one of its subtasks rather than forking.
      *
+     * The primitive versions also support segmented cumulation, which
+     * restarts at each of a sorted array of segment starts, and
+     * exclusive cumulation, in which each element is replaced by the
+     * cumulation of those before it, starting from an identity.  Both
+     * reuse the two passes: each task additionally records whether it
+     * contains a restart (field "reset", always true on the left spine),
+     * in which case its sum covers only the elements from its last
+     * restart, and its left sibling's sum is not passed on to the right.
+     *
      * As usual for this sort of utility, there are 4 versions, that
      * are simple copy/paste/adapt variants of each other.  (The
      * double and int versions differ from long version soley by
@@ -97,6 +107,26 @@ class ArrayPrefixHelpers {
     /** The smallest subtask array partition size to use as threshold */
     static final int MIN_PARTITION = 16;
 
+    /**
+     * Returns the smallest of the given strictly increasing segment
+     * starts that is at least from, or fence if none is less than fence.
+     */
+    static int nextStart(int[] starts, int from, int fence) {
+        int j = Arrays.binarySearch(starts, from);
+        if (j < 0)
+            j = -j - 1;
+        return (j < starts.length && starts[j] < fence) ? starts[j] : fence;
+    }
+
+    /**
+     * Returns the largest of the given strictly increasing segment starts
+     * that is less than hi; there must be one.
+     */
+    static int lastStart(int[] starts, int hi) {
+        int j = Arrays.binarySearch(starts, hi);
+        return starts[(j >= 0) ? j - 1 : -j - 2];
+    }
+
     static final class CumulateTask<T> extends CountedCompleter<Void> {
         final T[] array;
         final BinaryOperator<T> function;
@@ -253,14 +283,34 @@ class ArrayPrefixHelpers {
         LongCumulateTask left, right;
         long in, out;
         final int lo, hi, origin, fence, threshold;
+        final int[] starts;
+        final boolean exclusive;
+        final long identity;
+        boolean reset;
 
         /** Root task constructor */
         public LongCumulateTask(LongCumulateTask parent,
                                 LongBinaryOperator function,
                                 long[] array, int lo, int hi) {
+            this(parent, function, array, lo, hi, null, false, 0L);
+        }
+
+        /**
+         * Root task constructor for segmented or exclusive cumulation.
+         * Cumulation restarts at each index in {@code starts}, which must
+         * be strictly increasing, and if exclusive, each element is
+         * replaced by the cumulation of those before it in its segment,
+         * starting with identity.
+         */
+        LongCumulateTask(LongCumulateTask parent,
+                         LongBinaryOperator function,
+                         long[] array, int lo, int hi,
+                         int[] starts, boolean exclusive, long identity) {
             super(parent);
             this.function = function; this.array = array;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
+            this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             int p;
             this.threshold =
                     (p = (hi - lo) / (ForkJoinPool.getCommonPoolParallelism() << 3))
@@ -276,6 +326,8 @@ class ArrayPrefixHelpers {
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
+            this.starts = parent.starts;
+            this.exclusive = parent.exclusive; this.identity = parent.identity;
         }
 
         public final void compute() {
@@ -284,6 +336,9 @@ class ArrayPrefixHelpers {
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
             int th = threshold, org = origin, fnc = fence, l, h;
+            final int[] ss = starts;
+            final boolean ex = exclusive;
+            final long id = identity;
             LongCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
                 if (h - l > th) {
@@ -301,7 +356,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             long lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (lt.reset ? lout :
                                      fn.applyAsLong(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -339,23 +394,54 @@ class ArrayPrefixHelpers {
                             break;
                     }
 
+                    // Index of the first segment start in this leaf, if any
+                    int s = (ss == null) ? fnc : nextStart(ss, l, fnc);
+                    t.reset = (l == org || s < h);
                     long sum;
                     if (state != SUMMED) {
-                        int first;
-                        if (l == org) {                       // leftmost; no in
-                            sum = a[org];
-                            first = org + 1;
+                        if (ss == null && !ex) {
+                            int first;
+                            if (l == org) {                   // leftmost; no in
+                                sum = a[org];
+                                first = org + 1;
+                            }
+                            else {
+                                sum = t.in;
+                                first = l;
+                            }
+                            for (int i = first; i < h; ++i)   // cumulate
+                                a[i] = sum = fn.applyAsLong(sum, a[i]);
                         }
                         else {
                             sum = t.in;
-                            first = l;
+                            for (int i = l; i < h;) {         // by segment
+                                if (i == org || i == s) {     // restart
+                                    if (i == s)
+                                        s = nextStart(ss, i + 1, fnc);
+                                    if (ex)
+                                        sum = id;
+                                    else
+                                        sum = a[i++];
+                                }
+                                int e = (s < h) ? s : h;
+                                if (ex) {
+                                    for (; i < e; ++i) {
+                                        long x = a[i];
+                                        a[i] = sum;
+                                        sum = fn.applyAsLong(sum, x);
+                                    }
+                                }
+                                else {
+                                    for (; i < e; ++i)
+                                        a[i] = sum = fn.applyAsLong(sum, a[i]);
+                                }
+                            }
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsLong(sum, a[i]);
                     }
                     else if (h < fnc) {                       // skip rightmost
-                        sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
+                        int first = (s < h) ? lastStart(ss, h) : l;
+                        sum = a[first];
+                        for (int i = first + 1; i < h; ++i)   // sum only
                             sum = fn.applyAsLong(sum, a[i]);
                     }
                     else
@@ -376,7 +462,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 long lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsLong(lout, rt.out));
+                                par.reset = lt.reset || rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -402,14 +490,34 @@ class ArrayPrefixHelpers {
         DoubleCumulateTask left, right;
         double in, out;
         final int lo, hi, origin, fence, threshold;
+        final int[] starts;
+        final boolean exclusive;
+        final double identity;
+        boolean reset;
 
         /** Root task constructor */
         public DoubleCumulateTask(DoubleCumulateTask parent,
                                   DoubleBinaryOperator function,
                                   double[] array, int lo, int hi) {
+            this(parent, function, array, lo, hi, null, false, 0.0d);
+        }
+
+        /**
+         * Root task constructor for segmented or exclusive cumulation.
+         * Cumulation restarts at each index in {@code starts}, which must
+         * be strictly increasing, and if exclusive, each element is
+         * replaced by the cumulation of those before it in its segment,
+         * starting with identity.
+         */
+        DoubleCumulateTask(DoubleCumulateTask parent,
+                           DoubleBinaryOperator function,
+                           double[] array, int lo, int hi,
+                           int[] starts, boolean exclusive, double identity) {
             super(parent);
             this.function = function; this.array = array;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
+            this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             int p;
             this.threshold =
                     (p = (hi - lo) / (ForkJoinPool.getCommonPoolParallelism() << 3))
@@ -425,6 +533,8 @@ class ArrayPrefixHelpers {
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
+            this.starts = parent.starts;
+            this.exclusive = parent.exclusive; this.identity = parent.identity;
         }
 
         public final void compute() {
@@ -433,6 +543,9 @@ class ArrayPrefixHelpers {
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
             int th = threshold, org = origin, fnc = fence, l, h;
+            final int[] ss = starts;
+            final boolean ex = exclusive;
+            final double id = identity;
             DoubleCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
                 if (h - l > th) {
@@ -450,7 +563,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             double lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (lt.reset ? lout :
                                      fn.applyAsDouble(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -488,23 +601,54 @@ class ArrayPrefixHelpers {
                             break;
                     }
 
+                    // Index of the first segment start in this leaf, if any
+                    int s = (ss == null) ? fnc : nextStart(ss, l, fnc);
+                    t.reset = (l == org || s < h);
                     double sum;
                     if (state != SUMMED) {
-                        int first;
-                        if (l == org) {                       // leftmost; no in
-                            sum = a[org];
-                            first = org + 1;
+                        if (ss == null && !ex) {
+                            int first;
+                            if (l == org) {                   // leftmost; no in
+                                sum = a[org];
+                                first = org + 1;
+                            }
+                            else {
+                                sum = t.in;
+                                first = l;
+                            }
+                            for (int i = first; i < h; ++i)   // cumulate
+                                a[i] = sum = fn.applyAsDouble(sum, a[i]);
                         }
                         else {
                             sum = t.in;
-                            first = l;
+                            for (int i = l; i < h;) {         // by segment
+                                if (i == org || i == s) {     // restart
+                                    if (i == s)
+                                        s = nextStart(ss, i + 1, fnc);
+                                    if (ex)
+                                        sum = id;
+                                    else
+                                        sum = a[i++];
+                                }
+                                int e = (s < h) ? s : h;
+                                if (ex) {
+                                    for (; i < e; ++i) {
+                                        double x = a[i];
+                                        a[i] = sum;
+                                        sum = fn.applyAsDouble(sum, x);
+                                    }
+                                }
+                                else {
+                                    for (; i < e; ++i)
+                                        a[i] = sum = fn.applyAsDouble(sum, a[i]);
+                                }
+                            }
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsDouble(sum, a[i]);
                     }
                     else if (h < fnc) {                       // skip rightmost
-                        sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
+                        int first = (s < h) ? lastStart(ss, h) : l;
+                        sum = a[first];
+                        for (int i = first + 1; i < h; ++i)   // sum only
                             sum = fn.applyAsDouble(sum, a[i]);
                     }
                     else
@@ -525,7 +669,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 double lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsDouble(lout, rt.out));
+                                par.reset = lt.reset || rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -551,14 +697,34 @@ class ArrayPrefixHelpers {
         IntCumulateTask left, right;
         int in, out;
         final int lo, hi, origin, fence, threshold;
+        final int[] starts;
+        final boolean exclusive;
+        final int identity;
+        boolean reset;
 
         /** Root task constructor */
         public IntCumulateTask(IntCumulateTask parent,
                                IntBinaryOperator function,
                                int[] array, int lo, int hi) {
+            this(parent, function, array, lo, hi, null, false, 0);
+        }
+
+        /**
+         * Root task constructor for segmented or exclusive cumulation.
+         * Cumulation restarts at each index in {@code starts}, which must
+         * be strictly increasing, and if exclusive, each element is
+         * replaced by the cumulation of those before it in its segment,
+         * starting with identity.
+         */
+        IntCumulateTask(IntCumulateTask parent,
+                        IntBinaryOperator function,
+                        int[] array, int lo, int hi,
+                        int[] starts, boolean exclusive, int identity) {
             super(parent);
             this.function = function; this.array = array;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
+            this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             int p;
             this.threshold =
                     (p = (hi - lo) / (ForkJoinPool.getCommonPoolParallelism() << 3))
@@ -574,6 +740,8 @@ class ArrayPrefixHelpers {
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
+            this.starts = parent.starts;
+            this.exclusive = parent.exclusive; this.identity = parent.identity;
         }
 
         public final void compute() {
@@ -582,6 +750,9 @@ class ArrayPrefixHelpers {
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
             int th = threshold, org = origin, fnc = fence, l, h;
+            final int[] ss = starts;
+            final boolean ex = exclusive;
+            final int id = identity;
             IntCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
                 if (h - l > th) {
@@ -599,7 +770,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             int lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (lt.reset ? lout :
                                      fn.applyAsInt(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -637,23 +808,54 @@ class ArrayPrefixHelpers {
                             break;
                     }
 
+                    // Index of the first segment start in this leaf, if any
+                    int s = (ss == null) ? fnc : nextStart(ss, l, fnc);
+                    t.reset = (l == org || s < h);
                     int sum;
                     if (state != SUMMED) {
-                        int first;
-                        if (l == org) {                       // leftmost; no in
-                            sum = a[org];
-                            first = org + 1;
+                        if (ss == null && !ex) {
+                            int first;
+                            if (l == org) {                   // leftmost; no in
+                                sum = a[org];
+                                first = org + 1;
+                            }
+                            else {
+                                sum = t.in;
+                                first = l;
+                            }
+                            for (int i = first; i < h; ++i)   // cumulate
+                                a[i] = sum = fn.applyAsInt(sum, a[i]);
                         }
                         else {
                             sum = t.in;
-                            first = l;
+                            for (int i = l; i < h;) {         // by segment
+                                if (i == org || i == s) {     // restart
+                                    if (i == s)
+                                        s = nextStart(ss, i + 1, fnc);
+                                    if (ex)
+                                        sum = id;
+                                    else
+                                        sum = a[i++];
+                                }
+                                int e = (s < h) ? s : h;
+                                if (ex) {
+                                    for (; i < e; ++i) {
+                                        int x = a[i];
+                                        a[i] = sum;
+                                        sum = fn.applyAsInt(sum, x);
+                                    }
+                                }
+                                else {
+                                    for (; i < e; ++i)
+                                        a[i] = sum = fn.applyAsInt(sum, a[i]);
+                                }
+                            }
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsInt(sum, a[i]);
                     }
                     else if (h < fnc) {                       // skip rightmost
-                        sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
+                        int first = (s < h) ? lastStart(ss, h) : l;
+                        sum = a[first];
+                        for (int i = first + 1; i < h; ++i)   // sum only
                             sum = fn.applyAsInt(sum, a[i]);
                     }
                     else
@@ -674,7 +876,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 int lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsInt(lout, rt.out));
+                                par.reset = lt.reset || rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -1571,6 +1571,331 @@ public class Arrays {
         }
     }
 
+    // Parallel radix sort
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, which takes one stable pass over the array for each byte
+     * of its elements, skipping bytes that are the same in all elements.
+     * In each pass, blocks of the array count their digits in parallel,
+     * and then move their elements in parallel to the positions given by
+     * the cumulated counts.  Unlike {@link #parallelSort(int[])
+     * parallelSort}, it performs no comparisons, and its running time is
+     * linear in the length of the array.  If the length of the specified
+     * array is less than the minimum granularity, then it is sorted using
+     * the appropriate {@link Arrays#sort(int[]) Arrays.sort} method.  The
+     * algorithm requires a working space no greater than the size of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJInt.sort
+                (a, 0, n, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(int[])}.  If
+     * the length of the specified range is less than the minimum
+     * granularity, then it is sorted using the appropriate {@link
+     * Arrays#sort(int[]) Arrays.sort} method.  The algorithm requires a
+     * working space no greater than the size of the specified range of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJInt.sort
+                (a, fromIndex, toIndex, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, which takes one stable pass over the array for each byte
+     * of its elements, skipping bytes that are the same in all elements.
+     * In each pass, blocks of the array count their digits in parallel,
+     * and then move their elements in parallel to the positions given by
+     * the cumulated counts.  Unlike {@link #parallelSort(long[])
+     * parallelSort}, it performs no comparisons, and its running time is
+     * linear in the length of the array.  If the length of the specified
+     * array is less than the minimum granularity, then it is sorted using
+     * the appropriate {@link Arrays#sort(long[]) Arrays.sort} method.  The
+     * algorithm requires a working space no greater than the size of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJLong.sort
+                (a, 0, n, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(long[])}.  If
+     * the length of the specified range is less than the minimum
+     * granularity, then it is sorted using the appropriate {@link
+     * Arrays#sort(long[]) Arrays.sort} method.  The algorithm requires a
+     * working space no greater than the size of the specified range of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJLong.sort
+                (a, fromIndex, toIndex, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values: {@code -0.0f == 0.0f} is {@code true} and a {@code Float.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, which takes one stable pass over the array for each byte
+     * of its elements, skipping bytes that are the same in all elements.
+     * In each pass, blocks of the array count their digits in parallel,
+     * and then move their elements in parallel to the positions given by
+     * the cumulated counts.  Unlike {@link #parallelSort(float[])
+     * parallelSort}, it performs no comparisons, and its running time is
+     * linear in the length of the array.  If the length of the specified
+     * array is less than the minimum granularity, then it is sorted using
+     * the appropriate {@link Arrays#sort(float[]) Arrays.sort} method.  The
+     * algorithm requires a working space no greater than the size of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJFloat.sort
+                (a, 0, n, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values: {@code -0.0f == 0.0f} is {@code true} and a {@code Float.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(float[])}.  If
+     * the length of the specified range is less than the minimum
+     * granularity, then it is sorted using the appropriate {@link
+     * Arrays#sort(float[]) Arrays.sort} method.  The algorithm requires a
+     * working space no greater than the size of the specified range of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJFloat.sort
+                (a, fromIndex, toIndex, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values: {@code -0.0d == 0.0d} is {@code true} and a {@code Double.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, which takes one stable pass over the array for each byte
+     * of its elements, skipping bytes that are the same in all elements.
+     * In each pass, blocks of the array count their digits in parallel,
+     * and then move their elements in parallel to the positions given by
+     * the cumulated counts.  Unlike {@link #parallelSort(double[])
+     * parallelSort}, it performs no comparisons, and its running time is
+     * linear in the length of the array.  If the length of the specified
+     * array is less than the minimum granularity, then it is sorted using
+     * the appropriate {@link Arrays#sort(double[]) Arrays.sort} method.  The
+     * algorithm requires a working space no greater than the size of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJDouble.sort
+                (a, 0, n, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values: {@code -0.0d == 0.0d} is {@code true} and a {@code Double.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(double[])}.  If
+     * the length of the specified range is less than the minimum
+     * granularity, then it is sorted using the appropriate {@link
+     * Arrays#sort(double[]) Arrays.sort} method.  The algorithm requires a
+     * working space no greater than the size of the specified range of the
+     * original array.  The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            ArraysParallelRadixSortHelpers.FJDouble.sort
+                (a, fromIndex, toIndex, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Sorts the specified array of indexes into ascending order of the
+     * values of the specified keys at those indexes.  The sort is stable:
+     * indexes of equal keys remain in their original order.  For example,
+     * if the keys are {@code [30, 10, 20, 10]} and the indexes are
+     * initially {@code [0, 1, 2, 3]}, then upon return the indexes are
+     * {@code [1, 3, 2, 0]}.  The keys are not modified, and so may be used
+     * to order any number of arrays holding other values of the same
+     * elements.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort of the keys at the indexes, as described for {@link
+     * #parallelRadixSort(long[])}, which moves each index with its key.
+     * The algorithm requires a working space of one {@code long} and one
+     * {@code int} for each index, in addition to a copy of the keys at
+     * the indexes.  The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param indexes the array of indexes to be sorted
+     * @param keys the keys by which to order the indexes
+     *
+     * @throws ArrayIndexOutOfBoundsException if an index is negative, or
+     *     not less than {@code keys.length}
+     * @throws NullPointerException if either array is null
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] indexes, long[] keys) {
+        Objects.requireNonNull(keys);
+        int n = indexes.length;
+        if (n > 0)
+            ArraysParallelRadixSortHelpers.FJIndex.sort
+                (indexes, keys, 0, n, ForkJoinPool.getCommonPoolParallelism());
+    }
+
     // Parallel prefix
 
     /**
@@ -1758,6 +2083,196 @@ public class Arrays {
                     (null, op, array, fromIndex, toIndex).invoke();
     }
 
+    /**
+     * Replaces, in parallel, each element of the given array with the
+     * cumulation of the elements before it, using the supplied function
+     * and starting from the given identity.  For example if the array
+     * initially holds {@code [2, 1, 0, 3]}, the identity is {@code 0} and
+     * the operation performs addition, then upon return the array holds
+     * {@code [0, 2, 3, 3]}.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param identity the identity value for the function
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws NullPointerException if the specified array or function is null
+     * @since 1.8
+     */
+    public static void parallelExclusivePrefix(long[] array, long identity,
+                                               LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.LongCumulateTask
+                    (null, op, array, 0, array.length, null, true,
+                     identity).invoke();
+    }
+
+    /**
+     * Cumulates, in parallel, each element of the given array in place,
+     * using the supplied function, separately within each segment of the
+     * array.  A segment starts at each of the given indexes, and at index
+     * zero.  For example if the array initially holds {@code [2, 1, 0, 3,
+     * 1]}, the segment starts are {@code [2]} and the operation performs
+     * addition, then upon return the array holds {@code [2, 3, 0, 3, 4]}.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts the indexes at which segments start, in
+     * strictly increasing order
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws IllegalArgumentException if the segment starts are not in
+     *     strictly increasing order
+     * @throws ArrayIndexOutOfBoundsException if a segment start is
+     *     negative or greater than {@code array.length}
+     * @throws NullPointerException if the specified array, segment starts
+     *     or function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(long[] array,
+                                               int[] segmentStarts,
+                                               LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        checkSegmentStarts(array.length, segmentStarts);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.LongCumulateTask
+                    (null, op, array, 0, array.length, segmentStarts.clone(),
+                     false, 0L).invoke();
+    }
+
+    /**
+     * Replaces, in parallel, each element of the given array with the
+     * cumulation of the elements before it, using the supplied function
+     * and starting from the given identity.  For example if the array
+     * initially holds {@code [2.0, 1.0, 0.0, 3.0]}, the identity is
+     * {@code 0.0} and the operation performs addition, then upon return
+     * the array holds {@code [0.0, 2.0, 3.0, 3.0]}.
+     * <p> Because floating-point operations may not be strictly associative,
+     * the returned result may not be identical to the value that would be
+     * obtained if the operation was performed sequentially.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param identity the identity value for the function
+     * @param op a side-effect-free function to perform the cumulation
+     * @throws NullPointerException if the specified array or function is null
+     * @since 1.8
+     */
+    public static void parallelExclusivePrefix(double[] array, double identity,
+                                               DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.DoubleCumulateTask
+                    (null, op, array, 0, array.length, null, true,
+                     identity).invoke();
+    }
+
+    /**
+     * Cumulates, in parallel, each element of the given array in place,
+     * using the supplied function, separately within each segment of the
+     * array.  A segment starts at each of the given indexes, and at index
+     * zero.  For example if the array initially holds {@code [2.0, 1.0,
+     * 0.0, 3.0, 1.0]}, the segment starts are {@code [2]} and the
+     * operation performs addition, then upon return the array holds
+     * {@code [2.0, 3.0, 0.0, 3.0, 4.0]}.
+     * <p> Because floating-point operations may not be strictly associative,
+     * the returned result may not be identical to the value that would be
+     * obtained if the operation was performed sequentially.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts the indexes at which segments start, in
+     * strictly increasing order
+     * @param op a side-effect-free function to perform the cumulation
+     * @throws IllegalArgumentException if the segment starts are not in
+     *     strictly increasing order
+     * @throws ArrayIndexOutOfBoundsException if a segment start is
+     *     negative or greater than {@code array.length}
+     * @throws NullPointerException if the specified array, segment starts
+     *     or function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(double[] array,
+                                               int[] segmentStarts,
+                                               DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        checkSegmentStarts(array.length, segmentStarts);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.DoubleCumulateTask
+                    (null, op, array, 0, array.length, segmentStarts.clone(),
+                     false, 0.0d).invoke();
+    }
+
+    /**
+     * Replaces, in parallel, each element of the given array with the
+     * cumulation of the elements before it, using the supplied function
+     * and starting from the given identity.  For example if the array
+     * initially holds {@code [2, 1, 0, 3]}, the identity is {@code 0} and
+     * the operation performs addition, then upon return the array holds
+     * {@code [0, 2, 3, 3]}.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param identity the identity value for the function
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws NullPointerException if the specified array or function is null
+     * @since 1.8
+     */
+    public static void parallelExclusivePrefix(int[] array, int identity,
+                                               IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.IntCumulateTask
+                    (null, op, array, 0, array.length, null, true,
+                     identity).invoke();
+    }
+
+    /**
+     * Cumulates, in parallel, each element of the given array in place,
+     * using the supplied function, separately within each segment of the
+     * array.  A segment starts at each of the given indexes, and at index
+     * zero.  For example if the array initially holds {@code [2, 1, 0, 3,
+     * 1]}, the segment starts are {@code [2]} and the operation performs
+     * addition, then upon return the array holds {@code [2, 3, 0, 3, 4]}.
+     *
+     * @param array the array, which is modified in-place by this method
+     * @param segmentStarts the indexes at which segments start, in
+     * strictly increasing order
+     * @param op a side-effect-free, associative function to perform the
+     * cumulation
+     * @throws IllegalArgumentException if the segment starts are not in
+     *     strictly increasing order
+     * @throws ArrayIndexOutOfBoundsException if a segment start is
+     *     negative or greater than {@code array.length}
+     * @throws NullPointerException if the specified array, segment starts
+     *     or function is null
+     * @since 1.8
+     */
+    public static void parallelSegmentedPrefix(int[] array,
+                                               int[] segmentStarts,
+                                               IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        checkSegmentStarts(array.length, segmentStarts);
+        if (array.length > 0)
+            new ArrayPrefixHelpers.IntCumulateTask
+                    (null, op, array, 0, array.length, segmentStarts.clone(),
+                     false, 0).invoke();
+    }
+
+    /**
+     * Checks that segment starts are strictly increasing indexes of an
+     * array of the given length.
+     */
+    private static void checkSegmentStarts(int arrayLength,
+                                           int[] segmentStarts) {
+        int prev = -1;
+        for (int s : segmentStarts) {
+            if (s < 0 || s > arrayLength)
+                throw new ArrayIndexOutOfBoundsException(s);
+            if (s <= prev)
+                throw new IllegalArgumentException(
+                        "segment start(" + s + ") <= previous(" + prev + ")");
+            prev = s;
+        }
+    }
+
     // Searching
 
     /**
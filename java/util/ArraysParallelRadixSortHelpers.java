@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.function.IntConsumer;
+
+/**
+ * Helper utilities for the parallel radix sort methods in
+ * Arrays.parallelRadixSort.
+ *
+ * The sort is a least-significant-digit radix sort with 8-bit digits,
+ * and so takes one pass over the array for each byte of its elements.
+ * Each pass is stable, and consists of three parallel phases over
+ * fixed blocks of the array:
+ *   1. Each block counts the occurrences of each digit in its elements.
+ *   2. The counts are cumulated sequentially, digit by digit and within
+ *      each digit block by block, giving each block the index at which
+ *      to place its first element with each digit.
+ *   3. Each block moves its elements to those indexes in the workspace
+ *      array, which becomes the source of the next pass.
+ * Before the first pass, the counts of all digits of all passes are
+ * taken in one read of the array, and passes in which all elements have
+ * the same digit, such as the high bytes of small values, are skipped.
+ *
+ * Elements are mapped to keys whose unsigned order is their numerical
+ * order: the sign bit of integral values is flipped, and floating-point
+ * values are ordered as by {@link Double#compare}, with -0.0 before
+ * 0.0 and all NaNs last.  Elements themselves are moved, so NaN bit
+ * patterns are preserved.
+ *
+ * For each primitive type, we define a static class with the sort
+ * method for that type, the four being copy/paste/adapt variants of
+ * each other, plus FJIndex, which sorts an index array by the values
+ * of a long array at those indexes.
+ *
+ * @since 1.8
+ */
+/*package*/ class ArraysParallelRadixSortHelpers {
+    private ArraysParallelRadixSortHelpers() {} // non-instantiable
+
+    /** The number of bits in a digit */
+    static final int RADIX_BITS = 8;
+
+    /** The number of distinct digits */
+    static final int RADIX = 1 << RADIX_BITS;
+
+    static final int RADIX_MASK = RADIX - 1;
+
+    /** The smallest block size to use */
+    static final int MIN_BLOCK = 1 << 13;
+
+    /**
+     * Returns the size of blocks into which to divide n elements, so
+     * that there are a few blocks per thread.
+     */
+    static int blockSize(int n, int parallelism) {
+        int g = n / (parallelism << 2);
+        return (g <= MIN_BLOCK) ? MIN_BLOCK : g;
+    }
+
+    /**
+     * Replaces block digit counts with the index at which to place the
+     * first element of each block with each digit.
+     */
+    static void offsets(int[][] counts, int base) {
+        int sum = base;
+        for (int d = 0; d < RADIX; ++d) {
+            for (int[] c : counts) {
+                int x = c[d];
+                c[d] = sum;
+                sum += x;
+            }
+        }
+    }
+
+    static int intKey(int x) {
+        return x ^ Integer.MIN_VALUE;
+    }
+
+    static long longKey(long x) {
+        return x ^ Long.MIN_VALUE;
+    }
+
+    static int floatKey(float x) {
+        if (x != x)
+            return -1;                                  // NaN; greatest
+        int bits = Float.floatToRawIntBits(x);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    static long doubleKey(double x) {
+        if (x != x)
+            return -1L;                                 // NaN; greatest
+        long bits = Double.doubleToRawLongBits(x);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Applies an action to each of a range of block indexes in parallel.
+     */
+    static final class BlockTask extends CountedCompleter<Void> {
+        static final long serialVersionUID = 2446542900576103244L;
+        final IntConsumer action;
+        final int lo, hi;
+
+        BlockTask(CountedCompleter<?> par, int lo, int hi, IntConsumer action) {
+            super(par);
+            this.lo = lo; this.hi = hi; this.action = action;
+        }
+
+        public final void compute() {
+            int l = lo, h = hi;
+            while (h - l >= 2) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                new BlockTask(this, mid, h, action).fork();
+                h = mid;
+            }
+            if (h > l)
+                action.accept(l);
+            propagateCompletion();
+        }
+    }
+
+    /** Int support class */
+    static final class FJInt {
+        /**
+         * Sorts the given non-empty range of the array.
+         */
+        static void sort(int[] a, int fromIndex, int toIndex, int parallelism) {
+            final int n = toIndex - fromIndex;
+            final int bs = blockSize(n, parallelism), nb = (n - 1) / bs + 1;
+            final int[][] digits = new int[nb][];
+            new BlockTask(null, 0, nb, b -> {           // all histograms
+                int[] c = new int[Integer.BYTES << RADIX_BITS];
+                int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                for (int i = fromIndex + lo, e = fromIndex + hi; i < e; ++i) {
+                    int k = intKey(a[i]);
+                    for (int p = 0; p < Integer.BYTES; ++p)
+                        ++c[(p << RADIX_BITS) | (int)((k >>> (p * RADIX_BITS)) & RADIX_MASK)];
+                }
+                digits[b] = c;
+            }).invoke();
+            int k0 = intKey(a[fromIndex]);
+            int[] src = a, dst = null;
+            int srcBase = fromIndex, dstBase = 0;
+            for (int p = 0; p < Integer.BYTES; ++p) {
+                final int shift = p * RADIX_BITS;
+                int d0 = (p << RADIX_BITS) | (int)((k0 >>> shift) & RADIX_MASK), same = 0;
+                for (int[] c : digits)
+                    same += c[d0];
+                if (same == n)                          // all share a digit
+                    continue;
+                if (dst == null)
+                    dst = new int[n];
+                final int[] s = src, t = dst;
+                final int sb = srcBase, tb = dstBase;
+                final int[][] offsets = new int[nb][];
+                new BlockTask(null, 0, nb, b -> {       // block histograms
+                    int[] c = new int[RADIX];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i)
+                        ++c[(int)((intKey(s[i]) >>> shift) & RADIX_MASK)];
+                    offsets[b] = c;
+                }).invoke();
+                offsets(offsets, tb);
+                new BlockTask(null, 0, nb, b -> {       // stable scatter
+                    int[] o = offsets[b];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i) {
+                        int x = s[i];
+                        t[o[(int)((intKey(x) >>> shift) & RADIX_MASK)]++] = x;
+                    }
+                }).invoke();
+                src = t; srcBase = tb;
+                dst = s; dstBase = sb;
+            }
+            if (src != a) {
+                final int[] s = src;
+                final int sb = srcBase;
+                new BlockTask(null, 0, nb, b -> {
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    System.arraycopy(s, sb + lo, a, fromIndex + lo, hi - lo);
+                }).invoke();
+            }
+        }
+    }
+
+    /** Long support class */
+    static final class FJLong {
+        /**
+         * Sorts the given non-empty range of the array.
+         */
+        static void sort(long[] a, int fromIndex, int toIndex, int parallelism) {
+            final int n = toIndex - fromIndex;
+            final int bs = blockSize(n, parallelism), nb = (n - 1) / bs + 1;
+            final int[][] digits = new int[nb][];
+            new BlockTask(null, 0, nb, b -> {           // all histograms
+                int[] c = new int[Long.BYTES << RADIX_BITS];
+                int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                for (int i = fromIndex + lo, e = fromIndex + hi; i < e; ++i) {
+                    long k = longKey(a[i]);
+                    for (int p = 0; p < Long.BYTES; ++p)
+                        ++c[(p << RADIX_BITS) | (int)((k >>> (p * RADIX_BITS)) & RADIX_MASK)];
+                }
+                digits[b] = c;
+            }).invoke();
+            long k0 = longKey(a[fromIndex]);
+            long[] src = a, dst = null;
+            int srcBase = fromIndex, dstBase = 0;
+            for (int p = 0; p < Long.BYTES; ++p) {
+                final int shift = p * RADIX_BITS;
+                int d0 = (p << RADIX_BITS) | (int)((k0 >>> shift) & RADIX_MASK), same = 0;
+                for (int[] c : digits)
+                    same += c[d0];
+                if (same == n)                          // all share a digit
+                    continue;
+                if (dst == null)
+                    dst = new long[n];
+                final long[] s = src, t = dst;
+                final int sb = srcBase, tb = dstBase;
+                final int[][] offsets = new int[nb][];
+                new BlockTask(null, 0, nb, b -> {       // block histograms
+                    int[] c = new int[RADIX];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i)
+                        ++c[(int)((longKey(s[i]) >>> shift) & RADIX_MASK)];
+                    offsets[b] = c;
+                }).invoke();
+                offsets(offsets, tb);
+                new BlockTask(null, 0, nb, b -> {       // stable scatter
+                    int[] o = offsets[b];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i) {
+                        long x = s[i];
+                        t[o[(int)((longKey(x) >>> shift) & RADIX_MASK)]++] = x;
+                    }
+                }).invoke();
+                src = t; srcBase = tb;
+                dst = s; dstBase = sb;
+            }
+            if (src != a) {
+                final long[] s = src;
+                final int sb = srcBase;
+                new BlockTask(null, 0, nb, b -> {
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    System.arraycopy(s, sb + lo, a, fromIndex + lo, hi - lo);
+                }).invoke();
+            }
+        }
+    }
+
+    /** Float support class */
+    static final class FJFloat {
+        /**
+         * Sorts the given non-empty range of the array.
+         */
+        static void sort(float[] a, int fromIndex, int toIndex, int parallelism) {
+            final int n = toIndex - fromIndex;
+            final int bs = blockSize(n, parallelism), nb = (n - 1) / bs + 1;
+            final int[][] digits = new int[nb][];
+            new BlockTask(null, 0, nb, b -> {           // all histograms
+                int[] c = new int[Float.BYTES << RADIX_BITS];
+                int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                for (int i = fromIndex + lo, e = fromIndex + hi; i < e; ++i) {
+                    int k = floatKey(a[i]);
+                    for (int p = 0; p < Float.BYTES; ++p)
+                        ++c[(p << RADIX_BITS) | (int)((k >>> (p * RADIX_BITS)) & RADIX_MASK)];
+                }
+                digits[b] = c;
+            }).invoke();
+            int k0 = floatKey(a[fromIndex]);
+            float[] src = a, dst = null;
+            int srcBase = fromIndex, dstBase = 0;
+            for (int p = 0; p < Float.BYTES; ++p) {
+                final int shift = p * RADIX_BITS;
+                int d0 = (p << RADIX_BITS) | (int)((k0 >>> shift) & RADIX_MASK), same = 0;
+                for (int[] c : digits)
+                    same += c[d0];
+                if (same == n)                          // all share a digit
+                    continue;
+                if (dst == null)
+                    dst = new float[n];
+                final float[] s = src, t = dst;
+                final int sb = srcBase, tb = dstBase;
+                final int[][] offsets = new int[nb][];
+                new BlockTask(null, 0, nb, b -> {       // block histograms
+                    int[] c = new int[RADIX];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i)
+                        ++c[(int)((floatKey(s[i]) >>> shift) & RADIX_MASK)];
+                    offsets[b] = c;
+                }).invoke();
+                offsets(offsets, tb);
+                new BlockTask(null, 0, nb, b -> {       // stable scatter
+                    int[] o = offsets[b];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i) {
+                        float x = s[i];
+                        t[o[(int)((floatKey(x) >>> shift) & RADIX_MASK)]++] = x;
+                    }
+                }).invoke();
+                src = t; srcBase = tb;
+                dst = s; dstBase = sb;
+            }
+            if (src != a) {
+                final float[] s = src;
+                final int sb = srcBase;
+                new BlockTask(null, 0, nb, b -> {
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    System.arraycopy(s, sb + lo, a, fromIndex + lo, hi - lo);
+                }).invoke();
+            }
+        }
+    }
+
+    /** Double support class */
+    static final class FJDouble {
+        /**
+         * Sorts the given non-empty range of the array.
+         */
+        static void sort(double[] a, int fromIndex, int toIndex, int parallelism) {
+            final int n = toIndex - fromIndex;
+            final int bs = blockSize(n, parallelism), nb = (n - 1) / bs + 1;
+            final int[][] digits = new int[nb][];
+            new BlockTask(null, 0, nb, b -> {           // all histograms
+                int[] c = new int[Double.BYTES << RADIX_BITS];
+                int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                for (int i = fromIndex + lo, e = fromIndex + hi; i < e; ++i) {
+                    long k = doubleKey(a[i]);
+                    for (int p = 0; p < Double.BYTES; ++p)
+                        ++c[(p << RADIX_BITS) | (int)((k >>> (p * RADIX_BITS)) & RADIX_MASK)];
+                }
+                digits[b] = c;
+            }).invoke();
+            long k0 = doubleKey(a[fromIndex]);
+            double[] src = a, dst = null;
+            int srcBase = fromIndex, dstBase = 0;
+            for (int p = 0; p < Double.BYTES; ++p) {
+                final int shift = p * RADIX_BITS;
+                int d0 = (p << RADIX_BITS) | (int)((k0 >>> shift) & RADIX_MASK), same = 0;
+                for (int[] c : digits)
+                    same += c[d0];
+                if (same == n)                          // all share a digit
+                    continue;
+                if (dst == null)
+                    dst = new double[n];
+                final double[] s = src, t = dst;
+                final int sb = srcBase, tb = dstBase;
+                final int[][] offsets = new int[nb][];
+                new BlockTask(null, 0, nb, b -> {       // block histograms
+                    int[] c = new int[RADIX];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i)
+                        ++c[(int)((doubleKey(s[i]) >>> shift) & RADIX_MASK)];
+                    offsets[b] = c;
+                }).invoke();
+                offsets(offsets, tb);
+                new BlockTask(null, 0, nb, b -> {       // stable scatter
+                    int[] o = offsets[b];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = sb + lo, e = sb + hi; i < e; ++i) {
+                        double x = s[i];
+                        t[o[(int)((doubleKey(x) >>> shift) & RADIX_MASK)]++] = x;
+                    }
+                }).invoke();
+                src = t; srcBase = tb;
+                dst = s; dstBase = sb;
+            }
+            if (src != a) {
+                final double[] s = src;
+                final int sb = srcBase;
+                new BlockTask(null, 0, nb, b -> {
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    System.arraycopy(s, sb + lo, a, fromIndex + lo, hi - lo);
+                }).invoke();
+            }
+        }
+    }
+
+    /** Index support class */
+    static final class FJIndex {
+        /**
+         * Sorts the given non-empty range of an array of indexes by the
+         * values of the keys at those indexes.
+         */
+        static void sort(int[] a, long[] keys, int fromIndex, int toIndex, int parallelism) {
+            final int n = toIndex - fromIndex;
+            final int bs = blockSize(n, parallelism), nb = (n - 1) / bs + 1;
+            final int[][] digits = new int[nb][];
+            final long[] k = new long[n];
+            new BlockTask(null, 0, nb, b -> {           // gather keys
+                int[] c = new int[Long.BYTES << RADIX_BITS];
+                int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                for (int i = lo; i < hi; ++i) {
+                    long x = k[i] = longKey(keys[a[fromIndex + i]]);
+                    for (int p = 0; p < Long.BYTES; ++p)
+                        ++c[(p << RADIX_BITS) | (int)((x >>> (p * RADIX_BITS)) & RADIX_MASK)];
+                }
+                digits[b] = c;
+            }).invoke();
+            long k0 = k[0];
+            long[] srcKeys = k, dstKeys = null;
+            int[] src = a, dst = null;
+            int srcBase = fromIndex, dstBase = 0;
+            for (int p = 0; p < Long.BYTES; ++p) {
+                final int shift = p * RADIX_BITS;
+                int d0 = (p << RADIX_BITS) | (int)((k0 >>> shift) & RADIX_MASK), same = 0;
+                for (int[] c : digits)
+                    same += c[d0];
+                if (same == n)                          // all share a digit
+                    continue;
+                if (dst == null) {
+                    dst = new int[n];
+                    dstKeys = new long[n];
+                }
+                final long[] sk = srcKeys, tk = dstKeys;
+                final int[] s = src, t = dst;
+                final int sb = srcBase, tb = dstBase;
+                final int[][] offsets = new int[nb][];
+                new BlockTask(null, 0, nb, b -> {       // block histograms
+                    int[] c = new int[RADIX];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = lo; i < hi; ++i)
+                        ++c[(int)((sk[i] >>> shift) & RADIX_MASK)];
+                    offsets[b] = c;
+                }).invoke();
+                offsets(offsets, 0);
+                new BlockTask(null, 0, nb, b -> {       // stable scatter
+                    int[] o = offsets[b];
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    for (int i = lo; i < hi; ++i) {
+                        long x = sk[i];
+                        int j = o[(int)((x >>> shift) & RADIX_MASK)]++;
+                        tk[j] = x;
+                        t[tb + j] = s[sb + i];
+                    }
+                }).invoke();
+                srcKeys = tk; src = t; srcBase = tb;
+                dstKeys = sk; dst = s; dstBase = sb;
+            }
+            if (src != a) {
+                final int[] s = src;
+                final int sb = srcBase;
+                new BlockTask(null, 0, nb, b -> {
+                    int lo = b * bs, hi = (n - lo > bs) ? lo + bs : n;
+                    System.arraycopy(s, sb + lo, a, fromIndex + lo, hi - lo);
+                }).invoke();
+            }
+        }
+    }
+}
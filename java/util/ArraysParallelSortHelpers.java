@@ -56,7 +56,15 @@ import java.util.concurrent.CountedCompleter;
  * largest of the two partitions in half, find the greatest point in
  * smaller partition less than the beginning of the second half of
  * larger via binary search; and then merge in parallel the two
- * partitions.  In part to ensure tasks are triggered in
+ * partitions.  The object Merger (FJObject.Merger) instead uses
+ * merge-path partitioning: it splits the output, rather than the
+ * larger input, in half, finding by binary search along the diagonal
+ * how many elements of each input precede the split (taking left
+ * elements first among equal ones, to keep the merge stable).  The
+ * two halves of every merge are then of equal size however unevenly
+ * the inputs interleave, so that every level of the merge tree divides
+ * its work evenly among workers, and comparisons, which may be costly
+ * for objects, are balanced too.  In part to ensure tasks are triggered in
  * stability-preserving order, the current CountedCompleter design
  * requires some little tasks to serve as place holders for triggering
  * completion tasks.  These classes (EmptyCompleter and Relay) don't
@@ -172,36 +180,22 @@ import java.util.concurrent.CountedCompleter;
                 if (a == null || w == null || lb < 0 || rb < 0 || k < 0 ||
                     c == null)
                     throw new IllegalStateException(); // hoist checks
-                for (int lh, rh;;) {  // split larger, find point in smaller
-                    if (ln >= rn) {
-                        if (ln <= g)
-                            break;
-                        rh = rn;
-                        T split = a[(lh = ln >>> 1) + lb];
-                        for (int lo = 0; lo < rh; ) {
-                            int rm = (lo + rh) >>> 1;
-                            if (c.compare(split, a[rm + rb]) <= 0)
-                                rh = rm;
-                            else
-                                lo = rm + 1;
-                        }
-                    }
-                    else {
-                        if (rn <= g)
-                            break;
-                        lh = ln;
-                        T split = a[(rh = rn >>> 1) + rb];
-                        for (int lo = 0; lo < lh; ) {
-                            int lm = (lo + lh) >>> 1;
-                            if (c.compare(split, a[lm + lb]) <= 0)
-                                lh = lm;
-                            else
-                                lo = lm + 1;
-                        }
-                    }
+                for (int n; (n = ln + rn) > g && ln > 0 && rn > 0;) {
+                    // Split output in half along the merge path: find the
+                    // number lh of left elements among the first d merged
+                    int d = n >>> 1;
+                    int lh = (d > rn) ? d - rn : 0, hi = (d < ln) ? d : ln;
+                    while (lh < hi) {
+                        int lm = (lh + hi) >>> 1;
+                        if (c.compare(a[lm + lb], a[d - lm - 1 + rb]) <= 0)
+                            lh = lm + 1;
+                        else
+                            hi = lm;
+                    }
+                    int rh = d - lh;
                     Merger<T> m = new Merger<T>(this, a, w, lb + lh, ln - lh,
                                                 rb + rh, rn - rh,
-                                                k + lh + rh, g, c);
+                                                k + d, g, c);
                     rn = rh;
                     ln = lh;
                     addToPendingCount(1);
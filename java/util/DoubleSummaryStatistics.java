@@ -75,6 +75,20 @@ public class DoubleSummaryStatistics implements DoubleConsumer {
      */
     public DoubleSummaryStatistics() { }
 
+    /**
+     * Constructs an instance with the given state.  Used by {@link
+     * GroupedDoubleSummaryStatistics} to return the statistics of a group.
+     */
+    DoubleSummaryStatistics(long count, double sum, double sumCompensation,
+                            double simpleSum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.sumCompensation = sumCompensation;
+        this.simpleSum = simpleSum;
+        this.min = min;
+        this.max = max;
+    }
+
     /**
      * Records another value into the summary information.
      *
@@ -0,0 +1,643 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+import java.io.IOException;
+
+/**
+ * A format string that has been parsed once for repeated use.
+ *
+ * <p> A template formats its arguments exactly as a {@link Formatter}
+ * formats them with the same format string and locale, as described in
+ * <a href="Formatter.html#syntax">Format string syntax</a>.  The format
+ * string is parsed and checked when the template is compiled, however,
+ * rather than each time it is used.  The common specifiers
+ * <tt>%s</tt>, <tt>%d</tt>, <tt>%x</tt>, <tt>%c</tt> and <tt>%b</tt>,
+ * with a width, the {@code '-'} and {@code '0'} flags and, for
+ * <tt>%s</tt>, a precision, are appended directly to the destination;
+ * the others are formatted by a {@code Formatter}.
+ *
+ * <p> Arguments can be given as an array, as they are to {@link
+ * String#format(String, Object...) String.format}, or one at a time to an
+ * {@link Appender}, which accepts primitive values without boxing them:
+ *
+ * <pre> {@code
+ * static final FormatTemplate LINE = FormatTemplate.compile("%-12s %8d %08x%n");
+ *
+ * LINE.appender(sb).add(name).add(count).add(flags).end();
+ * }</pre>
+ *
+ * <p> Templates are immutable and are safe for use by multiple concurrent
+ * threads.
+ *
+ * @see Formatter
+ * @since 1.8
+ */
+public final class FormatTemplate {
+
+    /**
+     * A piece of a compiled format string.  A literal has the index -2
+     * and holds its text; any other specifier holds the text of the same
+     * specifier without an argument index.
+     */
+    static final class Spec {
+        final String text;
+        final String source;
+        final int index;
+        final char conversion;
+        final boolean simple;
+        final boolean leftJustify;
+        final boolean zeroPad;
+        final int width;
+        final int precision;
+
+        Spec(String text) {
+            this(text, text, -2, '\0', false, false, false, -1, -1);
+        }
+
+        Spec(String text, String source, int index, char conversion,
+             boolean simple, boolean leftJustify, boolean zeroPad,
+             int width, int precision) {
+            this.text = text;
+            this.source = source;
+            this.index = index;
+            this.conversion = conversion;
+            this.simple = simple;
+            this.leftJustify = leftJustify;
+            this.zeroPad = zeroPad;
+            this.width = width;
+            this.precision = precision;
+        }
+    }
+
+    private static final String SPACES = "                                ";
+    private static final String ZEROS  = "00000000000000000000000000000000";
+    private static final char[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    private final String format;
+    private final Locale locale;
+    private final Spec[] specs;
+    private final boolean asciiDigits;
+    private final boolean sequential;
+
+    private FormatTemplate(Locale l, String format) {
+        this.format = format;
+        this.locale = l;
+        this.specs = Formatter.compileTemplate(format);
+        this.asciiDigits = Formatter.hasAsciiDigits(l);
+        boolean seq = true;
+        for (Spec s : specs)
+            if (s.index != -2 && s.index != 0)
+                seq = false;
+        this.sequential = seq;
+    }
+
+    /**
+     * Compiles a format string using the default locale for
+     * {@linkplain Locale.Category#FORMAT formatting}.
+     *
+     * @param  format
+     *         A format string as described in <a
+     *         href="Formatter.html#syntax">Format string syntax</a>
+     *
+     * @return  The compiled template
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax or a format
+     *          specifier whose flags, width or precision are not allowed
+     *          for its conversion
+     *
+     * @throws  NullPointerException
+     *          If the format string is {@code null}
+     */
+    public static FormatTemplate compile(String format) {
+        return new FormatTemplate(Locale.getDefault(Locale.Category.FORMAT),
+                                  format);
+    }
+
+    /**
+     * Compiles a format string using the given locale.
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.
+     *
+     * @param  format
+     *         A format string as described in <a
+     *         href="Formatter.html#syntax">Format string syntax</a>
+     *
+     * @return  The compiled template
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax or a format
+     *          specifier whose flags, width or precision are not allowed
+     *          for its conversion
+     *
+     * @throws  NullPointerException
+     *          If the format string is {@code null}
+     */
+    public static FormatTemplate compile(Locale l, String format) {
+        return new FormatTemplate(l, format);
+    }
+
+    /**
+     * Returns the locale applied by this template.
+     *
+     * @return  {@code null} if no localization is applied, otherwise a
+     *          locale
+     */
+    public Locale locale() {
+        return locale;
+    }
+
+    /**
+     * Returns a formatted string using this template and the given
+     * arguments.
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers.  If there are
+     *         more arguments than format specifiers, the extra arguments
+     *         are ignored.
+     *
+     * @return  A formatted string
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with its argument, or
+     *          if there are insufficient arguments
+     */
+    public String format(Object... args) {
+        return appendTo(new StringBuilder(), args).toString();
+    }
+
+    /**
+     * Appends the given arguments, formatted using this template, to a
+     * string builder.
+     *
+     * @param  sb
+     *         The string builder to append to
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers.  If there are
+     *         more arguments than format specifiers, the extra arguments
+     *         are ignored.
+     *
+     * @return  The string builder
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with its argument, or
+     *          if there are insufficient arguments
+     */
+    public StringBuilder appendTo(StringBuilder sb, Object... args) {
+        // index of last argument referenced
+        int last = -1;
+        // last ordinary index
+        int lasto = -1;
+
+        for (Spec s : specs) {
+            switch (s.index) {
+            case -2:  // fixed text
+                sb.append(s.text);
+                break;
+            case -1:  // relative index
+                if (last < 0 || (args != null && last > args.length - 1))
+                    throw new MissingFormatArgumentException(s.source);
+                print(sb, s, (args == null ? null : args[last]));
+                break;
+            case 0:  // ordinary index
+                lasto++;
+                last = lasto;
+                if (args != null && lasto > args.length - 1)
+                    throw new MissingFormatArgumentException(s.source);
+                print(sb, s, (args == null ? null : args[lasto]));
+                break;
+            default:  // explicit index
+                last = s.index - 1;
+                if (args != null && last > args.length - 1)
+                    throw new MissingFormatArgumentException(s.source);
+                print(sb, s, (args == null ? null : args[last]));
+                break;
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Writes the given arguments, formatted using this template, to an
+     * appendable destination.
+     *
+     * @param  a
+     *         The destination
+     *
+     * @param  args
+     *         Arguments referenced by the format specifiers.  If there are
+     *         more arguments than format specifiers, the extra arguments
+     *         are ignored.
+     *
+     * @throws  IllegalFormatException
+     *          If a format specifier is incompatible with its argument, or
+     *          if there are insufficient arguments
+     *
+     * @throws  IOException
+     *          If the destination throws it
+     */
+    public void formatTo(Appendable a, Object... args) throws IOException {
+        if (a instanceof StringBuilder)
+            appendTo((StringBuilder)a, args);
+        else
+            a.append(appendTo(new StringBuilder(), args));
+    }
+
+    /**
+     * Returns an appender that appends arguments, formatted using this
+     * template, to a string builder as they are given.
+     *
+     * @param  sb
+     *         The string builder to append to
+     *
+     * @return  An appender positioned at the start of this template
+     *
+     * @throws  UnsupportedOperationException
+     *          If a format specifier of this template refers to its
+     *          argument by index, or by the {@code '<'} flag
+     */
+    public Appender appender(StringBuilder sb) {
+        if (!sequential)
+            throw new UnsupportedOperationException(
+                "Format specifiers with argument indexes: " + format);
+        return new Appender(Objects.requireNonNull(sb));
+    }
+
+    /**
+     * Returns the format string of this template.
+     *
+     * @return  The format string
+     */
+    public String toString() {
+        return format;
+    }
+
+    /**
+     * Appends the formatted text of a specifier, or of a literal.
+     */
+    private void print(StringBuilder sb, Spec s, Object arg) {
+        if (s.simple) {
+            int start = sb.length();
+            switch (s.conversion) {
+            case 's':
+                if (arg instanceof Formattable)
+                    break;
+                String str = String.valueOf(arg);
+                int len = str.length();
+                if (s.precision != -1 && s.precision < len)
+                    len = s.precision;
+                sb.append(str, 0, len);
+                justify(sb, s, start);
+                return;
+            case 'b':
+                if (s.precision != -1)
+                    break;
+                sb.append(arg == null ? false
+                          : (arg instanceof Boolean ? (Boolean)arg : true));
+                justify(sb, s, start);
+                return;
+            case 'c':
+                if (arg == null)
+                    sb.append("null");
+                else if (arg instanceof Character)
+                    sb.append(((Character)arg).charValue());
+                else
+                    break;
+                justify(sb, s, start);
+                return;
+            case 'd':
+                if (asciiDigits && (arg instanceof Integer
+                                    || arg instanceof Long
+                                    || arg instanceof Short
+                                    || arg instanceof Byte)) {
+                    printDecimal(sb, s, ((Number)arg).longValue());
+                    return;
+                }
+                break;
+            case 'x':
+                if (arg instanceof Integer) {
+                    printHex(sb, s, ((Integer)arg) & 0xffffffffL);
+                    return;
+                } else if (arg instanceof Long) {
+                    printHex(sb, s, (Long)arg);
+                    return;
+                }
+                break;
+            }
+        }
+        new Formatter(sb, locale).format(locale, s.text, new Object[] { arg });
+    }
+
+    private void printDecimal(StringBuilder sb, Spec s, long value) {
+        int start = sb.length();
+        sb.append(value);
+        if (s.zeroPad)
+            pad(sb, value < 0 ? start + 1 : start,
+                s.width - (sb.length() - start), ZEROS);
+        else
+            justify(sb, s, start);
+    }
+
+    private void printHex(StringBuilder sb, Spec s, long value) {
+        int start = sb.length();
+        int digits = Math.max((67 - Long.numberOfLeadingZeros(value)) >> 2, 1);
+        for (int shift = (digits - 1) << 2; shift >= 0; shift -= 4)
+            sb.append(HEX_DIGITS[(int)(value >>> shift) & 0xf]);
+        if (s.zeroPad)
+            pad(sb, start, s.width - digits, ZEROS);
+        else
+            justify(sb, s, start);
+    }
+
+    /**
+     * Pads the text appended since start with spaces to the width of the
+     * specifier.
+     */
+    private static void justify(StringBuilder sb, Spec s, int start) {
+        int n = s.width - (sb.length() - start);
+        if (n > 0)
+            pad(sb, s.leftJustify ? sb.length() : start, n, SPACES);
+    }
+
+    private static void pad(StringBuilder sb, int at, int n, String fill) {
+        while (n > 0) {
+            int k = Math.min(n, fill.length());
+            sb.insert(at, fill, 0, k);
+            n -= k;
+        }
+    }
+
+    /**
+     * Appends arguments, formatted using a template, to a string builder
+     * as they are given.  Primitive arguments are not boxed unless their
+     * specifier is one that a {@link Formatter} has to format.
+     *
+     * <p> Each {@code add} method formats its argument with the next
+     * format specifier of the template, after appending the fixed text
+     * that precedes the specifier.  Arguments given after the last
+     * specifier are ignored.  {@link #end} appends the rest of the fixed
+     * text and makes the appender ready to be used again from the start of
+     * the template.
+     *
+     * <p> An appender is not safe for use by multiple concurrent threads.
+     *
+     * @see FormatTemplate#appender(StringBuilder)
+     * @since 1.8
+     */
+    public final class Appender {
+        private final StringBuilder sb;
+        private int next;
+
+        Appender(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        /**
+         * Appends the literals before the next argument specifier and
+         * returns that specifier, or null if there is none.
+         */
+        private Spec nextSpec() {
+            Spec[] specs = FormatTemplate.this.specs;
+            while (next < specs.length) {
+                Spec s = specs[next++];
+                if (s.index != -2)
+                    return s;
+                sb.append(s.text);
+            }
+            return null;
+        }
+
+        /**
+         * Formats an object with the next format specifier.
+         *
+         * @param  arg
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(Object arg) {
+            Spec s = nextSpec();
+            if (s != null)
+                print(sb, s, arg);
+            return this;
+        }
+
+        /**
+         * Formats a {@code boolean} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(boolean value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.precision == -1
+                && (s.conversion == 's' || s.conversion == 'b')) {
+                int start = sb.length();
+                sb.append(value);
+                justify(sb, s, start);
+            } else {
+                print(sb, s, value);
+            }
+            return this;
+        }
+
+        /**
+         * Formats a {@code char} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(char value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.precision == -1
+                && (s.conversion == 's' || s.conversion == 'c')) {
+                int start = sb.length();
+                sb.append(value);
+                justify(sb, s, start);
+            } else {
+                print(sb, s, value);
+            }
+            return this;
+        }
+
+        /**
+         * Formats an {@code int} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(int value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.conversion == 'x')
+                printHex(sb, s, value & 0xffffffffL);
+            else if (!printInteger(s, value))
+                print(sb, s, value);
+            return this;
+        }
+
+        /**
+         * Formats a {@code long} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(long value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.conversion == 'x')
+                printHex(sb, s, value);
+            else if (!printInteger(s, value))
+                print(sb, s, value);
+            return this;
+        }
+
+        /**
+         * Formats a {@code float} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(float value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.precision == -1 && s.conversion == 's') {
+                int start = sb.length();
+                sb.append(value);
+                justify(sb, s, start);
+            } else {
+                print(sb, s, value);
+            }
+            return this;
+        }
+
+        /**
+         * Formats a {@code double} with the next format specifier.
+         *
+         * @param  value
+         *         The argument
+         *
+         * @return  This appender
+         *
+         * @throws  IllegalFormatException
+         *          If the format specifier is incompatible with the argument
+         */
+        public Appender add(double value) {
+            Spec s = nextSpec();
+            if (s == null)
+                return this;
+            if (s.simple && s.precision == -1 && s.conversion == 's') {
+                int start = sb.length();
+                sb.append(value);
+                justify(sb, s, start);
+            } else {
+                print(sb, s, value);
+            }
+            return this;
+        }
+
+        /**
+         * Appends the fixed text that follows the last argument and
+         * returns the string builder.  The appender can then be used again
+         * from the start of the template.
+         *
+         * @return  The string builder
+         *
+         * @throws  MissingFormatArgumentException
+         *          If fewer arguments were given than the template has
+         *          format specifiers
+         */
+        public StringBuilder end() {
+            Spec s = nextSpec();
+            next = 0;
+            if (s != null)
+                throw new MissingFormatArgumentException(s.source);
+            return sb;
+        }
+
+        /**
+         * Formats an integral value with a <tt>%d</tt> or <tt>%s</tt>
+         * specifier, returning false if the specifier is not one of those.
+         */
+        private boolean printInteger(Spec s, long value) {
+            if (!s.simple)
+                return false;
+            if (s.conversion == 'd' && asciiDigits) {
+                printDecimal(sb, s, value);
+                return true;
+            }
+            if (s.conversion == 's' && s.precision == -1) {
+                int start = sb.length();
+                sb.append(value);
+                justify(sb, s, start);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -2581,6 +2581,69 @@ public final class Formatter implements Closeable, Flushable {
         }
     }
 
+    /**
+     * Parses a format string into the specifiers of a {@link
+     * FormatTemplate}.  Fixed text, line separators and percent signs are
+     * merged into literal specifiers, and every other specifier is
+     * checked as {@code format} checks it.
+     */
+    static FormatTemplate.Spec[] compileTemplate(String format) {
+        FormatString[] fsa = new Formatter().parse(format);
+        ArrayList<FormatTemplate.Spec> specs = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (FormatString fs : fsa) {
+            if (fs instanceof FixedString) {
+                text.append(((FixedString)fs).s);
+                continue;
+            }
+            FormatSpecifier spec = (FormatSpecifier)fs;
+            if (spec.index == -2) {
+                text.append(spec.c == Conversion.LINE_SEPARATOR
+                            ? System.lineSeparator() : "%");
+                continue;
+            }
+            if (text.length() > 0) {
+                specs.add(new FormatTemplate.Spec(text.toString()));
+                text.setLength(0);
+            }
+
+            // The same specifier without its index, for a single argument
+            Flags f = spec.f;
+            boolean upper = f.contains(Flags.UPPERCASE);
+            StringBuilder sb = new StringBuilder("%");
+            sb.append(f.dup().remove(Flags.UPPERCASE).remove(Flags.PREVIOUS));
+            if (spec.width != -1)
+                sb.append(spec.width);
+            if (spec.precision != -1)
+                sb.append('.').append(spec.precision);
+            if (spec.dt)
+                sb.append(upper ? 'T' : 't');
+            sb.append(upper ? Character.toUpperCase(spec.c) : spec.c);
+
+            int other = f.valueOf() & ~(Flags.LEFT_JUSTIFY.valueOf()
+                                        | Flags.ZERO_PAD.valueOf()
+                                        | Flags.PREVIOUS.valueOf());
+            specs.add(new FormatTemplate.Spec(sb.toString(), spec.toString(),
+                                              spec.index,
+                                              spec.dt ? '\0' : spec.c,
+                                              other == 0 && !spec.dt,
+                                              f.contains(Flags.LEFT_JUSTIFY),
+                                              f.contains(Flags.ZERO_PAD),
+                                              spec.width, spec.precision));
+        }
+        if (text.length() > 0)
+            specs.add(new FormatTemplate.Spec(text.toString()));
+        return specs.toArray(new FormatTemplate.Spec[specs.size()]);
+    }
+
+    /**
+     * Returns true if numbers are formatted with the ASCII digits in the
+     * given locale.
+     */
+    static boolean hasAsciiDigits(Locale l) {
+        return getZero(l) == '0';
+    }
+
     private interface FormatString {
         int index();
         void print(Object arg, Locale l) throws IOException;
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+/**
+ * A state object for collecting statistics such as count, min, max, sum,
+ * and average of {@code double} values, separately for each of a number of
+ * groups identified by {@code long} keys.
+ *
+ * <p>This is the primitive counterpart of grouping a stream with {@link
+ * java.util.stream.Collectors#groupingBy(java.util.function.Function,
+ * java.util.stream.Collector) Collectors.groupingBy} and a downstream
+ * {@link java.util.stream.Collectors#summarizingDouble summarizingDouble},
+ * {@code summingDouble}, {@code averagingDouble} or {@code counting}
+ * collector, but neither keys nor values are boxed: the statistics for
+ * all groups are held in parallel primitive arrays indexed by an
+ * open-addressing hash table of the keys.  It is designed to work with
+ * the three-argument {@code collect} method of {@link
+ * java.util.stream.DoubleStream#collect DoubleStream} and the other stream
+ * types.  For example, to summarize ages, in years, by decade:
+ *
+ * <pre> {@code
+ * GroupedDoubleSummaryStatistics byDecade = ages.collect(
+ *     GroupedDoubleSummaryStatistics::new,
+ *     (s, age) -> s.accept((long) (age / 10), age),
+ *     GroupedDoubleSummaryStatistics::combine);
+ * double averageTeenAge = byDecade.getAverage(1);
+ * }</pre>
+ *
+ * <p>Partitioning is grouping with two keys; for example, {@code
+ * s.accept(v < 0 ? 1 : 0, v)}.  The same pattern applies to reference
+ * streams, classifying each element by a primitive key:
+ *
+ * <pre> {@code
+ * GroupedDoubleSummaryStatistics weightsByDept = people.stream().collect(
+ *     GroupedDoubleSummaryStatistics::new,
+ *     (s, p) -> s.accept(p.getDepartmentId(), p.getWeight()),
+ *     GroupedDoubleSummaryStatistics::combine);
+ * }</pre>
+ *
+ * @implNote This implementation is not thread safe. However, it is safe to
+ * use with the three-argument {@code collect} method on a parallel stream,
+ * because the parallel implementation of {@code collect} provides the
+ * necessary partitioning, isolation, and merging of results: each
+ * partition accumulates into its own instance, and the instances are
+ * merged array to array by {@link #combine}.
+ *
+ * @see DoubleSummaryStatistics
+ * @see GroupedLongSummaryStatistics
+ * @see GroupedIntSummaryStatistics
+ * @since 1.8
+ */
+public class GroupedDoubleSummaryStatistics {
+
+    /*
+     * The table is as in LongObjectHashMap, except that there is never
+     * any removal, and a zero count marks a free slot: every group
+     * holds at least one value.
+     */
+
+    /** The initial capacity of the table; a power of two. */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum capacity of the table; a power of two. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] counts;
+    private double[] sums;
+    private double[] sumCompensations; // Low order bits of sums
+    private double[] simpleSums; // Used to compute right sums for non-finite inputs
+    private double[] mins;
+    private double[] maxs;
+
+    /** The number of groups */
+    private int size;
+
+    /**
+     * The number of groups at which to resize, or before the table is
+     * allocated, its initial capacity.
+     */
+    private int threshold;
+
+    /**
+     * Constructs an instance with no groups.
+     */
+    public GroupedDoubleSummaryStatistics() {
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs an instance with no groups, sized for the given number
+     * of groups.
+     *
+     * @param expectedGroups the expected number of groups
+     * @throws IllegalArgumentException if {@code expectedGroups} is
+     *         negative
+     */
+    public GroupedDoubleSummaryStatistics(int expectedGroups) {
+        if (expectedGroups < 0)
+            throw new IllegalArgumentException("Illegal expected groups: " +
+                                               expectedGroups);
+        this.threshold = LongObjectHashMap.tableSizeFor(
+            (expectedGroups >= MAXIMUM_CAPACITY >>> 1) ? MAXIMUM_CAPACITY :
+            Math.max(2, expectedGroups << 1));
+    }
+
+    /**
+     * Initializes or doubles the table, reinserting all groups.
+     */
+    private void resize() {
+        long[] oldKeys = keys, oldCounts = counts;
+        double[] oldSums = sums, oldComps = sumCompensations;
+        double[] oldSimpleSums = simpleSums, oldMins = mins, oldMaxs = maxs;
+        int oldCap = (oldCounts == null) ? 0 : oldCounts.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        else
+            newCap = oldCap << 1;
+        long[] ks = new long[newCap], cs = new long[newCap];
+        double[] ss = new double[newCap], ps = new double[newCap];
+        double[] qs = new double[newCap];
+        double[] ns = new double[newCap], xs = new double[newCap];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            if (oldCounts[j] != 0L) {
+                long k = oldKeys[j];
+                int i = LongObjectHashMap.hash(k) & mask;
+                while (cs[i] != 0L)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                cs[i] = oldCounts[j];
+                ss[i] = oldSums[j];
+                ps[i] = oldComps[j];
+                qs[i] = oldSimpleSums[j];
+                ns[i] = oldMins[j];
+                xs[i] = oldMaxs[j];
+            }
+        }
+        keys = ks;
+        counts = cs;
+        sums = ss;
+        sumCompensations = ps;
+        simpleSums = qs;
+        mins = ns;
+        maxs = xs;
+        threshold = newCap >>> 1;       // load factor 0.5 as LongObjectHashMap
+    }
+
+    /**
+     * Returns the slot of the given group, adding an empty group if
+     * absent.  The caller must record at least one value in a new group
+     * before any other call.
+     */
+    private int slotFor(long key) {
+        if (counts == null)
+            resize();
+        for (;;) {
+            long[] ks = keys, cs = counts;
+            int mask = cs.length - 1;
+            int i = LongObjectHashMap.hash(key) & mask;
+            for (; cs[i] != 0L; i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+            if (size < threshold) {
+                ks[i] = key;
+                mins[i] = Double.POSITIVE_INFINITY;
+                maxs[i] = Double.NEGATIVE_INFINITY;
+                ++size;
+                return i;
+            }
+            resize();
+        }
+    }
+
+    /**
+     * Returns the slot of the given group, or -1 if absent.
+     */
+    private int indexOf(long key) {
+        long[] ks, cs;
+        if ((cs = counts) != null) {
+            ks = keys;
+            int mask = cs.length - 1;
+            for (int i = LongObjectHashMap.hash(key) & mask; cs[i] != 0L;
+                 i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records a value into the summary information of the given group.
+     *
+     * @param key the key of the group
+     * @param value the input value
+     */
+    public void accept(long key, double value) {
+        int i = slotFor(key);
+        ++counts[i];
+        simpleSums[i] += value;
+        sumWithCompensation(i, value);
+        mins[i] = Math.min(mins[i], value);
+        maxs[i] = Math.max(maxs[i], value);
+    }
+
+    /**
+     * Combines the state of another {@code GroupedDoubleSummaryStatistics}
+     * into this one, group by group.
+     *
+     * @param other another {@code GroupedDoubleSummaryStatistics}
+     * @throws NullPointerException if {@code other} is null
+     */
+    public void combine(GroupedDoubleSummaryStatistics other) {
+        long[] oks = other.keys, ocs = other.counts;
+        double[] oss = other.sums, ops = other.sumCompensations;
+        double[] oqs = other.simpleSums, ons = other.mins, oxs = other.maxs;
+        if (ocs == null)
+            return;
+        for (int j = 0; j < ocs.length; ++j) {
+            if (ocs[j] != 0L) {
+                int i = slotFor(oks[j]);
+                counts[i] += ocs[j];
+                simpleSums[i] += oqs[j];
+                sumWithCompensation(i, oss[j]);
+                sumWithCompensation(i, ops[j]);
+                mins[i] = Math.min(mins[i], ons[j]);
+                maxs[i] = Math.max(maxs[i], oxs[j]);
+            }
+        }
+    }
+
+    /**
+     * Incorporates a new double value into the sum of the group in the
+     * given slot using Kahan summation / compensated summation.
+     */
+    private void sumWithCompensation(int i, double value) {
+        double sum = sums[i];
+        double tmp = value - sumCompensations[i];
+        double velvel = sum + tmp; // Little wolf of rounding error
+        sumCompensations[i] = (velvel - sum) - tmp;
+        sums[i] = velvel;
+    }
+
+    /**
+     * Returns the sum of the group in the given slot, as computed by
+     * DoubleSummaryStatistics.getSum.
+     */
+    private double sumAt(int i) {
+        double tmp = sums[i] + sumCompensations[i];
+        return (Double.isNaN(tmp) && Double.isInfinite(simpleSums[i])) ?
+            simpleSums[i] : tmp;
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return the number of groups
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if at least one value has been recorded in the
+     * given group.
+     *
+     * @param key the key of the group
+     * @return {@code true} if the group is present
+     */
+    public final boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the keys of the groups, in no particular order.
+     *
+     * @return a new array of the keys of the groups
+     */
+    public final long[] keys() {
+        long[] a = new long[size];
+        long[] cs = counts;
+        for (int i = 0, n = 0; n < a.length; ++i) {
+            if (cs[i] != 0L)
+                a[n++] = keys[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns the count of values recorded in the given group, or zero if
+     * none.
+     *
+     * @param key the key of the group
+     * @return the count of values
+     */
+    public final long getCount(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0L : counts[i];
+    }
+
+    /**
+     * Returns the sum of values recorded in the given group, or zero if
+     * none.  As for {@link DoubleSummaryStatistics#getSum}, the sum may
+     * be computed using compensated summation, and is NaN if any
+     * recorded value is NaN.
+     *
+     * @param key the key of the group
+     * @return the sum of values, or zero if none
+     */
+    public final double getSum(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0.0d : sumAt(i);
+    }
+
+    /**
+     * Returns the minimum value recorded in the given group, {@code
+     * Double.NaN} if any recorded value was NaN, or {@code
+     * Double.POSITIVE_INFINITY} if none.
+     *
+     * @param key the key of the group
+     * @return the minimum value, or {@code Double.POSITIVE_INFINITY} if
+     *         none
+     */
+    public final double getMin(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? Double.POSITIVE_INFINITY : mins[i];
+    }
+
+    /**
+     * Returns the maximum value recorded in the given group, {@code
+     * Double.NaN} if any recorded value was NaN, or {@code
+     * Double.NEGATIVE_INFINITY} if none.
+     *
+     * @param key the key of the group
+     * @return the maximum value, or {@code Double.NEGATIVE_INFINITY} if
+     *         none
+     */
+    public final double getMax(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? Double.NEGATIVE_INFINITY : maxs[i];
+    }
+
+    /**
+     * Returns the arithmetic mean of values recorded in the given group,
+     * or zero if none.
+     *
+     * @param key the key of the group
+     * @return the arithmetic mean of values, or zero if none
+     */
+    public final double getAverage(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0.0d : sumAt(i) / counts[i];
+    }
+
+    /**
+     * Returns the statistics of the given group, or {@code null} if no
+     * value has been recorded in it.  The result is a snapshot, which
+     * later calls to {@link #accept} and {@link #combine} do not affect.
+     *
+     * @param key the key of the group
+     * @return the statistics of the group, or {@code null} if absent
+     */
+    public final DoubleSummaryStatistics get(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? null :
+            new DoubleSummaryStatistics(counts[i], sums[i],
+                                        sumCompensations[i], simpleSums[i],
+                                        mins[i], maxs[i]);
+    }
+
+    /**
+     * Returns a map from the key of each group to a snapshot of its
+     * statistics.
+     *
+     * @return a new map of the statistics of each group
+     */
+    public final LongObjectHashMap<DoubleSummaryStatistics> toMap() {
+        LongObjectHashMap<DoubleSummaryStatistics> m =
+            new LongObjectHashMap<>(size);
+        long[] cs = counts;
+        if (cs != null) {
+            for (int i = 0; i < cs.length; ++i) {
+                if (cs[i] != 0L)
+                    m.put(keys[i], new DoubleSummaryStatistics(
+                              cs[i], sums[i], sumCompensations[i],
+                              simpleSums[i], mins[i], maxs[i]));
+            }
+        }
+        return m;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Returns a non-empty string representation of this object suitable for
+     * debugging. The exact presentation format is unspecified and may vary
+     * between implementations and versions.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "%s{groups=%d}",
+            this.getClass().getSimpleName(),
+            size());
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util;
+
+/**
+ * A state object for collecting statistics such as count, min, max, sum,
+ * and average of {@code int} values, separately for each of a number of
+ * groups identified by {@code long} keys.
+ *
+ * <p>This is the primitive counterpart of grouping a stream with {@link
+ * java.util.stream.Collectors#groupingBy(java.util.function.Function,
+ * java.util.stream.Collector) Collectors.groupingBy} and a downstream
+ * {@link java.util.stream.Collectors#summarizingInt summarizingInt},
+ * {@code summingInt}, {@code averagingInt} or {@code counting}
+ * collector, but neither keys nor values are boxed: the statistics for
+ * all groups are held in parallel primitive arrays indexed by an
+ * open-addressing hash table of the keys.  It is designed to work with
+ * the three-argument {@code collect} method of {@link
+ * java.util.stream.IntStream#collect IntStream} and the other stream
+ * types.  For example, to summarize ages by decade:
+ *
+ * <pre> {@code
+ * GroupedIntSummaryStatistics byDecade = ages.collect(
+ *     GroupedIntSummaryStatistics::new,
+ *     (s, age) -> s.accept(age / 10, age),
+ *     GroupedIntSummaryStatistics::combine);
+ * double averageTeenAge = byDecade.getAverage(1);
+ * }</pre>
+ *
+ * <p>Partitioning is grouping with two keys; for example, {@code
+ * s.accept(v < 0 ? 1 : 0, v)}.  The same pattern applies to reference
+ * streams, classifying each element by a primitive key:
+ *
+ * <pre> {@code
+ * GroupedIntSummaryStatistics agesByDept = people.stream().collect(
+ *     GroupedIntSummaryStatistics::new,
+ *     (s, p) -> s.accept(p.getDepartmentId(), p.getAge()),
+ *     GroupedIntSummaryStatistics::combine);
+ * }</pre>
+ *
+ * @implNote This implementation is not thread safe. However, it is safe to
+ * use with the three-argument {@code collect} method on a parallel stream,
+ * because the parallel implementation of {@code collect} provides the
+ * necessary partitioning, isolation, and merging of results: each
+ * partition accumulates into its own instance, and the instances are
+ * merged array to array by {@link #combine}.
+ *
+ * @see IntSummaryStatistics
+ * @see GroupedLongSummaryStatistics
+ * @see GroupedDoubleSummaryStatistics
+ * @since 1.8
+ */
+public class GroupedIntSummaryStatistics {
+
+    /*
+     * The table is as in LongObjectHashMap, except that there is never
+     * any removal, and a zero count marks a free slot: every group
+     * holds at least one value.
+     */
+
+    /** The initial capacity of the table; a power of two. */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum capacity of the table; a power of two. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] sums;
+    private int[] mins;
+    private int[] maxs;
+
+    /** The number of groups */
+    private int size;
+
+    /**
+     * The number of groups at which to resize, or before the table is
+     * allocated, its initial capacity.
+     */
+    private int threshold;
+
+    /**
+     * Constructs an instance with no groups.
+     */
+    public GroupedIntSummaryStatistics() {
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs an instance with no groups, sized for the given number
+     * of groups.
+     *
+     * @param expectedGroups the expected number of groups
+     * @throws IllegalArgumentException if {@code expectedGroups} is
+     *         negative
+     */
+    public GroupedIntSummaryStatistics(int expectedGroups) {
+        if (expectedGroups < 0)
+            throw new IllegalArgumentException("Illegal expected groups: " +
+                                               expectedGroups);
+        this.threshold = LongObjectHashMap.tableSizeFor(
+            (expectedGroups >= MAXIMUM_CAPACITY >>> 1) ? MAXIMUM_CAPACITY :
+            Math.max(2, expectedGroups << 1));
+    }
+
+    /**
+     * Initializes or doubles the table, reinserting all groups.
+     */
+    private void resize() {
+        long[] oldKeys = keys, oldCounts = counts, oldSums = sums;
+        int[] oldMins = mins, oldMaxs = maxs;
+        int oldCap = (oldCounts == null) ? 0 : oldCounts.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        else
+            newCap = oldCap << 1;
+        long[] ks = new long[newCap], cs = new long[newCap];
+        long[] ss = new long[newCap];
+        int[] ns = new int[newCap], xs = new int[newCap];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            if (oldCounts[j] != 0L) {
+                long k = oldKeys[j];
+                int i = LongObjectHashMap.hash(k) & mask;
+                while (cs[i] != 0L)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                cs[i] = oldCounts[j];
+                ss[i] = oldSums[j];
+                ns[i] = oldMins[j];
+                xs[i] = oldMaxs[j];
+            }
+        }
+        keys = ks;
+        counts = cs;
+        sums = ss;
+        mins = ns;
+        maxs = xs;
+        threshold = newCap >>> 1;       // load factor 0.5 as LongObjectHashMap
+    }
+
+    /**
+     * Returns the slot of the given group, adding an empty group if
+     * absent.  The caller must record at least one value in a new group
+     * before any other call.
+     */
+    private int slotFor(long key) {
+        if (counts == null)
+            resize();
+        for (;;) {
+            long[] ks = keys, cs = counts;
+            int mask = cs.length - 1;
+            int i = LongObjectHashMap.hash(key) & mask;
+            for (; cs[i] != 0L; i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+            if (size < threshold) {
+                ks[i] = key;
+                mins[i] = Integer.MAX_VALUE;
+                maxs[i] = Integer.MIN_VALUE;
+                ++size;
+                return i;
+            }
+            resize();
+        }
+    }
+
+    /**
+     * Returns the slot of the given group, or -1 if absent.
+     */
+    private int indexOf(long key) {
+        long[] ks, cs;
+        if ((cs = counts) != null) {
+            ks = keys;
+            int mask = cs.length - 1;
+            for (int i = LongObjectHashMap.hash(key) & mask; cs[i] != 0L;
+                 i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records a value into the summary information of the given group.
+     *
+     * @param key the key of the group
+     * @param value the input value
+     */
+    public void accept(long key, int value) {
+        int i = slotFor(key);
+        ++counts[i];
+        sums[i] += value;
+        mins[i] = Math.min(mins[i], value);
+        maxs[i] = Math.max(maxs[i], value);
+    }
+
+    /**
+     * Combines the state of another {@code GroupedIntSummaryStatistics}
+     * into this one, group by group.
+     *
+     * @param other another {@code GroupedIntSummaryStatistics}
+     * @throws NullPointerException if {@code other} is null
+     */
+    public void combine(GroupedIntSummaryStatistics other) {
+        long[] oks = other.keys, ocs = other.counts, oss = other.sums;
+        int[] ons = other.mins, oxs = other.maxs;
+        if (ocs == null)
+            return;
+        for (int j = 0; j < ocs.length; ++j) {
+            if (ocs[j] != 0L) {
+                int i = slotFor(oks[j]);
+                counts[i] += ocs[j];
+                sums[i] += oss[j];
+                mins[i] = Math.min(mins[i], ons[j]);
+                maxs[i] = Math.max(maxs[i], oxs[j]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return the number of groups
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if at least one value has been recorded in the
+     * given group.
+     *
+     * @param key the key of the group
+     * @return {@code true} if the group is present
+     */
+    public final boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the keys of the groups, in no particular order.
+     *
+     * @return a new array of the keys of the groups
+     */
+    public final long[] keys() {
+        long[] a = new long[size];
+        long[] cs = counts;
+        for (int i = 0, n = 0; n < a.length; ++i) {
+            if (cs[i] != 0L)
+                a[n++] = keys[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns the count of values recorded in the given group, or zero if
+     * none.
+     *
+     * @param key the key of the group
+     * @return the count of values
+     */
+    public final long getCount(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0L : counts[i];
+    }
+
+    /**
+     * Returns the sum of values recorded in the given group, or zero if
+     * none.
+     *
+     * @param key the key of the group
+     * @return the sum of values, or zero if none
+     */
+    public final long getSum(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0L : sums[i];
+    }
+
+    /**
+     * Returns the minimum value recorded in the given group, or {@code
+     * Integer.MAX_VALUE} if none.
+     *
+     * @param key the key of the group
+     * @return the minimum value, or {@code Integer.MAX_VALUE} if none
+     */
+    public final int getMin(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? Integer.MAX_VALUE : mins[i];
+    }
+
+    /**
+     * Returns the maximum value recorded in the given group, or {@code
+     * Integer.MIN_VALUE} if none.
+     *
+     * @param key the key of the group
+     * @return the maximum value, or {@code Integer.MIN_VALUE} if none
+     */
+    public final int getMax(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? Integer.MIN_VALUE : maxs[i];
+    }
+
+    /**
+     * Returns the arithmetic mean of values recorded in the given group,
+     * or zero if none.
+     *
+     * @param key the key of the group
+     * @return the arithmetic mean of values, or zero if none
+     */
+    public final double getAverage(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0.0d : (double) sums[i] / counts[i];
+    }
+
+    /**
+     * Returns the statistics of the given group, or {@code null} if no
+     * value has been recorded in it.  The result is a snapshot, which
+     * later calls to {@link #accept} and {@link #combine} do not affect.
+     *
+     * @param key the key of the group
+     * @return the statistics of the group, or {@code null} if absent
+     */
+    public final IntSummaryStatistics get(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? null :
+            new IntSummaryStatistics(counts[i], sums[i], mins[i], maxs[i]);
+    }
+
+    /**
+     * Returns a map from the key of each group to a snapshot of its
+     * statistics.
+     *
+     * @return a new map of the statistics of each group
+     */
+    public final LongObjectHashMap<IntSummaryStatistics> toMap() {
+        LongObjectHashMap<IntSummaryStatistics> m =
+            new LongObjectHashMap<>(size);
+        long[] cs = counts;
+        if (cs != null) {
+            for (int i = 0; i < cs.length; ++i) {
+                if (cs[i] != 0L)
+                    m.put(keys[i], new IntSummaryStatistics(
+                              cs[i], sums[i], mins[i], maxs[i]));
+            }
+        }
+        return m;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Returns a non-empty string representation of this object suitable for
+     * debugging. The exact presentation format is unspecified and may vary
+     * between implementations and versions.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "%s{groups=%d}",
+            this.getClass().getSimpleName(),
+            size());
+    }
+}
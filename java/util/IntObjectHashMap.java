@@ -0,0 +1,896 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Hash table based implementation of the {@code Map} interface specialized
+ * for {@code int} keys.  Mappings are kept in two parallel flat arrays, one
+ * of {@code int} keys and one of values, using open addressing with linear
+ * probing.  Unlike {@link HashMap}, this class allocates no per-entry
+ * objects and never boxes keys on its primitive access paths
+ * ({@link #get(int)}, {@link #put(int, Object)}, {@link #remove(int)} and
+ * so on), so that a table of {@code n} mappings costs roughly
+ * {@code n / loadFactor} slots of one {@code int} and one reference, a
+ * fraction of the 32-byte {@code Node} plus boxed {@code Integer} that
+ * {@code HashMap<Integer,V>} allocates per entry.
+ *
+ * <p>This map does not permit {@code null} values, since an empty value
+ * slot is what marks a free table slot; all {@code int} values, including
+ * zero, are permitted as keys.  The {@code Map} methods taking or returning
+ * {@code Integer} keys are supported for interoperability and box as
+ * necessary.  The collection views are created lazily on first use and
+ * allocate a fresh {@code Map.Entry} for each element returned by the
+ * entry set iterator.
+ *
+ * <p>This implementation provides constant-time performance for the basic
+ * operations, assuming the hash function disperses the keys properly.
+ * Removal uses backward-shift deletion (as in {@link IdentityHashMap}), so
+ * the table never accumulates tombstones and lookups stay short under
+ * mixed insert/remove workloads.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access this map concurrently, and at least one of the
+ * threads modifies the map structurally, it <i>must</i> be synchronized
+ * externally.  The iterators returned by all of this class's "collection
+ * view methods" are <i>fail-fast</i>, in the same sense as those of
+ * {@code HashMap}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     LongObjectHashMap
+ * @since 1.8
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer,V>
+    implements Map<Integer,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -6318563744254512736L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.  Linear
+     * probing degrades faster than chaining as the table fills, so this is
+     * kept below the 0.75 used by HashMap.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table keys, allocated on first use.  Length MUST always be a
+     * power of two.
+     */
+    transient int[] keys;
+
+    /**
+     * The table values, parallel to {@link #keys}.  A {@code null} value
+     * marks a free slot.
+     */
+    transient Object[] vals;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     *
+     * @serial
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Applies a supplemental hash function to a given key.  Sequential or
+     * clustered ids are common keys, so the bits are spread with a
+     * multiplicative (golden ratio) step before being masked to the table.
+     */
+    static final int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    static final int tableSizeFor(int cap) {
+        int n = cap - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and load
+     * factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in the range (0, 1)
+     */
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = tableSizeFor(Math.max(1,
+            (int)Math.ceil(initialCapacity / (double)loadFactor)));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and the
+     * default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.5).
+     */
+    public IntObjectHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * {@code Map}.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null, or
+     *          contains a null key or value
+     */
+    public IntObjectHashMap(Map<? extends Integer, ? extends V> m) {
+        this(Math.max(m.size(), DEFAULT_INITIAL_CAPACITY / 2),
+             DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /* ---------------- Table management -------------- */
+
+    /**
+     * Initializes or doubles table size, reinserting all mappings.
+     */
+    final void resize() {
+        int[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        else
+            newCap = oldCap << 1;
+        int[] ks = new int[newCap];
+        Object[] vs = new Object[newCap];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            Object v;
+            if ((v = oldVals[j]) != null) {
+                int k = oldKeys[j];
+                int i = hash(k) & mask;
+                while (vs[i] != null)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = v;
+            }
+        }
+        keys = ks;
+        vals = vs;
+        threshold = (int)(newCap * loadFactor); // always leaves a free slot
+    }
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        int[] ks; Object[] vs;
+        if ((vs = vals) != null) {
+            ks = keys;
+            int mask = vs.length - 1;
+            for (int i = hash(key) & mask; vs[i] != null; i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Associates value with key, returning the previous value or null.
+     * A new key is refused, leaving the map unchanged, if the table is
+     * full at its maximum capacity.
+     *
+     * @param onlyIfAbsent if true, don't change existing value
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    final V putVal(int key, V value, boolean onlyIfAbsent) {
+        if (value == null)
+            throw new NullPointerException();
+        if (vals == null)
+            resize();
+        int[] ks = keys;
+        Object[] vs = vals;
+        int mask = vs.length - 1;
+        int i = hash(key) & mask;
+        Object v;
+        for (; (v = vs[i]) != null; i = (i + 1) & mask) {
+            if (ks[i] == key) {
+                @SuppressWarnings("unchecked") V oldValue = (V)v;
+                if (!onlyIfAbsent)
+                    vs[i] = value;
+                return oldValue;
+            }
+        }
+        if (size >= threshold && vs.length >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        ks[i] = key;
+        vs[i] = value;
+        ++modCount;
+        if (++size > threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * Removes the mapping at slot d and closes the gap, adapted from
+     * Knuth Section 6.4 Algorithm R (see IdentityHashMap.closeDeletion).
+     *
+     * @return the removed value
+     */
+    final V removeAt(int d) {
+        int[] ks = keys;
+        Object[] vs = vals;
+        @SuppressWarnings("unchecked") V oldValue = (V)vs[d];
+        vs[d] = null;
+        ++modCount;
+        --size;
+        int mask = vs.length - 1;
+        for (int i = (d + 1) & mask; vs[i] != null; i = (i + 1) & mask) {
+            int r = hash(ks[i]) & mask;
+            if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                ks[d] = ks[i];
+                vs[d] = vs[i];
+                vs[i] = null;
+                d = i;
+            }
+        }
+        return oldValue;
+    }
+
+    /* ---------------- Primitive access -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or {@code null} if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value mapped to the key, or {@code defaultValue} if none
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     * @throws NullPointerException if the value is null
+     */
+    public V put(int key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     * @throws NullPointerException if the value is null
+     */
+    public V putIfAbsent(int key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     */
+    public V remove(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : removeAt(i);
+    }
+
+    /**
+     * If the specified key is not already associated with a value, attempts
+     * to compute its value using the given mapping function and enters it
+     * into this map unless {@code null}.  The key is passed to the function
+     * unboxed.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key,
+                             IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i = indexOf(key);
+        if (i >= 0)
+            return (V)vals[i];
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v != null)
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the value
+     * with the results of the given remapping function, or removes it if
+     * the result is {@code null}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if
+     *         no value is associated with the key
+     * @throws NullPointerException if the value or remappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(int key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        int i = indexOf(key);
+        if (i < 0) {
+            putVal(key, value, false);
+            return value;
+        }
+        int mc = modCount;
+        V v = remappingFunction.apply((V)vals[i], value);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            removeAt(i);
+        else
+            vals[i] = v;
+        return v;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing the
+     * key unboxed, until all entries have been processed or the action
+     * throws an exception.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *         modified during iteration
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(ObjIntConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            int[] ks = keys;
+            int mc = modCount;
+            for (int i = 0; i < vs.length && mc == modCount; ++i) {
+                Object v;
+                if ((v = vs[i]) != null)
+                    action.accept((V)v, ks[i]);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns the keys contained in this map as a newly allocated array,
+     * in no particular order.
+     *
+     * @return an array of the keys in this map
+     */
+    public int[] keysToArray() {
+        int[] a = new int[size];
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            int[] ks = keys;
+            int n = 0;
+            for (int i = 0; i < vs.length; ++i) {
+                if (vs[i] != null)
+                    a[n++] = ks[i];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        Object[] vs;
+        if ((vs = vals) != null && size > 0) {
+            ++modCount;
+            size = 0;
+            Arrays.fill(vs, null);
+        }
+    }
+
+    /* ---------------- Map methods -------------- */
+
+    public V get(Object key) {
+        return (key instanceof Integer) ? get(((Integer)key).intValue()) : null;
+    }
+
+    public V getOrDefault(Object key, V defaultValue) {
+        return (key instanceof Integer) ?
+            getOrDefault(((Integer)key).intValue(), defaultValue) :
+            defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) &&
+            indexOf(((Integer)key).intValue()) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] vs;
+        if (value != null && (vs = vals) != null) {
+            for (Object v : vs) {
+                if (v != null && (v == value || value.equals(v)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(Integer key, V value) {
+        return putVal(key.intValue(), value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or value is null
+     */
+    public V putIfAbsent(Integer key, V value) {
+        return putVal(key.intValue(), value, true);
+    }
+
+    public V remove(Object key) {
+        return (key instanceof Integer) ? remove(((Integer)key).intValue()) : null;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null, or
+     *         contains a null key or value
+     */
+    public void putAll(Map<? extends Integer, ? extends V> m) {
+        int s = m.size();
+        if (s > threshold - size) {
+            if (vals == null)
+                threshold = tableSizeFor(Math.max(threshold,
+                    (int)Math.min(MAXIMUM_CAPACITY,
+                                  Math.ceil(s / (double)loadFactor))));
+            else {
+                while (s + size > threshold && keys.length < MAXIMUM_CAPACITY)
+                    resize();
+            }
+        }
+        if (m instanceof IntObjectHashMap) {
+            @SuppressWarnings("unchecked")
+            IntObjectHashMap<? extends V> im = (IntObjectHashMap<? extends V>)m;
+            Object[] vs;
+            if ((vs = im.vals) != null) {
+                int[] ks = im.keys;
+                for (int i = 0; i < vs.length; ++i) {
+                    @SuppressWarnings("unchecked") V v = (V)vs[i];
+                    if (v != null)
+                        putVal(ks[i], v, false);
+                }
+            }
+        }
+        else {
+            for (Map.Entry<? extends Integer, ? extends V> e : m.entrySet())
+                putVal(e.getKey().intValue(), e.getValue(), false);
+        }
+    }
+
+    /**
+     * Returns the hash code value for this map, computed without boxing
+     * as specified by {@link Map#hashCode}.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = 0;
+        Object[] vs;
+        if ((vs = vals) != null) {
+            int[] ks = keys;
+            for (int i = 0; i < vs.length; ++i) {
+                Object v;
+                if ((v = vs[i]) != null)
+                    h += Integer.hashCode(ks[i]) ^ v.hashCode();
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Returns a shallow copy of this map: the keys and values themselves
+     * are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        IntObjectHashMap<V> result;
+        try {
+            result = (IntObjectHashMap<V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (vals != null) {
+            result.keys = keys.clone();
+            result.vals = vals.clone();
+        }
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<Integer,V>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are reflected in
+     * the set, and vice-versa.  The set supports element removal, but not
+     * the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<Integer,V>> entrySet() {
+        Set<Map.Entry<Integer,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { IntObjectHashMap.this.clear(); }
+        public final Iterator<Map.Entry<Integer,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            if (!(key instanceof Integer) || value == null)
+                return false;
+            int i = indexOf(((Integer)key).intValue());
+            return i >= 0 && value.equals(vals[i]);
+        }
+        public final boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            removeAt(indexOf(((Integer)((Map.Entry<?,?>)o).getKey()).intValue()));
+            return true;
+        }
+    }
+
+    /**
+     * Entry handed out by the entry set iterator.  It writes through to
+     * the map while the key is still mapped.
+     */
+    final class Entry implements Map.Entry<Integer,V> {
+        final int key;
+        V value;
+
+        Entry(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Integer getKey()    { return key; }
+        public V getValue()        { return value; }
+        public String toString()   { return key + "=" + value; }
+
+        public V setValue(V value) {
+            if (value == null)
+                throw new NullPointerException();
+            int i = indexOf(key);
+            if (i < 0)
+                throw new IllegalStateException("Entry was removed");
+            V oldValue = this.value;
+            vals[i] = this.value = value;
+            return oldValue;
+        }
+
+        public int hashCode() {
+            return Integer.hashCode(key) ^ value.hashCode();
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Integer.valueOf(key).equals(e.getKey()) &&
+                value.equals(e.getValue());
+        }
+    }
+
+    final class EntryIterator implements Iterator<Map.Entry<Integer,V>> {
+        int index;                  // current slot
+        int expectedModCount = modCount;
+        int lastReturnedIndex = -1; // to allow remove()
+        int[] traversalKeys = keys; // reference to main table or copy
+        Object[] traversalVals = vals;
+
+        public boolean hasNext() {
+            Object[] vs = traversalVals;
+            if (vs != null) {
+                for (int i = index; i < vs.length; ++i) {
+                    if (vs[i] != null) {
+                        index = i;
+                        return true;
+                    }
+                }
+                index = vs.length;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Integer,V> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int i = lastReturnedIndex = index++;
+            return new Entry(traversalKeys[i], (V)traversalVals[i]);
+        }
+
+        public void remove() {
+            if (lastReturnedIndex < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int deletedSlot = lastReturnedIndex;
+            lastReturnedIndex = -1;
+
+            // If traversing a copy, remove in real table.
+            Object[] vs = traversalVals;
+            if (vs != vals) {
+                vs[deletedSlot] = null;
+                IntObjectHashMap.this.remove(traversalKeys[deletedSlot]);
+                expectedModCount = modCount;
+                return;
+            }
+
+            // Backward-shift deletion may move an element that was already
+            // returned from a wrapped-around slot into a slot this iterator
+            // has yet to visit.  As in IdentityHashMap, copy the rest of the
+            // table for the remaining traversal when that could happen.
+            int mask = vs.length - 1;
+            int[] ks = traversalKeys;
+            int end = deletedSlot;
+            while (vs[end = (end + 1) & mask] != null)
+                ;
+            if (end < deletedSlot) {
+                traversalKeys = Arrays.copyOf(ks, vs.length);
+                traversalVals = Arrays.copyOf(vs, vs.length);
+                traversalVals[deletedSlot] = null;
+                removeAt(deletedSlot);
+            }
+            else {
+                removeAt(deletedSlot);
+                index = deletedSlot; // revisit new contents after deletion
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    /* ---------------- Serialization -------------- */
+
+    /**
+     * Save the state of the <tt>IntObjectHashMap</tt> instance to a stream.
+     *
+     * @serialData The number of key-value mappings (<tt>int</tt>),
+     *             followed by the key (<tt>int</tt>) and value (Object)
+     *             for each key-value mapping, in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            int[] ks = keys;
+            for (int i = 0; i < vs.length; ++i) {
+                if (vs[i] != null) {
+                    s.writeInt(ks[i]);
+                    s.writeObject(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>IntObjectHashMap</tt> instance from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        keys = null;
+        vals = null;
+        size = 0;
+        threshold = tableSizeFor(Math.max(DEFAULT_INITIAL_CAPACITY,
+            (int)Math.min(MAXIMUM_CAPACITY,
+                          Math.ceil(mappings / (double)loadFactor))));
+        for (int i = 0; i < mappings; i++) {
+            int key = s.readInt();
+            @SuppressWarnings("unchecked")
+                V value = (V) s.readObject();
+            putVal(key, value, false);
+        }
+    }
+}
@@ -75,6 +75,17 @@ public class IntSummaryStatistics implements IntConsumer {
      */
     public IntSummaryStatistics() { }
 
+    /**
+     * Constructs an instance with the given state.  Used by {@link
+     * GroupedIntSummaryStatistics} to return the statistics of a group.
+     */
+    IntSummaryStatistics(long count, long sum, int min, int max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
     /**
      * Records a new value into the summary information
      *
@@ -0,0 +1,974 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Hash table based implementation of the {@code Map} interface specialized
+ * for {@code long} keys and {@code int} values.  Mappings are kept in two
+ * parallel flat arrays, one of keys and one of values, using open
+ * addressing with linear probing.  Unlike {@link HashMap}, this class
+ * allocates no per-entry objects and boxes neither keys nor values on its
+ * primitive access paths ({@link #get(long)}, {@link #put(long, int)},
+ * {@link #merge(long, int, IntBinaryOperator)} and so on), so that a table of
+ * {@code n} mappings costs roughly {@code n / loadFactor} slots of one
+ * {@code long} and one {@code int}, a fraction of what
+ * {@code HashMap<Long,Integer>} allocates per entry: a 32-byte
+ * {@code Node}, a boxed key and a boxed value.
+ *
+ * <p>All {@code long} keys and {@code int} values are permitted.  A zero key
+ * marks a free table slot, so the mapping for the key zero, if any, is held
+ * apart from the table.  As no value is reserved, the primitive methods
+ * that return a previous or current value return zero when there is no
+ * mapping; {@link #containsKey(long)} and {@link #getOrDefault(long, int)}
+ * tell the two cases apart.  The {@code Map} methods taking or returning
+ * {@code Long} keys and {@code Integer} values are supported for
+ * interoperability, box as necessary, and do not permit {@code null}.  The
+ * collection views are created lazily on first use and allocate a fresh
+ * {@code Map.Entry} for each element returned by the entry set iterator.
+ *
+ * <p>This implementation provides constant-time performance for the basic
+ * operations, assuming the hash function disperses the keys properly.
+ * Removal uses backward-shift deletion (as in {@link IdentityHashMap}), so
+ * the table never accumulates tombstones and lookups stay short under
+ * mixed insert/remove workloads.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access this map concurrently, and at least one of the
+ * threads modifies the map structurally, it <i>must</i> be synchronized
+ * externally.  The iterators returned by all of this class's "collection
+ * view methods" are <i>fail-fast</i>, in the same sense as those of
+ * {@code HashMap}.
+ *
+ * @see     HashMap
+ * @see     LongObjectHashMap
+ * @see     IntIntHashMap
+ * @see     LongLongHashMap
+ * @since 1.8
+ */
+public class LongIntHashMap extends AbstractMap<Long,Integer>
+    implements Map<Long,Integer>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -8531699129511414324L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.  Linear
+     * probing degrades faster than chaining as the table fills, so this is
+     * kept below the 0.75 used by HashMap.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table keys, allocated on first use.  The length is the capacity,
+     * which MUST always be a power of two, plus one: a zero key marks a free
+     * slot, and the last slot is reserved for the key zero.
+     */
+    transient long[] keys;
+
+    /**
+     * The table values, parallel to {@link #keys}.  The last slot holds the
+     * value of the key zero if {@link #hasZeroKey}.
+     */
+    transient int[] vals;
+
+    /**
+     * Whether the key zero is mapped.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     *
+     * @serial
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Applies a supplemental hash function to a given key.  Sequential or
+     * clustered ids are common keys, so the bits are spread with a
+     * multiplicative (golden ratio) step before being masked to the table.
+     */
+    static final int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    static final int tableSizeFor(int cap) {
+        int n = cap - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and load
+     * factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in the range (0, 1)
+     */
+    public LongIntHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = tableSizeFor(Math.max(1,
+            (int)Math.ceil(initialCapacity / (double)loadFactor)));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and the
+     * default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.5).
+     */
+    public LongIntHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * {@code Map}.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null, or
+     *          contains a null key or value
+     */
+    public LongIntHashMap(Map<? extends Long, ? extends Integer> m) {
+        this(Math.max(m.size(), DEFAULT_INITIAL_CAPACITY / 2),
+             DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /* ---------------- Table management -------------- */
+
+    /**
+     * Initializes or doubles table size, reinserting all mappings.
+     */
+    final void resize() {
+        long[] oldKeys = keys;
+        int[] oldVals = vals;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length - 1;
+        int newCap;
+        if (oldCap == 0)
+            newCap = threshold;
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        else
+            newCap = oldCap << 1;
+        long[] ks = new long[newCap + 1];
+        int[] vs = new int[newCap + 1];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            long k;
+            if ((k = oldKeys[j]) != 0) {
+                int i = hash(k) & mask;
+                while (ks[i] != 0)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+        if (oldCap != 0)
+            vs[newCap] = oldVals[oldCap];
+        keys = ks;
+        vals = vs;
+        threshold = (int)(newCap * loadFactor); // always leaves a free slot
+    }
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int indexOf(long key) {
+        long[] ks;
+        if ((ks = keys) != null) {
+            int cap = ks.length - 1;
+            if (key == 0)
+                return hasZeroKey ? cap : -1;
+            int mask = cap - 1;
+            long k;
+            for (int i = hash(key) & mask; (k = ks[i]) != 0;
+                 i = (i + 1) & mask) {
+                if (k == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding the given key if present.  Otherwise adds
+     * the key, growing the table first if it is at its threshold, and
+     * returns the one's complement of its slot, whose value the caller
+     * must set.  A new key is refused, leaving the map unchanged, if the
+     * table is full at its maximum capacity.
+     *
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    final int insert(long key) {
+        if (keys == null)
+            resize();
+        for (;;) {
+            long[] ks = keys;
+            int cap = ks.length - 1, i;
+            if (key == 0) {
+                if (hasZeroKey)
+                    return cap;
+                i = cap;
+            }
+            else {
+                int mask = cap - 1;
+                long k;
+                for (i = hash(key) & mask; (k = ks[i]) != 0;
+                     i = (i + 1) & mask) {
+                    if (k == key)
+                        return i;
+                }
+            }
+            if (size >= threshold) {
+                if (cap >= MAXIMUM_CAPACITY)
+                    throw new IllegalStateException("Capacity exhausted.");
+                resize();                   // and probe the new table
+                continue;
+            }
+            if (key == 0)
+                hasZeroKey = true;
+            else
+                ks[i] = key;
+            ++modCount;
+            ++size;
+            return ~i;
+        }
+    }
+
+    /**
+     * Removes the mapping at slot d and closes the gap, adapted from
+     * Knuth Section 6.4 Algorithm R (see IdentityHashMap.closeDeletion).
+     *
+     * @return the removed value
+     */
+    final int removeAt(int d) {
+        long[] ks = keys;
+        int[] vs = vals;
+        int oldValue = vs[d];
+        ++modCount;
+        --size;
+        int cap = ks.length - 1;
+        if (d == cap) {
+            hasZeroKey = false;
+            return oldValue;
+        }
+        ks[d] = 0;
+        int mask = cap - 1;
+        long k;
+        for (int i = (d + 1) & mask; (k = ks[i]) != 0; i = (i + 1) & mask) {
+            int r = hash(k) & mask;
+            if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                ks[d] = k;
+                vs[d] = vs[i];
+                ks[i] = 0;
+                d = i;
+            }
+        }
+        return oldValue;
+    }
+
+    /* ---------------- Primitive access -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or zero if
+     * this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or zero if none
+     */
+    public int get(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0 : vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value mapped to the key, or {@code defaultValue} if none
+     */
+    public int getOrDefault(long key, int defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or zero if
+     *         there was no mapping for <tt>key</tt>
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    public int put(long key, int value) {
+        int i = insert(key);
+        if (i < 0) {
+            vals[~i] = value;
+            return 0;
+        }
+        int oldValue = vals[i];
+        vals[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or zero if
+     *         there was no mapping for <tt>key</tt>
+     */
+    public int remove(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0 : removeAt(i);
+    }
+
+    /**
+     * If the specified key is not already associated with a value, computes
+     * its value using the given mapping function and enters it into this
+     * map.  The key is passed to the function, and its result returned,
+     * without boxing.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    public int computeIfAbsent(long key, LongToIntFunction mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i = indexOf(key);
+        if (i >= 0)
+            return vals[i];
+        int mc = modCount;
+        int v = mappingFunction.applyAsInt(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        int j = ~insert(key);           // may resize, so not inline
+        vals[j] = v;
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the value
+     * with the result of the given remapping function applied to the
+     * current and the given value.  For example, {@code merge(key, 1,
+     * Integer::sum)} counts occurrences of keys.  Unlike {@link Map#merge},
+     * the mapping is never removed.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    public int merge(long key, int value,
+                    IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int i = indexOf(key);
+        if (i < 0) {
+            i = ~insert(key);               // may resize, so not inline
+            vals[i] = value;
+            return value;
+        }
+        int mc = modCount;
+        int v = remappingFunction.applyAsInt(vals[i], value);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        vals[i] = v;
+        return v;
+    }
+
+    /**
+     * Returns the keys contained in this map as a newly allocated array,
+     * in no particular order.
+     *
+     * @return an array of the keys in this map
+     */
+    public long[] keysToArray() {
+        long[] a = new long[size];
+        long[] ks;
+        if (size > 0 && (ks = keys) != null) {
+            int n = hasZeroKey ? 1 : 0;     // a[0] is already zero
+            for (int i = 0; i < ks.length - 1; ++i) {
+                if (ks[i] != 0)
+                    a[n++] = ks[i];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the values contained in this map as a newly allocated array,
+     * in the order of the keys returned by {@link #keysToArray} if the map
+     * is not modified in between.
+     *
+     * @return an array of the values in this map
+     */
+    public int[] valuesToArray() {
+        int[] a = new int[size];
+        long[] ks;
+        if (size > 0 && (ks = keys) != null) {
+            int[] vs = vals;
+            int n = 0, cap = ks.length - 1;
+            if (hasZeroKey)
+                a[n++] = vs[cap];
+            for (int i = 0; i < cap; ++i) {
+                if (ks[i] != 0)
+                    a[n++] = vs[i];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        long[] ks;
+        if ((ks = keys) != null && size > 0) {
+            ++modCount;
+            size = 0;
+            hasZeroKey = false;
+            Arrays.fill(ks, 0);
+        }
+    }
+
+    /* ---------------- Map methods -------------- */
+
+    public Integer get(Object key) {
+        if (key instanceof Long) {
+            int i = indexOf(((Long)key).longValue());
+            if (i >= 0)
+                return vals[i];
+        }
+        return null;
+    }
+
+    public Integer getOrDefault(Object key, Integer defaultValue) {
+        if (key instanceof Long) {
+            int i = indexOf(((Long)key).longValue());
+            if (i >= 0)
+                return vals[i];
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return (key instanceof Long) &&
+            indexOf(((Long)key).longValue()) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        long[] ks;
+        if (value instanceof Integer && (ks = keys) != null) {
+            int v = ((Integer)value).intValue();
+            int[] vs = vals;
+            int cap = ks.length - 1;
+            if (hasZeroKey && vs[cap] == v)
+                return true;
+            for (int i = 0; i < cap; ++i) {
+                if (ks[i] != 0 && vs[i] == v)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or value is null
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    public Integer put(Long key, Integer value) {
+        long k = key.longValue();
+        int v = value.intValue();
+        int i = insert(k);
+        if (i < 0) {
+            vals[~i] = v;
+            return null;
+        }
+        int oldValue = vals[i];
+        vals[i] = v;
+        return oldValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or value is null
+     * @throws IllegalStateException if the map cannot grow to hold a new
+     *         key
+     */
+    public Integer putIfAbsent(Long key, Integer value) {
+        long k = key.longValue();
+        int v = value.intValue();
+        int i = insert(k);
+        if (i < 0) {
+            vals[~i] = v;
+            return null;
+        }
+        return vals[i];
+    }
+
+    public Integer remove(Object key) {
+        if (key instanceof Long) {
+            int i = indexOf(((Long)key).longValue());
+            if (i >= 0)
+                return removeAt(i);
+        }
+        return null;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null, or
+     *         contains a null key or value
+     */
+    public void putAll(Map<? extends Long, ? extends Integer> m) {
+        int s = m.size();
+        if (s > threshold - size) {
+            if (keys == null)
+                threshold = tableSizeFor(Math.max(threshold,
+                    (int)Math.min(MAXIMUM_CAPACITY,
+                                  Math.ceil(s / (double)loadFactor))));
+            else {
+                while (s + size > threshold &&
+                       keys.length - 1 < MAXIMUM_CAPACITY)
+                    resize();
+            }
+        }
+        if (m instanceof LongIntHashMap) {
+            LongIntHashMap pm = (LongIntHashMap)m;
+            long[] ks;
+            if (pm.size > 0 && (ks = pm.keys) != null) {
+                int[] vs = pm.vals;
+                int cap = ks.length - 1;
+                if (pm.hasZeroKey)
+                    put(0L, vs[cap]);
+                for (int i = 0; i < cap; ++i) {
+                    if (ks[i] != 0)
+                        put(ks[i], vs[i]);
+                }
+            }
+        }
+        else {
+            for (Map.Entry<? extends Long, ? extends Integer> e :
+                     m.entrySet())
+                put(e.getKey().longValue(), e.getValue().intValue());
+        }
+    }
+
+    /**
+     * Returns the hash code value for this map, computed without boxing
+     * as specified by {@link Map#hashCode}.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = 0;
+        long[] ks;
+        if ((ks = keys) != null) {
+            int[] vs = vals;
+            int cap = ks.length - 1;
+            if (hasZeroKey)
+                h += Long.hashCode(0L) ^ Integer.hashCode(vs[cap]);
+            for (int i = 0; i < cap; ++i) {
+                if (ks[i] != 0)
+                    h += Long.hashCode(ks[i]) ^ Integer.hashCode(vs[i]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Returns a copy of this map.
+     *
+     * @return a copy of this map
+     */
+    public Object clone() {
+        LongIntHashMap result;
+        try {
+            result = (LongIntHashMap)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (keys != null) {
+            result.keys = keys.clone();
+            result.vals = vals.clone();
+        }
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<Long,Integer>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are reflected in
+     * the set, and vice-versa.  The set supports element removal, but not
+     * the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<Long,Integer>> entrySet() {
+        Set<Map.Entry<Long,Integer>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,Integer>> {
+        public final int size()   { return size; }
+        public final void clear() { LongIntHashMap.this.clear(); }
+        public final Iterator<Map.Entry<Long,Integer>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            if (!(key instanceof Long) || !(value instanceof Integer))
+                return false;
+            int i = indexOf(((Long)key).longValue());
+            return i >= 0 && vals[i] == ((Integer)value).intValue();
+        }
+        public final boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            Object key = ((Map.Entry<?,?>)o).getKey();
+            removeAt(indexOf(((Long)key).longValue()));
+            return true;
+        }
+    }
+
+    /**
+     * Entry handed out by the entry set iterator.  It writes through to
+     * the map while the key is still mapped.
+     */
+    final class Entry implements Map.Entry<Long,Integer> {
+        final long key;
+        int value;
+
+        Entry(long key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Long getKey()      { return key; }
+        public Integer getValue()    { return value; }
+        public String toString() { return key + "=" + value; }
+
+        public Integer setValue(Integer value) {
+            int v = value.intValue();
+            int i = indexOf(key);
+            if (i < 0)
+                throw new IllegalStateException("Entry was removed");
+            int oldValue = this.value;
+            vals[i] = this.value = v;
+            return oldValue;
+        }
+
+        public int hashCode() {
+            return Long.hashCode(key) ^ Integer.hashCode(value);
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Long.valueOf(key).equals(e.getKey()) &&
+                Integer.valueOf(value).equals(e.getValue());
+        }
+    }
+
+    final class EntryIterator implements Iterator<Map.Entry<Long,Integer>> {
+        int index;                  // current slot
+        int expectedModCount = modCount;
+        int lastReturnedIndex = -1; // to allow remove()
+        boolean zeroPending = hasZeroKey; // the key zero is returned first
+        boolean lastReturnedZero;
+        long[] traversalKeys = keys; // reference to main table or copy
+        int[] traversalVals = vals;
+
+        public boolean hasNext() {
+            if (zeroPending)
+                return true;
+            long[] ks = traversalKeys;
+            if (ks != null) {
+                int cap = ks.length - 1;
+                for (int i = index; i < cap; ++i) {
+                    if (ks[i] != 0) {
+                        index = i;
+                        return true;
+                    }
+                }
+                index = cap;
+            }
+            return false;
+        }
+
+        public Map.Entry<Long,Integer> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (zeroPending) {
+                zeroPending = false;
+                lastReturnedZero = true;
+                return new Entry(0L, vals[keys.length - 1]);
+            }
+            lastReturnedZero = false;
+            int i = lastReturnedIndex = index++;
+            return new Entry(traversalKeys[i], traversalVals[i]);
+        }
+
+        public void remove() {
+            if (lastReturnedIndex < 0 && !lastReturnedZero)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (lastReturnedZero) {
+                lastReturnedZero = false;
+                removeAt(keys.length - 1);
+                expectedModCount = modCount;
+                return;
+            }
+            int deletedSlot = lastReturnedIndex;
+            lastReturnedIndex = -1;
+
+            // If traversing a copy, remove in real table.
+            long[] ks = traversalKeys;
+            if (ks != keys) {
+                long k = ks[deletedSlot];
+                ks[deletedSlot] = 0;
+                LongIntHashMap.this.remove(k);
+                expectedModCount = modCount;
+                return;
+            }
+
+            // Backward-shift deletion may move an element that was already
+            // returned from a wrapped-around slot into a slot this iterator
+            // has yet to visit.  As in IdentityHashMap, copy the rest of the
+            // table for the remaining traversal when that could happen.
+            int mask = ks.length - 2;
+            int end = deletedSlot;
+            while (ks[end = (end + 1) & mask] != 0)
+                ;
+            if (end < deletedSlot) {
+                traversalKeys = Arrays.copyOf(ks, ks.length);
+                traversalVals = Arrays.copyOf(traversalVals, ks.length);
+                traversalKeys[deletedSlot] = 0;
+                removeAt(deletedSlot);
+            }
+            else {
+                removeAt(deletedSlot);
+                index = deletedSlot; // revisit new contents after deletion
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    /* ---------------- Serialization -------------- */
+
+    /**
+     * Save the state of the <tt>LongIntHashMap</tt> instance to a stream.
+     *
+     * @serialData The number of key-value mappings (<tt>int</tt>),
+     *             followed by the key (<tt>long</tt>) and value
+     *             (<tt>int</tt>) for each key-value mapping, in no
+     *             particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        long[] ks;
+        if (size > 0 && (ks = keys) != null) {
+            int[] vs = vals;
+            int cap = ks.length - 1;
+            if (hasZeroKey) {
+                s.writeLong(0);
+                s.writeInt(vs[cap]);
+            }
+            for (int i = 0; i < cap; ++i) {
+                if (ks[i] != 0) {
+                    s.writeLong(ks[i]);
+                    s.writeInt(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>LongIntHashMap</tt> instance from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        keys = null;
+        vals = null;
+        hasZeroKey = false;
+        size = 0;
+        threshold = tableSizeFor(Math.max(DEFAULT_INITIAL_CAPACITY,
+            (int)Math.min(MAXIMUM_CAPACITY,
+                          Math.ceil(mappings / (double)loadFactor))));
+        for (int i = 0; i < mappings; i++) {
+            long key = s.readLong();
+            put(key, s.readInt());
+        }
+    }
+}
@@ -76,6 +76,17 @@ public class LongSummaryStatistics implements LongConsumer, IntConsumer {
      */
     public LongSummaryStatistics() { }
 
+    /**
+     * Constructs an instance with the given state.  Used by {@link
+     * GroupedLongSummaryStatistics} to return the statistics of a group.
+     */
+    LongSummaryStatistics(long count, long sum, long min, long max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
     /**
      * Records a new {@code int} value into the summary information.
      *
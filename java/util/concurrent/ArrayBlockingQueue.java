@@ -753,6 +753,158 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and stores them into the given array, starting at the given
+     * offset, in the order they would be returned by successive calls to
+     * {@link #poll}.  Unlike {@link #drainTo(Collection, int)}, this method
+     * moves the elements with bulk array copies, taking the lock once
+     * and signalling only threads actually waiting for space.
+     *
+     * @param a the array into which the elements are to be stored
+     * @param offset the index in {@code a} of the first element stored
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     * @throws NullPointerException if the specified array is null
+     * @throws IndexOutOfBoundsException if {@code offset} is negative or
+     *         greater than {@code a.length}
+     * @throws ArrayStoreException if the runtime type of the specified
+     *         array is not a supertype of the runtime type of every
+     *         element transferred
+     * @since 1.8
+     */
+    public int drainTo(E[] a, int offset, int maxElements) {
+        checkNotNull(a);
+        if (offset < 0 || offset > a.length)
+            throw new IndexOutOfBoundsException("offset " + offset);
+        maxElements = Math.min(maxElements, a.length - offset);
+        if (maxElements <= 0)
+            return 0;
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(maxElements, count);
+            if (n > 0) {
+                int take = takeIndex;
+                int first = Math.min(n, items.length - take);
+                System.arraycopy(items, take, a, offset, first);
+                System.arraycopy(items, 0, a, offset + first, n - first);
+                // clear only after both copies succeed
+                clearItems(take, first, n - first);
+                take = (take + n < items.length) ? take + n :
+                    take + n - items.length;
+                count -= n;
+                takeIndex = take;
+                if (itrs != null) {
+                    if (count == 0)
+                        itrs.queueIsEmpty();
+                    else if (n > take)
+                        itrs.takeIndexWrapped();
+                }
+                for (int i = n; i > 0 && lock.hasWaiters(notFull); i--)
+                    notFull.signal();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all available elements that fit from this queue and
+     * stores them into the given array, starting at index zero.
+     * Equivalent to {@code drainTo(a, 0, a.length)}.
+     *
+     * @param a the array into which the elements are to be stored
+     * @return the number of elements transferred
+     * @throws NullPointerException if the specified array is null
+     * @throws ArrayStoreException if the runtime type of the specified
+     *         array is not a supertype of the runtime type of every
+     *         element transferred
+     * @since 1.8
+     */
+    public int drainTo(E[] a) {
+        return drainTo(a, 0, a.length);
+    }
+
+    /**
+     * Inserts as many elements of the given collection as possible at
+     * the tail of this queue, in the collection's iteration order,
+     * waiting if necessary up to the specified wait time for space to
+     * become available.  Elements are copied in bulk into the free space
+     * under a single acquisition of the lock (reacquired only if this
+     * method must wait for space), and only threads actually waiting to
+     * take are signalled, at most one per inserted element.
+     *
+     * <p>A timeout of zero inserts only the elements that fit
+     * immediately.
+     *
+     * @param c the elements to insert
+     * @param timeout how long to wait for space before giving up, in
+     *        units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, which is less than the
+     *         size of the collection only if the waiting time elapsed
+     * @throws InterruptedException if interrupted while waiting, in
+     *         which case some elements may already have been inserted
+     * @throws NullPointerException if the specified collection or any of
+     *         its elements is null, in which case no element is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] a = c.toArray();
+        for (Object e : a)
+            checkNotNull(e);
+        long nanos = unit.toNanos(timeout);
+        int added = 0;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (added < a.length) {
+                final Object[] items = this.items;
+                int space;
+                while ((space = items.length - count) == 0) {
+                    if (nanos <= 0)
+                        return added;
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                int n = Math.min(space, a.length - added);
+                int put = putIndex;
+                int first = Math.min(n, items.length - put);
+                System.arraycopy(a, added, items, put, first);
+                System.arraycopy(a, added + first, items, 0, n - first);
+                putIndex = (put + n < items.length) ? put + n :
+                    put + n - items.length;
+                count += n;
+                added += n;
+                for (int i = n; i > 0 && lock.hasWaiters(notEmpty); i--)
+                    notEmpty.signal();
+            }
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Nulls out the given runs of slots, starting at index i and
+     * index zero. Call only when holding lock.
+     */
+    private void clearItems(int i, int n, int wrapped) {
+        final Object[] items = this.items;
+        for (int end = i + n; i < end; i++)
+            items[i] = null;
+        for (int j = 0; j < wrapped; j++)
+            items[j] = null;
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
@@ -0,0 +1,918 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded, thread-safe cache backed by a {@link ConcurrentHashMap}.
+ * Entries are evicted when the sum of their weights exceeds a maximum,
+ * and optionally expire a fixed time after they were last written or
+ * last accessed.
+ *
+ * <p>Unlike a {@link java.util.LinkedHashMap} with {@code removeEldestEntry},
+ * reads never block each other or take a global lock.  A read only
+ * records the accessed entry in one of several striped, lossy ring
+ * buffers; the recorded accesses are replayed against the eviction
+ * policy in batches by whichever thread next acquires the policy lock
+ * (without waiting for it, on the read path).  Writes update the hash
+ * table concurrently and then apply their policy changes under the
+ * lock.
+ *
+ * <p>The eviction policy is W-TinyLFU: new entries enter a small
+ * admission window kept in LRU order, and an entry leaving the window is
+ * admitted to the main segmented-LRU region only if its estimated access
+ * frequency, taken from a compact 4-bit count-min sketch, is higher than
+ * that of the entry it would displace.  This keeps one-hit wonders from
+ * flushing frequently used entries, as can happen with plain LRU.
+ *
+ * <p>Because expiration durations are fixed, entries expire in the order
+ * they were written (or accessed), so expired entries are found at the
+ * heads of the write-order and access-order queues in constant time per
+ * entry.  Expired entries are never returned, but may continue to count
+ * towards {@link #estimatedSize} until the next maintenance cycle.
+ *
+ * <p>Hit, miss and eviction counts are exposed through the {@link
+ * ConcurrentCacheMXBean} interface.  Like {@code ConcurrentHashMap},
+ * this class does not allow {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @see ConcurrentCacheMXBean
+ * @since 1.8
+ */
+public class ConcurrentCache<K,V> implements ConcurrentCacheMXBean {
+
+    /*
+     * Overview:
+     *
+     * The hash table maps keys to Nodes, which carry the value and the
+     * links used by the policy.  Policy state (the three LRU queues, the
+     * write-order queue, the sketch and the weight totals) is guarded by
+     * evictionLock and is only touched by the thread holding it.
+     *
+     * Node liveness: a node is alive from its insertion into the table
+     * until it is retired under its own monitor, which always happens
+     * before it is removed from the table.  An update of a node, made
+     * under the same monitor, therefore either precedes the retirement
+     * and is seen by the remover, or finds the node retired and retries,
+     * first helping to remove the node if it is still in the table.
+     * Adds and removals also race with their policy updates, so
+     * linking skips retired nodes and unlinking is idempotent; whichever
+     * order the two lock acquisitions happen in, a retired node ends up
+     * unlinked.
+     *
+     * Read buffers: each stripe is a small ring whose slots are claimed
+     * by CAS on a write counter and published with lazySet, and drained
+     * up to the first unpublished slot.  When a stripe is full the access
+     * is dropped; the policy tolerates this since it is only a hint of
+     * recency and frequency.
+     */
+
+    /** Number of CPUS, to size the read buffer stripes. */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffer stripes, a power of two. */
+    static final int READ_BUFFER_STRIPES = stripesFor(NCPU);
+
+    /** The capacity of each read buffer, a power of two. */
+    static final int READ_BUFFER_SIZE = 16;
+
+    /** Mask for read buffer indices. */
+    static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    /** The number of pending reads in a stripe that triggers a drain. */
+    static final int READ_BUFFER_DRAIN_THRESHOLD = 8;
+
+    /** The percentage of the maximum weight given to the window. */
+    static final int WINDOW_PERCENT = 1;
+
+    /** The percentage of the main region given to protected entries. */
+    static final int PROTECTED_PERCENT = 80;
+
+    // Node queue types
+    static final int NONE = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3;
+
+    static int stripesFor(int ncpu) {
+        int n = 1;
+        while (n < ncpu * 4 && n < (1 << 10))
+            n <<= 1;
+        return n;
+    }
+
+    /* ---------------- Nodes and queues -------------- */
+
+    /**
+     * Cache entry.  value, weight and writeTime are written under the
+     * node's monitor; the remaining mutable fields under evictionLock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile boolean alive = true;
+
+        int queueType;          // NONE, WINDOW, PROBATION or PROTECTED
+        int policyWeight;       // weight as accounted for by the policy
+        Node<K,V> prevAccess, nextAccess;
+        Node<K,V> prevWrite, nextWrite;
+        boolean inWriteOrder;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = this.accessTime = now;
+        }
+    }
+
+    /**
+     * Intrusive deque in access order, linked through
+     * prevAccess/nextAccess.
+     */
+    static final class AccessOrderDeque<K,V> {
+        Node<K,V> first, last;
+        long weight;
+
+        void addLast(Node<K,V> n) {
+            Node<K,V> l = last;
+            n.prevAccess = l;
+            n.nextAccess = null;
+            if (l == null)
+                first = n;
+            else
+                l.nextAccess = n;
+            last = n;
+            weight += n.policyWeight;
+        }
+
+        void unlink(Node<K,V> n) {
+            Node<K,V> p = n.prevAccess, s = n.nextAccess;
+            if (p == null)
+                first = s;
+            else
+                p.nextAccess = s;
+            if (s == null)
+                last = p;
+            else
+                s.prevAccess = p;
+            n.prevAccess = n.nextAccess = null;
+            weight -= n.policyWeight;
+        }
+
+        void moveToLast(Node<K,V> n) {
+            if (n != last) {
+                unlink(n);
+                addLast(n);
+            }
+        }
+    }
+
+    /**
+     * Intrusive deque in write order, linked through prevWrite/nextWrite.
+     */
+    static final class WriteOrderDeque<K,V> {
+        Node<K,V> first, last;
+
+        void addLast(Node<K,V> n) {
+            Node<K,V> l = last;
+            n.prevWrite = l;
+            n.nextWrite = null;
+            if (l == null)
+                first = n;
+            else
+                l.nextWrite = n;
+            last = n;
+            n.inWriteOrder = true;
+        }
+
+        void unlink(Node<K,V> n) {
+            if (!n.inWriteOrder)
+                return;
+            Node<K,V> p = n.prevWrite, s = n.nextWrite;
+            if (p == null)
+                first = s;
+            else
+                p.nextWrite = s;
+            if (s == null)
+                last = p;
+            else
+                s.prevWrite = p;
+            n.prevWrite = n.nextWrite = null;
+            n.inWriteOrder = false;
+        }
+
+        void moveToLast(Node<K,V> n) {
+            if (n != last) {
+                unlink(n);
+                addLast(n);
+            }
+        }
+    }
+
+    /**
+     * A lossy ring buffer of recently read nodes.
+     */
+    static final class ReadBuffer<K,V> {
+        final AtomicReferenceArray<Node<K,V>> buffer =
+            new AtomicReferenceArray<Node<K,V>>(READ_BUFFER_SIZE);
+        final AtomicLong writeCount = new AtomicLong();
+        volatile long readCount; // written only under evictionLock
+    }
+
+    /**
+     * A count-min sketch of access frequencies with four 4-bit counters
+     * per key, periodically halved so that old popularity decays.  Each
+     * long in the table holds sixteen counters; a key uses one counter
+     * in each of four longs.
+     */
+    static final class FrequencySketch {
+        static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        static final long RESET_MASK = 0x7777777777777777L;
+
+        final long[] table;
+        final int tableMask;
+        final int sampleSize;
+        int size;
+
+        FrequencySketch(long maximum) {
+            int n = 16;
+            long target = Math.min(maximum, 1L << 26);
+            while (n < target)
+                n <<= 1;
+            table = new long[n];
+            tableMask = n - 1;
+            sampleSize = 10 * n;
+        }
+
+        static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+
+        int indexOf(int h, int i) {
+            long hash = (h + SEEDS[i]) * SEEDS[i];
+            hash += (hash >>> 32);
+            return ((int)hash) & tableMask;
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            int f = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int c = (int)((table[indexOf(h, i)] >>> ((start + i) << 2)) & 0xfL);
+                if (c < f)
+                    f = c;
+            }
+            return f;
+        }
+
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int j = indexOf(h, i);
+                int offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                if ((table[j] & mask) != mask) {
+                    table[j] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize) {
+                for (int i = 0; i < table.length; i++)
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                size >>>= 1;
+            }
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    final ConcurrentHashMap<K,Node<K,V>> data;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final long maximum;
+    final long windowMaximum;
+    final long protectedMaximum;
+    final long expireAfterWriteNanos;   // <= 0 if disabled
+    final long expireAfterAccessNanos;  // <= 0 if disabled
+
+    final ReadBuffer<K,V>[] readBuffers;
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Policy state, guarded by evictionLock
+    final AccessOrderDeque<K,V> window = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> probation = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> protectedQ = new AccessOrderDeque<K,V>();
+    final WriteOrderDeque<K,V> writeOrder = new WriteOrderDeque<K,V>();
+    final FrequencySketch sketch;
+    volatile long weightedSize;
+
+    // Statistics
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+    final LongAdder evictionWeight = new LongAdder();
+
+    /* ---------------- Constructors -------------- */
+
+    /**
+     * Creates a cache holding at most the given number of entries, with
+     * no expiration.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(maximumSize, null, 0L, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its entries, with
+     * optional expiration.
+     *
+     * @param maximumWeight the maximum total weight of entries
+     * @param weigher computes the weight of an entry, which must be
+     * non-negative and must not change while the entry is cached; or
+     * {@code null} to give every entry a weight of one
+     * @param expireAfterWrite the time after an entry is created or its
+     * value replaced at which it expires, or zero for never
+     * @param expireAfterAccess the time after an entry is last read or
+     * written at which it expires, or zero for never
+     * @param unit the time unit of the expiration arguments
+     * @throws IllegalArgumentException if maximumWeight or either
+     * duration is negative
+     * @throws NullPointerException if unit is null
+     */
+    public ConcurrentCache(long maximumWeight,
+                           ToIntBiFunction<? super K, ? super V> weigher,
+                           long expireAfterWrite, long expireAfterAccess,
+                           TimeUnit unit) {
+        if (maximumWeight < 0L || expireAfterWrite < 0L ||
+            expireAfterAccess < 0L)
+            throw new IllegalArgumentException();
+        if (unit == null)
+            throw new NullPointerException();
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = Math.max(1L, maximumWeight * WINDOW_PERCENT / 100);
+        this.protectedMaximum =
+            (maximumWeight - windowMaximum) * PROTECTED_PERCENT / 100;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.sketch = new FrequencySketch(maximumWeight);
+        this.data = new ConcurrentHashMap<K,Node<K,V>>(
+            (int)Math.min(maximumWeight, 1 << 16));
+        @SuppressWarnings("unchecked")
+        ReadBuffer<K,V>[] rbs = (ReadBuffer<K,V>[])
+            new ReadBuffer<?,?>[READ_BUFFER_STRIPES];
+        for (int i = 0; i < rbs.length; i++)
+            rbs[i] = new ReadBuffer<K,V>();
+        this.readBuffers = rbs;
+    }
+
+    /* ---------------- Helpers -------------- */
+
+    final boolean expires() {
+        return expireAfterWriteNanos > 0L || expireAfterAccessNanos > 0L;
+    }
+
+    final long now() {
+        return expires() ? System.nanoTime() : 0L;
+    }
+
+    final boolean hasExpired(Node<K,V> n, long now) {
+        return (expireAfterWriteNanos > 0L &&
+                now - n.writeTime >= expireAfterWriteNanos) ||
+            (expireAfterAccessNanos > 0L &&
+             now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    final int weigh(K key, V value) {
+        if (weigher == null)
+            return 1;
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("Negative weight: " + w);
+        return w;
+    }
+
+    /**
+     * Records a read of the node in this thread's read buffer stripe,
+     * draining the buffers if enough reads are pending and the policy
+     * lock is free.
+     */
+    final void afterRead(Node<K,V> n, long now) {
+        if (expireAfterAccessNanos > 0L)
+            n.accessTime = now;
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadBuffer<K,V> rb = readBuffers[h & (READ_BUFFER_STRIPES - 1)];
+        long w = rb.writeCount.get();
+        long pending = w - rb.readCount;
+        if (pending < READ_BUFFER_SIZE &&
+            rb.writeCount.compareAndSet(w, w + 1)) {
+            rb.buffer.lazySet((int)w & READ_BUFFER_MASK, n);
+            ++pending;
+        }
+        else
+            ThreadLocalRandom.advanceProbe(h); // contended; try another stripe next time
+        if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                maintenance(now);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a new node to the policy and performs maintenance.
+     */
+    final void afterAdd(Node<K,V> n, long now) {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            if (n.alive && n.queueType == NONE) {
+                n.policyWeight = n.weight;
+                n.queueType = WINDOW;
+                window.addLast(n);
+                weightedSize += n.policyWeight;
+                if (expireAfterWriteNanos > 0L)
+                    writeOrder.addLast(n);
+                sketch.increment(n.key);
+            }
+            maintenance(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a value replacement to the policy and performs maintenance.
+     */
+    final void afterUpdate(Node<K,V> n, long now) {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            if (n.queueType != NONE) {
+                AccessOrderDeque<K,V> q = queueFor(n);
+                int w = n.weight, delta = w - n.policyWeight;
+                q.weight += delta;
+                weightedSize += delta;
+                n.policyWeight = w;
+                onAccess(n);
+                if (expireAfterWriteNanos > 0L)
+                    writeOrder.moveToLast(n);
+            }
+            maintenance(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a retired node from the policy.
+     */
+    final void afterRemove(Node<K,V> n) {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            unlink(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final AccessOrderDeque<K,V> queueFor(Node<K,V> n) {
+        switch (n.queueType) {
+        case WINDOW:    return window;
+        case PROBATION: return probation;
+        default:        return protectedQ;
+        }
+    }
+
+    /** Unlinks the node from all policy queues. Call with lock held. */
+    final void unlink(Node<K,V> n) {
+        if (n.queueType != NONE) {
+            queueFor(n).unlink(n);
+            weightedSize -= n.policyWeight;
+            n.queueType = NONE;
+        }
+        writeOrder.unlink(n);
+    }
+
+    /** Retires the node if it is still alive, returning true if so. */
+    static <K,V> boolean retire(Node<K,V> n) {
+        synchronized (n) {
+            if (!n.alive)
+                return false;
+            n.alive = false;
+            return true;
+        }
+    }
+
+    /**
+     * Applies a read to the policy. Call with lock held.
+     */
+    final void onAccess(Node<K,V> n) {
+        switch (n.queueType) {
+        case WINDOW:
+            window.moveToLast(n);
+            break;
+        case PROBATION:
+            // promote, demoting the least recent protected entries
+            probation.unlink(n);
+            n.queueType = PROTECTED;
+            protectedQ.addLast(n);
+            Node<K,V> d;
+            while (protectedQ.weight > protectedMaximum &&
+                   (d = protectedQ.first) != null && d != n) {
+                protectedQ.unlink(d);
+                d.queueType = PROBATION;
+                probation.addLast(d);
+            }
+            break;
+        case PROTECTED:
+            protectedQ.moveToLast(n);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Drains read buffers, expires and evicts entries. Call with lock
+     * held.
+     */
+    final void maintenance(long now) {
+        drainReadBuffers();
+        if (expires())
+            expireEntries(now);
+        evictEntries();
+    }
+
+    final void drainReadBuffers() {
+        for (ReadBuffer<K,V> rb : readBuffers) {
+            long r = rb.readCount, w = rb.writeCount.get();
+            for (; r < w; ++r) {
+                int i = (int)r & READ_BUFFER_MASK;
+                Node<K,V> n = rb.buffer.get(i);
+                if (n == null)
+                    break; // claimed but not yet published
+                rb.buffer.lazySet(i, null);
+                if (n.queueType != NONE) {
+                    sketch.increment(n.key);
+                    onAccess(n);
+                }
+            }
+            rb.readCount = r;
+        }
+    }
+
+    final void expireEntries(long now) {
+        Node<K,V> n;
+        if (expireAfterWriteNanos > 0L) {
+            while ((n = writeOrder.first) != null &&
+                   now - n.writeTime >= expireAfterWriteNanos)
+                evict(n);
+        }
+        if (expireAfterAccessNanos > 0L) {
+            expireAfterAccess(window, now);
+            expireAfterAccess(probation, now);
+            expireAfterAccess(protectedQ, now);
+        }
+    }
+
+    final void expireAfterAccess(AccessOrderDeque<K,V> q, long now) {
+        Node<K,V> n;
+        while ((n = q.first) != null &&
+               now - n.accessTime >= expireAfterAccessNanos)
+            evict(n);
+    }
+
+    /**
+     * Moves entries that overflow the window into probation, then
+     * evicts from the main region until under the maximum, admitting
+     * each former window entry only if it is estimated to be used more
+     * frequently than the probation entry it would replace.
+     */
+    final void evictEntries() {
+        Node<K,V> n, candidate = null;
+        while (window.weight > windowMaximum && (n = window.first) != null) {
+            window.unlink(n);
+            n.queueType = PROBATION;
+            probation.addLast(n);
+            if (candidate == null)
+                candidate = n;
+        }
+        while (weightedSize > maximum) {
+            Node<K,V> victim;
+            if ((victim = probation.first) == null &&
+                (victim = protectedQ.first) == null &&
+                (victim = window.first) == null)
+                break;
+            if (candidate != null && candidate.queueType != PROBATION)
+                candidate = null;
+            if (candidate == victim)
+                candidate = candidate.nextAccess;
+            else if (candidate != null &&
+                     sketch.frequency(candidate.key) <=
+                     sketch.frequency(victim.key)) {
+                victim = candidate;
+                candidate = candidate.nextAccess;
+            }
+            evict(victim);
+        }
+    }
+
+    /**
+     * Removes the node from the table and policy, counting it as an
+     * eviction unless it was already removed. Call with lock held.
+     */
+    final void evict(Node<K,V> n) {
+        if (retire(n)) {
+            data.remove(n.key, n);
+            evictions.increment();
+            evictionWeight.add(n.policyWeight);
+        }
+        unlink(n);
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value cached for the key, or {@code null} if there is
+     * none or it has expired.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the key is null
+     */
+    public V get(Object key) {
+        Node<K,V> n = data.get(key);
+        long now = now();
+        if (n == null || hasExpired(n, now)) {
+            misses.increment();
+            return null;
+        }
+        V v = n.value;
+        hits.increment();
+        afterRead(n, now);
+        return v;
+    }
+
+    /**
+     * Returns the value cached for the key, computing and caching it with
+     * the given function if there is none or it has expired.  The whole
+     * invocation is performed atomically with respect to other
+     * computations for the same key, as with
+     * {@link ConcurrentHashMap#computeIfAbsent}.
+     *
+     * @param key key with which the value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value, or null if the
+     *         computed value is null
+     * @throws NullPointerException if the key or mappingFunction is null
+     */
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        final long now = now();
+        Node<K,V> n = data.get(key);
+        if (n != null && n.alive && !hasExpired(n, now)) {
+            V v = n.value;
+            hits.increment();
+            afterRead(n, now);
+            return v;
+        }
+        misses.increment();
+        @SuppressWarnings("unchecked")
+        final Node<K,V>[] created = (Node<K,V>[])new Node<?,?>[1];
+        for (;;) {
+            if (n != null) {
+                boolean retired = retire(n);
+                data.remove(key, n);
+                if (retired)
+                    afterRemove(n);
+            }
+            n = data.computeIfAbsent(key, k -> {
+                V v = mappingFunction.apply(k);
+                return (v == null) ? null :
+                    (created[0] = new Node<K,V>(k, v, weigh(k, v), now));
+            });
+            if (n == null)
+                return null;
+            if (n == created[0]) {
+                afterAdd(n, now);
+                return n.value;
+            }
+            if (n.alive && !hasExpired(n, now)) {
+                afterRead(n, now);
+                return n.value;
+            }
+        }
+    }
+
+    /**
+     * Caches the value for the key, replacing any existing value.
+     *
+     * @param key key with which the value is to be associated
+     * @param value value to be associated with the key
+     * @return the previous live value, or {@code null} if there was none
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * Caches the value for the key unless a live value is already cached.
+     *
+     * @param key key with which the value is to be associated
+     * @param value value to be associated with the key
+     * @return the existing live value, or {@code null} if there was none
+     * @throws NullPointerException if the key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    final V put(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        int weight = weigh(key, value);
+        long now = now();
+        Node<K,V> node = null;
+        for (;;) {
+            Node<K,V> prior = data.get(key);
+            if (prior == null) {
+                if (node == null)
+                    node = new Node<K,V>(key, value, weight, now);
+                if ((prior = data.putIfAbsent(key, node)) == null) {
+                    afterAdd(node, now);
+                    return null;
+                }
+            }
+            V oldValue;
+            boolean expired, replaced = false;
+            synchronized (prior) {
+                if (!prior.alive) {
+                    data.remove(key, prior);
+                    continue;
+                }
+                oldValue = prior.value;
+                expired = hasExpired(prior, now);
+                if (!onlyIfAbsent || expired) {
+                    prior.value = value;
+                    prior.weight = weight;
+                    prior.writeTime = prior.accessTime = now;
+                    replaced = true;
+                }
+            }
+            if (replaced) {
+                afterUpdate(prior, now);
+                return expired ? null : oldValue;
+            }
+            afterRead(prior, now);
+            return oldValue;
+        }
+    }
+
+    /**
+     * Removes the cached value for the key, if any.
+     *
+     * @param key key whose mapping is to be removed
+     * @return the previous live value, or {@code null} if there was none
+     * @throws NullPointerException if the key is null
+     */
+    public V remove(Object key) {
+        for (Node<K,V> n; (n = data.get(key)) != null; ) {
+            boolean retired = retire(n);
+            data.remove(key, n);
+            if (retired) {
+                V v = n.value;
+                boolean expired = hasExpired(n, now());
+                afterRemove(n);
+                return expired ? null : v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            drainReadBuffers();
+            for (Node<K,V> n : data.values()) {
+                if (retire(n)) {
+                    data.remove(n.key, n);
+                    unlink(n);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Performs any pending maintenance: replays buffered reads against
+     * the eviction policy, and removes expired and excess entries.  This
+     * happens automatically as the cache is used, but may be invoked
+     * explicitly, for example from a scheduled task, to remove expired
+     * entries from an otherwise idle cache.
+     */
+    public void cleanUp() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            maintenance(now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the approximate number of entries in the cache, which may
+     * include entries that have expired but not yet been removed.
+     *
+     * @return the estimated number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    public long getHitCount()       { return hits.sum(); }
+    public long getMissCount()      { return misses.sum(); }
+    public long getEvictionCount()  { return evictions.sum(); }
+    public long getEvictionWeight() { return evictionWeight.sum(); }
+    public long getEstimatedSize()  { return estimatedSize(); }
+    public long getWeightedSize()   { return weightedSize; }
+    public long getMaximumWeight()  { return maximum; }
+
+    public double getHitRatio() {
+        long h = hits.sum(), n = h + misses.sum();
+        return (n == 0L) ? 1.0 : (double)h / n;
+    }
+
+    /**
+     * Returns a string identifying this cache, as well as its
+     * statistics.
+     *
+     * @return a string identifying this cache, as well as its statistics
+     */
+    public String toString() {
+        return super.toString() +
+            "[size = " + estimatedSize() +
+            ", weight = " + weightedSize + "/" + maximum +
+            ", hits = " + hits.sum() +
+            ", misses = " + misses.sum() +
+            ", evictions = " + evictions.sum() + "]";
+    }
+}
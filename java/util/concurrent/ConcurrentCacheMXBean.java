@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * The management interface for a {@link ConcurrentCache}.
+ *
+ * <p>A cache is not registered automatically.  To monitor one, register
+ * it with an MBean server, for example:
+ *
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     cache, new ObjectName("com.example:type=ConcurrentCache,name=users"));
+ * }</pre>
+ *
+ * <p>All counts are cumulative since the cache was created and are
+ * maintained with {@link java.util.concurrent.atomic.LongAdder}s, so
+ * reading them is cheap but not atomic with respect to each other.
+ *
+ * @see java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * @since 1.8
+ */
+public interface ConcurrentCacheMXBean {
+
+    /**
+     * Returns the number of lookups that found a live entry.
+     *
+     * @return the hit count
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that found no entry, or an expired
+     * one.
+     *
+     * @return the miss count
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of hits to lookups, or {@code 1.0} if there have
+     * been no lookups.
+     *
+     * @return the hit ratio
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the number of entries removed because the cache exceeded
+     * its maximum weight or because they expired.
+     *
+     * @return the eviction count
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the sum of the weights of evicted entries.
+     *
+     * @return the evicted weight
+     */
+    long getEvictionWeight();
+
+    /**
+     * Returns the approximate number of entries in the cache.
+     *
+     * @return the estimated number of entries
+     */
+    long getEstimatedSize();
+
+    /**
+     * Returns the sum of the weights of the entries currently accounted
+     * for by the eviction policy.
+     *
+     * @return the weighted size
+     */
+    long getWeightedSize();
+
+    /**
+     * Returns the maximum weighted size of the cache.
+     *
+     * @return the maximum weight
+     */
+    long getMaximumWeight();
+}
@@ -3634,10 +3634,18 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      * two anyway.
      */
     final int batchFor(long b) {
+        return batchFor(b, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Computes initial batch value for bulk tasks run in a pool of the
+     * given parallelism.
+     */
+    final int batchFor(long b, int parallelism) {
         long n;
         if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
             return 0;
-        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        int sp = parallelism << 2; // slack of 4
         return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
     }
 
@@ -4364,6 +4372,873 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
              null, transformer, basis, reducer).invoke();
     }
 
+    // Parallel bulk operations in a given pool
+
+    /*
+     * The following overloads run the same bulk tasks as the methods
+     * above, but in the given pool rather than in the common pool, and
+     * size the initial batch by that pool's parallelism.  This lets
+     * large scans be confined to a dedicated pool instead of competing
+     * with parallel streams and CompletableFutures for common pool
+     * workers.  A task that will not be split (the map is smaller than
+     * the threshold), or one invoked from a worker of the given pool, is
+     * run directly in the caller via invokeIn rather than submitted, so
+     * it neither pays for a hand-off nor blocks a worker of that pool
+     * waiting on its own queue.
+     */
+
+    /**
+     * Runs the given task in the caller if it will not be split or the
+     * caller is already a worker of the given pool, else in that pool.
+     */
+    static <R> R invokeIn(ForkJoinPool pool, BulkTask<?,?,R> task) {
+        Thread t;
+        if (task.batch <= 0 ||
+            ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread &&
+             ((ForkJoinWorkerThread)t).getPool() == pool))
+            return task.invoke();
+        return pool.invoke(task);
+    }
+
+    /**
+     * Performs the given action for each (key, value). Any parallel
+     * subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public void forEach(ForkJoinPool pool,
+                        long parallelismThreshold,
+                        BiConsumer<? super K,? super V> action) {
+        if (pool == null || action == null) throw new NullPointerException();
+        invokeIn(pool, new ForEachMappingTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, action));
+    }
+
+    /**
+     * Performs the given action for each non-null transformation of each
+     * (key, value). Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case the action is not applied)
+     * @param action the action
+     * @param <U> the return type of the transformer
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> void forEach(ForkJoinPool pool,
+                            long parallelismThreshold,
+                            BiFunction<? super K, ? super V, ? extends U> transformer,
+                            Consumer<? super U> action) {
+        if (pool == null || transformer == null || action == null)
+            throw new NullPointerException();
+        invokeIn(pool, new ForEachTransformedMappingTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, transformer, action));
+    }
+
+    /**
+     * Returns a non-null result from applying the given search function
+     * on each (key, value), or null if none.  Upon success, further
+     * element processing is suppressed and the results of any other
+     * parallel invocations of the search function are ignored. Any
+     * parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each (key, value), or null if none
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U search(ForkJoinPool pool,
+                        long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        if (pool == null || searchFunction == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new SearchMappingsTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, searchFunction, new AtomicReference<U>()));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * (key, value) pairs using the given reducer to combine values, or
+     * null if none. Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case it is not combined)
+     * @param reducer a commutative associative combining function
+     * @param <U> the return type of the transformer
+     * @return the result of accumulating the given transformation
+     * of all (key, value) pairs
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U reduce(ForkJoinPool pool,
+                        long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceMappingsTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * (key, value) pairs using the given reducer to combine values, and
+     * the given basis as an identity value. Any parallel subtasks are
+     * run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all (key, value) pairs
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public double reduceToDouble(ForkJoinPool pool,
+                                 long parallelismThreshold,
+                                 ToDoubleBiFunction<? super K, ? super V> transformer,
+                                 double basis,
+                                 DoubleBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceMappingsToDoubleTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * (key, value) pairs using the given reducer to combine values, and
+     * the given basis as an identity value. Any parallel subtasks are
+     * run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all (key, value) pairs
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public long reduceToLong(ForkJoinPool pool,
+                             long parallelismThreshold,
+                             ToLongBiFunction<? super K, ? super V> transformer,
+                             long basis,
+                             LongBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceMappingsToLongTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * (key, value) pairs using the given reducer to combine values, and
+     * the given basis as an identity value. Any parallel subtasks are
+     * run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all (key, value) pairs
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public int reduceToInt(ForkJoinPool pool,
+                           long parallelismThreshold,
+                           ToIntBiFunction<? super K, ? super V> transformer,
+                           int basis,
+                           IntBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceMappingsToIntTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Performs the given action for each key. Any parallel subtasks are
+     * run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public void forEachKey(ForkJoinPool pool,
+                           long parallelismThreshold,
+                           Consumer<? super K> action) {
+        if (pool == null || action == null) throw new NullPointerException();
+        invokeIn(pool, new ForEachKeyTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, action));
+    }
+
+    /**
+     * Performs the given action for each non-null transformation of each
+     * key. Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case the action is not applied)
+     * @param action the action
+     * @param <U> the return type of the transformer
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> void forEachKey(ForkJoinPool pool,
+                               long parallelismThreshold,
+                               Function<? super K, ? extends U> transformer,
+                               Consumer<? super U> action) {
+        if (pool == null || transformer == null || action == null)
+            throw new NullPointerException();
+        invokeIn(pool, new ForEachTransformedKeyTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, transformer, action));
+    }
+
+    /**
+     * Returns a non-null result from applying the given search function
+     * on each key, or null if none. Upon success, further element
+     * processing is suppressed and the results of any other parallel
+     * invocations of the search function are ignored. Any parallel
+     * subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each key, or null if none
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U searchKeys(ForkJoinPool pool,
+                            long parallelismThreshold,
+                            Function<? super K, ? extends U> searchFunction) {
+        if (pool == null || searchFunction == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new SearchKeysTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, searchFunction, new AtomicReference<U>()));
+    }
+
+    /**
+     * Returns the result of accumulating all keys using the given
+     * reducer to combine values, or null if none. Any parallel subtasks
+     * are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating all keys using the given
+     * reducer to combine values, or null if none
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public K reduceKeys(ForkJoinPool pool,
+                        long parallelismThreshold,
+                        BiFunction<? super K, ? super K, ? extends K> reducer) {
+        if (pool == null || reducer == null) throw new NullPointerException();
+        return invokeIn(pool, new ReduceKeysTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * keys using the given reducer to combine values, or null if none.
+     * Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case it is not combined)
+     * @param reducer a commutative associative combining function
+     * @param <U> the return type of the transformer
+     * @return the result of accumulating the given transformation
+     * of all keys
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U reduceKeys(ForkJoinPool pool,
+                            long parallelismThreshold,
+                            Function<? super K, ? extends U> transformer,
+                            BiFunction<? super U, ? super U, ? extends U> reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceKeysTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * keys using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all keys
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public double reduceKeysToDouble(ForkJoinPool pool,
+                                     long parallelismThreshold,
+                                     ToDoubleFunction<? super K> transformer,
+                                     double basis,
+                                     DoubleBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceKeysToDoubleTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * keys using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all keys
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public long reduceKeysToLong(ForkJoinPool pool,
+                                 long parallelismThreshold,
+                                 ToLongFunction<? super K> transformer,
+                                 long basis,
+                                 LongBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceKeysToLongTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * keys using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all keys
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public int reduceKeysToInt(ForkJoinPool pool,
+                               long parallelismThreshold,
+                               ToIntFunction<? super K> transformer,
+                               int basis,
+                               IntBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceKeysToIntTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Performs the given action for each value. Any parallel subtasks
+     * are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public void forEachValue(ForkJoinPool pool,
+                             long parallelismThreshold,
+                             Consumer<? super V> action) {
+        if (pool == null || action == null)
+            throw new NullPointerException();
+        invokeIn(pool, new ForEachValueTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, action));
+    }
+
+    /**
+     * Performs the given action for each non-null transformation of each
+     * value. Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case the action is not applied)
+     * @param action the action
+     * @param <U> the return type of the transformer
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> void forEachValue(ForkJoinPool pool,
+                                 long parallelismThreshold,
+                                 Function<? super V, ? extends U> transformer,
+                                 Consumer<? super U> action) {
+        if (pool == null || transformer == null || action == null)
+            throw new NullPointerException();
+        invokeIn(pool, new ForEachTransformedValueTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, transformer, action));
+    }
+
+    /**
+     * Returns a non-null result from applying the given search function
+     * on each value, or null if none.  Upon success, further element
+     * processing is suppressed and the results of any other parallel
+     * invocations of the search function are ignored. Any parallel
+     * subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each value, or null if none
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U searchValues(ForkJoinPool pool,
+                              long parallelismThreshold,
+                              Function<? super V, ? extends U> searchFunction) {
+        if (pool == null || searchFunction == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new SearchValuesTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, searchFunction, new AtomicReference<U>()));
+    }
+
+    /**
+     * Returns the result of accumulating all values using the given
+     * reducer to combine values, or null if none. Any parallel subtasks
+     * are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating all values
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public V reduceValues(ForkJoinPool pool,
+                          long parallelismThreshold,
+                          BiFunction<? super V, ? super V, ? extends V> reducer) {
+        if (pool == null || reducer == null) throw new NullPointerException();
+        return invokeIn(pool, new ReduceValuesTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * values using the given reducer to combine values, or null if none.
+     * Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case it is not combined)
+     * @param reducer a commutative associative combining function
+     * @param <U> the return type of the transformer
+     * @return the result of accumulating the given transformation
+     * of all values
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U reduceValues(ForkJoinPool pool,
+                              long parallelismThreshold,
+                              Function<? super V, ? extends U> transformer,
+                              BiFunction<? super U, ? super U, ? extends U> reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceValuesTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * values using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all values
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public double reduceValuesToDouble(ForkJoinPool pool,
+                                       long parallelismThreshold,
+                                       ToDoubleFunction<? super V> transformer,
+                                       double basis,
+                                       DoubleBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceValuesToDoubleTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * values using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all values
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public long reduceValuesToLong(ForkJoinPool pool,
+                                   long parallelismThreshold,
+                                   ToLongFunction<? super V> transformer,
+                                   long basis,
+                                   LongBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceValuesToLongTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * values using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all values
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public int reduceValuesToInt(ForkJoinPool pool,
+                                 long parallelismThreshold,
+                                 ToIntFunction<? super V> transformer,
+                                 int basis,
+                                 IntBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceValuesToIntTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Performs the given action for each entry. Any parallel subtasks
+     * are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public void forEachEntry(ForkJoinPool pool,
+                             long parallelismThreshold,
+                             Consumer<? super Map.Entry<K,V>> action) {
+        if (pool == null || action == null) throw new NullPointerException();
+        invokeIn(pool, new ForEachEntryTask<K,V>(null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table,                      action));
+    }
+
+    /**
+     * Performs the given action for each non-null transformation of each
+     * entry. Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case the action is not applied)
+     * @param action the action
+     * @param <U> the return type of the transformer
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> void forEachEntry(ForkJoinPool pool,
+                                 long parallelismThreshold,
+                                 Function<Map.Entry<K,V>, ? extends U> transformer,
+                                 Consumer<? super U> action) {
+        if (pool == null || transformer == null || action == null)
+            throw new NullPointerException();
+        invokeIn(pool, new ForEachTransformedEntryTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, transformer, action));
+    }
+
+    /**
+     * Returns a non-null result from applying the given search function
+     * on each entry, or null if none.  Upon success, further element
+     * processing is suppressed and the results of any other parallel
+     * invocations of the search function are ignored. Any parallel
+     * subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each entry, or null if none
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U searchEntries(ForkJoinPool pool,
+                               long parallelismThreshold,
+                               Function<Map.Entry<K,V>, ? extends U> searchFunction) {
+        if (pool == null || searchFunction == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new SearchEntriesTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, searchFunction, new AtomicReference<U>()));
+    }
+
+    /**
+     * Returns the result of accumulating all entries using the given
+     * reducer to combine values, or null if none. Any parallel subtasks
+     * are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating all entries
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public Map.Entry<K,V> reduceEntries(ForkJoinPool pool,
+                                        long parallelismThreshold,
+                                        BiFunction<Map.Entry<K,V>, Map.Entry<K,V>, ? extends Map.Entry<K,V>> reducer) {
+        if (pool == null || reducer == null) throw new NullPointerException();
+        return invokeIn(pool, new ReduceEntriesTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * entries using the given reducer to combine values, or null if
+     * none. Any parallel subtasks are run in the given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element, or null if there is no transformation (in
+     * which case it is not combined)
+     * @param reducer a commutative associative combining function
+     * @param <U> the return type of the transformer
+     * @return the result of accumulating the given transformation
+     * of all entries
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public <U> U reduceEntries(ForkJoinPool pool,
+                               long parallelismThreshold,
+                               Function<Map.Entry<K,V>, ? extends U> transformer,
+                               BiFunction<? super U, ? super U, ? extends U> reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceEntriesTask<K,V,U>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * entries using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all entries
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public double reduceEntriesToDouble(ForkJoinPool pool,
+                                        long parallelismThreshold,
+                                        ToDoubleFunction<Map.Entry<K,V>> transformer,
+                                        double basis,
+                                        DoubleBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceEntriesToDoubleTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * entries using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all entries
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public long reduceEntriesToLong(ForkJoinPool pool,
+                                    long parallelismThreshold,
+                                    ToLongFunction<Map.Entry<K,V>> transformer,
+                                    long basis,
+                                    LongBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceEntriesToLongTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * entries using the given reducer to combine values, and the given
+     * basis as an identity value. Any parallel subtasks are run in the
+     * given pool.
+     *
+     * @param pool the pool in which to run parallel subtasks
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all entries
+     * @throws NullPointerException if any of the arguments are null
+     * @since 1.8
+     */
+    public int reduceEntriesToInt(ForkJoinPool pool,
+                                  long parallelismThreshold,
+                                  ToIntFunction<Map.Entry<K,V>> transformer,
+                                  int basis,
+                                  IntBinaryOperator reducer) {
+        if (pool == null || transformer == null || reducer == null)
+            throw new NullPointerException();
+        return invokeIn(pool, new MapReduceEntriesToIntTask<K,V>
+            (null, batchFor(parallelismThreshold, pool.getParallelism()),
+             0, 0, table, null, transformer, basis, reducer));
+    }
+
 
     /* ----------------Views -------------- */
 
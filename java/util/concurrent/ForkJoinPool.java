@@ -167,7 +167,8 @@ import java.security.Permissions;
  * @author Doug Lea
  */
 @sun.misc.Contended
-public class ForkJoinPool extends AbstractExecutorService {
+public class ForkJoinPool extends AbstractExecutorService
+    implements ForkJoinPoolMXBean {
 
     /*
      * Implementation Overview
@@ -801,6 +802,10 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int scanState;    // versioned, <0: inactive; odd:scanning
         int stackPred;             // pool stack (ctl) predecessor
         int nsteals;               // number of steals
+        long nparks;               // number of parks in awaitWork
+        long nwakeups;             // number of parks ended by a signal
+        long ncompensations;       // spares created while this joins
+        long idleNanos;            // time parked, if pool is timing
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
@@ -1065,6 +1070,21 @@ public class ForkJoinPool extends AbstractExecutorService {
             }
         }
 
+        /**
+         * Adds park, wakeup, compensation and idle time statistics to
+         * the pool totals, for use when this worker terminates.
+         */
+        final void transferStatistics(ForkJoinPool p) {
+            if (p != null) {
+                U.getAndAddLong(p, PARKCOUNT, nparks);
+                U.getAndAddLong(p, WAKEUPCOUNT, nwakeups);
+                U.getAndAddLong(p, COMPENSATIONCOUNT, ncompensations);
+                U.getAndAddLong(p, IDLENANOS, idleNanos);
+                nparks = nwakeups = ncompensations = 0L;
+                idleNanos = 0L;
+            }
+        }
+
         /**
          * Adds steal count to pool stealCounter if it exists, and resets.
          */
@@ -1396,6 +1416,11 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile long parkCount;             // totals for terminated workers
+    volatile long wakeupCount;
+    volatile long compensationCount;
+    volatile long idleNanos;
+    volatile boolean idleTiming;         // if true, workers time parks
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1593,6 +1618,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         if (w != null) {
             w.qlock = -1;                             // ensure set
             w.transferStealCount(this);
+            w.transferStatistics(this);
             w.cancelAll();                            // cancel remaining tasks
         }
         for (;;) {                                    // possibly replace
@@ -1820,12 +1846,22 @@ public class ForkJoinPool extends AbstractExecutorService {
                 Thread wt = Thread.currentThread();
                 U.putObject(wt, PARKBLOCKER, this);   // emulate LockSupport
                 w.parker = wt;
-                if (w.scanState < 0 && ctl == c)      // recheck before park
+                boolean parked = false;
+                if (w.scanState < 0 && ctl == c) {    // recheck before park
+                    long start = idleTiming ? System.nanoTime() : 0L;
+                    ++w.nparks;
+                    parked = true;
                     U.park(false, parkTime);
+                    if (start != 0L)
+                        w.idleNanos += System.nanoTime() - start;
+                }
                 U.putOrderedObject(w, QPARKER, null);
                 U.putObject(wt, PARKBLOCKER, null);
-                if (w.scanState >= 0)
+                if (w.scanState >= 0) {
+                    if (parked)                       // signalled while parked
+                        ++w.nwakeups;
                     break;
+                }
                 if (parkTime != 0L && ctl == c &&
                     deadline - System.nanoTime() <= 0L &&
                     U.compareAndSwapLong(this, CTL, c, prevctl))
@@ -2018,6 +2054,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                     add = U.compareAndSwapLong(this, CTL, c, nc);
                 unlockRunState(rs, rs & ~RSLOCK);
                 canBlock = add && createWorker(); // throws on exception
+                if (canBlock)
+                    ++w.ncompensations;
             }
         }
         return canBlock;
@@ -2922,6 +2960,229 @@ public class ForkJoinPool extends AbstractExecutorService {
         return false;
     }
 
+    // Instrumentation
+
+    /**
+     * Returns the number of times worker threads have blocked waiting
+     * for tasks to steal, including workers that have since
+     * terminated.  Like {@link #getStealCount}, the value is only an
+     * estimate while the pool is active.
+     *
+     * @return the number of worker parks
+     * @since 1.8
+     */
+    public long getParkCount() {
+        long count = parkCount;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nparks;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times blocked worker threads have been
+     * woken up to scan for tasks, as opposed to timing out or
+     * terminating, including workers that have since terminated.
+     *
+     * @return the number of worker wakeups
+     * @since 1.8
+     */
+    public long getWakeupCount() {
+        long count = wakeupCount;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nwakeups;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of spare threads created to compensate for
+     * workers blocked in joins or {@link ManagedBlocker}s.  A high
+     * value relative to {@link #getParallelism} indicates tasks that
+     * block rather than fork.
+     *
+     * @return the number of compensating threads created
+     * @since 1.8
+     */
+    public long getCompensationCount() {
+        long count = compensationCount;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.ncompensations;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that worker threads have
+     * spent blocked waiting for tasks while idle timing was enabled.
+     *
+     * @return the total idle time in nanoseconds
+     * @see #setIdleTimingEnabled
+     * @since 1.8
+     */
+    public long getIdleNanos() {
+        long count = idleNanos;
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.idleNanos;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if workers record the time they spend
+     * blocked waiting for tasks.
+     *
+     * @return {@code true} if idle timing is enabled
+     * @since 1.8
+     */
+    public boolean isIdleTimingEnabled() {
+        return idleTiming;
+    }
+
+    /**
+     * Enables or disables recording of the time workers spend blocked
+     * waiting for tasks.  Timing is disabled by default; when enabled
+     * it adds two {@link System#nanoTime} calls to each park of an idle
+     * worker, but nothing to task execution.
+     *
+     * @param enabled {@code true} to enable idle timing
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     * @since 1.8
+     */
+    public void setIdleTimingEnabled(boolean enabled) {
+        checkPermission();
+        idleTiming = enabled;
+    }
+
+    /**
+     * Returns the names of the current worker threads, ordered by pool
+     * index.
+     *
+     * @return the worker thread names
+     * @since 1.8
+     */
+    public String[] getWorkerNames() {
+        WorkQueue[] ws = workerQueues();
+        String[] a = new String[ws.length];
+        for (int i = 0; i < ws.length; ++i) {
+            ForkJoinWorkerThread wt = ws[i].owner;
+            a[i] = (wt == null) ? null : wt.getName();
+        }
+        return a;
+    }
+
+    /**
+     * Returns an estimate of the number of tasks in each current
+     * worker's queue, ordered as by {@link #getWorkerNames}.
+     * Persistent imbalance between workers suggests poorly splitting
+     * tasks or spliterators.
+     *
+     * @return the worker queue depths
+     * @since 1.8
+     */
+    public int[] getWorkerQueueDepths() {
+        WorkQueue[] ws = workerQueues();
+        int[] a = new int[ws.length];
+        for (int i = 0; i < ws.length; ++i)
+            a[i] = ws[i].queueSize();
+        return a;
+    }
+
+    /**
+     * Returns the number of tasks each current worker has stolen,
+     * ordered as by {@link #getWorkerNames}.
+     *
+     * @return the per-worker steal counts
+     * @since 1.8
+     */
+    public long[] getWorkerStealCounts() {
+        WorkQueue[] ws = workerQueues();
+        long[] a = new long[ws.length];
+        for (int i = 0; i < ws.length; ++i)
+            a[i] = ws[i].nsteals;
+        return a;
+    }
+
+    /**
+     * Returns the number of times each current worker has blocked
+     * waiting for tasks, ordered as by {@link #getWorkerNames}.
+     *
+     * @return the per-worker park counts
+     * @since 1.8
+     */
+    public long[] getWorkerParkCounts() {
+        WorkQueue[] ws = workerQueues();
+        long[] a = new long[ws.length];
+        for (int i = 0; i < ws.length; ++i)
+            a[i] = ws[i].nparks;
+        return a;
+    }
+
+    /**
+     * Returns the number of compensating threads created on behalf of
+     * each current worker, ordered as by {@link #getWorkerNames}.
+     *
+     * @return the per-worker compensation counts
+     * @since 1.8
+     */
+    public long[] getWorkerCompensationCounts() {
+        WorkQueue[] ws = workerQueues();
+        long[] a = new long[ws.length];
+        for (int i = 0; i < ws.length; ++i)
+            a[i] = ws[i].ncompensations;
+        return a;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, each current worker has spent
+     * blocked waiting for tasks while idle timing was enabled, ordered
+     * as by {@link #getWorkerNames}.
+     *
+     * @return the per-worker idle times in nanoseconds
+     * @since 1.8
+     */
+    public long[] getWorkerIdleNanos() {
+        WorkQueue[] ws = workerQueues();
+        long[] a = new long[ws.length];
+        for (int i = 0; i < ws.length; ++i)
+            a[i] = ws[i].idleNanos;
+        return a;
+    }
+
+    /**
+     * Returns a snapshot of the current worker queues, those at odd
+     * indices of workQueues.
+     */
+    private WorkQueue[] workerQueues() {
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) == null)
+            return new WorkQueue[0];
+        WorkQueue[] a = new WorkQueue[ws.length >>> 1];
+        int n = 0;
+        for (int i = 1; i < ws.length; i += 2) {
+            if ((w = ws[i]) != null)
+                a[n++] = w;
+        }
+        return Arrays.copyOf(a, n);
+    }
+
     /**
      * Removes and returns the next unexecuted submission if one is
      * available.  This method may be useful in extensions to this
@@ -3343,6 +3604,10 @@ public class ForkJoinPool extends AbstractExecutorService {
     private static final long CTL;
     private static final long RUNSTATE;
     private static final long STEALCOUNTER;
+    private static final long PARKCOUNT;
+    private static final long WAKEUPCOUNT;
+    private static final long COMPENSATIONCOUNT;
+    private static final long IDLENANOS;
     private static final long PARKBLOCKER;
     private static final long QTOP;
     private static final long QLOCK;
@@ -3362,6 +3627,14 @@ public class ForkJoinPool extends AbstractExecutorService {
                 (k.getDeclaredField("runState"));
             STEALCOUNTER = U.objectFieldOffset
                 (k.getDeclaredField("stealCounter"));
+            PARKCOUNT = U.objectFieldOffset
+                (k.getDeclaredField("parkCount"));
+            WAKEUPCOUNT = U.objectFieldOffset
+                (k.getDeclaredField("wakeupCount"));
+            COMPENSATIONCOUNT = U.objectFieldOffset
+                (k.getDeclaredField("compensationCount"));
+            IDLENANOS = U.objectFieldOffset
+                (k.getDeclaredField("idleNanos"));
             Class<?> tk = Thread.class;
             PARKBLOCKER = U.objectFieldOffset
                 (tk.getDeclaredField("parkBlocker"));
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * The management interface for a {@link ForkJoinPool}.
+ *
+ * <p>Pools are not registered automatically.  To monitor one, including
+ * the {@linkplain ForkJoinPool#commonPool common pool}, register it with
+ * an MBean server, for example:
+ *
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     ForkJoinPool.commonPool(),
+ *     new ObjectName("java.util.concurrent:type=ForkJoinPool,name=common"));
+ * }</pre>
+ *
+ * <p>All values are computed on demand by sampling the pool's work
+ * queues, so reading them costs nothing until it is done, and adds no
+ * synchronization to task execution.  Per-worker counters are
+ * maintained by each worker for itself; the pool-wide totals also
+ * include the counts of workers that have terminated.  The per-worker
+ * arrays are each sampled separately and are ordered by pool index;
+ * since workers come and go, use {@link #getWorkerNames} to match up
+ * elements of arrays obtained in different calls.
+ *
+ * @see ForkJoinPool
+ * @see java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * @since 1.8
+ */
+public interface ForkJoinPoolMXBean {
+
+    /**
+     * Returns the targeted parallelism level of the pool.
+     *
+     * @return the targeted parallelism level
+     * @see ForkJoinPool#getParallelism
+     */
+    int getParallelism();
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated.
+     *
+     * @return the number of worker threads
+     * @see ForkJoinPool#getPoolSize
+     */
+    int getPoolSize();
+
+    /**
+     * Returns an estimate of the number of threads that are currently
+     * stealing or executing tasks.
+     *
+     * @return the number of active threads
+     * @see ForkJoinPool#getActiveThreadCount
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns an estimate of the number of worker threads that are not
+     * blocked waiting to join tasks or for other managed
+     * synchronization.
+     *
+     * @return the number of running threads
+     * @see ForkJoinPool#getRunningThreadCount
+     */
+    int getRunningThreadCount();
+
+    /**
+     * Returns an estimate of the total number of tasks stolen from one
+     * thread's work queue by another.
+     *
+     * @return the number of steals
+     * @see ForkJoinPool#getStealCount
+     */
+    long getStealCount();
+
+    /**
+     * Returns an estimate of the total number of tasks currently held
+     * in queues by worker threads.
+     *
+     * @return the number of queued tasks
+     * @see ForkJoinPool#getQueuedTaskCount
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns an estimate of the number of tasks submitted to the pool
+     * that have not yet begun executing.
+     *
+     * @return the number of queued submissions
+     * @see ForkJoinPool#getQueuedSubmissionCount
+     */
+    int getQueuedSubmissionCount();
+
+    /**
+     * Returns the number of times workers have blocked waiting for
+     * tasks.
+     *
+     * @return the number of worker parks
+     * @see ForkJoinPool#getParkCount
+     */
+    long getParkCount();
+
+    /**
+     * Returns the number of times blocked workers have been woken up to
+     * scan for tasks.
+     *
+     * @return the number of worker wakeups
+     * @see ForkJoinPool#getWakeupCount
+     */
+    long getWakeupCount();
+
+    /**
+     * Returns the number of spare threads created to compensate for
+     * blocked workers.
+     *
+     * @return the number of compensating threads created
+     * @see ForkJoinPool#getCompensationCount
+     */
+    long getCompensationCount();
+
+    /**
+     * Returns the total time workers have spent blocked waiting for
+     * tasks while idle timing was enabled.
+     *
+     * @return the total idle time in nanoseconds
+     * @see ForkJoinPool#getIdleNanos
+     */
+    long getIdleNanos();
+
+    /**
+     * Returns {@code true} if workers record the time they spend
+     * blocked waiting for tasks.
+     *
+     * @return {@code true} if idle timing is enabled
+     */
+    boolean isIdleTimingEnabled();
+
+    /**
+     * Enables or disables recording of the time workers spend blocked
+     * waiting for tasks.
+     *
+     * @param enabled {@code true} to enable idle timing
+     * @see ForkJoinPool#setIdleTimingEnabled
+     */
+    void setIdleTimingEnabled(boolean enabled);
+
+    /**
+     * Returns the names of the current worker threads.
+     *
+     * @return the worker thread names
+     */
+    String[] getWorkerNames();
+
+    /**
+     * Returns an estimate of the number of tasks in each current
+     * worker's queue.
+     *
+     * @return the worker queue depths
+     */
+    int[] getWorkerQueueDepths();
+
+    /**
+     * Returns the number of tasks each current worker has stolen.
+     *
+     * @return the per-worker steal counts
+     */
+    long[] getWorkerStealCounts();
+
+    /**
+     * Returns the number of times each current worker has blocked
+     * waiting for tasks.
+     *
+     * @return the per-worker park counts
+     */
+    long[] getWorkerParkCounts();
+
+    /**
+     * Returns the number of compensating threads created on behalf of
+     * each current worker.
+     *
+     * @return the per-worker compensation counts
+     */
+    long[] getWorkerCompensationCounts();
+
+    /**
+     * Returns the time each current worker has spent blocked waiting
+     * for tasks while idle timing was enabled.
+     *
+     * @return the per-worker idle times in nanoseconds
+     */
+    long[] getWorkerIdleNanos();
+}
@@ -762,6 +762,174 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and stores them into the given array, starting at the given
+     * offset, in the order they would be returned by successive calls to
+     * {@link #poll}.  The take lock is acquired once for the whole batch,
+     * and waiting producers are signalled at most once.
+     *
+     * @param a the array into which the elements are to be stored
+     * @param offset the index in {@code a} of the first element stored
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     * @throws NullPointerException if the specified array is null
+     * @throws IndexOutOfBoundsException if {@code offset} is negative or
+     *         greater than {@code a.length}
+     * @throws ArrayStoreException if the runtime type of the specified
+     *         array is not a supertype of the runtime type of every
+     *         element transferred
+     * @since 1.8
+     */
+    public int drainTo(E[] a, int offset, int maxElements) {
+        if (a == null)
+            throw new NullPointerException();
+        if (offset < 0 || offset > a.length)
+            throw new IndexOutOfBoundsException("offset " + offset);
+        maxElements = Math.min(maxElements, a.length - offset);
+        if (maxElements <= 0)
+            return 0;
+        boolean signalNotFull = false;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            int n = Math.min(maxElements, count.get());
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    a[offset + i] = p.item;
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if the array store threw
+                if (i > 0) {
+                    // assert h.item == null;
+                    head = h;
+                    signalNotFull = (count.getAndAdd(-i) == capacity);
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
+    /**
+     * Removes all available elements that fit from this queue and
+     * stores them into the given array, starting at index zero.
+     * Equivalent to {@code drainTo(a, 0, a.length)}.
+     *
+     * @param a the array into which the elements are to be stored
+     * @return the number of elements transferred
+     * @throws NullPointerException if the specified array is null
+     * @throws ArrayStoreException if the runtime type of the specified
+     *         array is not a supertype of the runtime type of every
+     *         element transferred
+     * @since 1.8
+     */
+    public int drainTo(E[] a) {
+        return drainTo(a, 0, a.length);
+    }
+
+    /**
+     * Inserts as many elements of the given collection as possible at
+     * the tail of this queue, in the collection's iteration order,
+     * waiting if necessary up to the specified wait time for space to
+     * become available.  Nodes are allocated before the put lock is
+     * acquired, runs of them are linked in under a single acquisition
+     * (reacquired only if this method must wait for space), and waiting
+     * consumers are signalled once per batch; as with {@link #take},
+     * each awakened consumer wakes the next while elements remain.
+     *
+     * <p>A timeout of zero inserts only the elements that fit
+     * immediately.
+     *
+     * @param c the elements to insert
+     * @param timeout how long to wait for space before giving up, in
+     *        units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, which is less than the
+     *         size of the collection only if the waiting time elapsed
+     * @throws InterruptedException if interrupted while waiting, in
+     *         which case some elements may already have been inserted
+     * @throws NullPointerException if the specified collection or any of
+     *         its elements is null, in which case no element is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        // Build the chain of new nodes outside the lock
+        Node<E> first = null, tail = null;
+        int remaining = 0;
+        for (E e : c) {
+            if (e == null)
+                throw new NullPointerException();
+            Node<E> node = new Node<E>(e);
+            if (tail == null)
+                first = node;
+            else
+                tail.next = node;
+            tail = node;
+            ++remaining;
+        }
+        if (remaining == 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        int added = 0;
+        boolean signal = false;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            while (remaining > 0) {
+                int space;
+                while ((space = capacity - count.get()) == 0) {
+                    if (signal) {               // let takers make room
+                        signalNotEmpty();
+                        signal = false;
+                    }
+                    if (nanos <= 0)
+                        return added;
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                int n = Math.min(space, remaining);
+                Node<E> runEnd = first;
+                for (int i = 1; i < n; ++i)
+                    runEnd = runEnd.next;
+                Node<E> next = runEnd.next;
+                runEnd.next = null;
+                last.next = first;
+                last = runEnd;
+                first = next;
+                remaining -= n;
+                added += n;
+                if (count.getAndAdd(n) == 0)
+                    signal = true;
+            }
+            if (count.get() < capacity)
+                notFull.signal();
+            return added;
+        } finally {
+            putLock.unlock();
+            if (signal)
+                signalNotEmpty();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
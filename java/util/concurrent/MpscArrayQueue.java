@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free {@linkplain java.util.Queue queue} backed by an
+ * array, for use by any number of producer threads and exactly one
+ * consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out), where the order among elements offered by
+ * different producers is the order in which they claimed their slots.
+ *
+ * <p>Any thread may insert elements (using {@link #offer offer} or
+ * {@link #add add}), but at most one thread at a time may remove or
+ * examine them (using {@link #poll poll}, {@link #peek peek} or {@link
+ * #remove() remove}); the consumer role may be handed over to another
+ * thread provided the handoff itself establishes a happens-before
+ * relation.  Results are undefined otherwise.  Methods {@link #size},
+ * {@link #isEmpty} and {@link #iterator} may be called from any thread,
+ * and return only estimates of the current state.
+ *
+ * <p>Producers claim slots with a single compare-and-set of a shared
+ * producer index and then publish their element with an ordered write
+ * ({@code lazySet}); the consumer never uses atomic read-modify-write
+ * instructions.  The indices are kept on separate cache lines, and
+ * producers check for fullness against a cached limit, reading the
+ * consumer's index only when that limit is reached.  This makes the
+ * queue considerably cheaper than {@link ArrayBlockingQueue} or {@link
+ * LinkedBlockingQueue} for many-to-one handoff, at the price of not
+ * supporting blocking; see {@link SingleConsumerBlockingQueue} for a
+ * blocking adapter.
+ *
+ * <p>A producer that claims a slot and is then descheduled before
+ * publishing its element delays the consumer, which cannot pass an
+ * unpublished slot; {@link #poll} spins until the element appears
+ * whenever the producer index shows that one has been claimed.  This
+ * queue is therefore not lock-free in the strict sense for the
+ * consumer, though it is for producers.
+ *
+ * <p>The capacity is rounded up to a power of two.  This queue does not
+ * permit {@code null} elements.  Its iterator is <i>weakly
+ * consistent</i> and does not support {@link Iterator#remove}, so the
+ * removal of arbitrary elements ({@link #remove(Object)}, {@link
+ * #removeAll} and {@link #retainAll}) is not supported either.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+public class MpscArrayQueue<E> extends AbstractQueue<E>
+        implements java.io.Serializable {
+    private static final long serialVersionUID = 2383429871208738871L;
+
+    /*
+     * As in SpscArrayQueue, slot i holds the element with sequence
+     * number s where (s & mask) == i, and the consumer detects a
+     * published element by a non-null slot.  Producers claim sequence
+     * numbers by CAS on producerIndex, so unlike SpscArrayQueue a slot
+     * may be claimed but not yet written; the consumer distinguishes
+     * this from emptiness by re-reading producerIndex, and spins.
+     *
+     * producerLimit is shared by producers and is only ever an
+     * underestimate of consumerIndex + capacity, so a stale value only
+     * costs a read of consumerIndex.  It lives on the producers' cache
+     * line, which they write anyway.
+     */
+
+    /** The queued elements */
+    final Object[] buffer;
+
+    /** Mask for buffer indices; buffer.length - 1 */
+    final int mask;
+
+    /** Sequence number of the next slot to be claimed */
+    @sun.misc.Contended("producer")
+    volatile long producerIndex;
+
+    /** Bound on producerIndex before the queue is full */
+    @sun.misc.Contended("producer")
+    volatile long producerLimit;
+
+    /** Sequence number of the next element to be removed */
+    @sun.misc.Contended("consumer")
+    volatile long consumerIndex;
+
+    /**
+     * Creates an {@code MpscArrayQueue} with a capacity of at least the
+     * given size.
+     *
+     * @param capacity the minimum capacity of this queue; it is rounded
+     *        up to the nearest power of two
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public MpscArrayQueue(int capacity) {
+        int n = SpscArrayQueue.ringSizeFor(capacity);
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+        this.producerLimit = n;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested capacity
+     * rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity, returning {@code
+     * true} upon success and {@code false} if this queue is full.  May be
+     * called by any thread.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long limit = producerLimit, p;
+        do {
+            p = producerIndex;
+            if (p >= limit) {
+                limit = consumerIndex + buffer.length;
+                if (p >= limit)
+                    return false;
+                U.putOrderedLong(this, PLIMIT, limit);
+            }
+        } while (!U.compareAndSwapLong(this, PINDEX, p, p + 1L));
+        U.putOrderedObject(buffer, SpscArrayQueue.slotOffset(p, mask), e);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  Must only be called by the consumer
+     * thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final Object[] buffer = this.buffer;
+        long c = consumerIndex;
+        long offset = SpscArrayQueue.slotOffset(c, mask);
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null) {
+            if (c == producerIndex)
+                return null;
+            while ((e = U.getObjectVolatile(buffer, offset)) == null)
+                ;                             // claimed but not yet written
+        }
+        U.putOrderedObject(buffer, offset, null);
+        U.putOrderedLong(this, CINDEX, c + 1L);
+        return (E)e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty.  Must only be called by the
+     * consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Object[] buffer = this.buffer;
+        long c = consumerIndex;
+        long offset = SpscArrayQueue.slotOffset(c, mask);
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null && c != producerIndex) {
+            while ((e = U.getObjectVolatile(buffer, offset)) == null)
+                ;
+        }
+        return (E)e;
+    }
+
+    /**
+     * Removes up to {@code maxElements} published elements from this
+     * queue, passing each to the given consumer in order, and publishes
+     * the new consumer index once at the end.  Unlike {@link #poll}, this
+     * method stops rather than waits at a slot that has been claimed but
+     * not yet written.  Must only be called by the consumer thread.
+     *
+     * @param action the action to perform on each element
+     * @param maxElements the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws NullPointerException if the action is null
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> action, int maxElements) {
+        if (action == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        final int mask = this.mask;
+        long c = consumerIndex;
+        int n = 0;
+        try {
+            while (n < maxElements) {
+                long offset = SpscArrayQueue.slotOffset(c + n, mask);
+                Object e = U.getObjectVolatile(buffer, offset);
+                if (e == null)
+                    break;
+                U.putOrderedObject(buffer, offset, null);
+                ++n;
+                action.accept((E)e);
+            }
+        } finally {
+            if (n > 0)
+                U.putOrderedLong(this, CINDEX, c + n);
+        }
+        return n;
+    }
+
+    /**
+     * Returns an estimate of the number of elements in this queue,
+     * including those whose slots have been claimed but not yet written.
+     *
+     * @return an estimate of the number of elements in this queue
+     */
+    public int size() {
+        long after = consumerIndex;
+        for (;;) {
+            long before = after;
+            long p = producerIndex;
+            after = consumerIndex;
+            if (before == after) {
+                long n = p - after;
+                return (n <= 0L) ? 0 :
+                    (n >= buffer.length) ? buffer.length : (int)n;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue appeared to contain no elements
+     * when the indices were last read.
+     *
+     * @return {@code true} if this queue appears empty
+     */
+    public boolean isEmpty() {
+        return consumerIndex >= producerIndex;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue in proper
+     * sequence.  The iterator is weakly consistent: it reflects the
+     * elements present in the slots between the consumer and producer
+     * indices as read when each element is reached, and skips slots that
+     * have been claimed but not yet written or have since been consumed.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new SpscArrayQueue.Itr<E>(buffer, mask, consumerIndex,
+                                         producerIndex);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long PINDEX;
+    private static final long PLIMIT;
+    private static final long CINDEX;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = MpscArrayQueue.class;
+            PINDEX = U.objectFieldOffset
+                (k.getDeclaredField("producerIndex"));
+            PLIMIT = U.objectFieldOffset
+                (k.getDeclaredField("producerLimit"));
+            CINDEX = U.objectFieldOffset
+                (k.getDeclaredField("consumerIndex"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,988 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link ConcurrentMap} whose keys and values are held in serialized form
+ * in direct (off-heap) memory rather than as objects on the Java heap.
+ * Each mapping is encoded by caller-supplied {@link Codec}s into a record
+ * appended to a slab allocated through {@link ByteBuffer#allocateDirect},
+ * and located through an open-addressed hash index that is itself held in
+ * direct memory.  The heap footprint of the map is therefore proportional
+ * to the number of segments, not the number of entries, and a table of
+ * tens of millions of small entries adds nothing to the object graph the
+ * garbage collector has to trace.
+ *
+ * <p>Keys are compared by their encoded form: two keys are the same key
+ * if and only if their codec produces identical bytes for them.  Values
+ * are decoded into fresh objects on every retrieval, so callers should
+ * not rely on the identity of returned values.  Like {@link
+ * ConcurrentHashMap}, this class does not allow {@code null} to be used
+ * as a key or value.
+ *
+ * <p>The table is partitioned into segments, each guarded by its own
+ * read-write lock; the segment for a key is selected from the upper bits
+ * of its hash, the slot within the segment from the lower bits.  Retrievals
+ * hold only the segment's read lock, so they proceed in parallel with each
+ * other.  Each segment doubles its index independently as it fills, much
+ * as {@code ConcurrentHashMap} transfers bins, but without needing to
+ * move any record in the slab.
+ *
+ * <p>Records replaced or removed leave dead space in their slab.  A
+ * segment compacts itself before growing its slab when at least half of
+ * it is dead; {@link #compact} forces compaction of every segment, and
+ * {@link #free} releases all direct memory held by the map immediately
+ * rather than waiting for the buffers to be reclaimed.
+ *
+ * <p>Iterators and spliterators are <i>weakly consistent</i>: each
+ * segment is snapshotted when the traversal reaches it.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class OffHeapConcurrentMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V> {
+
+    /**
+     * Converts objects to and from the bytes stored off-heap.
+     * Implementations must be thread-safe and must encode equal objects to
+     * equal byte sequences.
+     *
+     * @param <T> the type of object encoded
+     */
+    public interface Codec<T> {
+        /**
+         * Returns the exact number of bytes {@link #encode} will write for
+         * the given object.
+         *
+         * @param t the object to be encoded
+         * @return the encoded size in bytes
+         */
+        int encodedSize(T t);
+
+        /**
+         * Writes the encoded form of the given object into the buffer,
+         * starting at its current position and advancing it by exactly
+         * {@code encodedSize(t)} bytes.
+         *
+         * @param t the object to be encoded
+         * @param dst the buffer to write to
+         */
+        void encode(T t, ByteBuffer dst);
+
+        /**
+         * Reconstructs an object from the buffer's remaining bytes, which
+         * are exactly those written by {@link #encode}.  The buffer is a
+         * heap buffer holding a copy of the stored bytes, so the object
+         * returned may retain it.
+         *
+         * @param src the buffer to read from
+         * @return the decoded object
+         */
+        T decode(ByteBuffer src);
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The default number of segments.
+     */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum number of segments, kept well under the number of
+     * hash bits left over for slot selection.
+     */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * The default initial slab size of each segment, in bytes.
+     */
+    static final int DEFAULT_SLAB_SIZE = 1 << 16;
+
+    /**
+     * The minimum (and initial) number of index slots in a segment.
+     */
+    static final int MIN_SEGMENT_SLOTS = 64;
+
+    /**
+     * The maximum number of index slots in a segment, such that the byte
+     * size of the index, eight bytes per slot, fits in an int.
+     */
+    static final int MAX_SEGMENT_SLOTS = 1 << 27;
+
+    /**
+     * The maximum slab size; records are addressed by int offsets.
+     */
+    static final int MAX_SLAB_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Size of the record header: key length and value length.
+     */
+    static final int HEADER_SIZE = 8;
+
+    /* ---------------- Fields -------------- */
+
+    final Codec<K> keyCodec;
+    final Codec<V> valueCodec;
+
+    /**
+     * The segments, each of which is a separate off-heap hash table.
+     */
+    final Segment[] segments;
+
+    /**
+     * Shift and mask used to select a segment from a hash.
+     */
+    final int segmentShift;
+    final int segmentMask;
+
+    /**
+     * Set once {@link #free} has been called.
+     */
+    volatile boolean freed;
+
+    // views
+    private transient EntrySetView entrySet;
+
+    /* ---------------- Constructors -------------- */
+
+    /**
+     * Creates a new, empty map with the default concurrency level (16)
+     * and initial slab size (64 KiB per segment).
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @throws NullPointerException if either codec is null
+     */
+    public OffHeapConcurrentMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFAULT_CONCURRENCY_LEVEL,
+             DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates a new, empty map with the given number of segments and
+     * initial slab size per segment.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param concurrencyLevel the estimated number of concurrently
+     * updating threads, rounded up to a power of two segments
+     * @param initialSlabSize the initial number of bytes of record
+     * storage allocated for each segment
+     * @throws NullPointerException if either codec is null
+     * @throws IllegalArgumentException if the concurrency level or the
+     * initial slab size is not positive
+     */
+    public OffHeapConcurrentMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                int concurrencyLevel, int initialSlabSize) {
+        if (keyCodec == null || valueCodec == null)
+            throw new NullPointerException();
+        if (concurrencyLevel <= 0 || initialSlabSize <= 0)
+            throw new IllegalArgumentException();
+        if (concurrencyLevel > MAX_SEGMENTS)
+            concurrencyLevel = MAX_SEGMENTS;
+        int sshift = 0, ssize = 1;
+        while (ssize < concurrencyLevel) {
+            ++sshift;
+            ssize <<= 1;
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.segmentShift = 32 - sshift;
+        this.segmentMask = ssize - 1;
+        @SuppressWarnings("unchecked")
+        Segment[] segs = (Segment[])new OffHeapConcurrentMap.Segment[ssize];
+        for (int i = 0; i < ssize; ++i)
+            segs[i] = new Segment(initialSlabSize);
+        this.segments = segs;
+    }
+
+    /**
+     * Returned by segment operations in place of a previous value that
+     * the caller did not ask to be decoded.
+     */
+    static final Object PRESENT = new Object();
+
+    /* ---------------- Encoding -------------- */
+
+    /**
+     * Encodes a key or value into a heap array.
+     */
+    static <T> byte[] encode(Codec<T> codec, T t) {
+        if (t == null)
+            throw new NullPointerException();
+        byte[] b = new byte[codec.encodedSize(t)];
+        ByteBuffer buf = ByteBuffer.wrap(b);
+        codec.encode(t, buf);
+        if (buf.hasRemaining())
+            throw new IllegalStateException("Codec wrote " + buf.position() +
+                                            " of " + b.length + " bytes");
+        return b;
+    }
+
+    /**
+     * Hashes encoded key bytes, spreading higher bits downward as in
+     * ConcurrentHashMap.spread.
+     */
+    static int hash(byte[] k) {
+        int h = 1;
+        for (byte b : k)
+            h = 31 * h + b;
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the segment for the given hash.
+     */
+    final Segment segmentFor(int h) {
+        if (freed)
+            throw new IllegalStateException("Map has been freed");
+        return segments[(h >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * Releases the memory of a direct buffer now rather than when it is
+     * collected.
+     */
+    static void release(ByteBuffer buf) {
+        if (buf != null) {
+            sun.misc.Cleaner c = ((sun.nio.ch.DirectBuffer)buf).cleaner();
+            if (c != null)
+                c.clean();
+        }
+    }
+
+    /* ---------------- Segments -------------- */
+
+    /**
+     * One off-heap hash table.  The index is an open-addressed table of
+     * longs, each holding the key hash in its upper half and the slab
+     * offset of the record plus one in its lower half, so that zero marks
+     * a free slot and probing compares hashes without touching the slab.
+     * Records are laid out as key length, value length, key bytes, value
+     * bytes.
+     */
+    final class Segment extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 2249069246763182397L;
+
+        final int initialSlabSize;
+        ByteBuffer index;   // slot table, 8 bytes per slot
+        int slots;          // number of index slots, a power of two
+        ByteBuffer slab;    // record storage
+        int top;            // next free offset in slab
+        int garbage;        // bytes of dead records in slab
+        volatile int count; // number of live records; read unlocked
+
+        Segment(int initialSlabSize) {
+            this.initialSlabSize = initialSlabSize;
+            reset();
+        }
+
+        /** Allocates fresh, empty storage. Call with write lock held. */
+        void reset() {
+            slots = MIN_SEGMENT_SLOTS;
+            index = ByteBuffer.allocateDirect(slots << 3);
+            slab = ByteBuffer.allocateDirect(initialSlabSize);
+            top = garbage = count = 0;
+        }
+
+        /** Releases storage. Call with write lock held. */
+        void free() {
+            release(index);
+            release(slab);
+            index = slab = null;
+            slots = top = garbage = count = 0;
+        }
+
+        void checkLive() {
+            if (slab == null)
+                throw new IllegalStateException("Map has been freed");
+        }
+
+        long slotAt(int i) {
+            return index.getLong(i << 3);
+        }
+
+        void setSlot(int i, long s) {
+            index.putLong(i << 3, s);
+        }
+
+        static final long OFFSET_MASK = 0xffffffffL;
+
+        /**
+         * Returns the index slot holding the key, or, if absent, the
+         * one's complement of the free slot where it would be inserted.
+         */
+        int find(byte[] k, int h) {
+            int mask = slots - 1;
+            for (int i = h & mask; ; i = (i + 1) & mask) {
+                long s = slotAt(i);
+                if (s == 0L)
+                    return ~i;
+                if ((int)(s >>> 32) == h &&
+                    keyEquals((int)(s & OFFSET_MASK) - 1, k))
+                    return i;
+            }
+        }
+
+        boolean keyEquals(int off, byte[] k) {
+            ByteBuffer b = slab;
+            int n = k.length;
+            if (b.getInt(off) != n)
+                return false;
+            off += HEADER_SIZE;
+            for (int i = 0; i < n; ++i) {
+                if (b.get(off + i) != k[i])
+                    return false;
+            }
+            return true;
+        }
+
+        int recordOffset(int slot) {
+            return (int)(slotAt(slot) & OFFSET_MASK) - 1;
+        }
+
+        int recordSize(int off) {
+            return HEADER_SIZE + slab.getInt(off) + slab.getInt(off + 4);
+        }
+
+        /**
+         * Returns a heap buffer holding a copy of the given bytes of the
+         * slab, which a codec may retain after the slab is released.
+         */
+        ByteBuffer region(int off, int len) {
+            ByteBuffer b = slab.duplicate();
+            b.limit(off + len).position(off);
+            byte[] a = new byte[len];
+            b.get(a);
+            return ByteBuffer.wrap(a);
+        }
+
+        K decodeKey(int off) {
+            return keyCodec.decode(region(off + HEADER_SIZE, slab.getInt(off)));
+        }
+
+        V decodeValue(int off) {
+            int klen = slab.getInt(off), vlen = slab.getInt(off + 4);
+            return valueCodec.decode(region(off + HEADER_SIZE + klen, vlen));
+        }
+
+        boolean valueEquals(int off, byte[] v) {
+            ByteBuffer b = slab;
+            int klen = b.getInt(off);
+            int n = v.length;
+            if (b.getInt(off + 4) != n)
+                return false;
+            off += HEADER_SIZE + klen;
+            for (int i = 0; i < n; ++i) {
+                if (b.get(off + i) != v[i])
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Appends a record, compacting or growing the slab as needed, and
+         * returns its offset. Call with write lock held.
+         */
+        int append(byte[] k, byte[] v) {
+            long rec = (long)HEADER_SIZE + k.length + v.length;
+            if (top + rec > slab.capacity()) {
+                if (garbage >= rec && garbage >= (top >>> 1))
+                    compactSlab(slab.capacity());
+                if (top + rec > slab.capacity()) {
+                    // growing also compacts, so only live data must fit
+                    long live = (long)(top - garbage) + rec;
+                    if (live > MAX_SLAB_SIZE)
+                        throw new OutOfMemoryError("Segment slab size limit exceeded");
+                    long need = Math.max((long)slab.capacity() << 1, live);
+                    compactSlab((int)Math.min(need, MAX_SLAB_SIZE));
+                }
+            }
+            int off = top;
+            ByteBuffer b = slab.duplicate();
+            b.position(off);
+            b.putInt(k.length).putInt(v.length).put(k).put(v);
+            top = b.position();
+            return off;
+        }
+
+        /**
+         * Copies live records, in index order, into a new slab of the given
+         * capacity and releases the old one. Call with write lock held.
+         */
+        void compactSlab(int capacity) {
+            ByteBuffer old = slab;
+            ByteBuffer dst = ByteBuffer.allocateDirect(capacity);
+            int n = slots;
+            for (int i = 0; i < n; ++i) {
+                long s = slotAt(i);
+                if (s != 0L) {
+                    int off = (int)(s & OFFSET_MASK) - 1;
+                    int size = recordSize(off);
+                    int pos = dst.position();
+                    ByteBuffer src = old.duplicate();
+                    src.limit(off + size).position(off);
+                    dst.put(src);
+                    setSlot(i, (s & ~OFFSET_MASK) | (pos + 1));
+                }
+            }
+            slab = dst;
+            top = dst.position();
+            garbage = 0;
+            release(old);
+        }
+
+        /**
+         * Doubles the index, reinserting slots by their stored hashes.
+         * Records are not moved. Call with write lock held.
+         */
+        void growIndex() {
+            int oldSlots = slots;
+            if (oldSlots >= MAX_SEGMENT_SLOTS)
+                throw new OutOfMemoryError("Segment index size limit exceeded");
+            ByteBuffer oldIndex = index;
+            int n = oldSlots << 1, mask = n - 1;
+            ByteBuffer nt = ByteBuffer.allocateDirect(n << 3);
+            for (int j = 0; j < oldSlots; ++j) {
+                long s = oldIndex.getLong(j << 3);
+                if (s != 0L) {
+                    int i = (int)(s >>> 32) & mask;
+                    while (nt.getLong(i << 3) != 0L)
+                        i = (i + 1) & mask;
+                    nt.putLong(i << 3, s);
+                }
+            }
+            index = nt;
+            slots = n;
+            release(oldIndex);
+        }
+
+        /**
+         * Clears slot d and closes the gap by backward-shift deletion,
+         * as in IdentityHashMap.closeDeletion. Call with write lock held.
+         */
+        void deleteSlot(int d) {
+            int mask = slots - 1;
+            setSlot(d, 0L);
+            long s;
+            for (int i = (d + 1) & mask; (s = slotAt(i)) != 0L;
+                 i = (i + 1) & mask) {
+                int r = (int)(s >>> 32) & mask;
+                if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                    setSlot(d, s);
+                    setSlot(i, 0L);
+                    d = i;
+                }
+            }
+        }
+
+        V get(byte[] k, int h) {
+            ReentrantReadWriteLock.ReadLock rl = readLock();
+            rl.lock();
+            try {
+                checkLive();
+                if (count == 0)
+                    return null;
+                int i = find(k, h);
+                return (i < 0) ? null : decodeValue(recordOffset(i));
+            } finally {
+                rl.unlock();
+            }
+        }
+
+        /**
+         * Implementation for put and putIfAbsent. If wantOld is false
+         * the previous value is not decoded and PRESENT is returned when
+         * one existed.
+         */
+        Object put(byte[] k, int h, byte[] v, boolean onlyIfAbsent,
+                   boolean wantOld) {
+            ReentrantReadWriteLock.WriteLock wl = writeLock();
+            wl.lock();
+            try {
+                checkLive();
+                int i = find(k, h);
+                if (i >= 0) {
+                    int off = recordOffset(i);
+                    Object old = wantOld ? decodeValue(off) : PRESENT;
+                    if (!onlyIfAbsent)
+                        replaceAt(i, off, k, h, v);
+                    return old;
+                }
+                // compaction in append rewrites offsets but not slots
+                int noff = append(k, v);
+                setSlot(~i, ((long)h << 32) | (noff + 1));
+                if (++count > (slots >>> 1) + (slots >>> 2))
+                    growIndex();
+                return null;
+            } finally {
+                wl.unlock();
+            }
+        }
+
+        /**
+         * Replaces the value of the record in slot i, in place if the
+         * encoded size is unchanged. Call with write lock held.
+         */
+        void replaceAt(int i, int off, byte[] k, int h, byte[] v) {
+            if (slab.getInt(off + 4) == v.length) {
+                ByteBuffer b = slab.duplicate();
+                b.position(off + HEADER_SIZE + k.length);
+                b.put(v);
+            }
+            else {
+                int size = recordSize(off);
+                int noff = append(k, v);
+                garbage += size;
+                setSlot(i, ((long)h << 32) | (noff + 1));
+            }
+        }
+
+        /**
+         * Implementation for remove and replace. Replaces the value with
+         * nv, or removes the mapping if nv is null, provided the current
+         * value matches cv (if non-null).  Returns the previous value, or
+         * PRESENT if cv is non-null, as the caller then needs only to
+         * know whether the mapping was changed.
+         */
+        Object replaceNode(byte[] k, int h, byte[] nv, byte[] cv) {
+            ReentrantReadWriteLock.WriteLock wl = writeLock();
+            wl.lock();
+            try {
+                checkLive();
+                if (count == 0)
+                    return null;
+                int i = find(k, h);
+                if (i < 0)
+                    return null;
+                int off = recordOffset(i);
+                if (cv != null && !valueEquals(off, cv))
+                    return null;
+                Object old = (cv == null) ? decodeValue(off) : PRESENT;
+                if (nv != null)
+                    replaceAt(i, off, k, h, nv);
+                else {
+                    garbage += recordSize(off);
+                    deleteSlot(i);
+                    if (--count == 0)
+                        top = garbage = 0;
+                }
+                return old;
+            } finally {
+                wl.unlock();
+            }
+        }
+
+        /**
+         * Decodes all entries, returning arrays of keys and values.
+         */
+        Object[][] snapshot() {
+            ReentrantReadWriteLock.ReadLock rl = readLock();
+            rl.lock();
+            try {
+                int n = count;
+                Object[] ks = new Object[n], vs = new Object[n];
+                if (n > 0) {
+                    int j = 0;
+                    for (int i = 0; i < slots; ++i) {
+                        long s = slotAt(i);
+                        if (s != 0L) {
+                            int off = (int)(s & OFFSET_MASK) - 1;
+                            ks[j] = decodeKey(off);
+                            vs[j] = decodeValue(off);
+                            ++j;
+                        }
+                    }
+                }
+                return new Object[][] { ks, vs };
+            } finally {
+                rl.unlock();
+            }
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        long n = 0L;
+        for (Segment s : segments)
+            n += s.count;
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty() {
+        for (Segment s : segments) {
+            if (s.count != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, decoded
+     * from off-heap storage, or {@code null} if this map contains no
+     * mapping for the key.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws ClassCastException if the key is not of the type accepted
+     *         by the key codec
+     * @throws IllegalStateException if the map has been freed
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        byte[] k = encode(keyCodec, (K)key);
+        int h = hash(k);
+        return segmentFor(h).get(k, h);
+    }
+
+    /**
+     * Tests if the specified object is a key in this table.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if the map has been freed
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the map has been freed
+     * @throws OutOfMemoryError if a segment would exceed its size limits
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        byte[] k = encode(keyCodec, key), v = encode(valueCodec, value);
+        int h = hash(k);
+        return (V)segmentFor(h).put(k, h, v, false, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the map has been freed
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        byte[] k = encode(keyCodec, key), v = encode(valueCodec, value);
+        int h = hash(k);
+        return (V)segmentFor(h).put(k, h, v, true, true);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if the map has been freed
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        byte[] k = encode(keyCodec, (K)key);
+        int h = hash(k);
+        return (V)segmentFor(h).replaceNode(k, h, null, null);
+    }
+
+    /**
+     * {@inheritDoc}  Values are compared by their encoded form.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if the map has been freed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        if (value == null)
+            return false;
+        byte[] k = encode(keyCodec, (K)key), v = encode(valueCodec, (V)value);
+        int h = hash(k);
+        return segmentFor(h).replaceNode(k, h, null, v) != null;
+    }
+
+    /**
+     * {@inheritDoc}  Values are compared by their encoded form.
+     *
+     * @throws NullPointerException if any of the arguments are null
+     * @throws IllegalStateException if the map has been freed
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        byte[] k = encode(keyCodec, key);
+        byte[] cv = encode(valueCodec, oldValue), nv = encode(valueCodec, newValue);
+        int h = hash(k);
+        return segmentFor(h).replaceNode(k, h, nv, cv) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if the map has been freed
+     */
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        byte[] k = encode(keyCodec, key), v = encode(valueCodec, value);
+        int h = hash(k);
+        return (V)segmentFor(h).replaceNode(k, h, v, null);
+    }
+
+    /**
+     * Removes all of the mappings from this map, returning each segment
+     * to its initial off-heap allocation.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            ReentrantReadWriteLock.WriteLock wl = s.writeLock();
+            wl.lock();
+            try {
+                if (!freed && s.count != 0) {
+                    s.free();
+                    s.reset();
+                }
+            } finally {
+                wl.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the records of every segment into slabs sized to their
+     * live contents, reclaiming the space left by removed and replaced
+     * entries.  Each segment is locked only while it is compacted.
+     *
+     * @throws IllegalStateException if the map has been freed
+     */
+    public void compact() {
+        for (Segment s : segments) {
+            ReentrantReadWriteLock.WriteLock wl = s.writeLock();
+            wl.lock();
+            try {
+                if (freed)
+                    throw new IllegalStateException("Map has been freed");
+                int live = s.top - s.garbage;
+                s.compactSlab(Math.max(s.initialSlabSize, live));
+            } finally {
+                wl.unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases all off-heap memory held by this map.  After this method
+     * returns, all operations other than {@code free}, {@code size},
+     * {@code isEmpty} and {@code clear} throw {@link
+     * IllegalStateException}.
+     */
+    public void free() {
+        freed = true;
+        for (Segment s : segments) {
+            ReentrantReadWriteLock.WriteLock wl = s.writeLock();
+            wl.lock();
+            try {
+                s.free();
+            } finally {
+                wl.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently allocated by
+     * this map, including index tables and dead record space.
+     *
+     * @return the off-heap allocation in bytes
+     */
+    public long offHeapCapacity() {
+        long n = 0L;
+        for (Segment s : segments) {
+            ReentrantReadWriteLock.ReadLock rl = s.readLock();
+            rl.lock();
+            try {
+                if (s.slab != null)
+                    n += s.slab.capacity() + ((long)s.slots << 3);
+            } finally {
+                rl.unlock();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so removals through the set or its
+     * iterator remove the mapping from the map.  Entries returned by the
+     * iterator hold decoded copies; {@code setValue} writes through to
+     * the map.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySetView es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView());
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public int size() {
+            return OffHeapConcurrentMap.this.size();
+        }
+        public boolean isEmpty() {
+            return OffHeapConcurrentMap.this.isEmpty();
+        }
+        public void clear() {
+            OffHeapConcurrentMap.this.clear();
+        }
+        public boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    OffHeapConcurrentMap.this.remove(k, v));
+        }
+    }
+
+    /**
+     * Weakly consistent iterator that snapshots one segment at a time.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        int nextSegment;
+        Object[] keys, vals;
+        int index;
+        K lastKey;
+
+        public boolean hasNext() {
+            while (keys == null || index >= keys.length) {
+                if (nextSegment >= segments.length || freed)
+                    return false;
+                Object[][] snap = segments[nextSegment++].snapshot();
+                keys = snap[0];
+                vals = snap[1];
+                index = 0;
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int i = index++;
+            K k = lastKey = (K)keys[i];
+            return new MapEntry(k, (V)vals[i]);
+        }
+
+        public void remove() {
+            K k = lastKey;
+            if (k == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            OffHeapConcurrentMap.this.remove(k);
+        }
+    }
+
+    /**
+     * Exported entry for the entry set iterator.
+     */
+    final class MapEntry implements Map.Entry<K,V> {
+        final K key;
+        V val;
+        MapEntry(K key, V val) {
+            this.key = key;
+            this.val = val;
+        }
+        public K getKey()        { return key; }
+        public V getValue()      { return val; }
+        public int hashCode()    { return key.hashCode() ^ val.hashCode(); }
+        public String toString() { return key + "=" + val; }
+
+        public boolean equals(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == val || v.equals(val)));
+        }
+
+        /**
+         * Sets our entry's value and writes through to the map.
+         */
+        public V setValue(V value) {
+            if (value == null)
+                throw new NullPointerException();
+            V v = val;
+            byte[] k = encode(keyCodec, key), nv = encode(valueCodec, value);
+            int h = hash(k);
+            segmentFor(h).put(k, h, nv, false, false);
+            val = value;
+            return v;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link BlockingQueue} view of an {@link SpscArrayQueue} or {@link
+ * MpscArrayQueue}, adding blocking operations that wait by parking
+ * through {@link LockSupport} rather than on a lock and conditions.
+ *
+ * <p>The threading restrictions of the underlying queue apply: the
+ * removal operations ({@link #take}, {@link #poll}, {@link #drainTo} and
+ * so on) must only ever be invoked by one thread at a time, as must the
+ * insertion operations when the underlying queue is an {@code
+ * SpscArrayQueue}.  The underlying queue must not be used directly once
+ * it has been wrapped.
+ *
+ * <p>The consumer, finding the queue empty, spins briefly and then
+ * publishes itself as waiting and parks; producers unpark it after an
+ * insertion only if it has done so, so that a consumer that keeps up
+ * costs producers no more than a volatile read.  Producers finding the
+ * queue full do not register to be woken, which would put signalling
+ * back on the consumer's path; instead they retry, parking for
+ * exponentially increasing intervals bounded by a small maximum.  This
+ * queue thus suits the common case of a consumer that is usually idle
+ * or keeping up, with a full queue applying back-pressure.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+public class SingleConsumerBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /** Number of CPUS, to place bounds on spinning */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of times the consumer polls before parking.  Spinning
+     * is pointless on a uniprocessor, where the producer cannot run
+     * while the consumer spins.
+     */
+    static final int CONSUMER_SPINS = (NCPU < 2) ? 0 : 1 << 6;
+
+    /**
+     * The number of times a producer retries, yielding, before parking.
+     */
+    static final int PRODUCER_SPINS = (NCPU < 2) ? 1 : 1 << 4;
+
+    /** The initial time a producer parks waiting for space. */
+    static final long MIN_PRODUCER_PARK_NANOS = 1L << 10;
+
+    /** The maximum time a producer parks waiting for space. */
+    static final long MAX_PRODUCER_PARK_NANOS = 1L << 20;
+
+    /** The underlying queue */
+    final AbstractQueue<E> queue;
+
+    /** The capacity of the underlying queue */
+    final int capacity;
+
+    /**
+     * True if insertions publish with ordered writes only, so that a
+     * full fence is needed before checking for a waiting consumer.
+     * Insertions into an MpscArrayQueue claim their slot with a CAS of
+     * the producer index, which the consumer re-reads before parking.
+     */
+    final boolean fenceOnSignal;
+
+    /** The consumer thread, if parked or about to park */
+    volatile Thread waiter;
+
+    /**
+     * Creates a {@code SingleConsumerBlockingQueue} for use by a single
+     * producer and a single consumer.
+     *
+     * @param queue the queue to wrap
+     * @throws NullPointerException if the queue is null
+     */
+    public SingleConsumerBlockingQueue(SpscArrayQueue<E> queue) {
+        this.queue = queue;
+        this.capacity = queue.capacity();
+        this.fenceOnSignal = true;
+    }
+
+    /**
+     * Creates a {@code SingleConsumerBlockingQueue} for use by any number
+     * of producers and a single consumer.
+     *
+     * @param queue the queue to wrap
+     * @throws NullPointerException if the queue is null
+     */
+    public SingleConsumerBlockingQueue(MpscArrayQueue<E> queue) {
+        this.queue = queue;
+        this.capacity = queue.capacity();
+        this.fenceOnSignal = false;
+    }
+
+    /**
+     * Unparks the consumer if it is waiting.  Called after each
+     * successful insertion.
+     */
+    final void signalConsumer() {
+        Thread w;
+        if (fenceOnSignal)
+            U.fullFence();
+        if ((w = waiter) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Waits for space to insert the given element.
+     *
+     * @return true if inserted, false if timed out
+     */
+    private boolean awaitOffer(E e, boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        long parkNanos = MIN_PRODUCER_PARK_NANOS;
+        int spins = PRODUCER_SPINS;
+        for (;;) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (queue.offer(e)) {
+                signalConsumer();
+                return true;
+            }
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                return false;
+            if (spins > 0) {
+                --spins;
+                Thread.yield();
+            }
+            else {
+                LockSupport.parkNanos(this, (timed && nanos < parkNanos) ?
+                                      nanos : parkNanos);
+                if (parkNanos < MAX_PRODUCER_PARK_NANOS)
+                    parkNanos <<= 1;
+            }
+        }
+    }
+
+    /**
+     * Waits for an element to become available.
+     *
+     * @return the element, or null if timed out
+     */
+    private E awaitTake(boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        int spins = CONSUMER_SPINS;
+        E e;
+        for (;;) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if ((e = queue.poll()) != null)
+                return e;
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                return null;
+            if (spins > 0) {
+                --spins;
+                continue;
+            }
+            waiter = Thread.currentThread();
+            if ((e = queue.poll()) != null) {   // recheck after publishing
+                waiter = null;
+                return e;
+            }
+            if (timed)
+                LockSupport.parkNanos(this, nanos);
+            else
+                LockSupport.park(this);
+            waiter = null;
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (queue.offer(e)) {
+            signalConsumer();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * if necessary for space to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (!offer(e))
+            awaitOffer(e, false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @return {@code true} if successful, or {@code false} if
+     *         the specified waiting time elapses before space is available
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offer(e) || awaitOffer(e, true, unit.toNanos(timeout));
+    }
+
+    public E poll() {
+        return queue.poll();
+    }
+
+    public E take() throws InterruptedException {
+        E e;
+        return ((e = queue.poll()) != null) ? e : awaitTake(false, 0L);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        return ((e = queue.poll()) != null) ? e :
+            awaitTake(true, unit.toNanos(timeout));
+    }
+
+    public E peek() {
+        return queue.peek();
+    }
+
+    /**
+     * Returns an estimate of the number of elements in this queue.
+     *
+     * @return an estimate of the number of elements in this queue
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Returns an estimate of the number of additional elements that this
+     * queue can accept without blocking.
+     *
+     * @return the estimated remaining capacity
+     */
+    public int remainingCapacity() {
+        return capacity - queue.size();
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this || c == queue)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (E e; n < maxElements && (e = queue.poll()) != null; ++n)
+            c.add(e);
+        return n;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in this
+     * queue in proper sequence, as for the underlying queue.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return queue.iterator();
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U = sun.misc.Unsafe.getUnsafe();
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free {@linkplain java.util.Queue queue} backed by an
+ * array, for use by exactly one producer thread and one consumer thread.
+ * This queue orders elements FIFO (first-in-first-out).
+ *
+ * <p>At most one thread at a time may insert elements (using {@link
+ * #offer offer} or {@link #add add}), and at most one thread at a time
+ * may remove or examine them (using {@link #poll poll}, {@link #peek
+ * peek} or {@link #remove() remove}); the producer and consumer may be
+ * different threads, and the roles may be handed over to other threads
+ * provided the handoff itself establishes a happens-before relation.
+ * Results are undefined otherwise.  Methods {@link #size}, {@link
+ * #isEmpty} and {@link #iterator} may be called from any thread, and
+ * return only estimates of the current state.
+ *
+ * <p>Neither operation uses locks or atomic read-modify-write
+ * instructions: each side advances its own index with an ordered
+ * write ({@code lazySet}), and the two indices are kept on separate
+ * cache lines so that producer and consumer do not interfere.  The
+ * producer additionally caches a limit derived from the consumer index,
+ * and reads the consumer's index only when it reaches that limit.  This
+ * makes the queue considerably cheaper than {@link ArrayBlockingQueue}
+ * for single-producer/single-consumer handoff, at the price of not
+ * supporting blocking; see {@link SingleConsumerBlockingQueue} for a
+ * blocking adapter.
+ *
+ * <p>The capacity is rounded up to a power of two.  This queue does not
+ * permit {@code null} elements.  Its iterator is <i>weakly
+ * consistent</i> and does not support {@link Iterator#remove}, so the
+ * removal of arbitrary elements ({@link #remove(Object)}, {@link
+ * #removeAll} and {@link #retainAll}) is not supported either.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+public class SpscArrayQueue<E> extends AbstractQueue<E>
+        implements java.io.Serializable {
+    private static final long serialVersionUID = -4457200198713127093L;
+
+    /*
+     * Slot i of the buffer holds the element with sequence number s
+     * where (s & mask) == i.  An element is published by an ordered
+     * store into its slot followed by an ordered store of the producer
+     * index, and consumed by an ordered store of null into the slot
+     * followed by an ordered store of the consumer index.  The consumer
+     * tests for emptiness by reading the slot itself (a non-null slot
+     * at the consumer index can only hold a published element), so it
+     * never needs to read the producer index at all.  The producer
+     * tests for fullness against producerLimit, a private copy of
+     * consumerIndex + capacity, refreshed only when exhausted.
+     *
+     * Indices are longs and never wrap in practice.  Both are marked
+     * @Contended to keep them, and the fields each side reads, on
+     * separate cache lines.
+     */
+
+    /** The queued elements */
+    final Object[] buffer;
+
+    /** Mask for buffer indices; buffer.length - 1 */
+    final int mask;
+
+    /** Sequence number of the next element to be inserted */
+    @sun.misc.Contended("producer")
+    volatile long producerIndex;
+
+    /** Producer-local bound on producerIndex before the queue is full */
+    @sun.misc.Contended("producer")
+    long producerLimit;
+
+    /** Sequence number of the next element to be removed */
+    @sun.misc.Contended("consumer")
+    volatile long consumerIndex;
+
+    /** The largest capacity; the largest power-of-two array size */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Returns the power of two at least as large as the given capacity.
+     */
+    static int ringSizeFor(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+        if (capacity > MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        return (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Returns the raw array offset of the slot for the given index.
+     */
+    static long slotOffset(long index, int mask) {
+        return ((long)((int)index & mask) << ASHIFT) + ABASE;
+    }
+
+    /**
+     * Creates an {@code SpscArrayQueue} with a capacity of at least the
+     * given size.
+     *
+     * @param capacity the minimum capacity of this queue; it is rounded
+     *        up to the nearest power of two
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public SpscArrayQueue(int capacity) {
+        int n = ringSizeFor(capacity);
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+        this.producerLimit = n;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested capacity
+     * rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity, returning {@code
+     * true} upon success and {@code false} if this queue is full.  Must
+     * only be called by the producer thread.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long p = producerIndex;
+        if (p >= producerLimit) {
+            long limit = consumerIndex + buffer.length;
+            if (p >= limit)
+                return false;
+            producerLimit = limit;
+        }
+        U.putOrderedObject(buffer, slotOffset(p, mask), e);
+        U.putOrderedLong(this, PINDEX, p + 1L);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  Must only be called by the consumer
+     * thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final Object[] buffer = this.buffer;
+        long c = consumerIndex;
+        long offset = slotOffset(c, mask);
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null)
+            return null;
+        U.putOrderedObject(buffer, offset, null);
+        U.putOrderedLong(this, CINDEX, c + 1L);
+        return (E)e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty.  Must only be called by the
+     * consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (E)U.getObjectVolatile(buffer, slotOffset(consumerIndex, mask));
+    }
+
+    /**
+     * Removes up to {@code maxElements} elements from this queue, passing
+     * each to the given consumer in order, and publishes the new consumer
+     * index once at the end.  Must only be called by the consumer thread.
+     *
+     * @param action the action to perform on each element
+     * @param maxElements the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws NullPointerException if the action is null
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> action, int maxElements) {
+        if (action == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        final int mask = this.mask;
+        long c = consumerIndex;
+        int n = 0;
+        try {
+            while (n < maxElements) {
+                long offset = slotOffset(c + n, mask);
+                Object e = U.getObjectVolatile(buffer, offset);
+                if (e == null)
+                    break;
+                U.putOrderedObject(buffer, offset, null);
+                ++n;
+                action.accept((E)e);
+            }
+        } finally {
+            if (n > 0)
+                U.putOrderedLong(this, CINDEX, c + n);
+        }
+        return n;
+    }
+
+    /**
+     * Returns an estimate of the number of elements in this queue.
+     *
+     * @return an estimate of the number of elements in this queue
+     */
+    public int size() {
+        long after = consumerIndex;
+        for (;;) {
+            long before = after;
+            long p = producerIndex;
+            after = consumerIndex;
+            if (before == after) {
+                long n = p - after;
+                return (n <= 0L) ? 0 :
+                    (n >= buffer.length) ? buffer.length : (int)n;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue appeared to contain no elements
+     * when the indices were last read.
+     *
+     * @return {@code true} if this queue appears empty
+     */
+    public boolean isEmpty() {
+        return consumerIndex >= producerIndex;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue in proper
+     * sequence.  The iterator is weakly consistent: it reflects the
+     * elements present in the slots between the consumer and producer
+     * indices as read when each element is reached, and may miss
+     * elements removed concurrently.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr<E>(buffer, mask, consumerIndex, producerIndex);
+    }
+
+    /**
+     * Weakly consistent iterator over the slots of a ring between two
+     * sequence numbers, skipping slots that have since been consumed.
+     * Shared with MpscArrayQueue.
+     */
+    static final class Itr<E> implements Iterator<E> {
+        final Object[] buffer;
+        final int mask;
+        final long limit;
+        long index;
+        E nextItem;
+
+        Itr(Object[] buffer, int mask, long index, long limit) {
+            this.buffer = buffer;
+            this.mask = mask;
+            this.index = index;
+            this.limit = limit;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            E e = null;
+            while (e == null && index < limit)
+                e = (E)U.getObjectVolatile(buffer, slotOffset(index++, mask));
+            nextItem = e;
+        }
+
+        public boolean hasNext() {
+            return nextItem != null;
+        }
+
+        public E next() {
+            E e = nextItem;
+            if (e == null)
+                throw new NoSuchElementException();
+            advance();
+            return e;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long PINDEX;
+    private static final long CINDEX;
+    static final long ABASE;
+    static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = SpscArrayQueue.class;
+            PINDEX = U.objectFieldOffset
+                (k.getDeclaredField("producerIndex"));
+            CINDEX = U.objectFieldOffset
+                (k.getDeclaredField("consumerIndex"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
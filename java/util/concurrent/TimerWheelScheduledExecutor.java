@@ -0,0 +1,1491 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.*;
+
+/**
+ * A {@link ThreadPoolExecutor} that can additionally schedule commands
+ * to run after a given delay, or to execute periodically, and that
+ * keeps its delayed tasks in a hierarchical timing wheel rather than
+ * a heap.  It is intended for applications that schedule very large
+ * numbers of tasks, most of which are cancelled before they run, such
+ * as request timeouts.
+ *
+ * <p>This class behaves like {@link ScheduledThreadPoolExecutor}, and
+ * supports the same run-after-shutdown policies, the same {@linkplain
+ * #setRemoveOnCancelPolicy remove-on-cancel policy} and the same
+ * {@code decorateTask} extension methods, differing only in the costs
+ * of its operations.  In a {@code ScheduledThreadPoolExecutor}, every
+ * schedule and every removal of a cancelled task takes a single lock
+ * and costs O(log n).  Here, scheduling a task and removing a
+ * cancelled task each cost O(1) and take no lock: the request is
+ * appended to one of several insertion buffers, selected per thread,
+ * and applied to the wheel in batches by whichever worker thread is
+ * waiting for the next task to become due.
+ *
+ * <p>Delayed tasks execute no sooner than they are enabled, but
+ * without any real-time guarantees about when, after they are
+ * enabled, they will commence.  Tasks that become enabled at about the
+ * same time, and are found together by the waiting worker, are
+ * enabled in order of their execution times, and those scheduled for
+ * exactly the same execution time in first-in-first-out (FIFO) order
+ * of submission; this class does not otherwise guarantee FIFO order
+ * between tasks enabled in different batches.
+ *
+ * <p>When a submitted task is cancelled before it is run, execution
+ * is suppressed.  By default, such a cancelled task is not
+ * automatically removed from the work queue until its delay elapses.
+ * To release cancelled tasks promptly, set {@link
+ * #setRemoveOnCancelPolicy} to {@code true}.
+ *
+ * <p>Successive executions of a task scheduled via {@code
+ * scheduleAtFixedRate} or {@code scheduleWithFixedDelay} do not
+ * overlap.  While different executions may be performed by different
+ * threads, the effects of prior executions <a
+ * href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
+ * those of subsequent ones.
+ *
+ * <p>As with {@code ScheduledThreadPoolExecutor}, this class acts as a
+ * fixed-sized pool using {@code corePoolSize} threads and an unbounded
+ * queue, so adjustments to {@code maximumPoolSize} have no useful
+ * effect, and it is almost never a good idea to set {@code
+ * corePoolSize} to zero or use {@code allowCoreThreadTimeOut}.
+ *
+ * <p><b>Extension notes:</b> This class overrides the {@link
+ * ThreadPoolExecutor#execute(Runnable) execute} and {@link
+ * AbstractExecutorService#submit(Runnable) submit} methods to
+ * generate internal {@link ScheduledFuture} objects, and provides the
+ * protected extension methods {@code decorateTask} to customize the
+ * concrete task types, exactly as described for {@link
+ * ScheduledThreadPoolExecutor}.  Tasks returned by {@code
+ * decorateTask} that are not the executor's own task type are
+ * supported, but removing them is a linear-time operation.
+ *
+ * @since 1.8
+ * @see ScheduledThreadPoolExecutor
+ */
+public class TimerWheelScheduledExecutor
+        extends ThreadPoolExecutor
+        implements ScheduledExecutorService {
+
+    /*
+     * This class specializes ThreadPoolExecutor in the same ways as
+     * ScheduledThreadPoolExecutor (a custom task type, run-after-
+     * shutdown policies, and task decoration), and differs from it
+     * only in its work queue, a TimerWheelQueue.
+     *
+     * The queue keeps each pending task in a Node that records its
+     * trigger time and its links in a bucket of the wheel.  Nodes are
+     * added and removed by appending them to striped insertion
+     * buffers (MpscArrayQueues indexed by the ThreadLocalRandom probe,
+     * as for CounterCells), so that neither operation takes the lock.
+     * All changes to the wheel itself are made while holding the lock,
+     * which is held only briefly: by the leader (see below) when it
+     * drains the buffers and advances the wheel, and by the rarer
+     * operations that must see the whole queue, such as toArray and
+     * removal of decorated tasks.
+     */
+
+    /**
+     * False if should cancel/suppress periodic tasks on shutdown.
+     */
+    private volatile boolean continueExistingPeriodicTasksAfterShutdown;
+
+    /**
+     * False if should cancel non-periodic tasks on shutdown.
+     */
+    private volatile boolean executeExistingDelayedTasksAfterShutdown = true;
+
+    /**
+     * True if ScheduledFutureTask.cancel should remove from queue
+     */
+    private volatile boolean removeOnCancel = false;
+
+    /**
+     * Sequence number to break scheduling ties, and in turn to
+     * guarantee FIFO order among tied entries.
+     */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    /**
+     * The largest delay, in nanoseconds, of any task.  Larger delays
+     * are reduced to this (about 73 years), which keeps trigger times
+     * within Long.MAX_VALUE of each other.
+     */
+    static final long MAX_DELAY = Long.MAX_VALUE >> 1;
+
+    /**
+     * Returns current nanosecond time.
+     */
+    final long now() {
+        return System.nanoTime();
+    }
+
+    private class ScheduledFutureTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** The actual task to be re-enqueued by reExecutePeriodic */
+        RunnableScheduledFuture<V> outerTask = this;
+
+        /**
+         * The wheel node most recently created for this task, to
+         * support constant-time cancellation.
+         */
+        volatile Node node;
+
+        /**
+         * Creates a one-shot action with given nanoTime-based trigger time.
+         */
+        ScheduledFutureTask(Runnable r, V result, long ns) {
+            super(r, result);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        /**
+         * Creates a periodic action with given nano time and period.
+         */
+        ScheduledFutureTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        /**
+         * Creates a one-shot action with given nanoTime-based trigger time.
+         */
+        ScheduledFutureTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof ScheduledFutureTask) {
+                ScheduledFutureTask<?> x = (ScheduledFutureTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        /**
+         * Returns {@code true} if this is a periodic (not a one-shot) action.
+         *
+         * @return {@code true} if periodic
+         */
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /**
+         * Sets the next time to run for a periodic task.
+         */
+        private void setNextRunTime() {
+            long p = period;
+            if (p > 0)
+                time += p;
+            else
+                time = triggerTime(-p);
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && removeOnCancel && node != null)
+                remove(this);
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset/requeue if periodic.
+         */
+        public void run() {
+            boolean periodic = isPeriodic();
+            if (!canRunInCurrentRunState(periodic))
+                cancel(false);
+            else if (!periodic)
+                ScheduledFutureTask.super.run();
+            else if (ScheduledFutureTask.super.runAndReset()) {
+                setNextRunTime();
+                reExecutePeriodic(outerTask);
+            }
+        }
+    }
+
+    /**
+     * Returns true if can run a task given current run state
+     * and run-after-shutdown parameters.
+     *
+     * @param periodic true if this task periodic, false if delayed
+     */
+    boolean canRunInCurrentRunState(boolean periodic) {
+        return isRunningOrShutdown(periodic ?
+                                   continueExistingPeriodicTasksAfterShutdown :
+                                   executeExistingDelayedTasksAfterShutdown);
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks.  If pool
+     * is shut down, rejects the task. Otherwise adds task to queue
+     * and starts a thread, if necessary, to run it.  If the pool is
+     * shut down while the task is being added, cancel and remove it
+     * if required by state and run-after-shutdown parameters.
+     *
+     * @param task the task
+     */
+    private void delayedExecute(RunnableScheduledFuture<?> task) {
+        if (isShutdown())
+            reject(task);
+        else {
+            super.getQueue().add(task);
+            if (isShutdown() &&
+                !canRunInCurrentRunState(task.isPeriodic()) &&
+                remove(task))
+                task.cancel(false);
+            else
+                ensurePrestart();
+        }
+    }
+
+    /**
+     * Requeues a periodic task unless current run state precludes it.
+     * Same idea as delayedExecute except drops task rather than rejecting.
+     *
+     * @param task the task
+     */
+    void reExecutePeriodic(RunnableScheduledFuture<?> task) {
+        if (canRunInCurrentRunState(true)) {
+            super.getQueue().add(task);
+            if (!canRunInCurrentRunState(true) && remove(task))
+                task.cancel(false);
+            else
+                ensurePrestart();
+        }
+    }
+
+    /**
+     * Cancels and clears the queue of all tasks that should not be run
+     * due to shutdown policy.  Invoked within super.shutdown.
+     */
+    @Override void onShutdown() {
+        BlockingQueue<Runnable> q = super.getQueue();
+        boolean keepDelayed =
+            getExecuteExistingDelayedTasksAfterShutdownPolicy();
+        boolean keepPeriodic =
+            getContinueExistingPeriodicTasksAfterShutdownPolicy();
+        if (!keepDelayed && !keepPeriodic) {
+            for (Object e : q.toArray())
+                if (e instanceof RunnableScheduledFuture<?>)
+                    ((RunnableScheduledFuture<?>) e).cancel(false);
+            q.clear();
+        }
+        else {
+            // Traverse snapshot to avoid iterator exceptions
+            for (Object e : q.toArray()) {
+                if (e instanceof RunnableScheduledFuture) {
+                    RunnableScheduledFuture<?> t =
+                        (RunnableScheduledFuture<?>)e;
+                    if ((t.isPeriodic() ? !keepPeriodic : !keepDelayed) ||
+                        t.isCancelled()) { // also remove if already cancelled
+                        if (q.remove(t))
+                            t.cancel(false);
+                    }
+                }
+            }
+        }
+        tryTerminate();
+    }
+
+    /**
+     * Modifies or replaces the task used to execute a runnable.
+     * This method can be used to override the concrete
+     * class used for managing internal tasks.
+     * The default implementation simply returns the given task.
+     *
+     * @param runnable the submitted Runnable
+     * @param task the task created to execute the runnable
+     * @param <V> the type of the task's result
+     * @return a task that can execute the runnable
+     */
+    protected <V> RunnableScheduledFuture<V> decorateTask(
+        Runnable runnable, RunnableScheduledFuture<V> task) {
+        return task;
+    }
+
+    /**
+     * Modifies or replaces the task used to execute a callable.
+     * This method can be used to override the concrete
+     * class used for managing internal tasks.
+     * The default implementation simply returns the given task.
+     *
+     * @param callable the submitted Callable
+     * @param task the task created to execute the callable
+     * @param <V> the type of the task's result
+     * @return a task that can execute the callable
+     */
+    protected <V> RunnableScheduledFuture<V> decorateTask(
+        Callable<V> callable, RunnableScheduledFuture<V> task) {
+        return task;
+    }
+
+    /**
+     * Creates a new {@code TimerWheelScheduledExecutor} with the
+     * given core pool size.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     */
+    public TimerWheelScheduledExecutor(int corePoolSize) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimerWheelQueue());
+    }
+
+    /**
+     * Creates a new {@code TimerWheelScheduledExecutor} with the
+     * given initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @throws NullPointerException if {@code threadFactory} is null
+     */
+    public TimerWheelScheduledExecutor(int corePoolSize,
+                                       ThreadFactory threadFactory) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimerWheelQueue(), threadFactory);
+    }
+
+    /**
+     * Creates a new {@code TimerWheelScheduledExecutor} with the
+     * given initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @throws NullPointerException if {@code handler} is null
+     */
+    public TimerWheelScheduledExecutor(int corePoolSize,
+                                       RejectedExecutionHandler handler) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimerWheelQueue(), handler);
+    }
+
+    /**
+     * Creates a new {@code TimerWheelScheduledExecutor} with the
+     * given initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @throws NullPointerException if {@code threadFactory} or
+     *         {@code handler} is null
+     */
+    public TimerWheelScheduledExecutor(int corePoolSize,
+                                       ThreadFactory threadFactory,
+                                       RejectedExecutionHandler handler) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimerWheelQueue(), threadFactory, handler);
+    }
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    long triggerTime(long delay) {
+        return now() + ((delay < MAX_DELAY) ? delay : MAX_DELAY);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        RunnableScheduledFuture<?> t = decorateTask(command,
+            new ScheduledFutureTask<Void>(command, null,
+                                          triggerTime(delay, unit)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        RunnableScheduledFuture<V> t = decorateTask(callable,
+            new ScheduledFutureTask<V>(callable,
+                                       triggerTime(delay, unit)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        ScheduledFutureTask<Void> sft =
+            new ScheduledFutureTask<Void>(command,
+                                          null,
+                                          triggerTime(initialDelay, unit),
+                                          unit.toNanos(period));
+        RunnableScheduledFuture<Void> t = decorateTask(command, sft);
+        sft.outerTask = t;
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        ScheduledFutureTask<Void> sft =
+            new ScheduledFutureTask<Void>(command,
+                                          null,
+                                          triggerTime(initialDelay, unit),
+                                          unit.toNanos(-delay));
+        RunnableScheduledFuture<Void> t = decorateTask(command, sft);
+        sft.outerTask = t;
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     * This has effect equivalent to
+     * {@link #schedule(Runnable,long,TimeUnit) schedule(command, 0, anyUnit)}.
+     * Note that inspections of the queue and of the list returned by
+     * {@code shutdownNow} will access the zero-delayed
+     * {@link ScheduledFuture}, not the {@code command} itself.
+     *
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution because the
+     *         executor has been shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    // Override AbstractExecutorService methods
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * Sets the policy on whether to continue executing existing
+     * periodic tasks even when this executor has been {@code shutdown}.
+     * This value is by default {@code false}.
+     *
+     * @param value if {@code true}, continue after shutdown, else don't
+     * @see ScheduledThreadPoolExecutor#setContinueExistingPeriodicTasksAfterShutdownPolicy
+     */
+    public void setContinueExistingPeriodicTasksAfterShutdownPolicy(boolean value) {
+        continueExistingPeriodicTasksAfterShutdown = value;
+        if (!value && isShutdown())
+            onShutdown();
+    }
+
+    /**
+     * Gets the policy on whether to continue executing existing
+     * periodic tasks even when this executor has been {@code shutdown}.
+     * This value is by default {@code false}.
+     *
+     * @return {@code true} if will continue after shutdown
+     * @see #setContinueExistingPeriodicTasksAfterShutdownPolicy
+     */
+    public boolean getContinueExistingPeriodicTasksAfterShutdownPolicy() {
+        return continueExistingPeriodicTasksAfterShutdown;
+    }
+
+    /**
+     * Sets the policy on whether to execute existing delayed
+     * tasks even when this executor has been {@code shutdown}.
+     * This value is by default {@code true}.
+     *
+     * @param value if {@code true}, execute after shutdown, else don't
+     * @see ScheduledThreadPoolExecutor#setExecuteExistingDelayedTasksAfterShutdownPolicy
+     */
+    public void setExecuteExistingDelayedTasksAfterShutdownPolicy(boolean value) {
+        executeExistingDelayedTasksAfterShutdown = value;
+        if (!value && isShutdown())
+            onShutdown();
+    }
+
+    /**
+     * Gets the policy on whether to execute existing delayed
+     * tasks even when this executor has been {@code shutdown}.
+     * This value is by default {@code true}.
+     *
+     * @return {@code true} if will execute after shutdown
+     * @see #setExecuteExistingDelayedTasksAfterShutdownPolicy
+     */
+    public boolean getExecuteExistingDelayedTasksAfterShutdownPolicy() {
+        return executeExistingDelayedTasksAfterShutdown;
+    }
+
+    /**
+     * Sets the policy on whether cancelled tasks should be immediately
+     * removed from the work queue at time of cancellation.  This value is
+     * by default {@code false}.  Removal takes constant time for tasks
+     * that have not been replaced using {@code decorateTask}.
+     *
+     * @param value if {@code true}, remove on cancellation, else don't
+     * @see #getRemoveOnCancelPolicy
+     */
+    public void setRemoveOnCancelPolicy(boolean value) {
+        removeOnCancel = value;
+    }
+
+    /**
+     * Gets the policy on whether cancelled tasks should be immediately
+     * removed from the work queue at time of cancellation.  This value is
+     * by default {@code false}.
+     *
+     * @return {@code true} if cancelled tasks are immediately removed
+     *         from the queue
+     * @see #setRemoveOnCancelPolicy
+     */
+    public boolean getRemoveOnCancelPolicy() {
+        return removeOnCancel;
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.
+     * Invocation has no additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     *
+     * <p>If the {@code ExecuteExistingDelayedTasksAfterShutdownPolicy}
+     * has been set {@code false}, existing delayed tasks whose delays
+     * have not yet elapsed are cancelled.  And unless the {@code
+     * ContinueExistingPeriodicTasksAfterShutdownPolicy} has been set
+     * {@code true}, future executions of existing periodic tasks will
+     * be cancelled.
+     *
+     * @throws SecurityException {@inheritDoc}
+     */
+    public void shutdown() {
+        super.shutdown();
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * cancels tasks via {@link Thread#interrupt}, so any task that
+     * fails to respond to interrupts may never terminate.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture},
+     *         including those tasks submitted using {@code execute},
+     *         which are for scheduling purposes used as the basis of a
+     *         zero-delay {@code ScheduledFuture}.
+     * @throws SecurityException {@inheritDoc}
+     */
+    public List<Runnable> shutdownNow() {
+        return super.shutdownNow();
+    }
+
+    /**
+     * Returns the task queue used by this executor.  Each element of
+     * this queue is a {@link ScheduledFuture}, including those
+     * tasks submitted using {@code execute} which are for scheduling
+     * purposes used as the basis of a zero-delay
+     * {@code ScheduledFuture}.  Iteration over this queue is
+     * <em>not</em> guaranteed to traverse tasks in the order in
+     * which they will execute.
+     *
+     * @return the task queue
+     */
+    public BlockingQueue<Runnable> getQueue() {
+        return super.getQueue();
+    }
+
+    /**
+     * A pending task in a TimerWheelQueue.  A node is created each
+     * time a task is added to the queue, and is PENDING until it is
+     * either taken by a worker or removed, whichever first changes its
+     * status by CAS.  The links are used only while the node is in a
+     * bucket, and are guarded by the queue's lock; a null prev means
+     * the node is not in any bucket.  Bucket heads are sentinel nodes
+     * with no task.
+     */
+    static final class Node {
+        final RunnableScheduledFuture<?> task;
+        final TimerWheelQueue queue;
+        final long time;
+        final long seq;
+        volatile int status;
+        Node prev, next;
+
+        Node(RunnableScheduledFuture<?> task, TimerWheelQueue queue,
+             long time, long seq) {
+            this.task = task;
+            this.queue = queue;
+            this.time = time;
+            this.seq = seq;
+        }
+
+        Node() {                        // sentinel
+            this.task = null;
+            this.queue = null;
+            this.time = 0L;
+            this.seq = 0L;
+            this.prev = this.next = this;
+        }
+
+        final boolean casStatus(int cmp, int val) {
+            return U.compareAndSwapInt(this, STATUS, cmp, val);
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long STATUS;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = Node.class;
+                STATUS = U.objectFieldOffset
+                    (k.getDeclaredField("status"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    // Node status values
+    static final int PENDING = 0, TAKEN = 1, REMOVED = 2;
+
+    /**
+     * Specialized delay queue holding tasks in a hierarchical timing
+     * wheel.  To mesh with TPE declarations, this class must be
+     * declared as a BlockingQueue<Runnable> even though it can only
+     * hold RunnableScheduledFutures.
+     */
+    static class TimerWheelQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable> {
+
+        /*
+         * The wheel has six levels.  Level i is an array of circular
+         * doubly-linked bucket lists, each covering 2^SHIFTS[i]
+         * nanoseconds of trigger times, and the whole level covers
+         * 2^SHIFTS[i+1] nanoseconds, so that level 0 has ticks of
+         * about a millisecond and spans a quarter second, level 1
+         * spans 17 seconds, level 2 18 minutes, level 3 19 hours and
+         * level 4 52 days, and the single bucket of level 5 holds all
+         * later tasks.  A node whose trigger time is d nanoseconds
+         * after the wheel's current time is placed at the lowest level
+         * spanning d, in the bucket indexed by its trigger time (not
+         * by d), so a bucket's contents never move until the bucket is
+         * processed.
+         *
+         * Advancing the wheel from one time to a later one processes,
+         * at each level whose tick count changed, every bucket whose
+         * tick lies in between, inclusive of both ends; level 0 also
+         * processes its current bucket on every advance.  Processing
+         * a bucket detaches its list and either expires each node or
+         * re-places it relative to the new time, which cascades nodes
+         * from higher levels down as their time approaches.  Because
+         * a node at level i > 0 is always in a tick after the current
+         * one, every node is reached in time, and a node is processed
+         * at most once per level on its way down.
+         *
+         * Expired nodes are sorted by trigger time and sequence number
+         * and appended to the ready deque, from which workers take
+         * them.  Nodes removed by cancellation are unlinked when their
+         * removal request is drained from a buffer, or skipped when
+         * reached in a bucket or the ready deque if that happens
+         * first.
+         *
+         * Waiting follows DelayedWorkQueue's leader-follower scheme,
+         * except that the leader, having advanced the wheel and found
+         * nothing ready, computes the time of the next bucket that
+         * needs processing and parks until then without holding the
+         * lock, advertising itself and its wake-up time in sleeper and
+         * sleepDeadline.  A producer that adds a node triggering before
+         * the advertised deadline unparks the sleeper.  The leader
+         * rechecks the buffers after advertising, and producers read
+         * sleeper after the CAS that published their node, so one of
+         * them always sees the other.  Producers never signal the
+         * condition; instead a thread leaving take or poll always
+         * signals it so that another waiting thread becomes leader.
+         */
+
+        /** Log2 of the span of a bucket at each level */
+        static final int[] SHIFTS = { 20, 28, 34, 40, 46, 52 };
+
+        /** The number of buckets at each level */
+        static final int[] BUCKETS = { 256, 64, 64, 64, 64, 1 };
+
+        /** The capacity of each insertion buffer */
+        static final int BUFFER_SIZE = 256;
+
+        /** The maximum number of insertion buffers */
+        static final int MAX_STRIPES = 64;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Condition signalled when a thread may need to become leader.
+         */
+        private final Condition available = lock.newCondition();
+
+        /** Thread designated to advance the wheel; guarded by lock */
+        private Thread leader = null;
+
+        /** The leader while parked without holding the lock */
+        private volatile Thread sleeper;
+
+        /** The nanoTime at which the sleeper will wake */
+        private volatile long sleepDeadline;
+
+        /** Insertion and removal requests not yet applied */
+        private final MpscArrayQueue<Node>[] buffers;
+
+        /** The number of pending nodes */
+        private final LongAdder count = new LongAdder();
+
+        /** The bucket sentinels, by level */
+        private final Node[][] wheel;
+
+        /** The nanoTime origin of bucket indices */
+        private final long origin;
+
+        /** The nanoTime the wheel was last advanced to; guarded by lock */
+        private long wheelTime;
+
+        /** Expired nodes in order, not yet taken; guarded by lock */
+        private final ArrayDeque<Node> ready = new ArrayDeque<Node>();
+
+        /** Scratch list of nodes expired by an advance; guarded by lock */
+        private final ArrayList<Node> expired = new ArrayList<Node>();
+
+        /** Orders expired nodes by trigger time, then FIFO */
+        static final Comparator<Node> EXPIRY_ORDER = (a, b) -> {
+            long d = a.time - b.time;
+            return (d < 0L) ? -1 : (d > 0L) ? 1 :
+                (a.seq < b.seq) ? -1 : (a.seq > b.seq) ? 1 : 0;
+        };
+
+        @SuppressWarnings("unchecked")
+        TimerWheelQueue() {
+            int ncpu = Runtime.getRuntime().availableProcessors();
+            int n = 1;
+            while (n < ncpu && n < MAX_STRIPES)
+                n <<= 1;
+            MpscArrayQueue<Node>[] bs =
+                (MpscArrayQueue<Node>[])new MpscArrayQueue<?>[n];
+            for (int i = 0; i < n; ++i)
+                bs[i] = new MpscArrayQueue<Node>(BUFFER_SIZE);
+            buffers = bs;
+            Node[][] w = new Node[SHIFTS.length][];
+            for (int i = 0; i < w.length; ++i) {
+                Node[] level = w[i] = new Node[BUCKETS[i]];
+                for (int j = 0; j < level.length; ++j)
+                    level[j] = new Node();
+            }
+            wheel = w;
+            wheelTime = origin = System.nanoTime();
+        }
+
+        // Buffering, lock-free
+
+        /**
+         * Appends an insertion or removal request to the current
+         * thread's buffer, or applies it directly if the buffers are
+         * full.
+         */
+        private void enqueue(Node n) {
+            final MpscArrayQueue<Node>[] bs = buffers;
+            final int m = bs.length - 1;
+            int h;
+            if ((h = ThreadLocalRandom.getProbe()) == 0) {
+                ThreadLocalRandom.localInit();
+                h = ThreadLocalRandom.getProbe();
+            }
+            if (bs[h & m].offer(n))
+                return;
+            h = ThreadLocalRandom.advanceProbe(h);
+            if (bs[h & m].offer(n))
+                return;
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                drainBuffers();
+                absorb(n);
+                if (flushExpired())
+                    available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Wakes the sleeping leader if the given trigger time precedes
+         * its deadline.
+         */
+        private void signalSleeper(long time) {
+            Thread s = sleeper;
+            if (s != null && time - sleepDeadline < 0L)
+                LockSupport.unpark(s);
+        }
+
+        /**
+         * Returns true if no requests are buffered.
+         */
+        private boolean buffersEmpty() {
+            for (MpscArrayQueue<Node> b : buffers)
+                if (!b.isEmpty())
+                    return false;
+            return true;
+        }
+
+        /**
+         * Cancels a pending node, and requests that it be unlinked.
+         * Returns false if it was already taken or removed.
+         */
+        private boolean cancelNode(Node n) {
+            if (!n.casStatus(PENDING, REMOVED))
+                return false;
+            count.decrement();
+            enqueue(n);
+            return true;
+        }
+
+        // Wheel operations; call only when holding lock
+
+        /**
+         * Applies all buffered requests.
+         */
+        private void drainBuffers() {
+            for (MpscArrayQueue<Node> b : buffers)
+                for (Node n; (n = b.poll()) != null; )
+                    absorb(n);
+        }
+
+        /**
+         * Applies a request: places a pending node that is not yet in
+         * the wheel, or unlinks one that is no longer pending.
+         */
+        private void absorb(Node n) {
+            if (n.status != PENDING) {
+                if (n.prev != null)
+                    unlink(n);
+            }
+            else if (n.prev == null)
+                place(n);
+        }
+
+        /**
+         * Links the node into the bucket for its trigger time relative
+         * to wheelTime, or adds it to the expired list if due.
+         */
+        private void place(Node n) {
+            long delay = n.time - wheelTime;
+            if (delay <= 0L) {
+                expired.add(n);
+                return;
+            }
+            int i = 0, top = SHIFTS.length - 1;
+            while (i < top && delay >= (1L << SHIFTS[i + 1]))
+                ++i;
+            Node h = wheel[i][(int)((n.time - origin) >>> SHIFTS[i]) &
+                              (BUCKETS[i] - 1)];
+            Node p = h.prev;
+            n.prev = p;
+            n.next = h;
+            p.next = n;
+            h.prev = n;
+        }
+
+        private static void unlink(Node n) {
+            Node p = n.prev, s = n.next;
+            p.next = s;
+            s.prev = p;
+            n.prev = n.next = null;
+        }
+
+        /**
+         * Detaches the list of the given bucket, and re-places or
+         * expires each pending node in it.
+         */
+        private void processBucket(Node h) {
+            Node n = h.next;
+            if (n == h)
+                return;
+            h.prev.next = null;
+            h.prev = h.next = h;
+            while (n != null) {
+                Node s = n.next;
+                n.prev = n.next = null;
+                if (n.status == PENDING)
+                    place(n);
+                n = s;
+            }
+        }
+
+        /**
+         * Advances the wheel to the given time.
+         */
+        private void advance(long now) {
+            long prev = wheelTime - origin, cur = now - origin;
+            if (cur - prev < 0L)
+                return;
+            wheelTime = now;
+            for (int i = 0; i < SHIFTS.length; ++i) {
+                long pt = prev >>> SHIFTS[i], ct = cur >>> SHIFTS[i];
+                if (i > 0 && pt == ct)
+                    break;
+                Node[] level = wheel[i];
+                int mask = level.length - 1;
+                long span = ct - pt + 1L;
+                int k = (span < level.length) ? (int)span : level.length;
+                for (int j = 0; j < k; ++j)
+                    processBucket(level[(int)(pt + j) & mask]);
+            }
+        }
+
+        /**
+         * Moves expired nodes, in order, to the ready deque.
+         *
+         * @return true if any were moved
+         */
+        private boolean flushExpired() {
+            ArrayList<Node> x = expired;
+            int n = x.size();
+            if (n == 0)
+                return false;
+            if (n > 1)
+                x.sort(EXPIRY_ORDER);
+            ready.addAll(x);
+            x.clear();
+            return true;
+        }
+
+        /**
+         * Applies buffered requests and advances the wheel to now.
+         */
+        private void tick(long now) {
+            drainBuffers();
+            advance(now);
+            flushExpired();
+        }
+
+        /**
+         * Returns the number of nanoseconds from now until the wheel
+         * next needs to be advanced, or Long.MAX_VALUE if it is empty.
+         */
+        private long nextDelay(long now) {
+            long rel = now - origin, next = Long.MAX_VALUE;
+            for (int i = 0; i < SHIFTS.length; ++i) {
+                Node[] level = wheel[i];
+                int shift = SHIFTS[i], mask = level.length - 1;
+                long ct = rel >>> shift;
+                Node h = level[(int)ct & mask];
+                if (h.next != h) {
+                    if (i == 0) {       // exact earliest time in current tick
+                        for (Node n = h.next; n != h; n = n.next)
+                            if (n.time - now < next)
+                                next = n.time - now;
+                    }
+                    else if (((ct + 1L) << shift) - rel < next)
+                        next = ((ct + 1L) << shift) - rel;
+                }
+                for (int j = 1; j < level.length; ++j) {
+                    long d = ((ct + j) << shift) - rel;
+                    if (d >= next)
+                        break;
+                    h = level[(int)(ct + j) & mask];
+                    if (h.next != h) {
+                        next = d;
+                        break;
+                    }
+                }
+            }
+            return (next < 0L) ? 0L : next;
+        }
+
+        /**
+         * Takes the first pending ready task, or returns null.
+         */
+        private RunnableScheduledFuture<?> pollReady() {
+            for (Node n; (n = ready.poll()) != null; ) {
+                if (n.casStatus(PENDING, TAKEN)) {
+                    count.decrement();
+                    return n.task;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the pending nodes, after applying buffered requests.
+         */
+        private ArrayList<Node> pendingNodes() {
+            drainBuffers();
+            flushExpired();
+            ArrayList<Node> list = new ArrayList<Node>();
+            for (Node n : ready)
+                if (n.status == PENDING)
+                    list.add(n);
+            for (Node[] level : wheel)
+                for (Node h : level)
+                    for (Node n = h.next; n != h; n = n.next)
+                        if (n.status == PENDING)
+                            list.add(n);
+            return list;
+        }
+
+        /**
+         * Returns the pending node for the given task, or null.
+         */
+        private Node findNode(Object x) {
+            if (x != null) {
+                for (Node n : pendingNodes())
+                    if (x.equals(n.task))
+                        return n;
+            }
+            return null;
+        }
+
+        // Queue methods
+
+        public boolean offer(Runnable x) {
+            if (x == null)
+                throw new NullPointerException();
+            RunnableScheduledFuture<?> e = (RunnableScheduledFuture<?>)x;
+            long time, seq;
+            if (e instanceof ScheduledFutureTask) {
+                ScheduledFutureTask<?> f = (ScheduledFutureTask<?>)e;
+                time = f.time;
+                seq = f.sequenceNumber;
+            } else {
+                long d = e.getDelay(NANOSECONDS);
+                time = System.nanoTime() + ((d < MAX_DELAY) ? d : MAX_DELAY);
+                seq = sequencer.getAndIncrement();
+            }
+            Node n = new Node(e, this, time, seq);
+            if (e instanceof ScheduledFutureTask)
+                ((ScheduledFutureTask<?>)e).node = n;
+            count.increment();
+            enqueue(n);
+            signalSleeper(time);
+            return true;
+        }
+
+        public void put(Runnable e) {
+            offer(e);
+        }
+
+        public boolean add(Runnable e) {
+            return offer(e);
+        }
+
+        public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+            return offer(e);
+        }
+
+        public boolean remove(Object x) {
+            if (x instanceof ScheduledFutureTask) {
+                Node n = ((ScheduledFutureTask<?>)x).node;
+                // Sanity check; x could conceivably be a
+                // ScheduledFutureTask from some other pool.
+                return n != null && n.queue == this && n.task == x &&
+                    cancelNode(n);
+            }
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                Node n = findNode(x);
+                if (n == null || !n.casStatus(PENDING, REMOVED))
+                    return false;
+                count.decrement();
+                if (n.prev != null)
+                    unlink(n);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean contains(Object x) {
+            if (x instanceof ScheduledFutureTask) {
+                Node n = ((ScheduledFutureTask<?>)x).node;
+                return n != null && n.queue == this && n.task == x &&
+                    n.status == PENDING;
+            }
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return findNode(x) != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the first task that has become due, or null if none
+         * has.
+         */
+        public RunnableScheduledFuture<?> peek() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                tick(System.nanoTime());
+                for (Node n; (n = ready.peek()) != null; ready.poll())
+                    if (n.status == PENDING)
+                        return n.task;
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            long n = count.sum();
+            return (n <= 0L) ? 0 :
+                (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+        }
+
+        public boolean isEmpty() {
+            return count.sum() <= 0L;
+        }
+
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        public RunnableScheduledFuture<?> poll() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                RunnableScheduledFuture<?> t = pollReady();
+                if (t == null) {
+                    tick(System.nanoTime());
+                    t = pollReady();
+                }
+                return t;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public RunnableScheduledFuture<?> take() throws InterruptedException {
+            return await(false, 0L);
+        }
+
+        public RunnableScheduledFuture<?> poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            return await(true, unit.toNanos(timeout));
+        }
+
+        /**
+         * Implements take and timed poll.
+         *
+         * @return the task, or null if timed out
+         */
+        private RunnableScheduledFuture<?> await(boolean timed, long nanos)
+            throws InterruptedException {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                for (;;) {
+                    RunnableScheduledFuture<?> t = pollReady();
+                    if (t != null)
+                        return t;
+                    if (timed && nanos <= 0L)
+                        return null;
+                    if (leader != null) {
+                        if (timed)
+                            nanos = available.awaitNanos(nanos);
+                        else
+                            available.await();
+                        continue;
+                    }
+                    Thread thisThread = Thread.currentThread();
+                    leader = thisThread;
+                    try {
+                        long now = System.nanoTime();
+                        tick(now);
+                        if (!ready.isEmpty())
+                            continue;
+                        long delay = nextDelay(now);
+                        if (timed && nanos < delay)
+                            delay = nanos;
+                        sleepDeadline = now + ((delay < MAX_DELAY) ?
+                                               delay : MAX_DELAY);
+                        sleeper = thisThread;
+                        if (buffersEmpty()) {   // recheck after advertising
+                            lock.unlock();
+                            try {
+                                if (delay == Long.MAX_VALUE)
+                                    LockSupport.park(this);
+                                else
+                                    LockSupport.parkNanos(this, delay);
+                            } finally {
+                                lock.lock();
+                            }
+                        }
+                        sleeper = null;
+                        if (timed)
+                            nanos -= System.nanoTime() - now;
+                        if (Thread.interrupted())
+                            throw new InterruptedException();
+                    } finally {
+                        if (leader == thisThread)
+                            leader = null;
+                    }
+                }
+            } finally {
+                if (leader == null)
+                    available.signal();
+                lock.unlock();
+            }
+        }
+
+        public void clear() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                for (Node n : pendingNodes()) {
+                    if (n.casStatus(PENDING, REMOVED))
+                        count.decrement();
+                }
+                for (Node[] level : wheel) {
+                    for (Node h : level) {
+                        for (Node n = h.next, s; n != h; n = s) {
+                            s = n.next;
+                            n.prev = n.next = null;
+                        }
+                        h.prev = h.next = h;
+                    }
+                }
+                ready.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            if (c == null)
+                throw new NullPointerException();
+            if (c == this)
+                throw new IllegalArgumentException();
+            if (maxElements <= 0)
+                return 0;
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                tick(System.nanoTime());
+                RunnableScheduledFuture<?> t;
+                int n = 0;
+                while (n < maxElements && (t = pollReady()) != null) {
+                    c.add(t);
+                    ++n;
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public Object[] toArray() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                ArrayList<Node> nodes = pendingNodes();
+                int n = nodes.size();
+                Object[] a = new Object[n];
+                for (int i = 0; i < n; ++i)
+                    a[i] = nodes.get(i).task;
+                return a;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T[] toArray(T[] a) {
+            Object[] tasks = toArray();
+            int size = tasks.length;
+            if (a.length < size)
+                return (T[]) Arrays.copyOf(tasks, size, a.getClass());
+            System.arraycopy(tasks, 0, a, 0, size);
+            if (a.length > size)
+                a[size] = null;
+            return a;
+        }
+
+        public Iterator<Runnable> iterator() {
+            return new Itr(toArray());
+        }
+
+        /**
+         * Snapshot iterator that works off a copy of the pending tasks.
+         */
+        private class Itr implements Iterator<Runnable> {
+            final Object[] array;
+            int cursor = 0;     // index of next element to return
+            int lastRet = -1;   // index of last element, or -1 if no such
+
+            Itr(Object[] array) {
+                this.array = array;
+            }
+
+            public boolean hasNext() {
+                return cursor < array.length;
+            }
+
+            public Runnable next() {
+                if (cursor >= array.length)
+                    throw new NoSuchElementException();
+                lastRet = cursor;
+                return (Runnable)array[cursor++];
+            }
+
+            public void remove() {
+                if (lastRet < 0)
+                    throw new IllegalStateException();
+                TimerWheelQueue.this.remove(array[lastRet]);
+                lastRet = -1;
+            }
+        }
+    }
+}
@@ -532,6 +532,19 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * The spin policy, or null if waiting threads park without
+     * spinning.  See setAdaptiveSpinning.
+     */
+    private transient volatile AdaptiveSpin adaptiveSpin;
+
+    /**
+     * Contention statistics for this synchronizer, created by
+     * LockContentionProfiler when it first records a contended
+     * acquire, else null.
+     */
+    transient volatile LockContentionProfiler.LockStats contentionStats;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -837,6 +850,128 @@ public abstract class AbstractQueuedSynchronizer
         return Thread.interrupted();
     }
 
+    /**
+     * Per-synchronizer state for adaptive spinning.  The estimate is an
+     * exponentially weighted moving average of how long the thread at
+     * the head of the queue has had to wait for the synchronizer to be
+     * released: a spin that succeeds contributes the time it took, and
+     * one that gives up contributes twice its budget, so that the
+     * estimate rises quickly for synchronizers held for long periods.
+     * Spins are budgeted at twice the estimate, and are skipped once
+     * that would exceed the rough cost of parking and unparking, other
+     * than for an occasional probe so that the estimate can fall again
+     * when hold times shrink.  Updates race benignly.
+     */
+    static final class AdaptiveSpin {
+        /** The longest spin; roughly the cost of a park and unpark. */
+        static final long MAX_SPIN_NANOS = 1L << 15;
+
+        /** The shortest spin, worth trying whenever spinning at all. */
+        static final long MIN_SPIN_NANOS = 1L << 9;
+
+        /** The number of acquire attempts between reads of the clock. */
+        static final int CHECK_INTERVAL = 1 << 4;
+
+        /** The number of skipped spins between probes. */
+        static final int PROBE_INTERVAL = 1 << 5;
+
+        /** Weight of each sample in the moving average, as a shift. */
+        static final int SAMPLE_SHIFT = 2;
+
+        volatile long estimate = MIN_SPIN_NANOS << 1;
+        int skips;
+
+        /**
+         * Returns the number of nanoseconds to spin before parking,
+         * or zero if the thread should park at once.
+         */
+        long budget() {
+            long e = estimate;
+            if (e < MAX_SPIN_NANOS >>> 1)
+                return (e < MIN_SPIN_NANOS >>> 1) ? MIN_SPIN_NANOS : e << 1;
+            return ((++skips & (PROBE_INTERVAL - 1)) == 0) ?
+                MAX_SPIN_NANOS : 0L;
+        }
+
+        void update(long waited, boolean acquired) {
+            long e = estimate;
+            long sample = acquired ? waited : waited << 1;
+            estimate = e + ((sample - e) >> SAMPLE_SHIFT);
+        }
+    }
+
+    /**
+     * Spins trying to acquire in exclusive mode if adaptive spinning
+     * is enabled and the caller, whose predecessor is the head, has
+     * not yet asked to be signalled.  Spinning before setting SIGNAL
+     * means a release that happens during the spin does not try to
+     * unpark the spinning thread.  A timed acquire spins no later
+     * than its deadline.
+     *
+     * @param p the caller's predecessor, which was the head
+     * @param arg the acquire argument
+     * @param timed true if the acquire has a deadline
+     * @param deadline the deadline, if timed
+     * @return {@code true} if acquired
+     */
+    private boolean spinAcquire(Node p, int arg, boolean timed,
+                                long deadline) {
+        AdaptiveSpin s = adaptiveSpin;
+        long budget;
+        if (s == null || p.waitStatus == Node.SIGNAL ||
+            (budget = s.budget()) <= 0L)
+            return false;
+        final long start = System.nanoTime();
+        if (timed && (budget = Math.min(budget, deadline - start)) <= 0L)
+            return false;
+        for (int k = 1;; ++k) {
+            if (tryAcquire(arg)) {
+                s.update(System.nanoTime() - start, true);
+                return true;
+            }
+            long waited;
+            if ((k & (AdaptiveSpin.CHECK_INTERVAL - 1)) == 0 &&
+                (waited = System.nanoTime() - start) >= budget) {
+                s.update(waited, false);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Shared-mode version of spinAcquire.
+     *
+     * @param p the caller's predecessor, which was the head
+     * @param arg the acquire argument
+     * @param timed true if the acquire has a deadline
+     * @param deadline the deadline, if timed
+     * @return the result of the last tryAcquireShared, or -1 if none
+     */
+    private int spinAcquireShared(Node p, int arg, boolean timed,
+                                  long deadline) {
+        AdaptiveSpin s = adaptiveSpin;
+        long budget;
+        if (s == null || p.waitStatus == Node.SIGNAL ||
+            (budget = s.budget()) <= 0L)
+            return -1;
+        final long start = System.nanoTime();
+        if (timed && (budget = Math.min(budget, deadline - start)) <= 0L)
+            return -1;
+        for (int k = 1;; ++k) {
+            int r = tryAcquireShared(arg);
+            if (r >= 0) {
+                s.update(System.nanoTime() - start, true);
+                return r;
+            }
+            long waited;
+            if ((k & (AdaptiveSpin.CHECK_INTERVAL - 1)) == 0 &&
+                (waited = System.nanoTime() - start) >= budget) {
+                s.update(waited, false);
+                return r;
+            }
+        }
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -855,15 +990,35 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted while waiting
      */
     final boolean acquireQueued(final Node node, int arg) {
+        return acquireQueued(node, arg, false);
+    }
+
+    /**
+     * Version of acquireQueued that, if profile is true, records the
+     * acquire with LockContentionProfiler.  Only acquire profiles: the
+     * reacquire of a condition wait is not contention for the lock.
+     *
+     * @param node the node
+     * @param arg the acquire argument
+     * @param profile true if the acquire may be profiled
+     * @return {@code true} if interrupted while waiting
+     */
+    private boolean acquireQueued(final Node node, int arg, boolean profile) {
+        final LockContentionProfiler.Wait w =
+            (profile && LockContentionProfiler.enabled) ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             boolean interrupted = false;
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) || spinAcquire(p, arg, false, 0L))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
+                    if (w != null)
+                        w.acquired();
                     return interrupted;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
@@ -871,8 +1026,11 @@ public abstract class AbstractQueuedSynchronizer
                     interrupted = true;
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -883,14 +1041,19 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final LockContentionProfiler.Wait w = LockContentionProfiler.enabled ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) || spinAcquire(p, arg, false, 0L))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
+                    if (w != null)
+                        w.acquired();
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
@@ -898,8 +1061,11 @@ public abstract class AbstractQueuedSynchronizer
                     throw new InterruptedException();
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -916,14 +1082,19 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final LockContentionProfiler.Wait w = LockContentionProfiler.enabled ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) || spinAcquire(p, arg, true, deadline))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
+                    if (w != null)
+                        w.acquired();
                     return true;
                 }
                 nanosTimeout = deadline - System.nanoTime();
@@ -936,8 +1107,11 @@ public abstract class AbstractQueuedSynchronizer
                     throw new InterruptedException();
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -947,6 +1121,8 @@ public abstract class AbstractQueuedSynchronizer
      */
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
+        final LockContentionProfiler.Wait w = LockContentionProfiler.enabled ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -954,9 +1130,13 @@ public abstract class AbstractQueuedSynchronizer
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0)
+                        r = spinAcquireShared(p, arg, false, 0L);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (w != null)
+                            w.acquired();
                         if (interrupted)
                             selfInterrupt();
                         failed = false;
@@ -968,8 +1148,11 @@ public abstract class AbstractQueuedSynchronizer
                     interrupted = true;
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -980,15 +1163,21 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireSharedInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
+        final LockContentionProfiler.Wait w = LockContentionProfiler.enabled ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0)
+                        r = spinAcquireShared(p, arg, false, 0L);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (w != null)
+                            w.acquired();
                         failed = false;
                         return;
                     }
@@ -998,8 +1187,11 @@ public abstract class AbstractQueuedSynchronizer
                     throw new InterruptedException();
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -1016,15 +1208,21 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
+        final LockContentionProfiler.Wait w = LockContentionProfiler.enabled ?
+            LockContentionProfiler.beginWait(this) : null;
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0)
+                        r = spinAcquireShared(p, arg, true, deadline);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (w != null)
+                            w.acquired();
                         failed = false;
                         return true;
                     }
@@ -1039,8 +1237,11 @@ public abstract class AbstractQueuedSynchronizer
                     throw new InterruptedException();
             }
         } finally {
-            if (failed)
+            if (failed) {
+                if (w != null)
+                    w.cancelled();
                 cancelAcquire(node);
+            }
         }
     }
 
@@ -1196,7 +1397,7 @@ public abstract class AbstractQueuedSynchronizer
      */
     public final void acquire(int arg) {
         if (!tryAcquire(arg) &&
-            acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
+            acquireQueued(addWaiter(Node.EXCLUSIVE), arg, true))
             selfInterrupt();
     }
 
@@ -1521,6 +1722,60 @@ public abstract class AbstractQueuedSynchronizer
     }
 
 
+    // Adaptive spinning
+
+    /**
+     * Enables or disables adaptive spinning.  By default, a thread that
+     * has to queue parks as soon as it has recorded that it needs to be
+     * signalled.  When adaptive spinning is enabled, the thread at the
+     * head of the queue first spins for a while, retrying the acquire,
+     * which avoids the cost of parking and unparking when the
+     * synchronizer is held only briefly.  How long it spins is tuned
+     * for each synchronizer from the waiting times observed by earlier
+     * spins, and drops to zero for synchronizers that are usually held
+     * for longer than parking takes.  Only one waiting thread spins at
+     * a time.
+     *
+     * <p>Spinning is of no use on a uniprocessor, where this method has
+     * no effect.  The setting is not serialized.
+     *
+     * @param enabled {@code true} to enable adaptive spinning
+     * @since 1.8
+     */
+    public final void setAdaptiveSpinning(boolean enabled) {
+        if (!enabled)
+            adaptiveSpin = null;
+        else if (adaptiveSpin == null &&
+                 Runtime.getRuntime().availableProcessors() > 1)
+            adaptiveSpin = new AdaptiveSpin();
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @see #setAdaptiveSpinning
+     * @since 1.8
+     */
+    public final boolean isAdaptiveSpinning() {
+        return adaptiveSpin != null;
+    }
+
+    /**
+     * Returns the current estimate, used to tune adaptive spinning, of
+     * how long a waiting thread has to wait for this synchronizer to be
+     * released, or zero if adaptive spinning is not enabled.  This
+     * method is designed for use in monitoring system state.
+     *
+     * @return the estimated wait in nanoseconds, or zero
+     * @see #setAdaptiveSpinning
+     * @since 1.8
+     */
+    public final long getAdaptiveSpinEstimate() {
+        AdaptiveSpin s = adaptiveSpin;
+        return (s == null) ? 0L : s.estimate;
+    }
+
     // Instrumentation and monitoring methods
 
     /**
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records contention on all synchronizers based on {@link
+ * AbstractQueuedSynchronizer}, including {@link ReentrantLock}, {@link
+ * ReentrantReadWriteLock}, {@link java.util.concurrent.Semaphore} and
+ * {@link java.util.concurrent.CountDownLatch}.
+ *
+ * <p>Profiling is disabled by default, and may be switched on and off
+ * at any time, typically through JMX; see {@link
+ * LockContentionProfilerMXBean}.  While it is disabled, the only cost
+ * to synchronizers is a read of a static field each time a thread has
+ * to queue; uncontended acquires and all releases are unaffected.
+ * While it is enabled, each acquire that has to queue records the
+ * number of threads already queued on the same synchronizer, the owner
+ * of the synchronizer if it is held exclusively, and, when it
+ * completes, the time it spent queued.  Acquires that time out or are
+ * interrupted are not recorded.
+ *
+ * <p>Statistics are kept both in total and for each synchronizer.  The
+ * per-synchronizer statistics are reachable from the synchronizer
+ * itself, so they are discarded along with it, and the profiler refers
+ * to synchronizers only weakly.
+ *
+ * @see LockContentionProfilerMXBean
+ * @since 1.8
+ */
+public final class LockContentionProfiler
+        implements LockContentionProfilerMXBean {
+
+    /** The number of buckets in each histogram. */
+    static final int BUCKETS = 64;
+
+    /**
+     * The largest number of distinct owners recorded; waits on later
+     * owners are attributed to OTHER_KEY until reset.
+     */
+    static final int MAX_OWNERS = 4096;
+
+    /**
+     * The largest number of distinct synchronizers reported; waits on
+     * later ones are counted only in the totals until earlier ones
+     * have been garbage collected.
+     */
+    static final int MAX_LOCKS = 4096;
+
+    static final String SHARED_KEY = "(shared)";
+    static final String OTHER_KEY = "(other)";
+
+    /**
+     * True if profiling is enabled.  Read by AbstractQueuedSynchronizer
+     * before queuing.
+     */
+    static volatile boolean enabled;
+
+    private static final LockContentionProfiler instance =
+        new LockContentionProfiler();
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder[] queueLengths = newHistogram();
+    private final LongAdder[] waitTimes = newHistogram();
+    private final ConcurrentHashMap<Long,Owner> owners =
+        new ConcurrentHashMap<Long,Owner>();
+
+    /** The reported per-synchronizer statistics; guarded by this. */
+    private final ArrayList<LockStats> locks = new ArrayList<LockStats>();
+
+    private LockContentionProfiler() {}
+
+    /**
+     * Returns the profiler.
+     *
+     * @return the profiler
+     */
+    public static LockContentionProfiler getInstance() {
+        return instance;
+    }
+
+    private static LongAdder[] newHistogram() {
+        LongAdder[] h = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            h[i] = new LongAdder();
+        return h;
+    }
+
+    private static long[] sum(LongAdder[] h) {
+        long[] a = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            a[i] = h[i].sum();
+        return a;
+    }
+
+    /** Returns the histogram bucket for a non-negative value. */
+    static int bucketFor(long v) {
+        return (v <= 0L) ? 0 : 64 - Long.numberOfLeadingZeros(v);
+    }
+
+    /** Accumulated wait time attributed to one owner thread. */
+    static final class Owner {
+        final String key;
+        final LongAdder nanos = new LongAdder();
+        Owner(String key) { this.key = key; }
+    }
+
+    /**
+     * Contention statistics for one synchronizer, held in its
+     * contentionStats field.  The number of queued threads is
+     * maintained incrementally, rather than by walking the queue, so
+     * it counts only acquires that began while profiling was enabled.
+     * It is not cleared by reset.
+     */
+    static final class LockStats {
+        final WeakReference<AbstractQueuedSynchronizer> sync;
+        final String key;
+        final AtomicInteger queued = new AtomicInteger();
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        LockStats(AbstractQueuedSynchronizer sync) {
+            this.sync = new WeakReference<AbstractQueuedSynchronizer>(sync);
+            this.key = sync.getClass().getName() + "@" +
+                Integer.toHexString(System.identityHashCode(sync));
+        }
+    }
+
+    /**
+     * An acquire in progress, created only while profiling is enabled.
+     */
+    static final class Wait {
+        final long startTime;
+        final LockStats stats;
+        final Thread owner;
+        Wait(LockStats stats, Thread owner) {
+            this.stats = stats;
+            this.owner = owner;
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * Records the completion of this acquire.
+         */
+        void acquired() {
+            long nanos = System.nanoTime() - startTime;
+            LockStats s = stats;
+            s.queued.decrementAndGet();
+            s.count.increment();
+            s.nanos.add(nanos);
+            instance.record(this, nanos);
+        }
+
+        /**
+         * Records that this acquire timed out or was interrupted.
+         */
+        void cancelled() {
+            stats.queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Records the start of a contended acquire of the given
+     * synchronizer.  Called by AbstractQueuedSynchronizer only when
+     * profiling is enabled, just after the caller's node is queued.
+     */
+    static Wait beginWait(AbstractQueuedSynchronizer sync) {
+        LockStats s = sync.contentionStats;
+        if (s == null)
+            s = instance.register(sync);
+        int ahead = s.queued.getAndIncrement();
+        instance.queueLengths[bucketFor(ahead)].increment();
+        return new Wait(s, sync.getExclusiveOwnerThread());
+    }
+
+    /**
+     * Creates the statistics for the given synchronizer if it does not
+     * yet have them, and reports them if there is room.
+     */
+    private synchronized LockStats register(AbstractQueuedSynchronizer sync) {
+        LockStats s = sync.contentionStats;
+        if (s == null) {
+            sync.contentionStats = s = new LockStats(sync);
+            if (locks.size() >= MAX_LOCKS)
+                expungeStaleLocks();
+            if (locks.size() < MAX_LOCKS)
+                locks.add(s);
+        }
+        return s;
+    }
+
+    /**
+     * Removes the statistics of synchronizers that have been garbage
+     * collected.  Call only while holding this.
+     */
+    private void expungeStaleLocks() {
+        for (Iterator<LockStats> it = locks.iterator(); it.hasNext(); )
+            if (it.next().sync.get() == null)
+                it.remove();
+    }
+
+    void record(Wait w, long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        waitTimes[bucketFor(nanos)].increment();
+        for (long m; nanos > (m = maxNanos.get()); )
+            if (maxNanos.compareAndSet(m, nanos))
+                break;
+        Thread t = w.owner;
+        Long id = (t == null) ? -1L : t.getId();
+        Owner o = owners.get(id);
+        if (o == null) {
+            String key;
+            if (t == null)
+                key = SHARED_KEY;
+            else if (owners.size() < MAX_OWNERS)
+                key = t.getName() + " (" + id + ")";
+            else {
+                id = -2L;
+                key = OTHER_KEY;
+            }
+            Owner p = owners.putIfAbsent(id, o = new Owner(key));
+            if (p != null)
+                o = p;
+        }
+        o.nanos.add(nanos);
+    }
+
+    private static void checkControlPermission() {
+        SecurityManager security = System.getSecurityManager();
+        if (security != null)
+            security.checkPermission(
+                new java.lang.management.ManagementPermission("control"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        checkControlPermission();
+        LockContentionProfiler.enabled = enabled;
+    }
+
+    public long getContendedAcquireCount() {
+        return count.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxNanos.get();
+    }
+
+    public long[] getQueueLengthHistogram() {
+        return sum(queueLengths);
+    }
+
+    public long[] getWaitTimeHistogram() {
+        return sum(waitTimes);
+    }
+
+    public Map<String,Long> getWaitNanosByOwner() {
+        HashMap<String,Long> m = new HashMap<String,Long>();
+        for (Owner o : owners.values())
+            m.put(o.key, o.nanos.sum());
+        return m;
+    }
+
+    public synchronized Map<String,Long> getContendedAcquireCountByLock() {
+        expungeStaleLocks();
+        HashMap<String,Long> m = new HashMap<String,Long>();
+        for (LockStats s : locks)
+            m.put(s.key, s.count.sum());
+        return m;
+    }
+
+    public synchronized Map<String,Long> getWaitNanosByLock() {
+        expungeStaleLocks();
+        HashMap<String,Long> m = new HashMap<String,Long>();
+        for (LockStats s : locks)
+            m.put(s.key, s.nanos.sum());
+        return m;
+    }
+
+    public void reset() {
+        checkControlPermission();
+        synchronized (this) {
+            expungeStaleLocks();
+            for (LockStats s : locks) {
+                s.count.reset();
+                s.nanos.reset();
+            }
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0L);
+        for (int i = 0; i < BUCKETS; ++i) {
+            queueLengths[i].reset();
+            waitTimes[i].reset();
+        }
+        owners.clear();
+    }
+
+    /**
+     * Returns a string summarizing the recorded contention.
+     *
+     * @return a string summarizing the recorded contention
+     */
+    public String toString() {
+        return super.toString() +
+            "[" + (enabled ? "enabled" : "disabled") +
+            ", contended acquires = " + getContendedAcquireCount() +
+            ", total wait = " + getTotalWaitNanos() + "ns" +
+            ", max wait = " + getMaxWaitNanos() + "ns]";
+    }
+}
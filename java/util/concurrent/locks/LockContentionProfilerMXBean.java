@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.Map;
+
+/**
+ * The management interface for the {@link LockContentionProfiler}.
+ *
+ * <p>The profiler is not registered automatically.  To control it
+ * through JMX, register it with an MBean server, for example:
+ *
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     LockContentionProfiler.getInstance(),
+ *     new ObjectName("java.util.concurrent.locks:type=LockContentionProfiler"));
+ * }</pre>
+ *
+ * <p>Histograms are returned as arrays of 64 counts, in which element
+ * {@code i} counts the samples {@code v} with {@code 2^(i-1) <= v < 2^i},
+ * and element 0 counts the samples equal to zero.
+ *
+ * @see java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * @since 1.8
+ */
+public interface LockContentionProfilerMXBean {
+
+    /**
+     * Returns {@code true} if contended acquires are being recorded.
+     *
+     * @return {@code true} if profiling is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables the recording of contended acquires.
+     *
+     * @param enabled {@code true} to enable profiling
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have {@code ManagementPermission("control")}
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the number of acquires that had to queue, and that
+     * completed, while profiling was enabled.
+     *
+     * @return the number of contended acquires
+     */
+    long getContendedAcquireCount();
+
+    /**
+     * Returns the total time spent queued by the contended acquires.
+     *
+     * @return the total wait time in nanoseconds
+     */
+    long getTotalWaitNanos();
+
+    /**
+     * Returns the longest time spent queued by a contended acquire.
+     *
+     * @return the maximum wait time in nanoseconds
+     */
+    long getMaxWaitNanos();
+
+    /**
+     * Returns the histogram of the number of threads found already
+     * queued on the same synchronizer by each contended acquire.  Only
+     * threads whose acquires began while profiling was enabled are
+     * counted.
+     *
+     * @return the queue length histogram
+     */
+    long[] getQueueLengthHistogram();
+
+    /**
+     * Returns the histogram of the time spent queued by each contended
+     * acquire, in nanoseconds.
+     *
+     * @return the wait time histogram
+     */
+    long[] getWaitTimeHistogram();
+
+    /**
+     * Returns the total time threads spent queued, keyed by the thread
+     * that held the lock exclusively when they began to wait.  Keys
+     * have the form {@code "name (id)"}.  Waits for synchronizers that
+     * were not held exclusively, such as read locks, are attributed to
+     * the key {@code "(shared)"}.
+     *
+     * @return the wait time in nanoseconds attributed to each owner
+     */
+    Map<String,Long> getWaitNanosByOwner();
+
+    /**
+     * Returns the number of contended acquires of each synchronizer.
+     * Keys have the form {@code "class@hash"}, where {@code class} is
+     * the class name of the synchronizer, such as the internal
+     * synchronizer of a {@link ReentrantLock}, and {@code hash} is its
+     * identity hash code in hexadecimal.  Synchronizers that have been
+     * garbage collected are omitted, as are any beyond the first few
+     * thousand to be contended.
+     *
+     * @return the number of contended acquires of each synchronizer
+     */
+    Map<String,Long> getContendedAcquireCountByLock();
+
+    /**
+     * Returns the total time threads spent queued for each
+     * synchronizer, keyed as for {@link #getContendedAcquireCountByLock}.
+     *
+     * @return the wait time in nanoseconds for each synchronizer
+     */
+    Map<String,Long> getWaitNanosByLock();
+
+    /**
+     * Discards all recorded samples.
+     *
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have {@code ManagementPermission("control")}
+     */
+    void reset();
+}
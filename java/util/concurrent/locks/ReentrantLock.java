@@ -599,6 +599,33 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Enables or disables adaptive spinning for this lock.  When
+     * enabled, a thread that has to wait for the lock, and is next in
+     * line for it, spins for a while before blocking, for a time tuned
+     * from how long it has recently had to wait.  This can help when
+     * the lock is contended but held only briefly.  Adaptive spinning
+     * is disabled by default, and has no effect on uniprocessors.
+     *
+     * @param enabled {@code true} to enable adaptive spinning
+     * @see AbstractQueuedSynchronizer#setAdaptiveSpinning
+     * @since 1.8
+     */
+    public void setAdaptiveSpinning(boolean enabled) {
+        sync.setAdaptiveSpinning(enabled);
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled for this lock.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @see #setAdaptiveSpinning
+     * @since 1.8
+     */
+    public boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
     /**
      * Returns the thread that currently owns this lock, or
      * {@code null} if not owned. When this method is called by a
@@ -0,0 +1,1014 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ReadWriteLock} biased towards readers, in which readers
+ * announce themselves in striped, per-CPU counters rather than in a
+ * single shared word.
+ *
+ * <p>In {@link ReentrantReadWriteLock} every read acquire and release
+ * updates the same synchronization state, and so the same cache line,
+ * even when no writer is present, which limits read throughput on
+ * machines with many processors.  Here a reader increments a counter
+ * chosen by the thread's hash, in the manner of {@link
+ * java.util.concurrent.atomic.LongAdder}, and then checks that no writer
+ * is present; readers running on different processors thus normally
+ * touch disjoint cache lines.  The counters are created only once two
+ * readers are seen to collide.  The cost is borne by writers, which must
+ * scan all counters, and by memory: each lock that has seen contention
+ * holds a padded counter per processor.
+ *
+ * <p>This class has the following properties:
+ *
+ * <ul>
+ * <li><b>Writer preference.</b> Once a writer has acquired the write
+ * lock, no new reader enters; the writer then waits for the readers
+ * already present to leave.  Writers are granted the lock in FIFO
+ * order with respect to threads already queued.
+ *
+ * <li><b>Bounded starvation.</b> Readers that arrive while a writer is
+ * present queue behind it, and all readers queued ahead of the next
+ * writer are admitted together when it releases.  A reader therefore
+ * waits for at most the writers queued ahead of it, and a writer for at
+ * most the writers queued ahead of it and the readers present when it
+ * acquired the lock.
+ *
+ * <li><b>Optimistic reading.</b> As with {@link StampedLock}, method
+ * {@link #tryOptimisticRead} returns a stamp that {@link #validate}
+ * later checks, allowing short read-only sections to run without
+ * writing to shared memory at all.
+ *
+ * <li><b>Reentrancy.</b> The write lock is reentrant, and its holder
+ * may also acquire the read lock, so that a write lock may be
+ * downgraded to a read lock.  Upgrading a read lock to a write lock is
+ * not possible.  Because readers are not individually tracked, read
+ * locks are <em>not</em> reentrant: a thread that holds the read lock
+ * and tries to acquire it again may deadlock if a writer is waiting.
+ * For the same reason, releasing a read lock that the current thread
+ * does not hold is not detected, and leaves the lock in an inconsistent
+ * state.
+ *
+ * <li><b>Conditions.</b> Neither lock supports a {@link Condition}.
+ *
+ * <li><b>Instrumentation.</b> This class supports methods to determine
+ * whether locks are held or contended, designed for monitoring system
+ * state, not for synchronization control.
+ * </ul>
+ *
+ * <p>Serialization of this class behaves in the same way as built-in
+ * locks: a deserialized lock is in the unlocked state, regardless of its
+ * state when serialized.
+ *
+ * <p><b>Sample usage</b>. A cache that is read far more often than it
+ * is written, validating optimistic reads of a single field and falling
+ * back to the read lock otherwise:
+ *
+ * <pre> {@code
+ * class Config {
+ *   private final StripedReadWriteLock rwl = new StripedReadWriteLock();
+ *   private Settings settings;
+ *
+ *   Settings get() {
+ *     long stamp = rwl.tryOptimisticRead();
+ *     Settings s = settings;
+ *     if (!rwl.validate(stamp)) {
+ *       rwl.readLock().lock();
+ *       try {
+ *         s = settings;
+ *       } finally {
+ *         rwl.readLock().unlock();
+ *       }
+ *     }
+ *     return s;
+ *   }
+ *
+ *   void set(Settings s) {
+ *     rwl.writeLock().lock();
+ *     try {
+ *       settings = s;
+ *     } finally {
+ *       rwl.writeLock().unlock();
+ *     }
+ *   }
+ * }}</pre>
+ *
+ * <p>This lock supports a maximum of 65535 recursive write locks.
+ * Attempts to exceed this limit result in {@link Error} throws from
+ * locking methods.
+ *
+ * @since 1.8
+ */
+public class StripedReadWriteLock implements ReadWriteLock, java.io.Serializable {
+    private static final long serialVersionUID = 4125612340962812383L;
+    /** Inner class providing readlock */
+    private final StripedReadWriteLock.ReadLock readerLock;
+    /** Inner class providing writelock */
+    private final StripedReadWriteLock.WriteLock writerLock;
+    /** Performs all synchronization mechanics */
+    final Sync sync;
+
+    /**
+     * Creates a new {@code StripedReadWriteLock}.
+     */
+    public StripedReadWriteLock() {
+        sync = new Sync();
+        readerLock = new ReadLock(this);
+        writerLock = new WriteLock(this);
+    }
+
+    public StripedReadWriteLock.WriteLock writeLock() { return writerLock; }
+    public StripedReadWriteLock.ReadLock  readLock()  { return readerLock; }
+
+    /*
+     * Overview:
+     *
+     * The AQS state holds only the write hold count, and the AQS queue
+     * holds waiting writers and those readers that found a writer
+     * present.  The number of readers present is the sum of base and
+     * the cells, maintained outside AQS.
+     *
+     * A reader increments a counter and then re-reads the state; a
+     * writer sets the state (by CAS) and then sums the counters.  All
+     * of these accesses are volatile, so by the usual Dekker argument
+     * either the reader sees the writer and backs out, or the writer
+     * sees the reader's increment.  A reader backing out decrements the
+     * same counter it incremented, so that a writer summing the
+     * counters cannot see the decrement without the increment.  A
+     * reader releasing the lock may decrement any counter: every
+     * increment by a reader that got in is visible to the writer's
+     * scan, so at worst the scan misses decrements and overestimates.
+     *
+     * A writer that has acquired the state but finds readers present
+     * publishes itself in the drainer field and parks; readers leaving
+     * (or backing out) unpark the drainer if there is one, again by the
+     * Dekker argument on the counters and the drainer field.
+     *
+     * Readers queued in AQS acquire in shared mode, so that a release
+     * of the write lock admits all the readers at the head of the queue
+     * together, the last of which wakes the next writer; writers do not
+     * barge past queued threads (except in tryLock), which bounds reader
+     * starvation.
+     *
+     * writeSeq is a sequence number, odd while the write lock is held,
+     * used to validate optimistic reads as in a seqlock.
+     */
+
+    /** Number of CPUS, to size the cells and place bounds on spinning */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of times a writer rechecks for readers before parking.
+     * Spinning is pointless on a uniprocessor, where readers cannot
+     * leave while the writer spins.
+     */
+    static final int DRAIN_SPINS = (NCPU < 2) ? 0 : 1 << 7;
+
+    /** The initial write sequence number; even and non-zero */
+    static final long ORIGIN = 2L;
+
+    /**
+     * Padded counter of readers.  The count in any one cell may be
+     * negative, as readers may release on a different cell from the
+     * one they acquired on.
+     */
+    @sun.misc.Contended static final class Cell {
+        volatile long value;
+        Cell(long x) { value = x; }
+    }
+
+    /**
+     * Synchronization implementation for StripedReadWriteLock.
+     */
+    static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = -2741287380553524215L;
+
+        static final int MAX_COUNT = (1 << 16) - 1;
+
+        /**
+         * Reader count, used when readers have not yet contended, and
+         * afterwards holding the net count of earlier readers.
+         */
+        transient volatile long base;
+
+        /**
+         * Per-CPU reader counts, created on first contention.  When
+         * non-null, the length is a power of two and every cell is
+         * non-null.
+         */
+        transient volatile Cell[] cells;
+
+        /** The writer waiting for readers to leave, if any */
+        transient volatile Thread drainer;
+
+        /** Sequence number, odd while write-locked */
+        transient volatile long writeSeq;
+
+        Sync() {
+            writeSeq = ORIGIN;
+        }
+
+        // Reader counts
+
+        /**
+         * Returns the number of readers present.  Exact only if no
+         * reader is acquiring or releasing concurrently.
+         */
+        final long readerCount() {
+            long sum = base;
+            Cell[] as = cells;
+            if (as != null) {
+                for (Cell a : as)
+                    sum += a.value;
+            }
+            return sum;
+        }
+
+        /**
+         * Increments the reader count.
+         *
+         * @return the cell incremented, or null if base was
+         */
+        final Cell incrementReaders() {
+            Cell[] as; long b;
+            if ((as = cells) == null) {
+                if (U.compareAndSwapLong(this, BASE, b = base, b + 1L))
+                    return null;
+                as = initCells();
+            }
+            int h;
+            if ((h = getProbe()) == 0) {
+                ThreadLocalRandom.current(); // force initialization
+                h = getProbe();
+            }
+            for (int m = as.length - 1;;) {
+                Cell a = as[h & m]; long v;
+                if (U.compareAndSwapLong(a, VALUE, v = a.value, v + 1L))
+                    return a;
+                h = advanceProbe(h);
+            }
+        }
+
+        /**
+         * Creates the cells if not already present.
+         */
+        private Cell[] initCells() {
+            Cell[] as;
+            if ((as = cells) == null) {
+                int n = 2;
+                while (n < NCPU)
+                    n <<= 1;
+                Cell[] rs = new Cell[n];
+                for (int i = 0; i < n; ++i)
+                    rs[i] = new Cell(0L);
+                as = U.compareAndSwapObject(this, CELLS, null, rs) ? rs : cells;
+            }
+            return as;
+        }
+
+        /**
+         * Decrements the reader count on the given cell, or on base if
+         * null, and wakes up any draining writer.
+         */
+        final void decrementReaders(Cell a) {
+            if (a == null)
+                U.getAndAddLong(this, BASE, -1L);
+            else
+                U.getAndAddLong(a, VALUE, -1L);
+            Thread w;
+            if ((w = drainer) != null)
+                LockSupport.unpark(w);
+        }
+
+        /**
+         * Releases a read lock.
+         */
+        final void unlockRead() {
+            Cell[] as = cells;
+            decrementReaders((as == null) ? null :
+                             as[getProbe() & (as.length - 1)]);
+        }
+
+        /**
+         * Tries to acquire a read lock, succeeding unless another
+         * thread holds the write lock.  Used by tryLock and by AQS.
+         */
+        final boolean tryReadLock() {
+            if (getState() != 0 &&
+                getExclusiveOwnerThread() != Thread.currentThread())
+                return false;
+            Cell a = incrementReaders();
+            if (getState() == 0 ||
+                getExclusiveOwnerThread() == Thread.currentThread())
+                return true;
+            decrementReaders(a);
+            return false;
+        }
+
+        protected final int tryAcquireShared(int unused) {
+            return tryReadLock() ? 1 : -1;
+        }
+
+        /**
+         * Always succeeds, so that releaseShared serves to wake the
+         * successor of the head.  Read locks are released outside AQS.
+         */
+        protected final boolean tryReleaseShared(int unused) {
+            return true;
+        }
+
+        /**
+         * Wakes the thread queued after a reader that has just acquired
+         * through the queue.  AQS propagates a shared acquire only to
+         * shared successors, expecting a later releaseShared to wake an
+         * exclusive one; here, a writer queued behind readers must
+         * instead be woken now, to shut out new readers and wait for
+         * those present.
+         */
+        private void signalNext() {
+            releaseShared(0);
+        }
+
+        final void lockRead() {
+            if (!tryReadLock()) {
+                acquireShared(1);
+                signalNext();
+            }
+        }
+
+        final void lockReadInterruptibly() throws InterruptedException {
+            if (!tryReadLock()) {
+                acquireSharedInterruptibly(1);
+                signalNext();
+            }
+        }
+
+        final boolean tryLockRead(long nanos) throws InterruptedException {
+            if (tryReadLock())
+                return true;
+            if (!tryAcquireSharedNanos(1, nanos))
+                return false;
+            signalNext();
+            return true;
+        }
+
+        // Write lock
+
+        /**
+         * Records the first acquire of the write lock.  The increment
+         * is a full fence, so that no write by the new owner can be seen
+         * by an optimistic reader before the sequence number changes.
+         */
+        private void writeLocked(Thread current) {
+            setExclusiveOwnerThread(current);
+            U.getAndAddLong(this, WSEQ, 1L);
+        }
+
+        protected final boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c != 0) {
+                if (current != getExclusiveOwnerThread())
+                    return false;
+                if (c + acquires > MAX_COUNT)
+                    throw new Error("Maximum lock count exceeded");
+                setState(c + acquires);
+                return true;
+            }
+            if (hasQueuedPredecessors() || !compareAndSetState(0, acquires))
+                return false;
+            writeLocked(current);
+            return true;
+        }
+
+        /**
+         * Performs tryLock for write, enabling barging.  Does not wait
+         * for readers to leave.
+         */
+        final boolean tryWriteLock() {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c != 0) {
+                if (current != getExclusiveOwnerThread())
+                    return false;
+                if (c == MAX_COUNT)
+                    throw new Error("Maximum lock count exceeded");
+                setState(c + 1);
+                return true;
+            }
+            if (!compareAndSetState(0, 1))
+                return false;
+            writeLocked(current);
+            return true;
+        }
+
+        protected final boolean tryRelease(int releases) {
+            if (Thread.currentThread() != getExclusiveOwnerThread())
+                throw new IllegalMonitorStateException();
+            int c = getState() - releases;
+            boolean free = (c == 0);
+            if (free) {
+                setExclusiveOwnerThread(null);
+                writeSeq = writeSeq + 1L;
+            }
+            setState(c);
+            return free;
+        }
+
+        protected final boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        /**
+         * Waits for the readers present to leave, after a first acquire
+         * of the write lock.  Interrupts are remembered and re-asserted
+         * on return.
+         *
+         * @return true if no readers remain, false if timed out, or if
+         * interruptible and interrupted
+         */
+        final boolean awaitReaders(boolean interruptible, boolean timed,
+                                   long nanos) {
+            if (readerCount() == 0L)
+                return true;
+            final long deadline = timed ? System.nanoTime() + nanos : 0L;
+            boolean interrupted = false;
+            int spins = DRAIN_SPINS;
+            drainer = Thread.currentThread();
+            try {
+                for (;;) {
+                    if (readerCount() == 0L)
+                        return true;
+                    if (spins > 0) {
+                        --spins;
+                        continue;
+                    }
+                    if (timed) {
+                        if ((nanos = deadline - System.nanoTime()) <= 0L)
+                            return false;
+                        LockSupport.parkNanos(this, nanos);
+                    }
+                    else
+                        LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        interrupted = true;
+                        if (interruptible)
+                            return false;
+                    }
+                }
+            } finally {
+                drainer = null;
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Releases a write lock whose acquirer gave up waiting for
+         * readers, throwing if it gave up because it was interrupted.
+         */
+        private void abandonWrite() throws InterruptedException {
+            release(1);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+
+        final void lockWrite() {
+            acquire(1);
+            if (getState() == 1)
+                awaitReaders(false, false, 0L);
+        }
+
+        final void lockWriteInterruptibly() throws InterruptedException {
+            acquireInterruptibly(1);
+            if (getState() == 1 && !awaitReaders(true, false, 0L))
+                abandonWrite();
+        }
+
+        final boolean tryLockWrite() {
+            if (!tryWriteLock())
+                return false;
+            if (getState() != 1 || readerCount() == 0L)
+                return true;
+            release(1);
+            return false;
+        }
+
+        final boolean tryLockWrite(long nanos) throws InterruptedException {
+            final long deadline = System.nanoTime() + nanos;
+            if (!tryAcquireNanos(1, nanos))
+                return false;
+            if (getState() != 1 ||
+                awaitReaders(true, true, deadline - System.nanoTime()))
+                return true;
+            abandonWrite();
+            return false;
+        }
+
+        // Optimistic reads
+
+        final long tryOptimisticRead() {
+            long s = writeSeq;
+            return ((s & 1L) == 0L) ? s : 0L;
+        }
+
+        final boolean validate(long stamp) {
+            U.loadFence();
+            return stamp != 0L && stamp == writeSeq;
+        }
+
+        // Methods relayed to outer class
+
+        final Thread getOwner() {
+            return (getState() == 0) ? null : getExclusiveOwnerThread();
+        }
+
+        final int getWriteHoldCount() {
+            return isHeldExclusively() ? getState() : 0;
+        }
+
+        /**
+         * Reconstitutes the instance from a stream (that is,
+         * deserializes it).
+         */
+        private void readObject(java.io.ObjectInputStream s)
+            throws java.io.IOException, ClassNotFoundException {
+            s.defaultReadObject();
+            writeSeq = ORIGIN;
+            setState(0); // reset to unlocked state
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long BASE;
+        private static final long CELLS;
+        private static final long WSEQ;
+        private static final long VALUE;
+        private static final long PROBE;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = Sync.class;
+                BASE = U.objectFieldOffset
+                    (k.getDeclaredField("base"));
+                CELLS = U.objectFieldOffset
+                    (k.getDeclaredField("cells"));
+                WSEQ = U.objectFieldOffset
+                    (k.getDeclaredField("writeSeq"));
+                VALUE = U.objectFieldOffset
+                    (Cell.class.getDeclaredField("value"));
+                PROBE = U.objectFieldOffset
+                    (Thread.class.getDeclaredField("threadLocalRandomProbe"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+
+        /**
+         * Returns the probe value for the current thread.
+         * Duplicated from ThreadLocalRandom because of packaging restrictions.
+         */
+        static final int getProbe() {
+            return U.getInt(Thread.currentThread(), PROBE);
+        }
+
+        /**
+         * Pseudo-randomly advances and records the given probe value for the
+         * given thread.
+         * Duplicated from ThreadLocalRandom because of packaging restrictions.
+         */
+        static final int advanceProbe(int probe) {
+            probe ^= probe << 13;   // xorshift
+            probe ^= probe >>> 17;
+            probe ^= probe << 5;
+            U.putInt(Thread.currentThread(), PROBE, probe);
+            return probe;
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    public static class ReadLock implements Lock, java.io.Serializable {
+        private static final long serialVersionUID = 8320591375413929722L;
+        private final Sync sync;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected ReadLock(StripedReadWriteLock lock) {
+            sync = lock.sync;
+        }
+
+        /**
+         * Acquires the read lock.
+         *
+         * <p>Acquires the read lock if the write lock is not held by
+         * another thread and returns immediately.
+         *
+         * <p>If the write lock is held by another thread then
+         * the current thread becomes disabled for thread scheduling
+         * purposes and lies dormant until the read lock has been acquired.
+         */
+        public void lock() {
+            sync.lockRead();
+        }
+
+        /**
+         * Acquires the read lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * <p>Acquires the read lock if the write lock is not held
+         * by another thread and returns immediately.
+         *
+         * <p>If the write lock is held by another thread then the
+         * current thread becomes disabled for thread scheduling
+         * purposes and lies dormant until the read lock is acquired or
+         * some other thread interrupts the current thread.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            sync.lockReadInterruptibly();
+        }
+
+        /**
+         * Acquires the read lock only if the write lock is not held by
+         * another thread at the time of invocation, whether or not other
+         * threads are waiting for the read lock.
+         *
+         * @return {@code true} if the read lock was acquired
+         */
+        public boolean tryLock() {
+            return sync.tryReadLock();
+        }
+
+        /**
+         * Acquires the read lock if the write lock is not held by
+         * another thread within the given waiting time and the
+         * current thread has not been {@linkplain Thread#interrupt
+         * interrupted}.
+         *
+         * @param timeout the time to wait for the read lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the read lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return sync.tryLockRead(unit.toNanos(timeout));
+        }
+
+        /**
+         * Attempts to release this lock.  The current thread must hold
+         * the read lock; this is not checked.
+         */
+        public void unlock() {
+            sync.unlockRead();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code ReadLocks} do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock state.
+         * The state, in brackets, includes the String {@code "Read locks ="}
+         * followed by the number of held read locks.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() +
+                "[Read locks = " + sync.readerCount() + "]";
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    public static class WriteLock implements Lock, java.io.Serializable {
+        private static final long serialVersionUID = -3573810548290414539L;
+        private final Sync sync;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected WriteLock(StripedReadWriteLock lock) {
+            sync = lock.sync;
+        }
+
+        /**
+         * Acquires the write lock.
+         *
+         * <p>If the current thread already holds the write lock then the
+         * hold count is incremented by one and the method returns
+         * immediately.  Otherwise the current thread becomes disabled
+         * for thread scheduling purposes and lies dormant until it has
+         * acquired the write lock, at which point new readers are kept
+         * out, and all readers already holding the read lock have
+         * released it.
+         */
+        public void lock() {
+            sync.lockWrite();
+        }
+
+        /**
+         * Acquires the write lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}, as for {@link
+         * #lock}.  If the current thread is interrupted while waiting
+         * for readers to leave, the write lock is released again before
+         * {@link InterruptedException} is thrown.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            sync.lockWriteInterruptibly();
+        }
+
+        /**
+         * Acquires the write lock only if neither the read nor the write
+         * lock is held by another thread at the time of invocation,
+         * whether or not other threads are waiting for the write lock.
+         *
+         * @return {@code true} if the lock was free and was acquired
+         * by the current thread, or the write lock was already held
+         * by the current thread; and {@code false} otherwise.
+         */
+        public boolean tryLock() {
+            return sync.tryLockWrite();
+        }
+
+        /**
+         * Acquires the write lock if it can be acquired, and all
+         * readers have released the read lock, within the given waiting
+         * time and the current thread has not been {@linkplain
+         * Thread#interrupt interrupted}.
+         *
+         * @param timeout the time to wait for the write lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the lock was free and was acquired
+         * by the current thread, or the write lock was already held by the
+         * current thread; and {@code false} if the waiting time
+         * elapsed before the lock could be acquired.
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return sync.tryLockWrite(unit.toNanos(timeout));
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * <p>If the current thread is the holder of this lock then
+         * the hold count is decremented. If the hold count is now
+         * zero then the lock is released.  If the current thread is
+         * not the holder of this lock then {@link
+         * IllegalMonitorStateException} is thrown.
+         *
+         * @throws IllegalMonitorStateException if the current thread does not
+         * hold this lock
+         */
+        public void unlock() {
+            sync.release(1);
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * waiting on a condition would allow readers in without the
+         * writer waiting for them to leave on its return.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets includes either the String
+         * {@code "[Unlocked]"} or the String {@code "[Locked by}"
+         * followed by the {@linkplain Thread#getName name} of the owning thread.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            Thread o = sync.getOwner();
+            return super.toString() + ((o == null) ?
+                                       "[Unlocked]" :
+                                       "[Locked by thread " + o.getName() + "]");
+        }
+
+        /**
+         * Queries if this write lock is held by the current thread.
+         * Identical in effect to {@link
+         * StripedReadWriteLock#isWriteLockedByCurrentThread}.
+         *
+         * @return {@code true} if the current thread holds this lock and
+         *         {@code false} otherwise
+         */
+        public boolean isHeldByCurrentThread() {
+            return sync.isHeldExclusively();
+        }
+
+        /**
+         * Queries the number of holds on this write lock by the current
+         * thread.  Identical in effect to {@link
+         * StripedReadWriteLock#getWriteHoldCount}.
+         *
+         * @return the number of holds on this lock by the current thread,
+         *         or zero if this lock is not held by the current thread
+         */
+        public int getHoldCount() {
+            return sync.getWriteHoldCount();
+        }
+    }
+
+    // Optimistic reads
+
+    /**
+     * Returns a stamp that can later be validated, or zero if the write
+     * lock is held.
+     *
+     * @return a valid optimistic read stamp, or zero if write-locked
+     */
+    public long tryOptimisticRead() {
+        return sync.tryOptimisticRead();
+    }
+
+    /**
+     * Returns true if the write lock has not been acquired since
+     * issuance of the given stamp.  Always returns false if the stamp is
+     * zero.  As with {@link StampedLock#validate}, reads performed
+     * between obtaining the stamp and a successful validation are
+     * consistent, but may have observed inconsistent values before
+     * validation, and so must not be acted upon until then.
+     *
+     * @param stamp a stamp
+     * @return {@code true} if the write lock has not been acquired
+     * since issuance of the given stamp; else false
+     */
+    public boolean validate(long stamp) {
+        return sync.validate(stamp);
+    }
+
+    // Instrumentation and status
+
+    /**
+     * Returns the thread that currently owns the write lock, or
+     * {@code null} if not owned.  This method is designed to
+     * facilitate construction of subclasses that provide more
+     * extensive lock monitoring facilities.
+     *
+     * @return the owner, or {@code null} if not owned
+     */
+    protected Thread getOwner() {
+        return sync.getOwner();
+    }
+
+    /**
+     * Queries the number of read locks held for this lock.  The result
+     * is only an estimate if readers are concurrently acquiring or
+     * releasing the lock.  This method is designed for use in
+     * monitoring system state, not for synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        long n = sync.readerCount();
+        return (n < 0L) ? 0 : (n > Integer.MAX_VALUE) ?
+            Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * Queries if the write lock is held by any thread.  The write lock
+     * is held from the time a writer keeps new readers out, which may
+     * be before the readers already present have left.  This method is
+     * designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLocked() {
+        return sync.getState() != 0;
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return sync.isHeldExclusively();
+    }
+
+    /**
+     * Queries the number of reentrant write holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the write lock by the current thread,
+     *         or zero if the write lock is not held by the current thread
+     */
+    public int getWriteHoldCount() {
+        return sync.getWriteHoldCount();
+    }
+
+    /**
+     * Queries whether any threads are waiting to acquire the read or
+     * write lock.  Note that because cancellations may occur at any
+     * time, a {@code true} return does not guarantee that any other
+     * thread will ever acquire a lock.  This method is designed
+     * primarily for use in monitoring of the system state.
+     *
+     * @return {@code true} if there may be other threads waiting to
+     *         acquire the lock
+     */
+    public final boolean hasQueuedThreads() {
+        return sync.hasQueuedThreads();
+    }
+
+    /**
+     * Queries whether the given thread is waiting to acquire either
+     * the read or write lock.  Note that because cancellations may
+     * occur at any time, a {@code true} return does not guarantee
+     * that this thread will ever acquire a lock.  This method is
+     * designed primarily for use in monitoring of the system state.
+     *
+     * @param thread the thread
+     * @return {@code true} if the given thread is queued waiting for this lock
+     * @throws NullPointerException if the thread is null
+     */
+    public final boolean hasQueuedThread(Thread thread) {
+        return sync.isQueued(thread);
+    }
+
+    /**
+     * Returns an estimate of the number of threads waiting to acquire
+     * either the read or write lock.  A writer waiting for readers to
+     * leave is not included.  This method is designed for use in
+     * monitoring of the system state, not for synchronization control.
+     *
+     * @return the estimated number of threads waiting for this lock
+     */
+    public final int getQueueLength() {
+        return sync.getQueueLength();
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes the String {@code "Write locks ="}
+     * followed by the number of reentrantly held write locks, and the
+     * String {@code "Read locks ="} followed by the number of held
+     * read locks.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        return super.toString() +
+            "[Write locks = " + sync.getState() +
+            ", Read locks = " + getReadLockCount() + "]";
+    }
+}
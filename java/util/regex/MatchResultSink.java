@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.regex;
+
+/**
+ * A receiver of the matches found by
+ * {@link Pattern#matchInto(CharSequence, int, int, MatchResultSink)}.
+ *
+ * <p> Each match is passed to the sink as a read-only {@link MatchResult}
+ * view of the matcher that found it.  The view is only valid for the
+ * duration of the call: its group boundaries change as soon as the sink
+ * returns, and it throws {@link IllegalStateException} once the search
+ * has ended, so a sink that needs a match later must copy the offsets it
+ * wants, or the strings of the groups, before returning.  Reading the
+ * boundaries through {@link MatchResult#start(int) start} and
+ * {@link MatchResult#end(int) end} does not allocate.
+ *
+ * @see Pattern#matchInto(CharSequence, int, int, MatchResultSink)
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface MatchResultSink {
+
+    /**
+     * Receives the next match.
+     *
+     * @param  result
+     *         The match, valid only until this method returns
+     *
+     * @return  <tt>true</tt> to continue with the next match,
+     *          <tt>false</tt> to stop the search
+     */
+    boolean accept(MatchResult result);
+}
@@ -207,6 +207,18 @@ public final class Matcher implements MatchResult {
      */
     boolean anchoringBounds = true;
 
+    /**
+     * Whether this matcher is the cached matcher of its thread and is
+     * currently owned by a caller of acquire.
+     */
+    private boolean acquired;
+
+    /**
+     * The matcher kept by each thread for the internal users of acquire,
+     * so that they need not allocate state storage on every call.
+     */
+    private static final ThreadLocal<Matcher> cached = new ThreadLocal<>();
+
     /**
      * No default constructor.
      */
@@ -229,6 +241,106 @@ public final class Matcher implements MatchResult {
         reset();
     }
 
+    /**
+     * Returns a matcher of the given compiled pattern for the given input,
+     * reusing the matcher cached by the current thread unless it is
+     * already in use.  The matcher must be passed to release when the
+     * caller is done with it, and must not escape the calling thread.
+     */
+    static Matcher acquire(Pattern parent, CharSequence text) {
+        Matcher m = cached.get();
+        if (m == null) {
+            m = new Matcher(parent, text);
+            cached.set(m);
+        } else if (m.acquired) {
+            // Reentrant use, for example from a MatchResultSink
+            return new Matcher(parent, text);
+        } else {
+            if (m.parentPattern != parent) {
+                m.parentPattern = parent;
+                // Keep the state storage if it is large enough
+                int groupSize = Math.max(parent.capturingGroupCount, 10) * 2;
+                if (m.groups.length < groupSize)
+                    m.groups = new int[groupSize];
+                if (m.locals.length < parent.localCount)
+                    m.locals = new int[parent.localCount];
+            }
+            m.text = text;
+            m.transparentBounds = false;
+            m.anchoringBounds = true;
+            m.reset();
+        }
+        m.acquired = true;
+        return m;
+    }
+
+    /**
+     * Returns a matcher obtained from acquire to its thread's cache.  The
+     * input and the pattern are dropped so that the cache does not keep
+     * them, or the pattern's automaton, reachable.
+     */
+    void release() {
+        if (acquired) {
+            acquired = false;
+            text = null;
+            parentPattern = null;
+        }
+    }
+
+    /**
+     * A read-only view of the current match of a matcher obtained from
+     * acquire, handed to a MatchResultSink in place of the matcher
+     * itself so that the sink can neither change the matcher's state nor
+     * keep the pooled matcher.  The view is detached when the search
+     * ends, after which it reports that no match is available.
+     */
+    static final class ResultView implements MatchResult {
+        private Matcher matcher;
+
+        ResultView(Matcher matcher) {
+            this.matcher = matcher;
+        }
+
+        void detach() {
+            matcher = null;
+        }
+
+        private Matcher matcher() {
+            Matcher m = matcher;
+            if (m == null)
+                throw new IllegalStateException("No match available");
+            return m;
+        }
+
+        public int start() {
+            return matcher().start();
+        }
+
+        public int start(int group) {
+            return matcher().start(group);
+        }
+
+        public int end() {
+            return matcher().end();
+        }
+
+        public int end(int group) {
+            return matcher().end(group);
+        }
+
+        public String group() {
+            return matcher().group();
+        }
+
+        public String group(int group) {
+            return matcher().group(group);
+        }
+
+        public int groupCount() {
+            return matcher().groupCount();
+        }
+    }
+
     /**
      * Returns the pattern that is interpreted by this matcher.
      *
@@ -1245,7 +1357,10 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = NOANCHOR;
-        boolean result = parentPattern.root.match(this, from, text);
+        PatternAutomaton automaton = parentPattern.automaton;
+        boolean result = (automaton != null)
+            ? automaton.search(this, from, text)
+            : parentPattern.root.match(this, from, text);
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
@@ -1267,7 +1382,10 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = anchor;
-        boolean result = parentPattern.matchRoot.match(this, from, text);
+        PatternAutomaton automaton = parentPattern.automaton;
+        boolean result = (automaton != null)
+            ? automaton.match(this, from, text, anchor)
+            : parentPattern.matchRoot.match(this, from, text);
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
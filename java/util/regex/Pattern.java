@@ -917,6 +917,37 @@ public final class Pattern
      */
     public static final int UNICODE_CHARACTER_CLASS = 0x100;
 
+    /**
+     * Enables linear-time matching.
+     *
+     * <p> When this flag is specified then the pattern is also compiled
+     * into an automaton, which matches in time proportional to the length
+     * of the input instead of backtracking: a lazily built DFA, whose
+     * states are cached and shared by all matchers of the pattern, rejects
+     * inputs that cannot match and bounds the search, and a simulation of
+     * the NFA determines the match and its groups.  A match starts and
+     * ends where it does without this flag, but a group inside a
+     * repetition reports its last iteration within the match, and the
+     * results of {@link Matcher#hitEnd} and {@link Matcher#requireEnd}
+     * are approximate.
+     *
+     * <p> Patterns that use back references, lookahead or lookbehind,
+     * atomic groups, possessive quantifiers, embedded flags,
+     * <tt>&#92;G</tt>, character properties, nested character classes or
+     * class intersections, or a repetition of more than one iteration
+     * whose body can match the empty string, such as
+     * <tt>(a*|b)*</tt>, or that are compiled with the flags
+     * {@link #CANON_EQ}, {@link #COMMENTS}, {@link #UNICODE_CASE} or
+     * {@link #UNICODE_CHARACTER_CLASS}, are matched by backtracking
+     * regardless of this flag; {@link #usesDFA} tells which engine was
+     * chosen.
+     *
+     * <p> There is no embedded flag character for enabling linear-time
+     * matching.  </p>
+     * @since 1.8
+     */
+    public static final int DFA = 0x200;
+
     /* Pattern has only two serialized components: The pattern string
      * and the flags, which are all that is needed to recompile the pattern
      * when it is deserialized.
@@ -1015,6 +1046,12 @@ public final class Pattern
      */
     private transient boolean hasSupplementary;
 
+    /**
+     * The linear-time automaton of this pattern if it was compiled with
+     * the DFA flag and uses only supported constructs, or null.
+     */
+    transient PatternAutomaton automaton;
+
     /**
      * Compiles the given regular expression into a pattern.
      *
@@ -1039,8 +1076,8 @@ public final class Pattern
      *         Match flags, a bit mask that may include
      *         {@link #CASE_INSENSITIVE}, {@link #MULTILINE}, {@link #DOTALL},
      *         {@link #UNICODE_CASE}, {@link #CANON_EQ}, {@link #UNIX_LINES},
-     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS}
-     *         and {@link #COMMENTS}
+     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS},
+     *         {@link #COMMENTS} and {@link #DFA}
      *
      * @return the given regular expression compiled into a pattern with the given flags
      * @throws  IllegalArgumentException
@@ -1094,6 +1131,75 @@ public final class Pattern
         return m;
     }
 
+    /**
+     * Finds the successive matches of this pattern in a region of the
+     * given input and passes each of them to the given sink.
+     *
+     * <p> The matches are those that repeated invocations of {@link
+     * Matcher#find()} find on a matcher of this pattern whose {@link
+     * Matcher#region(int,int) region} is set to the given bounds.  The
+     * search stops at the end of the region or when the sink returns
+     * <tt>false</tt>.
+     *
+     * <p> Unlike creating a matcher for each input, this method reuses
+     * matching state kept by the current thread, so that finding matches
+     * and reading their group boundaries does not allocate.  The sink is
+     * given a read-only view of each match rather than the matcher that
+     * found it, and the view stops reporting matches when this method
+     * returns.  Inputs that
+     * are not strings, such as character arrays or characters decoded
+     * into a buffer, can be searched in place by passing a {@link
+     * java.nio.CharBuffer}.
+     *
+     * @param  input
+     *         The character sequence to be searched
+     *
+     * @param  from
+     *         The index to start searching at, inclusive
+     *
+     * @param  to
+     *         The index to end searching at, exclusive
+     *
+     * @param  sink
+     *         The receiver of the matches
+     *
+     * @return  The number of matches passed to the sink
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>from</tt> or <tt>to</tt> is less than zero, if
+     *          <tt>from</tt> is greater than <tt>to</tt>, or if <tt>to</tt>
+     *          is greater than the length of the input
+     *
+     * @see MatchResultSink
+     * @since 1.8
+     */
+    public int matchInto(CharSequence input, int from, int to,
+                         MatchResultSink sink) {
+        if (sink == null)
+            throw new NullPointerException();
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        Matcher m = Matcher.acquire(this, input);
+        Matcher.ResultView result = new Matcher.ResultView(m);
+        try {
+            m.region(from, to);
+            int count = 0;
+            while (m.find()) {
+                count++;
+                if (!sink.accept(result))
+                    break;
+            }
+            return count;
+        } finally {
+            result.detach();
+            m.release();
+        }
+    }
+
     /**
      * Returns this pattern's match flags.
      *
@@ -1103,6 +1209,52 @@ public final class Pattern
         return flags;
     }
 
+    /**
+     * Returns whether this pattern is matched by the linear-time engine.
+     *
+     * <p> This is the case if, and only if, the pattern was compiled with
+     * the {@link #DFA} flag and uses only constructs that engine supports.
+     *
+     * @return  <tt>true</tt> if matches of this pattern are found by the
+     *          linear-time engine, <tt>false</tt> if they are found by
+     *          backtracking
+     * @since 1.8
+     */
+    public boolean usesDFA() {
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        return automaton != null;
+    }
+
+    /**
+     * Returns the literal text that every match of this pattern begins
+     * with, or null if the pattern does not begin with a case sensitive
+     * literal.  This is used by {@link PatternSet} to find the positions
+     * where a match can begin.
+     */
+    String literalPrefix() {
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        Node node = matchRoot;
+        if (node instanceof Slice || node instanceof SliceS) {
+            int[] buf = ((SliceNode)node).buffer;
+            return new String(buf, 0, buf.length);
+        }
+        if (node instanceof Single)
+            return String.valueOf((char)((Single)node).c);
+        if (node instanceof SingleS)
+            return new String(Character.toChars(((SingleS)node).c));
+        return null;
+    }
+
     /**
      * Compiles the given regular expression and attempts to match the given
      * input against it.
@@ -1203,25 +1355,34 @@ public final class Pattern
         int index = 0;
         boolean matchLimited = limit > 0;
         ArrayList<String> matchList = new ArrayList<>();
-        Matcher m = matcher(input);
-
-        // Add segments before each match found
-        while(m.find()) {
-            if (!matchLimited || matchList.size() < limit - 1) {
-                if (index == 0 && index == m.start() && m.start() == m.end()) {
-                    // no empty leading substring included for zero-width match
-                    // at the beginning of the input char sequence.
-                    continue;
+        if (!compiled) {
+            synchronized(this) {
+                if (!compiled)
+                    compile();
+            }
+        }
+        Matcher m = Matcher.acquire(this, input);
+        try {
+            // Add segments before each match found
+            while(m.find()) {
+                if (!matchLimited || matchList.size() < limit - 1) {
+                    if (index == 0 && index == m.start() && m.start() == m.end()) {
+                        // no empty leading substring included for zero-width match
+                        // at the beginning of the input char sequence.
+                        continue;
+                    }
+                    String match = input.subSequence(index, m.start()).toString();
+                    matchList.add(match);
+                    index = m.end();
+                } else if (matchList.size() == limit - 1) { // last one
+                    String match = input.subSequence(index,
+                                                     input.length()).toString();
+                    matchList.add(match);
+                    index = m.end();
                 }
-                String match = input.subSequence(index, m.start()).toString();
-                matchList.add(match);
-                index = m.end();
-            } else if (matchList.size() == limit - 1) { // last one
-                String match = input.subSequence(index,
-                                                 input.length()).toString();
-                matchList.add(match);
-                index = m.end();
             }
+        } finally {
+            m.release();
         }
 
         // If no match was found, return this
@@ -1716,6 +1877,11 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
             root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
         }
 
+        // Build the linear-time automaton if requested
+        if (has(DFA))
+            automaton = PatternAutomaton.compile(pattern, flags,
+                                                 capturingGroupCount - 1);
+
         // Release temporary storage
         temp = null;
         buffer = null;
@@ -0,0 +1,1243 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The linear-time matching engine used by patterns compiled with the
+ * {@link Pattern#DFA} flag.
+ *
+ * <p>The pattern is parsed a second time into a program for a Thompson
+ * NFA: instructions that consume one code point of a character class,
+ * prioritized splits, jumps, capture saves, zero-width assertions and a
+ * final match.  Two machines run that program:
+ *
+ * <ul>
+ * <li>A lazily built DFA whose states are sets of NFA instructions.  The
+ * states and their transitions on ASCII characters are cached, so that
+ * after warm-up each input character costs one array lookup.  The DFA
+ * treats assertions as always satisfied, so it recognizes a superset of
+ * the pattern: when it rejects an input there is no match.  For a
+ * pattern without assertions, the earliest end of a match it finds also
+ * bounds where the match can start.
+ * <li>A Pike VM that runs all threads of the NFA in lock step, in
+ * priority order.  It evaluates assertions with the same nodes as the
+ * backtracking engine and tracks capture positions per thread, giving
+ * the leftmost-first match of the backtracking engine.  A group inside
+ * a repetition reports its last iteration within the match, whereas
+ * the backtracking engine can report a value left over from an
+ * abandoned attempt.
+ * </ul>
+ *
+ * <p>Both machines take time linear in the length of the input for a
+ * given pattern.  Constructs that cannot be expressed in the program
+ * (back references, lookaround, atomic groups, possessive quantifiers,
+ * embedded flags, {@code \G}, properties, class intersections, nested
+ * classes, and repetitions of a body that can match the empty string,
+ * whose iterations the backtracking engine cuts short), as well as the
+ * flags CANON_EQ, COMMENTS, UNICODE_CASE and UNICODE_CHARACTER_CLASS,
+ * make {@link #compile} return {@code null}, and the pattern is then
+ * matched by the backtracking engine.
+ *
+ * <p>An automaton is shared by all matchers of its pattern.  Its state
+ * cache is safe for concurrent use; it is discarded and rebuilt when it
+ * grows beyond {@link #MAX_STATES} states.
+ */
+final class PatternAutomaton {
+
+    // Instructions of the program
+    private static final int CHAR   = 0;    // consume a code point in cls[pc]
+    private static final int MATCH  = 1;    // accept
+    private static final int SPLIT  = 2;    // fork to x[pc], then y[pc]
+    private static final int JMP    = 3;    // go to x[pc]
+    private static final int SAVE   = 4;    // record position in slot x[pc]
+    private static final int ASSERT = 5;    // zero-width assertion node[pc]
+
+    /**
+     * The largest program that is compiled; larger ones, typically from
+     * big counted repetitions, are left to the backtracking engine.
+     */
+    static final int MAX_PROGRAM = 10000;
+
+    /**
+     * The number of DFA states cached before the cache is flushed.
+     */
+    static final int MAX_STATES = 4096;
+
+    private final int[] op;
+    private final int[] x;
+    private final int[] y;
+    private final CharClass[] cls;
+    private final Pattern.Node[] node;
+
+    /** The number of capture slots, two per group including group 0. */
+    private final int slots;
+
+    /** Whether the program contains assertions. */
+    private final boolean hasAssertions;
+
+    /**
+     * The classes of the characters a match can begin with, or null if
+     * the pattern can match the empty string.
+     */
+    private final CharClass[] first;
+
+    /** The DFA for searches, restarting at each position. */
+    private final Dfa unanchored = new Dfa(true);
+
+    /** The DFA for matches anchored at the start position. */
+    private final Dfa anchored = new Dfa(false);
+
+    private PatternAutomaton(Program prog, int groupCount) {
+        int n = prog.size;
+        this.op = Arrays.copyOf(prog.op, n);
+        this.x = Arrays.copyOf(prog.x, n);
+        this.y = Arrays.copyOf(prog.y, n);
+        this.cls = Arrays.copyOf(prog.cls, n);
+        this.node = Arrays.copyOf(prog.node, n);
+        this.slots = 2 * (groupCount + 1);
+        this.hasAssertions = prog.hasAssertions;
+        long[] set = new long[(n + 63) >>> 6];
+        closure(set, 0);
+        List<CharClass> classes = new ArrayList<>();
+        boolean nullable = false;
+        for (int pc = 0; pc < n; pc++) {
+            if ((set[pc >>> 6] & (1L << pc)) == 0)
+                continue;
+            if (op[pc] == CHAR)
+                classes.add(cls[pc]);
+            else if (op[pc] == MATCH)
+                nullable = true;
+        }
+        this.first = nullable ? null
+                              : classes.toArray(new CharClass[classes.size()]);
+    }
+
+    /**
+     * Compiles the given pattern, or returns {@code null} if it uses a
+     * construct or flag this engine does not support.
+     *
+     * @param regex the pattern source, which has already been compiled
+     *        successfully by {@link Pattern}
+     * @param flags the match flags
+     * @param groupCount the number of capturing groups found by
+     *        {@link Pattern}
+     */
+    static PatternAutomaton compile(String regex, int flags, int groupCount) {
+        if ((flags & (Pattern.CANON_EQ | Pattern.COMMENTS | Pattern.UNICODE_CASE
+                      | Pattern.UNICODE_CHARACTER_CLASS)) != 0)
+            return null;
+        try {
+            Parser parser = new Parser(regex, flags);
+            Ast ast = parser.parse();
+            if (parser.groups != groupCount)
+                return null;
+            Program prog = new Program();
+            prog.emit(SAVE, 0);
+            prog.emit(ast);
+            prog.emit(SAVE, 1);
+            prog.emit(MATCH, 0);
+            return new PatternAutomaton(prog, groupCount);
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Searches for the next match at or after {@code from}, setting the
+     * state of the matcher as {@link Matcher#search} does.
+     */
+    boolean search(Matcher matcher, int from, CharSequence seq) {
+        int end = unanchored.earliestEnd(matcher, seq, from, matcher.to);
+        if (end < 0) {
+            matcher.hitEnd = true;
+            return false;
+        }
+        // Without assertions no match can start after the earliest end
+        int lastStart = hasAssertions ? matcher.to : end;
+        return run(matcher, seq, from, false, false, lastStart);
+    }
+
+    /**
+     * Attempts a match anchored at {@code from}, setting the state of the
+     * matcher as {@link Matcher#match} does.
+     */
+    boolean match(Matcher matcher, int from, CharSequence seq, int anchor) {
+        boolean whole = anchor == Matcher.ENDANCHOR;
+        int to = matcher.to;
+        int end = whole ? anchored.wholeEnd(matcher, seq, from, to)
+                        : anchored.earliestEnd(matcher, seq, from, to);
+        if (end < 0)
+            return false;
+        if (whole && !hasAssertions && slots == 2) {
+            // The DFA answer is exact and there are no groups to find
+            matcher.first = from;
+            matcher.last = to;
+            matcher.groups[0] = from;
+            matcher.groups[1] = to;
+            return true;
+        }
+        return run(matcher, seq, from, true, whole, from);
+    }
+
+    // Pike VM
+
+    /**
+     * Runs the Pike VM from {@code from}, starting new threads at each
+     * position up to {@code lastStart} until a match is found.
+     */
+    private boolean run(Matcher matcher, CharSequence seq, int from,
+                        boolean anchor, boolean whole, int lastStart) {
+        int to = matcher.to;
+        int n = op.length;
+        Threads clist = new Threads(n);
+        Threads nlist = new Threads(n);
+        Threads tmp;
+        int[] stackPc = new int[n + 1];
+        int[][] stackCaps = new int[n + 1][];
+        int[] best = null;
+        int i = from;
+        for (;;) {
+            if (clist.count == 0 && best == null && !anchor && first != null) {
+                // Skip to the next position where a match can begin,
+                // forgetting the paths cut off by assertions at this one
+                clist.clear();
+                while (i < to && i <= lastStart) {
+                    int c = Character.codePointAt(seq, i);
+                    if (canBegin(c))
+                        break;
+                    i += Character.charCount(c);
+                }
+            }
+            if (best == null && i <= lastStart && (!anchor || i == from)) {
+                int[] caps = new int[slots];
+                Arrays.fill(caps, -1);
+                add(clist, 0, caps, i, matcher, seq, stackPc, stackCaps);
+            }
+            int c = -1;
+            int next = i;
+            if (i < to) {
+                c = Character.codePointAt(seq, i);
+                next = i + Character.charCount(c);
+            }
+            for (int k = 0; k < clist.count; k++) {
+                int pc = clist.pc[k];
+                if (op[pc] == CHAR) {
+                    if (c < 0)
+                        matcher.hitEnd = true;
+                    else if (cls[pc].matches(c))
+                        add(nlist, pc + 1, clist.caps[k], next, matcher, seq,
+                            stackPc, stackCaps);
+                } else if (!whole || i == to) {
+                    // Lower priority threads are cut off by the match
+                    best = clist.caps[k];
+                    break;
+                }
+            }
+            if (i >= to || nlist.count == 0
+                && (best != null || anchor || next > lastStart))
+                break;
+            tmp = clist; clist = nlist; nlist = tmp;
+            nlist.clear();
+            i = next;
+        }
+        if (best == null)
+            return false;
+        matcher.first = best[0];
+        matcher.last = best[1];
+        System.arraycopy(best, 0, matcher.groups, 0, slots);
+        return true;
+    }
+
+    private boolean canBegin(int c) {
+        for (CharClass cc : first) {
+            if (cc.matches(c))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the thread at {@code pc0} to the list, following the epsilon
+     * transitions at position {@code i} in priority order.
+     */
+    private void add(Threads list, int pc0, int[] caps0, int i,
+                     Matcher matcher, CharSequence seq,
+                     int[] stackPc, int[][] stackCaps) {
+        int sp = 0;
+        stackPc[sp] = pc0;
+        stackCaps[sp++] = caps0;
+        while (sp > 0) {
+            int pc = stackPc[--sp];
+            int[] caps = stackCaps[sp];
+            stackCaps[sp] = null;
+            for (;;) {
+                int o = op[pc];
+                if (!list.visit(pc))
+                    break;
+                if (o == JMP) {
+                    pc = x[pc];
+                } else if (o == SPLIT) {
+                    stackPc[sp] = y[pc];
+                    stackCaps[sp++] = caps;
+                    pc = x[pc];
+                } else if (o == SAVE) {
+                    caps = caps.clone();
+                    caps[x[pc]] = i;
+                    pc++;
+                } else if (o == ASSERT) {
+                    if (!node[pc].match(matcher, i, seq))
+                        break;
+                    pc++;
+                } else {
+                    list.add(pc, caps);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * The threads of the Pike VM at one position: a sparse set of the
+     * instructions visited, and the runnable threads in priority order.
+     */
+    private static final class Threads {
+        final int[] dense;
+        final int[] sparse;
+        int size;
+        final int[] pc;
+        final int[][] caps;
+        int count;
+
+        Threads(int n) {
+            dense = new int[n];
+            sparse = new int[n];
+            pc = new int[n];
+            caps = new int[n][];
+        }
+
+        boolean visited(int p) {
+            int s = sparse[p];
+            return s < size && dense[s] == p;
+        }
+
+        boolean visit(int p) {
+            if (visited(p))
+                return false;
+            sparse[p] = size;
+            dense[size++] = p;
+            return true;
+        }
+
+        void add(int p, int[] c) {
+            pc[count] = p;
+            caps[count++] = c;
+        }
+
+        void clear() {
+            size = 0;
+            Arrays.fill(caps, 0, count, null);
+            count = 0;
+        }
+    }
+
+    // DFA
+
+    /**
+     * Adds the instructions reachable from {@code pc0} by epsilon
+     * transitions to the set, taking all assertions to hold.
+     */
+    private void closure(long[] set, int pc0) {
+        int[] stack = new int[8];
+        int sp = 0;
+        stack[sp++] = pc0;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if ((set[pc >>> 6] & (1L << pc)) != 0)
+                continue;
+            set[pc >>> 6] |= 1L << pc;
+            int o = op[pc];
+            if (o == SPLIT) {
+                if (sp + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[sp++] = y[pc];
+                stack[sp++] = x[pc];
+            } else if (o == JMP || o == SAVE || o == ASSERT) {
+                if (sp + 1 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[sp++] = o == JMP ? x[pc] : pc + 1;
+            }
+        }
+    }
+
+    /**
+     * A state of the DFA: the sorted set of CHAR and MATCH instructions
+     * the NFA can be in.
+     */
+    private static final class State {
+        final int[] pcs;
+        final int hash;
+        final boolean accepting;
+        final boolean live;
+        final State[] ascii = new State[128];
+
+        State(int[] pcs, boolean accepting, boolean live) {
+            this.pcs = pcs;
+            this.hash = Arrays.hashCode(pcs);
+            this.accepting = accepting;
+            this.live = live;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof State && Arrays.equals(pcs, ((State)o).pcs);
+        }
+    }
+
+    private final class Dfa {
+        /** Whether a new NFA thread is started at each position. */
+        final boolean restart;
+        volatile ConcurrentHashMap<State, State> cache = new ConcurrentHashMap<>();
+        volatile State start;
+
+        Dfa(boolean restart) {
+            this.restart = restart;
+        }
+
+        /**
+         * Returns the end of the earliest match, or -1 if there is none.
+         */
+        int earliestEnd(Matcher matcher, CharSequence seq, int from, int to) {
+            State s = start();
+            if (s.accepting)
+                return from;
+            int i = from;
+            while (i < to) {
+                int c = seq.charAt(i);
+                if (c < 128) {
+                    i++;
+                } else {
+                    c = Character.codePointAt(seq, i);
+                    i += Character.charCount(c);
+                }
+                s = next(s, c);
+                if (s.accepting)
+                    return i;
+                if (!s.live)
+                    return -1;
+            }
+            matcher.hitEnd = true;
+            return -1;
+        }
+
+        /**
+         * Returns {@code to} if the whole input from {@code from} is
+         * accepted, or -1.
+         */
+        int wholeEnd(Matcher matcher, CharSequence seq, int from, int to) {
+            State s = start();
+            int i = from;
+            while (i < to) {
+                int c = seq.charAt(i);
+                if (c < 128) {
+                    i++;
+                } else {
+                    c = Character.codePointAt(seq, i);
+                    i += Character.charCount(c);
+                }
+                s = next(s, c);
+                if (!s.live && i < to)
+                    return -1;
+            }
+            matcher.hitEnd = s.live;
+            return s.accepting ? to : -1;
+        }
+
+        State start() {
+            State s = start;
+            if (s == null) {
+                long[] set = new long[(op.length + 63) >>> 6];
+                closure(set, 0);
+                start = s = intern(set);
+            }
+            return s;
+        }
+
+        State next(State s, int c) {
+            State n;
+            if (c < 128 && (n = s.ascii[c]) != null)
+                return n;
+            long[] set = new long[(op.length + 63) >>> 6];
+            for (int pc : s.pcs) {
+                if (op[pc] == CHAR && cls[pc].matches(c))
+                    closure(set, pc + 1);
+            }
+            if (restart)
+                closure(set, 0);
+            n = intern(set);
+            if (c < 128)
+                s.ascii[c] = n;
+            return n;
+        }
+
+        private State intern(long[] set) {
+            int count = 0;
+            boolean accepting = false, live = false;
+            int[] pcs = new int[16];
+            for (int w = 0; w < set.length; w++) {
+                for (long bits = set[w]; bits != 0; bits &= bits - 1) {
+                    int pc = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (op[pc] == CHAR) {
+                        live = true;
+                    } else if (op[pc] == MATCH) {
+                        accepting = true;
+                    } else {
+                        continue;
+                    }
+                    if (count == pcs.length)
+                        pcs = Arrays.copyOf(pcs, count * 2);
+                    pcs[count++] = pc;
+                }
+            }
+            State s = new State(Arrays.copyOf(pcs, count), accepting, live);
+            ConcurrentHashMap<State, State> map = cache;
+            if (map.size() >= MAX_STATES) {
+                cache = map = new ConcurrentHashMap<>();
+                start = null;
+            }
+            State old = map.putIfAbsent(s, s);
+            return old != null ? old : s;
+        }
+    }
+
+    // Character classes
+
+    /**
+     * A set of code points: sorted, disjoint inclusive ranges, possibly
+     * negated, with the ASCII-only case folding of CASE_INSENSITIVE.
+     */
+    static final class CharClass {
+        private final int[] ranges;
+        private final boolean negated;
+        private final boolean ci;
+        private final long lo, hi;      // membership of ASCII characters
+
+        CharClass(int[] ranges, boolean negated, boolean ci) {
+            this.ranges = ranges;
+            this.negated = negated;
+            this.ci = ci;
+            long l = 0, h = 0;
+            for (int c = 0; c < 128; c++) {
+                if (compute(c)) {
+                    if (c < 64)
+                        l |= 1L << c;
+                    else
+                        h |= 1L << c;
+                }
+            }
+            lo = l;
+            hi = h;
+        }
+
+        boolean matches(int c) {
+            if (c < 64)
+                return (lo & (1L << c)) != 0;
+            if (c < 128)
+                return (hi & (1L << c)) != 0;
+            return contains(c) != negated;
+        }
+
+        private boolean compute(int c) {
+            boolean in = contains(c);
+            if (!in && ci)
+                in = contains(ASCII.toUpper(c)) || contains(ASCII.toLower(c));
+            return in != negated;
+        }
+
+        private boolean contains(int c) {
+            int l = 0, h = (ranges.length >>> 1) - 1;
+            while (l <= h) {
+                int m = (l + h) >>> 1;
+                if (c < ranges[2 * m])
+                    h = m - 1;
+                else if (c > ranges[2 * m + 1])
+                    l = m + 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Accumulates code point ranges and normalizes them into the sorted
+     * disjoint form used by {@link CharClass}.
+     */
+    private static final class RangeSet {
+        private int[] r = new int[8];
+        private int n;
+
+        RangeSet add(int from, int to) {
+            if (n + 2 > r.length)
+                r = Arrays.copyOf(r, r.length * 2);
+            r[n++] = from;
+            r[n++] = to;
+            return this;
+        }
+
+        RangeSet addAll(int[] ranges) {
+            for (int i = 0; i < ranges.length; i += 2)
+                add(ranges[i], ranges[i + 1]);
+            return this;
+        }
+
+        int[] toArray() {
+            int pairs = n >>> 1;
+            long[] sorted = new long[pairs];
+            for (int i = 0; i < pairs; i++)
+                sorted[i] = ((long)r[2 * i] << 32) | r[2 * i + 1];
+            Arrays.sort(sorted);
+            int[] out = new int[n];
+            int m = 0;
+            for (long p : sorted) {
+                int from = (int)(p >>> 32), to = (int)p;
+                if (m > 0 && from <= out[m - 1] + 1) {
+                    out[m - 1] = Math.max(out[m - 1], to);
+                } else {
+                    out[m++] = from;
+                    out[m++] = to;
+                }
+            }
+            return Arrays.copyOf(out, m);
+        }
+    }
+
+    private static final int[] DIGIT = { '0', '9' };
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+    private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+    private static final int[] LINE_TERMINATORS = {
+        '\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029' };
+    private static final int[] NEWLINE = { '\n', '\n' };
+
+    /** Returns the complement of sorted disjoint ranges. */
+    private static int[] complement(int[] ranges) {
+        RangeSet set = new RangeSet();
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next)
+                set.add(next, ranges[i] - 1);
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT)
+            set.add(next, Character.MAX_CODE_POINT);
+        return set.toArray();
+    }
+
+    // Parsing
+
+    /** Thrown by the parser on a construct this engine does not support. */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 5371407553471404925L;
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Unsupported UNSUPPORTED = new Unsupported();
+
+    /** A node of the syntax tree. */
+    private static final class Ast {
+        static final int CHAR = 0, ASSERT = 1, GROUP = 2, CONCAT = 3,
+                         ALT = 4, REPEAT = 5;
+        final int kind;
+        CharClass cls;
+        Pattern.Node node;
+        int group;                      // 0 for a non-capturing group
+        Ast[] subs;
+        int min, max;                   // max is -1 if unbounded
+        boolean lazy;
+
+        Ast(int kind) {
+            this.kind = kind;
+        }
+
+        /** Returns whether this node can match the empty string. */
+        boolean nullable() {
+            switch (kind) {
+            case CHAR:
+                return false;
+            case CONCAT:
+                for (Ast sub : subs) {
+                    if (!sub.nullable())
+                        return false;
+                }
+                return true;
+            case ALT:
+                for (Ast sub : subs) {
+                    if (sub.nullable())
+                        return true;
+                }
+                return false;
+            case REPEAT:
+                return min == 0 || subs[0].nullable();
+            default:
+                return kind == ASSERT || subs[0].nullable();
+            }
+        }
+    }
+
+    /**
+     * The terminal node of the assertion nodes borrowed from
+     * {@link Pattern}, which just reports success.
+     */
+    private static final class Accept extends Pattern.Node {
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return true;
+        }
+    }
+
+    private static final Pattern.Node ACCEPT = new Accept();
+
+    /**
+     * A recursive descent parser for the supported subset of the pattern
+     * syntax.  The pattern is known to be valid, so anything unexpected
+     * is simply reported as unsupported.
+     */
+    private static final class Parser {
+        private final int[] p;
+        private final int flags;
+        private int pos;
+        int groups;
+
+        Parser(String regex, int flags) {
+            this.flags = flags;
+            if ((flags & Pattern.LITERAL) == 0)
+                regex = removeQuoting(regex);
+            this.p = regex.codePoints().toArray();
+        }
+
+        private boolean has(int f) {
+            return (flags & f) != 0;
+        }
+
+        private int peek() {
+            return pos < p.length ? p[pos] : -1;
+        }
+
+        private int peek(int ahead) {
+            return pos + ahead < p.length ? p[pos + ahead] : -1;
+        }
+
+        private int read() {
+            if (pos >= p.length)
+                throw UNSUPPORTED;
+            return p[pos++];
+        }
+
+        Ast parse() {
+            Ast ast;
+            if (has(Pattern.LITERAL)) {
+                ast = new Ast(Ast.CONCAT);
+                ast.subs = new Ast[p.length];
+                for (int i = 0; i < p.length; i++)
+                    ast.subs[i] = literal(p[i]);
+            } else {
+                ast = alternation();
+                if (pos != p.length)
+                    throw UNSUPPORTED;
+            }
+            return ast;
+        }
+
+        private Ast alternation() {
+            List<Ast> alts = new ArrayList<>();
+            alts.add(concatenation());
+            while (peek() == '|') {
+                pos++;
+                alts.add(concatenation());
+            }
+            if (alts.size() == 1)
+                return alts.get(0);
+            Ast ast = new Ast(Ast.ALT);
+            ast.subs = alts.toArray(new Ast[alts.size()]);
+            return ast;
+        }
+
+        private Ast concatenation() {
+            List<Ast> seq = new ArrayList<>();
+            for (int c; (c = peek()) != -1 && c != '|' && c != ')'; )
+                seq.add(repetition());
+            Ast ast = new Ast(Ast.CONCAT);
+            ast.subs = seq.toArray(new Ast[seq.size()]);
+            return ast;
+        }
+
+        private Ast repetition() {
+            Ast atom = atom();
+            int min, max;
+            switch (peek()) {
+            case '*': min = 0; max = -1; pos++; break;
+            case '+': min = 1; max = -1; pos++; break;
+            case '?': min = 0; max = 1; pos++; break;
+            case '{':
+                pos++;
+                min = number();
+                max = min;
+                if (peek() == ',') {
+                    pos++;
+                    max = peek() == '}' ? -1 : number();
+                }
+                if (read() != '}' || (max != -1 && max < min))
+                    throw UNSUPPORTED;
+                break;
+            default:
+                return atom;
+            }
+            // The backtracking engine leaves a loop after an iteration
+            // that matched nothing, even before the minimum count, and
+            // the paths it then tries cannot be followed by the program
+            if (atom.nullable() && (min > 1 || max > 1 || max < 0))
+                throw UNSUPPORTED;
+            Ast ast = new Ast(Ast.REPEAT);
+            ast.subs = new Ast[] { atom };
+            ast.min = min;
+            ast.max = max;
+            if (peek() == '?') {
+                pos++;
+                ast.lazy = true;
+            } else if (peek() == '+') {
+                throw UNSUPPORTED;          // possessive
+            }
+            int c = peek();
+            if (c == '*' || c == '+' || c == '?' || c == '{')
+                throw UNSUPPORTED;
+            return ast;
+        }
+
+        private int number() {
+            int n = 0, digits = 0;
+            for (int c; (c = peek()) >= '0' && c <= '9'; digits++) {
+                pos++;
+                n = n * 10 + (c - '0');
+                if (n > MAX_PROGRAM)
+                    throw UNSUPPORTED;
+            }
+            if (digits == 0)
+                throw UNSUPPORTED;
+            return n;
+        }
+
+        private Ast atom() {
+            int c = read();
+            switch (c) {
+            case '(':
+                return group();
+            case '[':
+                return charClass(clazz());
+            case '.':
+                if (has(Pattern.DOTALL))
+                    return charClass(new CharClass(new int[] {
+                        0, Character.MAX_CODE_POINT }, false, false));
+                return charClass(new CharClass(
+                    has(Pattern.UNIX_LINES) ? NEWLINE : LINE_TERMINATORS,
+                    true, false));
+            case '^':
+                if (has(Pattern.MULTILINE))
+                    return assertion(has(Pattern.UNIX_LINES)
+                                     ? new Pattern.UnixCaret()
+                                     : new Pattern.Caret());
+                return assertion(new Pattern.Begin());
+            case '$':
+                return assertion(has(Pattern.UNIX_LINES)
+                                 ? new Pattern.UnixDollar(has(Pattern.MULTILINE))
+                                 : new Pattern.Dollar(has(Pattern.MULTILINE)));
+            case '\\':
+                return escape();
+            case '*': case '+': case '?': case '{': case ')':
+                throw UNSUPPORTED;
+            default:
+                return literal(c);
+            }
+        }
+
+        private Ast group() {
+            int index = 0;
+            if (peek() == '?') {
+                pos++;
+                int c = read();
+                if (c == '<' && ASCII.isAlpha(peek())) {
+                    while (ASCII.isAlnum(peek()))
+                        pos++;
+                    if (read() != '>')
+                        throw UNSUPPORTED;
+                    index = ++groups;
+                } else if (c != ':') {
+                    throw UNSUPPORTED;      // lookaround, atomic, flags
+                }
+            } else {
+                index = ++groups;
+            }
+            Ast ast = new Ast(Ast.GROUP);
+            ast.group = index;
+            ast.subs = new Ast[] { alternation() };
+            if (read() != ')')
+                throw UNSUPPORTED;
+            return ast;
+        }
+
+        private Ast escape() {
+            int c = read();
+            switch (c) {
+            case 'd': return charClass(new CharClass(DIGIT, false, false));
+            case 'D': return charClass(new CharClass(DIGIT, true, false));
+            case 's': return charClass(new CharClass(SPACE, false, false));
+            case 'S': return charClass(new CharClass(SPACE, true, false));
+            case 'w': return charClass(new CharClass(WORD, false, false));
+            case 'W': return charClass(new CharClass(WORD, true, false));
+            case 'A': return assertion(new Pattern.Begin());
+            case 'z': return assertion(new Pattern.End());
+            case 'Z':
+                return assertion(has(Pattern.UNIX_LINES)
+                                 ? new Pattern.UnixDollar(false)
+                                 : new Pattern.Dollar(false));
+            case 'b':
+                return assertion(new Pattern.Bound(Pattern.Bound.BOTH, false));
+            case 'B':
+                return assertion(new Pattern.Bound(Pattern.Bound.NONE, false));
+            default:
+                pos--;
+                return literal(escapedChar());
+            }
+        }
+
+        /**
+         * Parses an escape sequence that denotes a single character.
+         */
+        private int escapedChar() {
+            int c = read();
+            switch (c) {
+            case '0': {
+                int n = read() - '0';
+                if (n < 0 || n > 7)
+                    throw UNSUPPORTED;
+                int m = peek() - '0';
+                if (m >= 0 && m <= 7) {
+                    pos++;
+                    int o = peek() - '0';
+                    if (o >= 0 && o <= 7 && n <= 3) {
+                        pos++;
+                        return n * 64 + m * 8 + o;
+                    }
+                    return n * 8 + m;
+                }
+                return n;
+            }
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            case 'a': return '\u0007';
+            case 'e': return '\u001B';
+            case 'c': return read() ^ 64;
+            case 'x': {
+                int n = read();
+                if (ASCII.isHexDigit(n)) {
+                    int m = read();
+                    if (!ASCII.isHexDigit(m))
+                        throw UNSUPPORTED;
+                    return ASCII.toDigit(n) * 16 + ASCII.toDigit(m);
+                }
+                if (n != '{')
+                    throw UNSUPPORTED;
+                int ch = 0;
+                while (ASCII.isHexDigit(n = read()))
+                    ch = (ch << 4) + ASCII.toDigit(n);
+                if (n != '}')
+                    throw UNSUPPORTED;
+                return ch;
+            }
+            case 'u': {
+                int n = hex4();
+                if (Character.isHighSurrogate((char)n) && peek() == '\\'
+                    && peek(1) == 'u') {
+                    int save = pos;
+                    pos += 2;
+                    int n2 = hex4();
+                    if (Character.isLowSurrogate((char)n2))
+                        return Character.toCodePoint((char)n, (char)n2);
+                    pos = save;
+                }
+                return n;
+            }
+            default:
+                if (ASCII.isAlnum(c))
+                    throw UNSUPPORTED;  // back references, properties, ...
+                return c;
+            }
+        }
+
+        private int hex4() {
+            int n = 0;
+            for (int i = 0; i < 4; i++) {
+                int c = read();
+                if (!ASCII.isHexDigit(c))
+                    throw UNSUPPORTED;
+                n = n * 16 + ASCII.toDigit(c);
+            }
+            return n;
+        }
+
+        /**
+         * Parses a character class after its opening bracket.
+         */
+        private CharClass clazz() {
+            boolean negated = false;
+            if (peek() == '^') {
+                pos++;
+                negated = true;
+            }
+            if (peek() == ']')
+                throw UNSUPPORTED;
+            RangeSet set = new RangeSet();
+            for (;;) {
+                int c = read();
+                if (c == ']')
+                    break;
+                if (c == '[' || (c == '&' && peek() == '&'))
+                    throw UNSUPPORTED;      // nested classes, intersections
+                if (c == '\\') {
+                    int[] predefined = predefined(peek());
+                    if (predefined != null) {
+                        pos++;
+                        set.addAll(predefined);
+                        if (peek() == '-' && peek(1) != ']')
+                            throw UNSUPPORTED;
+                        continue;
+                    }
+                    c = escapedChar();
+                }
+                int hi = c;
+                if (peek() == '-' && peek(1) != ']') {
+                    pos++;
+                    hi = read();
+                    if (hi == '[' || hi == '&')
+                        throw UNSUPPORTED;
+                    if (hi == '\\') {
+                        if (predefined(peek()) != null)
+                            throw UNSUPPORTED;
+                        hi = escapedChar();
+                    }
+                    if (hi < c)
+                        throw UNSUPPORTED;
+                }
+                set.add(c, hi);
+            }
+            int[] ranges = set.toArray();
+            // A class of surrogate code units is matched per char, not
+            // per code point, by the backtracking engine
+            if (!negated) {
+                for (int i = 0; i < ranges.length; i += 2) {
+                    if (ranges[i] <= Character.MAX_SURROGATE
+                        && ranges[i + 1] >= Character.MIN_SURROGATE)
+                        throw UNSUPPORTED;
+                }
+            }
+            return new CharClass(ranges, negated, has(Pattern.CASE_INSENSITIVE));
+        }
+
+        private static int[] predefined(int c) {
+            switch (c) {
+            case 'd': return DIGIT;
+            case 'D': return complement(DIGIT);
+            case 's': return SPACE;
+            case 'S': return complement(SPACE);
+            case 'w': return WORD;
+            case 'W': return complement(WORD);
+            default:
+                return null;
+            }
+        }
+
+        private Ast literal(int c) {
+            if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)
+                throw UNSUPPORTED;
+            return charClass(new CharClass(new int[] { c, c }, false,
+                                           has(Pattern.CASE_INSENSITIVE)));
+        }
+
+        private static Ast charClass(CharClass cls) {
+            Ast ast = new Ast(Ast.CHAR);
+            ast.cls = cls;
+            return ast;
+        }
+
+        private static Ast assertion(Pattern.Node node) {
+            node.next = ACCEPT;
+            Ast ast = new Ast(Ast.ASSERT);
+            ast.node = node;
+            return ast;
+        }
+
+        /**
+         * Replaces each \Q...\E quotation by the escaped characters it
+         * contains, as {@link Pattern} does before parsing.
+         */
+        private static String removeQuoting(String regex) {
+            int q = regex.indexOf("\\Q");
+            if (q < 0)
+                return regex;
+            StringBuilder sb = new StringBuilder(regex.length() * 2);
+            int i = 0;
+            while (i < regex.length()) {
+                char c = regex.charAt(i);
+                if (c == '\\' && i + 1 < regex.length()) {
+                    if (regex.charAt(i + 1) == 'Q') {
+                        int e = regex.indexOf("\\E", i + 2);
+                        int end = e < 0 ? regex.length() : e;
+                        for (int j = i + 2; j < end; j++) {
+                            char d = regex.charAt(j);
+                            if (d < 128 && !ASCII.isAlnum(d))
+                                sb.append('\\');
+                            sb.append(d);
+                        }
+                        i = e < 0 ? end : e + 2;
+                    } else {
+                        sb.append(c).append(regex.charAt(i + 1));
+                        i += 2;
+                    }
+                } else {
+                    sb.append(c);
+                    i++;
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    // Code generation
+
+    /** The program under construction. */
+    private static final class Program {
+        int[] op = new int[16];
+        int[] x = new int[16];
+        int[] y = new int[16];
+        CharClass[] cls = new CharClass[16];
+        Pattern.Node[] node = new Pattern.Node[16];
+        int size;
+        boolean hasAssertions;
+
+        int emit(int o, int arg) {
+            if (size >= MAX_PROGRAM)
+                throw UNSUPPORTED;
+            if (size == op.length) {
+                int n = size * 2;
+                op = Arrays.copyOf(op, n);
+                x = Arrays.copyOf(x, n);
+                y = Arrays.copyOf(y, n);
+                cls = Arrays.copyOf(cls, n);
+                node = Arrays.copyOf(node, n);
+            }
+            op[size] = o;
+            x[size] = arg;
+            return size++;
+        }
+
+        void emit(Ast a) {
+            switch (a.kind) {
+            case Ast.CHAR: {
+                int pc = emit(CHAR, 0);
+                cls[pc] = a.cls;
+                break;
+            }
+            case Ast.ASSERT: {
+                int pc = emit(ASSERT, 0);
+                node[pc] = a.node;
+                hasAssertions = true;
+                break;
+            }
+            case Ast.GROUP:
+                if (a.group > 0)
+                    emit(SAVE, 2 * a.group);
+                emit(a.subs[0]);
+                if (a.group > 0)
+                    emit(SAVE, 2 * a.group + 1);
+                break;
+            case Ast.CONCAT:
+                for (Ast sub : a.subs)
+                    emit(sub);
+                break;
+            case Ast.ALT: {
+                int[] jumps = new int[a.subs.length - 1];
+                for (int i = 0; i < jumps.length; i++) {
+                    int split = emit(SPLIT, size + 1);
+                    emit(a.subs[i]);
+                    jumps[i] = emit(JMP, 0);
+                    y[split] = size;
+                }
+                emit(a.subs[jumps.length]);
+                for (int j : jumps)
+                    x[j] = size;
+                break;
+            }
+            case Ast.REPEAT:
+                repeat(a.subs[0], a.min, a.max, a.lazy);
+                break;
+            default:
+                throw new InternalError();
+            }
+        }
+
+        private void repeat(Ast sub, int min, int max, boolean lazy) {
+            for (int i = 0; i < min; i++)
+                emit(sub);
+            if (max < 0) {
+                int split = emit(SPLIT, 0);
+                emit(sub);
+                emit(JMP, split);
+                branch(split, split + 1, size, lazy);
+            } else if (max > min) {
+                int[] splits = new int[max - min];
+                for (int i = 0; i < splits.length; i++) {
+                    splits[i] = emit(SPLIT, 0);
+                    emit(sub);
+                }
+                for (int s : splits)
+                    branch(s, s + 1, size, lazy);
+            }
+        }
+
+        private void branch(int split, int body, int out, boolean lazy) {
+            x[split] = lazy ? out : body;
+            y[split] = lazy ? body : out;
+        }
+    }
+}
@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A set of patterns that are matched against an input together.
+ *
+ * <p> Matching a line of text against many patterns one
+ * {@link Matcher#find() find} at a time scans the line once per pattern.
+ * A <tt>PatternSet</tt> instead scans the input once with an Aho-Corasick
+ * automaton built from the literal text each pattern begins with, and
+ * attempts a pattern only at the positions where its literal occurs.
+ * Patterns that do not begin with a case sensitive literal are searched
+ * for individually.
+ *
+ * <p> Instances of this class are immutable and are safe for use by
+ * multiple concurrent threads.  A scan is performed by a
+ * {@link SetMatcher}, which is reused across inputs and does not
+ * allocate while scanning:
+ *
+ * <blockquote><pre>
+ * PatternSet set = PatternSet.compile(patterns);
+ * PatternSet.SetMatcher m = set.matcher();
+ * for (String line : lines) {
+ *     if (m.scan(line) > 0) {
+ *         for (int i = m.nextMatched(0); i >= 0; i = m.nextMatched(i + 1))
+ *             report(i, line, m.start(i), m.end(i));
+ *     }
+ * }</pre></blockquote>
+ *
+ * <p> For each pattern, a scan finds the same match as the first
+ * invocation of {@link Matcher#find()} on a new matcher for the input.
+ *
+ * @see Pattern
+ * @since 1.8
+ */
+public final class PatternSet {
+
+    /**
+     * The largest automaton, in states, for which the transitions on
+     * ASCII characters are tabulated.
+     */
+    private static final int MAX_DENSE_STATES = 8192;
+
+    private final Pattern[] patterns;
+
+    /** The length of the literal prefix of each pattern, or -1. */
+    private final int[] prefixLength;
+
+    /** The patterns without a literal prefix. */
+    private final int[] unprefixed;
+
+    /** The number of patterns with a literal prefix. */
+    private final int prefixed;
+
+    // The trie: the sorted labels and targets of the edges of each state
+    private final char[][] labels;
+    private final int[][] targets;
+
+    /** The failure link of each state. */
+    private final int[] fail;
+
+    /** The transitions of each state on ASCII characters, or null. */
+    private final int[] dense;
+
+    /** The first entry of the output list of each state, or -1. */
+    private final int[] outHead;
+
+    /** The pattern and the next entry of each output list entry. */
+    private final int[] outPattern;
+    private final int[] outNext;
+
+    /** The nearest state on the failure path with an output, or -1. */
+    private final int[] dict;
+
+    private PatternSet(Pattern[] patterns) {
+        int n = patterns.length;
+        this.patterns = patterns;
+        this.prefixLength = new int[n];
+
+        // Build the trie of the literal prefixes
+        Map<Long, Integer> edges = new HashMap<>();
+        int states = 1;
+        int[] outPattern = new int[n];
+        int[] outNext = new int[n];
+        int[] outHead = new int[16];
+        Arrays.fill(outHead, -1);
+        int[] unprefixed = new int[n];
+        int u = 0, p = 0;
+        for (int i = 0; i < n; i++) {
+            String prefix = patterns[i].literalPrefix();
+            if (prefix == null) {
+                prefixLength[i] = -1;
+                unprefixed[u++] = i;
+                continue;
+            }
+            prefixLength[i] = prefix.length();
+            int s = 0;
+            for (int k = 0; k < prefix.length(); k++) {
+                Long key = ((long)s << 16) | prefix.charAt(k);
+                Integer t = edges.get(key);
+                if (t == null) {
+                    edges.put(key, t = states++);
+                }
+                s = t;
+            }
+            if (s >= outHead.length) {
+                int old = outHead.length;
+                outHead = Arrays.copyOf(outHead, Math.max(s + 1, old * 2));
+                Arrays.fill(outHead, old, outHead.length, -1);
+            }
+            outPattern[p] = i;
+            outNext[p] = outHead[s];
+            outHead[s] = p++;
+        }
+        this.unprefixed = Arrays.copyOf(unprefixed, u);
+        this.prefixed = p;
+        this.outPattern = outPattern;
+        this.outNext = outNext;
+        if (outHead.length != states) {
+            int old = outHead.length;
+            outHead = Arrays.copyOf(outHead, states);
+            if (states > old)
+                Arrays.fill(outHead, old, states, -1);
+        }
+        this.outHead = outHead;
+
+        // Lay out the edges of each state sorted by label
+        int[] degree = new int[states];
+        for (Long key : edges.keySet())
+            degree[(int)(key >>> 16)]++;
+        labels = new char[states][];
+        targets = new int[states][];
+        for (int s = 0; s < states; s++) {
+            labels[s] = new char[degree[s]];
+            targets[s] = new int[degree[s]];
+            degree[s] = 0;
+        }
+        long[] sorted = new long[edges.size()];
+        int e = 0;
+        for (Long key : edges.keySet())
+            sorted[e++] = key;
+        Arrays.sort(sorted);
+        for (long key : sorted) {
+            int s = (int)(key >>> 16);
+            labels[s][degree[s]] = (char)key;
+            targets[s][degree[s]++] = edges.get(key);
+        }
+
+        // Compute the failure and dictionary links breadth first
+        fail = new int[states];
+        dict = new int[states];
+        dict[0] = -1;
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        for (int t : targets[0]) {
+            queue[tail++] = t;
+            dict[t] = -1;
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            for (int k = 0; k < labels[s].length; k++) {
+                int t = targets[s][k];
+                int f = goTo(fail[s], labels[s][k]);
+                fail[t] = f;
+                dict[t] = outHead[f] >= 0 ? f : dict[f];
+                queue[tail++] = t;
+            }
+        }
+
+        // Tabulate the transitions on ASCII characters
+        if (states <= MAX_DENSE_STATES) {
+            int[] d = new int[states << 7];
+            for (int k = 0; k < tail + 1; k++) {
+                int s = k == 0 ? 0 : queue[k - 1];
+                for (int c = 0; c < 128; c++) {
+                    int t = edge(s, (char)c);
+                    d[(s << 7) | c] = t >= 0 ? t
+                                    : s == 0 ? 0 : d[(fail[s] << 7) | c];
+                }
+            }
+            dense = d;
+        } else {
+            dense = null;
+        }
+    }
+
+    /**
+     * Compiles the given patterns into a set.  The index of each pattern
+     * in the set is its position in the array.
+     *
+     * @param  patterns
+     *         The patterns of the set
+     *
+     * @return  A set of the given patterns
+     *
+     * @throws  NullPointerException
+     *          If the array or any of its elements is null
+     */
+    public static PatternSet compile(Pattern... patterns) {
+        Pattern[] ps = patterns.clone();
+        for (Pattern p : ps)
+            Objects.requireNonNull(p);
+        return new PatternSet(ps);
+    }
+
+    /**
+     * Compiles the given patterns into a set.  The index of each pattern
+     * in the set is its position in the iteration order of the collection.
+     *
+     * @param  patterns
+     *         The patterns of the set
+     *
+     * @return  A set of the given patterns
+     *
+     * @throws  NullPointerException
+     *          If the collection or any of its elements is null
+     */
+    public static PatternSet compile(Collection<Pattern> patterns) {
+        return compile(patterns.toArray(new Pattern[patterns.size()]));
+    }
+
+    /**
+     * Compiles the given regular expressions into a set.  The index of
+     * each pattern in the set is its position in the array.
+     *
+     * @param  regexes
+     *         The expressions to be compiled
+     *
+     * @return  A set of the given expressions compiled into patterns
+     *
+     * @throws  PatternSyntaxException
+     *          If the syntax of an expression is invalid
+     */
+    public static PatternSet compile(String... regexes) {
+        Pattern[] ps = new Pattern[regexes.length];
+        for (int i = 0; i < ps.length; i++)
+            ps[i] = Pattern.compile(regexes[i]);
+        return new PatternSet(ps);
+    }
+
+    /**
+     * Returns the number of patterns in this set.
+     *
+     * @return  The number of patterns
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the pattern with the given index.
+     *
+     * @param  index
+     *         The index of the pattern
+     *
+     * @return  The pattern
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the index is out of range
+     */
+    public Pattern pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Creates a matcher that scans inputs for the patterns of this set.
+     *
+     * @return  A new matcher for this set
+     */
+    public SetMatcher matcher() {
+        return new SetMatcher();
+    }
+
+    /**
+     * Returns the target of the edge of the trie with the given label,
+     * or -1.
+     */
+    private int edge(int s, char c) {
+        char[] l = labels[s];
+        int k = l.length <= 8 ? linear(l, c) : Arrays.binarySearch(l, c);
+        return k >= 0 ? targets[s][k] : -1;
+    }
+
+    private static int linear(char[] l, char c) {
+        for (int k = 0; k < l.length; k++) {
+            if (l[k] == c)
+                return k;
+        }
+        return -1;
+    }
+
+    /** Returns the state the automaton moves to from s on c. */
+    private int goTo(int s, char c) {
+        for (;;) {
+            int t = edge(s, c);
+            if (t >= 0)
+                return t;
+            if (s == 0)
+                return 0;
+            s = fail[s];
+        }
+    }
+
+    /**
+     * A matcher that scans inputs for all the patterns of a
+     * {@link PatternSet}.
+     *
+     * <p> A set matcher keeps one {@link Matcher} per pattern, which is
+     * reset rather than recreated for each input; apart from what the
+     * patterns themselves need to match, {@link #scan scan} does not
+     * allocate.  Instances of this class are not safe for use by multiple
+     * concurrent threads.
+     *
+     * @since 1.8
+     */
+    public final class SetMatcher {
+        private final Matcher[] matchers;
+        private final long[] matched;
+        private final int[] touched;
+        private int scans;
+        private int count;
+        private CharSequence input;
+
+        SetMatcher() {
+            int n = patterns.length;
+            matchers = new Matcher[n];
+            for (int i = 0; i < n; i++)
+                matchers[i] = patterns[i].matcher("");
+            matched = new long[(n + 63) >>> 6];
+            touched = new int[n];
+        }
+
+        /**
+         * Returns the set of patterns this matcher scans for.
+         *
+         * @return  The pattern set
+         */
+        public PatternSet patternSet() {
+            return PatternSet.this;
+        }
+
+        /**
+         * Scans the input for the patterns of the set, finding the first
+         * match of each.  The results of any previous scan are discarded.
+         *
+         * @param  input
+         *         The character sequence to be scanned
+         *
+         * @return  The number of patterns that match the input
+         */
+        public int scan(CharSequence input) {
+            this.input = input;
+            Arrays.fill(matched, 0L);
+            count = 0;
+            if (++scans == 0) {
+                Arrays.fill(touched, 0);
+                scans = 1;
+            }
+            for (int i : unprefixed) {
+                Matcher m = matchers[i];
+                m.reset(input);
+                if (m.find())
+                    mark(i);
+            }
+            int remaining = prefixed;
+            int s = 0;
+            int[] d = dense;
+            for (int pos = 0, len = input.length(); pos < len && remaining > 0; pos++) {
+                char c = input.charAt(pos);
+                s = (c < 128 && d != null) ? d[(s << 7) | c] : goTo(s, c);
+                for (int t = outHead[s] >= 0 ? s : dict[s]; t >= 0; t = dict[t]) {
+                    for (int k = outHead[t]; k >= 0; k = outNext[k]) {
+                        int i = outPattern[k];
+                        if (!matched(i) && attempt(i, pos + 1 - prefixLength[i]))
+                            remaining--;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Attempts a match of the given pattern at the given position.
+         */
+        private boolean attempt(int i, int start) {
+            Matcher m = matchers[i];
+            if (touched[i] != scans) {
+                m.reset(input);
+                touched[i] = scans;
+            }
+            if (!m.match(start, Matcher.NOANCHOR))
+                return false;
+            mark(i);
+            return true;
+        }
+
+        private void mark(int i) {
+            matched[i >>> 6] |= 1L << i;
+            count++;
+        }
+
+        /**
+         * Returns whether the pattern with the given index matched the
+         * input of the last scan.
+         *
+         * @param  index
+         *         The index of the pattern
+         *
+         * @return  <tt>true</tt> if the pattern matched
+         *
+         * @throws  IndexOutOfBoundsException
+         *          If the index is out of range
+         */
+        public boolean matched(int index) {
+            if (index < 0 || index >= matchers.length)
+                throw new IndexOutOfBoundsException("No pattern " + index);
+            return (matched[index >>> 6] & (1L << index)) != 0;
+        }
+
+        /**
+         * Returns the index of the first pattern at or after the given
+         * index that matched the input of the last scan, or -1 if there
+         * is none.
+         *
+         * @param  fromIndex
+         *         The index to start checking from (inclusive)
+         *
+         * @return  The index of the next matching pattern, or -1
+         */
+        public int nextMatched(int fromIndex) {
+            if (fromIndex < 0)
+                fromIndex = 0;
+            int w = fromIndex >>> 6;
+            if (w >= matched.length)
+                return -1;
+            long word = matched[w] & (-1L << fromIndex);
+            for (;;) {
+                if (word != 0)
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                if (++w == matched.length)
+                    return -1;
+                word = matched[w];
+            }
+        }
+
+        /**
+         * Returns the start index of the match of the given pattern.
+         *
+         * @param  index
+         *         The index of the pattern
+         *
+         * @return  The index of the first character matched
+         *
+         * @throws  IllegalStateException
+         *          If the pattern did not match the input of the last scan
+         */
+        public int start(int index) {
+            return result(index).start();
+        }
+
+        /**
+         * Returns the offset after the last character of the match of the
+         * given pattern.
+         *
+         * @param  index
+         *         The index of the pattern
+         *
+         * @return  The offset after the last character matched
+         *
+         * @throws  IllegalStateException
+         *          If the pattern did not match the input of the last scan
+         */
+        public int end(int index) {
+            return result(index).end();
+        }
+
+        /**
+         * Returns the match of the given pattern, with its groups, as a
+         * {@link MatchResult} that is unaffected by later scans.
+         *
+         * @param  index
+         *         The index of the pattern
+         *
+         * @return  The match of the pattern
+         *
+         * @throws  IllegalStateException
+         *          If the pattern did not match the input of the last scan
+         */
+        public MatchResult toMatchResult(int index) {
+            return result(index).toMatchResult();
+        }
+
+        private Matcher result(int index) {
+            if (!matched(index))
+                throw new IllegalStateException("No match available");
+            return matchers[index];
+        }
+    }
+}
@@ -24,6 +24,8 @@
  */
 package java.util.stream;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.IntFunction;
@@ -148,6 +150,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The report of the evaluation of the pipeline if it is being profiled,
+     * otherwise null; only valid for the source stage.
+     */
+    private StreamProfiler.Report profile;
+
+    /**
+     * The profile of this stage if the pipeline is being profiled, otherwise
+     * null.  Always null for the source stage.
+     */
+    private StreamProfiler.Stage profileStage;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -229,9 +243,42 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
-        return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
-               : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
+        StreamProfiler.Report report = StreamProfiler.enabled
+                                       ? beginProfile(StreamProfiler.nameOf(terminalOp.getClass()))
+                                       : null;
+        try {
+            return isParallel()
+                   ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+                   : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
+        }
+        finally {
+            if (report != null)
+                report.complete();
+        }
+    }
+
+    /**
+     * Starts profiling the evaluation of the pipeline ending at this stage,
+     * creating the report and the profiles of its stages.
+     *
+     * @param terminal the name of the terminal operation
+     * @return the report of the evaluation
+     */
+    @SuppressWarnings("rawtypes")
+    private StreamProfiler.Report beginProfile(String terminal) {
+        ArrayList<String> ops = new ArrayList<>();
+        for (AbstractPipeline p = this; p != sourceStage; p = p.previousStage)
+            ops.add(StreamProfiler.nameOf(p.getClass()));
+        Collections.reverse(ops);
+        String source = (sourceStage.sourceSpliterator != null)
+                        ? StreamProfiler.nameOf(sourceStage.sourceSpliterator.getClass())
+                        : "(supplier)";
+        StreamProfiler.Report report = StreamProfiler.begin(source, ops, terminal, isParallel());
+        int i = ops.size();
+        for (AbstractPipeline p = this; p != sourceStage; p = p.previousStage)
+            p.profileStage = report.stage(--i);
+        sourceStage.profile = report;
+        return report;
     }
 
     /**
@@ -246,18 +293,25 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
-        // If the last intermediate operation is stateful then
-        // evaluate directly to avoid an extra collection step
-        if (isParallel() && previousStage != null && opIsStateful()) {
-            // Set the depth of this, last, pipeline stage to zero to slice the
-            // pipeline such that this operation will not be included in the
-            // upstream slice and upstream operations will not be included
-            // in this slice
-            depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+        StreamProfiler.Report report = StreamProfiler.enabled ? beginProfile("toArray") : null;
+        try {
+            // If the last intermediate operation is stateful then
+            // evaluate directly to avoid an extra collection step
+            if (isParallel() && previousStage != null && opIsStateful()) {
+                // Set the depth of this, last, pipeline stage to zero to slice the
+                // pipeline such that this operation will not be included in the
+                // upstream slice and upstream operations will not be included
+                // in this slice
+                depth = 0;
+                return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            }
+            else {
+                return evaluate(sourceSpliterator(0), true, generator);
+            }
         }
-        else {
-            return evaluate(sourceSpliterator(0), true, generator);
+        finally {
+            if (report != null)
+                report.complete();
         }
     }
 
@@ -513,12 +567,39 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
         Objects.requireNonNull(sink);
 
+        if (sourceStage.profile != null)
+            return wrapProfiledSink(sourceStage.profile, sink);
         for ( @SuppressWarnings("rawtypes") AbstractPipeline p=AbstractPipeline.this; p.depth > 0; p=p.previousStage) {
             sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
         }
         return (Sink<P_IN>) sink;
     }
 
+    /**
+     * As {@link #wrapSink}, but inserts a {@code ProfilingSink} in front of
+     * the sink of each stage, and, if this is the last stage, in front of
+     * the terminal sink.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private <P_IN> Sink<P_IN> wrapProfiledSink(StreamProfiler.Report report, Sink sink) {
+        StreamProfiler.ProfilingSink inner = null;
+        if (nextStage == null)
+            sink = inner = new StreamProfiler.ProfilingSink(sink, report.terminalStage());
+        for (AbstractPipeline p=AbstractPipeline.this; p.depth > 0; p=p.previousStage) {
+            StreamProfiler.ProfilingSink outer = new StreamProfiler.ProfilingSink(
+                    p.opWrapSink(p.previousStage.combinedFlags, sink), p.profileStage);
+            if (inner != null)
+                inner.upstream = p.profileStage;
+            sink = inner = outer;
+        }
+        return (Sink<P_IN>) sink;
+    }
+
+    @Override
+    final StreamProfiler.Report getProfile() {
+        return sourceStage.profile;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     final <P_IN> Spliterator<E_OUT> wrapSpliterator(Spliterator<P_IN> sourceSpliterator) {
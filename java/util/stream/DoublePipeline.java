@@ -351,6 +351,36 @@ abstract class DoublePipeline<E_IN>
         }
     }
 
+    @Override
+    public final Stream<double[]> chunk(int size) {
+        return WindowOps.makeDouble(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<double[]> slidingWindow(int size, int step) {
+        return WindowOps.makeDouble(this, size, step, false);
+    }
+
+    @Override
+    public final DoubleStream takeWhile(DoublePredicate predicate) {
+        return WhileOps.makeTakeWhileDouble(this, predicate);
+    }
+
+    @Override
+    public final DoubleStream dropWhile(DoublePredicate predicate) {
+        return WhileOps.makeDropWhileDouble(this, predicate);
+    }
+
+    @Override
+    public final DoubleStream scan(DoubleBinaryOperator op) {
+        return ScanOps.makeDouble(this, false, 0.0d, op);
+    }
+
+    @Override
+    public final DoubleStream exclusiveScan(double identity, DoubleBinaryOperator op) {
+        return ScanOps.makeDouble(this, true, identity, op);
+    }
+
     @Override
     public final DoubleStream sorted() {
         return SortedOps.makeDouble(this);
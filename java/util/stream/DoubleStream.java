@@ -188,6 +188,11 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
      * <p>This is a <a href="package-summary.html#StreamOps">stateful
      * intermediate operation</a>.
      *
+     * @implNote If the system property {@code
+     * java.util.stream.SortedOps.spillThreshold} is set to a positive
+     * number of elements, larger sorts write sorted runs to temporary
+     * files and merge them, rather than holding all elements in memory.
+     *
      * @return the result stream
      */
     DoubleStream sorted();
@@ -279,6 +284,205 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
      */
     DoubleStream skip(long n);
 
+    /**
+     * Returns a stream consisting of the elements of this stream grouped,
+     * in encounter order, into consecutive chunks of {@code size}
+     * elements, each of which is an array.  The last chunk holds the remaining
+     * elements, and so is smaller if the number of elements is not a
+     * multiple of {@code size}.  For example, chunks of size 2 of the
+     * elements {@code 1, 2, 3, 4, 5} are {@code [1, 2], [3, 4], [5]}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * In parallel pipelines whose size is known, chunks are formed without
+     * first collecting the elements of this stream: its spliterator is
+     * split, and each part produces the chunks that start in it.
+     *
+     * @param size the number of elements in each chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @since 1.8
+     */
+    default Stream<double[]> chunk(int size) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close).chunk(size);
+    }
+
+    /**
+     * Returns a stream consisting of the windows of {@code size}
+     * consecutive elements of this stream that start every {@code step}
+     * elements, in encounter order, each of which is an array.  Window
+     * {@code k} holds the elements at positions {@code k * step} up to,
+     * but excluding, {@code k * step + size}; only full windows are
+     * included.  Windows overlap if {@code step} is less than {@code
+     * size}, and elements between windows are discarded if it is greater.
+     * For example, windows of size 3 and step 1 of the elements {@code 1,
+     * 2, 3, 4} are {@code [1, 2, 3], [2, 3, 4]}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * In parallel pipelines whose size is known, windows are formed without
+     * first collecting the elements of this stream: its spliterator is
+     * split, and each part produces the windows that start in it, sharing
+     * with the next part only the elements that those windows need from it.
+     *
+     * @param size the number of elements in each window
+     * @param step the number of elements from the start of one window to
+     *        the start of the next
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @since 1.8
+     */
+    default Stream<double[]> slidingWindow(int size, int step) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close)
+            .slidingWindow(size, step);
+    }
+
+    /**
+     * Returns a stream consisting of the longest prefix of the elements of
+     * this stream, in encounter order, that match the given predicate.
+     * The predicate is not applied to elements after the first that does
+     * not match it.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">short-circuiting
+     * stateful intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @apiNote
+     * As for {@link #limit limit}, this operation can be expensive on
+     * ordered parallel pipelines, since elements must be buffered until it
+     * is known that none before them fails to match.
+     *
+     * @param predicate a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                  <a href="package-summary.html#Statelessness">stateless</a>
+     *                  predicate to apply to elements to determine the
+     *                  longest prefix of elements
+     * @return the new stream
+     * @since 1.8
+     */
+    default DoubleStream takeWhile(DoublePredicate predicate) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close)
+            .takeWhile(predicate);
+    }
+
+    /**
+     * Returns a stream consisting of the remaining elements of this stream
+     * after dropping the longest prefix of its elements, in encounter
+     * order, that match the given predicate.  The predicate is not applied
+     * to elements after the first that does not match it.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @param predicate a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                  <a href="package-summary.html#Statelessness">stateless</a>
+     *                  predicate to apply to elements to determine the
+     *                  longest prefix of elements to drop
+     * @return the new stream
+     * @since 1.8
+     */
+    default DoubleStream dropWhile(DoublePredicate predicate) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close)
+            .dropWhile(predicate);
+    }
+
+    /**
+     * Returns a stream consisting of the running cumulation of the
+     * elements of this stream, in encounter order, using the provided
+     * associative accumulation function: the first element is unchanged,
+     * and each later element is replaced by the result of applying the
+     * function to the previous result and that element.  For example, an
+     * inclusive scan with addition of the elements {@code 1.0, 2.0, 3.0} is
+     * {@code 1.0, 3.0, 6.0}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     * <p>Because floating-point operations may not be strictly associative,
+     * the results in parallel may differ from those of a sequential scan.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * Sequential pipelines evaluate the scan lazily.  Parallel pipelines
+     * collect the elements into an array and cumulate it in place with
+     * {@link java.util.Arrays#parallelPrefix(double[], DoubleBinaryOperator)
+     * Arrays.parallelPrefix}.
+     *
+     * @param op an <a href="package-summary.html#Associativity">associative</a>,
+     *           <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *           <a href="package-summary.html#Statelessness">stateless</a>
+     *           function for combining two values
+     * @return the new stream
+     * @since 1.8
+     */
+    default DoubleStream scan(DoubleBinaryOperator op) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close)
+            .scan(op);
+    }
+
+    /**
+     * Returns a stream consisting of the exclusive running cumulation of
+     * the elements of this stream, in encounter order, using the provided
+     * identity value and associative accumulation function: each element
+     * is replaced by the result of accumulating the identity and the
+     * elements before it.  For example, an exclusive scan with identity
+     * {@code 0.0} and addition of the elements {@code 1.0, 2.0, 3.0} is {@code 0.0, 1.0, 3.0}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     * <p>Because floating-point operations may not be strictly associative,
+     * the results in parallel may differ from those of a sequential scan.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * Sequential pipelines evaluate the scan lazily.  Parallel pipelines
+     * collect the elements into an array and cumulate it in place with
+     * {@link java.util.Arrays#parallelExclusivePrefix(double[], double,
+     * DoubleBinaryOperator) Arrays.parallelExclusivePrefix}.
+     *
+     * @param identity the identity value for the accumulating function
+     * @param op an <a href="package-summary.html#Associativity">associative</a>,
+     *           <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *           <a href="package-summary.html#Statelessness">stateless</a>
+     *           function for combining two values
+     * @return the new stream
+     * @since 1.8
+     */
+    default DoubleStream exclusiveScan(double identity, DoubleBinaryOperator op) {
+        return StreamSupport.doubleStream(spliterator(), isParallel()).onClose(this::close)
+            .exclusiveScan(identity, op);
+    }
+
     /**
      * Performs an action for each element of this stream.
      *
@@ -0,0 +1,1369 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import sun.misc.Cleaner;
+
+/**
+ * Support for sorting streams whose elements do not fit in memory, by
+ * spilling sorted runs to temporary files and merging them.
+ *
+ * <p>Spilling is disabled unless the system property {@code
+ * java.util.stream.SortedOps.spillThreshold} is set to a positive number
+ * of elements.  The threshold counts elements, not bytes, so the memory
+ * it bounds depends on the size of the elements.  When it is set, a
+ * sorting stage buffers at most that many elements; each time the buffer
+ * fills, it is sorted (with {@link Arrays#parallelSort} in parallel
+ * pipelines, and {@link Arrays#sort} in sequential ones) and written to
+ * a new temporary file, in the directory named by the system property
+ * {@code java.util.stream.SortedOps.spillDirectory} if set, or else the
+ * default temporary-file directory.  At the end of input, the remaining
+ * buffer is sorted, and all the runs are merged, reading each run
+ * incrementally, as elements are pushed downstream.  A short-circuiting
+ * downstream therefore stops the merge early.
+ *
+ * <p>Elements of reference streams are spilled only if they are all
+ * null or instances of {@code String} or of the boxed primitive types,
+ * which are written in a simple binary form.  Such elements are read
+ * back as equal copies, so only their identity can differ from the
+ * elements that were sorted; no other classes are spilled, since their
+ * copies could differ in state or behavior.  If a buffer holds other
+ * elements, or a run cannot be written for any other reason (such as a
+ * full disk or a security manager denying access to the file), the
+ * stage stops spilling and continues to buffer in memory, as it would
+ * without a threshold.  Failures reading a run back are thrown as
+ * {@link UncheckedIOException}.
+ *
+ * <p>The merge is stable: equal elements are emitted in the order of
+ * their runs, which is encounter order, and the sorts used within runs
+ * are themselves stable for reference streams.  Run files are opened
+ * with {@link StandardOpenOption#DELETE_ON_CLOSE} and closed once
+ * merged.  The number of runs, each of which holds an open file during
+ * the merge, is the size of the input divided by the threshold.  Runs
+ * that are not merged to the end, because a short-circuiting operation
+ * stops taking elements or an exception is thrown, are closed when the
+ * stream is closed or, failing that, by a {@link Cleaner} once the
+ * sorting stage becomes unreachable.
+ *
+ * <p>Parallel pipelines take elements from a sorting stage through a
+ * spliterator that merges lazily, evaluating the upstream sequentially
+ * and without splitting, only when the size of the upstream, or its
+ * estimate if the exact size is unknown, exceeds the threshold.
+ * Smaller sorts use the usual parallel in-memory path.
+ *
+ * @since 1.8
+ */
+final class ExternalSort {
+
+    private ExternalSort() { }
+
+    /**
+     * The number of elements, not bytes, buffered before spilling a run,
+     * or zero if spilling is disabled.
+     */
+    static final int SPILL_THRESHOLD;
+
+    /** The directory for run files, or null for the default. */
+    static final Path SPILL_DIRECTORY;
+
+    static {
+        long t = 0L;
+        Path d = null;
+        try {
+            String s = java.security.AccessController.doPrivileged(
+                new sun.security.action.GetPropertyAction(
+                    "java.util.stream.SortedOps.spillThreshold"));
+            if (s != null)
+                t = Long.parseLong(s);
+            s = java.security.AccessController.doPrivileged(
+                new sun.security.action.GetPropertyAction(
+                    "java.util.stream.SortedOps.spillDirectory"));
+            if (s != null)
+                d = Paths.get(s);
+        } catch (Exception ignore) {
+        }
+        SPILL_THRESHOLD = (t <= 0L) ? 0 : (int) Math.min(t, Nodes.MAX_ARRAY_SIZE);
+        SPILL_DIRECTORY = d;
+    }
+
+    /** True if sorting stages should spill */
+    static final boolean ENABLED = SPILL_THRESHOLD > 0;
+
+    /** The size of the I/O buffers used to write and read runs */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /** The initial capacity of a buffer of unknown size */
+    static final int INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * Returns true if the sorting stage evaluated lazily for the given
+     * pipeline should spill: that is, if spilling is enabled and the
+     * exact size of its input, or an estimate of it if the size is not
+     * known, exceeds the threshold.
+     */
+    static <P_IN> boolean exceedsThreshold(PipelineHelper<?> helper,
+                                           Spliterator<P_IN> spliterator) {
+        if (!ENABLED)
+            return false;
+        long n = helper.exactOutputSizeIfKnown(spliterator);
+        if (n < 0L)
+            n = spliterator.estimateSize();
+        return n > SPILL_THRESHOLD;
+    }
+
+    /**
+     * Creates and opens a new run file, which is deleted when closed.
+     */
+    static FileChannel newRunFile() throws IOException {
+        Path p = (SPILL_DIRECTORY == null) ?
+            Files.createTempFile("sorted", ".run") :
+            Files.createTempFile(SPILL_DIRECTORY, "sorted", ".run");
+        try {
+            return FileChannel.open(p, StandardOpenOption.READ,
+                                    StandardOpenOption.WRITE,
+                                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(p);
+            throw e;
+        }
+    }
+
+    static void closeQuietly(FileChannel ch) {
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel and clears it.
+     */
+    static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            ch.write(buf);
+        buf.clear();
+    }
+
+    static ByteBuffer newBuffer() {
+        return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    // Cursors and merging
+
+    /**
+     * A position in a sorted run, holding the current element of the run
+     * in a field of its subclass.
+     */
+    abstract static class Cursor {
+        /** The index of the run in encounter order, breaking ties */
+        final int order;
+
+        Cursor(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Moves to the next element, returning false and releasing any
+         * resources if there is none.
+         */
+        abstract boolean advance();
+
+        /**
+         * Compares the current elements of this cursor and another of
+         * the same kind, breaking ties by run order.
+         */
+        abstract int compareHead(Cursor other);
+
+        /** Releases any resources held */
+        void close() { }
+    }
+
+    /**
+     * A k-way merge of cursors, held in a binary heap ordered by current
+     * element.
+     */
+    static final class Merger {
+        private final Cursor[] heap;
+        private int size;
+
+        /**
+         * Creates a merge of the given cursors, which have not yet been
+         * advanced.
+         */
+        Merger(List<Cursor> cursors) {
+            heap = new Cursor[cursors.size()];
+            boolean done = false;
+            try {
+                for (Cursor c : cursors) {
+                    if (c.advance())
+                        heap[size++] = c;
+                }
+                done = true;
+            } finally {
+                if (!done) {
+                    for (Cursor c : cursors)
+                        c.close();
+                }
+            }
+            for (int i = (size >>> 1) - 1; i >= 0; --i)
+                siftDown(i, heap[i]);
+        }
+
+        /**
+         * Returns the cursor holding the least current element, or null
+         * if all runs are exhausted.
+         */
+        Cursor top() {
+            return (size == 0) ? null : heap[0];
+        }
+
+        /**
+         * Advances the cursor returned by top.
+         */
+        void advanceTop() {
+            Cursor c = heap[0];
+            if (!c.advance()) {
+                c = heap[--size];
+                heap[size] = null;
+                if (size == 0)
+                    return;
+            }
+            siftDown(0, c);
+        }
+
+        private void siftDown(int k, Cursor c) {
+            Cursor[] h = heap;
+            int half = size >>> 1;
+            while (k < half) {
+                int child = (k << 1) + 1;
+                Cursor x = h[child];
+                int right = child + 1;
+                if (right < size && x.compareHead(h[right]) > 0)
+                    x = h[child = right];
+                if (c.compareHead(x) <= 0)
+                    break;
+                h[k] = x;
+                k = child;
+            }
+            h[k] = c;
+        }
+
+        /**
+         * Closes all cursors not yet exhausted.
+         */
+        void close() {
+            for (int i = 0; i < size; ++i) {
+                heap[i].close();
+                heap[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Sequential reader of a run of primitive values.
+     */
+    static final class RunReader {
+        private FileChannel channel;
+        private final ByteBuffer buf;
+        private long remaining;
+
+        RunReader(FileChannel channel, long count) {
+            this.channel = channel;
+            this.remaining = count;
+            this.buf = newBuffer();
+            buf.limit(0);
+        }
+
+        /**
+         * Makes the next value, of the given width, available in buf,
+         * returning false and closing the run if there is none.
+         */
+        boolean next(int width) {
+            if (remaining == 0L) {
+                close();
+                return false;
+            }
+            if (buf.remaining() < width) {
+                buf.compact();
+                try {
+                    while (buf.position() < width) {
+                        if (channel.read(buf) < 0)
+                            throw new EOFException();
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+                buf.flip();
+            }
+            --remaining;
+            return true;
+        }
+
+        void close() {
+            closeQuietly(channel);
+            channel = null;
+            remaining = 0L;
+        }
+    }
+
+    /** A spilled run */
+    static final class SpilledRun {
+        final FileChannel channel;
+        final long count;
+        SpilledRun(FileChannel channel, long count) {
+            this.channel = channel;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The open run files of a Runs, either spilled and not yet merged or
+     * being merged.  Also the action of the cleaner of the Runs, so it
+     * must not refer to it, and must not throw.
+     */
+    static final class RunFiles implements Runnable {
+        final ArrayList<SpilledRun> spilled = new ArrayList<>();
+        volatile Merger merger;
+
+        public void run() {
+            Merger m = merger;
+            merger = null;
+            if (m != null)
+                m.close();
+            for (SpilledRun r : spilled)
+                closeQuietly(r.channel);
+            spilled.clear();
+        }
+    }
+
+    // Buffering and spilling
+
+    /**
+     * Base of the sinks that accumulate elements into runs.  Each
+     * subclass holds a buffer of elements, of which the first size are
+     * valid.
+     */
+    abstract static class Runs {
+        private final RunFiles files = new RunFiles();
+        private Cleaner cleaner;
+        private long spilledCount;
+        int size;
+
+        /** True if buffers are sorted with Arrays.parallelSort */
+        final boolean parallel;
+
+        /** True if spilling has failed, so all elements stay in memory */
+        private boolean inMemory;
+
+        Runs(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        /** Returns the length of the buffer, or zero if unallocated */
+        abstract int capacity();
+
+        /** Reallocates the buffer with the given length */
+        abstract void resize(int capacity);
+
+        /** Returns true if all buffered elements can be written */
+        boolean canSpill() { return true; }
+
+        /** Sorts the buffered elements */
+        abstract void sortBuffer();
+
+        /** Writes the buffered elements, which are sorted */
+        abstract void writeBuffer(FileChannel ch) throws IOException;
+
+        /** Releases references from the buffer after spilling */
+        void clearBuffer() { }
+
+        /** Returns a cursor over the given run */
+        abstract Cursor fileCursor(SpilledRun run, int order);
+
+        /** Returns a cursor over the sorted buffer */
+        abstract Cursor bufferCursor(int order);
+
+        /**
+         * Allocates a buffer for the given number of elements, or for an
+         * unknown number if negative.
+         */
+        public void begin(long size) {
+            resize((size < 0L) ? Math.min(INITIAL_CAPACITY, SPILL_THRESHOLD) :
+                   (int) Math.min(size, SPILL_THRESHOLD));
+        }
+
+        /**
+         * Makes room for another element when the buffer is full, by
+         * spilling if it has reached the threshold, or else growing it.
+         */
+        final void ensureCapacity() {
+            if (!inMemory && size >= SPILL_THRESHOLD && spill())
+                return;
+            long cap = capacity();
+            long max = inMemory ? Nodes.MAX_ARRAY_SIZE : SPILL_THRESHOLD;
+            if (cap >= max)
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            resize((int) Math.min(max, Math.max(cap + (cap >> 1),
+                                                INITIAL_CAPACITY)));
+        }
+
+        /**
+         * Sorts and writes the buffer to a new run, returning false if
+         * it could not be written, in which case spilling is abandoned.
+         */
+        private boolean spill() {
+            if (!canSpill()) {
+                inMemory = true;
+                return false;
+            }
+            sortBuffer();
+            if (cleaner == null)
+                cleaner = Cleaner.create(this, files);
+            FileChannel ch = null;
+            try {
+                ch = newRunFile();
+                writeBuffer(ch);
+                ch.position(0L);
+            } catch (IOException | SecurityException e) {
+                closeQuietly(ch);
+                inMemory = true;
+                return false;
+            }
+            files.spilled.add(new SpilledRun(ch, size));
+            spilledCount += size;
+            clearBuffer();
+            size = 0;
+            return true;
+        }
+
+        /**
+         * Returns the number of elements accepted.
+         */
+        final long count() {
+            return spilledCount + size;
+        }
+
+        /**
+         * Sorts the buffer and returns a merge of all runs, which is
+         * released by close.
+         */
+        final Merger merge() {
+            sortBuffer();
+            ArrayList<SpilledRun> spilled = files.spilled;
+            ArrayList<Cursor> cursors = new ArrayList<>(spilled.size() + 1);
+            int order = 0;
+            for (SpilledRun r : spilled)
+                cursors.add(fileCursor(r, order++));
+            spilled.clear();
+            cursors.add(bufferCursor(order));
+            Merger m = new Merger(cursors);
+            files.merger = m;
+            return m;
+        }
+
+        /**
+         * Closes all run files, whether or not merged.
+         */
+        final void close() {
+            if (cleaner != null)
+                cleaner.clean();
+            else
+                files.run();
+        }
+    }
+
+    // Reference streams
+
+    abstract static class RefCursor<T> extends Cursor {
+        final Comparator<? super T> comparator;
+        T head;
+
+        RefCursor(Comparator<? super T> comparator, int order) {
+            super(order);
+            this.comparator = comparator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        final int compareHead(Cursor other) {
+            int c = comparator.compare(head, ((RefCursor<T>) other).head);
+            return (c != 0) ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    static final class RefArrayCursor<T> extends RefCursor<T> {
+        private Object[] array;
+        private final int fence;
+        private int index;
+
+        RefArrayCursor(Object[] array, int fence, Comparator<? super T> comparator,
+                       int order) {
+            super(comparator, order);
+            this.array = array;
+            this.fence = fence;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean advance() {
+            if (index < fence) {
+                head = (T) array[index];
+                array[index++] = null;
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        void close() {
+            head = null;
+            array = null;
+        }
+    }
+
+    /*
+     * Tags preceding each element of a reference run, identifying its
+     * class.
+     */
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+    static final byte SHORT = 6;
+    static final byte BYTE = 7;
+    static final byte CHARACTER = 8;
+    static final byte BOOLEAN = 9;
+
+    /**
+     * Returns the tag for the given element, or -1 if it cannot be
+     * spilled.
+     */
+    static byte tagFor(Object e) {
+        if (e == null)
+            return NULL;
+        Class<?> c = e.getClass();
+        if (c == String.class)
+            return STRING;
+        else if (c == Integer.class)
+            return INTEGER;
+        else if (c == Long.class)
+            return LONG;
+        else if (c == Double.class)
+            return DOUBLE;
+        else if (c == Float.class)
+            return FLOAT;
+        else if (c == Short.class)
+            return SHORT;
+        else if (c == Byte.class)
+            return BYTE;
+        else if (c == Character.class)
+            return CHARACTER;
+        else if (c == Boolean.class)
+            return BOOLEAN;
+        else
+            return -1;
+    }
+
+    static void writeElement(DataOutputStream out, Object e)
+        throws IOException {
+        byte tag = tagFor(e);
+        out.writeByte(tag);
+        switch (tag) {
+        case STRING:
+            String s = (String) e;
+            out.writeInt(s.length());
+            out.writeChars(s);
+            break;
+        case INTEGER:
+            out.writeInt((Integer) e);
+            break;
+        case LONG:
+            out.writeLong((Long) e);
+            break;
+        case DOUBLE:
+            out.writeLong(Double.doubleToRawLongBits((Double) e));
+            break;
+        case FLOAT:
+            out.writeInt(Float.floatToRawIntBits((Float) e));
+            break;
+        case SHORT:
+            out.writeShort((Short) e);
+            break;
+        case BYTE:
+            out.writeByte((Byte) e);
+            break;
+        case CHARACTER:
+            out.writeChar((Character) e);
+            break;
+        case BOOLEAN:
+            out.writeBoolean((Boolean) e);
+            break;
+        }
+    }
+
+    static Object readElement(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            char[] cs = new char[in.readInt()];
+            for (int i = 0; i < cs.length; ++i)
+                cs[i] = in.readChar();
+            return new String(cs);
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return Double.longBitsToDouble(in.readLong());
+        case FLOAT:
+            return Float.intBitsToFloat(in.readInt());
+        case SHORT:
+            return in.readShort();
+        case BYTE:
+            return in.readByte();
+        case CHARACTER:
+            return in.readChar();
+        case BOOLEAN:
+            return in.readBoolean();
+        default:
+            throw new IOException("Corrupt run: tag " + tag);
+        }
+    }
+
+    static final class RefFileCursor<T> extends RefCursor<T> {
+        private FileChannel channel;
+        private DataInputStream in;
+        private long remaining;
+
+        RefFileCursor(SpilledRun run, Comparator<? super T> comparator, int order) {
+            super(comparator, order);
+            this.channel = run.channel;
+            this.remaining = run.count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean advance() {
+            if (remaining == 0L) {
+                close();
+                return false;
+            }
+            try {
+                if (in == null)
+                    in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel), BUFFER_SIZE));
+                head = (T) readElement(in);
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            --remaining;
+            return true;
+        }
+
+        @Override
+        void close() {
+            head = null;
+            in = null;
+            closeQuietly(channel);
+            channel = null;
+            remaining = 0L;
+        }
+    }
+
+    static final class RefRuns<T> extends Runs implements Sink<T> {
+        private final Comparator<? super T> comparator;
+        private Object[] buffer;
+
+        RefRuns(Comparator<? super T> comparator, boolean parallel) {
+            super(parallel);
+            this.comparator = comparator;
+        }
+
+        @Override
+        int capacity() {
+            return (buffer == null) ? 0 : buffer.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            buffer = (buffer == null) ? new Object[capacity] :
+                Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        boolean canSpill() {
+            for (int i = 0; i < size; ++i) {
+                if (tagFor(buffer[i]) < 0)
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void sortBuffer() {
+            if (parallel)
+                Arrays.parallelSort((T[]) buffer, 0, size, comparator);
+            else
+                Arrays.sort((T[]) buffer, 0, size, comparator);
+        }
+
+        @Override
+        void writeBuffer(FileChannel ch) throws IOException {
+            // Not closed, which would close the channel
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(ch),
+                                         BUFFER_SIZE));
+            for (int i = 0; i < size; ++i)
+                writeElement(out, buffer[i]);
+            out.flush();
+        }
+
+        @Override
+        void clearBuffer() {
+            Arrays.fill(buffer, 0, size, null);
+        }
+
+        @Override
+        Cursor fileCursor(SpilledRun run, int order) {
+            return new RefFileCursor<T>(run, comparator, order);
+        }
+
+        @Override
+        Cursor bufferCursor(int order) {
+            return new RefArrayCursor<T>(buffer, size, comparator, order);
+        }
+
+        @Override
+        public void accept(T t) {
+            if (size == buffer.length)
+                ensureCapacity();
+            buffer[size++] = t;
+        }
+
+        /**
+         * Merges the runs into the given sink, checking for cancellation
+         * before each element if requested.
+         */
+        @SuppressWarnings("unchecked")
+        void forEachSorted(Sink<? super T> sink, boolean checkCancel) {
+            Merger m = merge();
+            try {
+                for (Cursor c; (c = m.top()) != null; m.advanceTop()) {
+                    if (checkCancel && sink.cancellationRequested())
+                        break;
+                    sink.accept(((RefCursor<T>) c).head);
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+
+    // Int streams
+
+    abstract static class IntCursor extends Cursor {
+        int head;
+
+        IntCursor(int order) {
+            super(order);
+        }
+
+        @Override
+        final int compareHead(Cursor other) {
+            int c = Integer.compare(head, ((IntCursor) other).head);
+            return (c != 0) ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    static final class IntArrayCursor extends IntCursor {
+        private final int[] array;
+        private final int fence;
+        private int index;
+
+        IntArrayCursor(int[] array, int fence, int order) {
+            super(order);
+            this.array = array;
+            this.fence = fence;
+        }
+
+        @Override
+        boolean advance() {
+            if (index < fence) {
+                head = array[index++];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static final class IntFileCursor extends IntCursor {
+        private final RunReader reader;
+
+        IntFileCursor(SpilledRun run, int order) {
+            super(order);
+            this.reader = new RunReader(run.channel, run.count);
+        }
+
+        @Override
+        boolean advance() {
+            if (!reader.next(Integer.BYTES))
+                return false;
+            head = reader.buf.getInt();
+            return true;
+        }
+
+        @Override
+        void close() {
+            reader.close();
+        }
+    }
+
+    static final class IntRuns extends Runs implements Sink.OfInt {
+        private int[] buffer;
+
+        IntRuns(boolean parallel) {
+            super(parallel);
+        }
+
+        @Override
+        int capacity() {
+            return (buffer == null) ? 0 : buffer.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            buffer = (buffer == null) ? new int[capacity] :
+                Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        void sortBuffer() {
+            if (parallel)
+                Arrays.parallelSort(buffer, 0, size);
+            else
+                Arrays.sort(buffer, 0, size);
+        }
+
+        @Override
+        void writeBuffer(FileChannel ch) throws IOException {
+            ByteBuffer buf = newBuffer();
+            for (int i = 0; i < size; ++i) {
+                if (buf.remaining() < Integer.BYTES)
+                    drain(ch, buf);
+                buf.putInt(buffer[i]);
+            }
+            drain(ch, buf);
+        }
+
+        @Override
+        Cursor fileCursor(SpilledRun run, int order) {
+            return new IntFileCursor(run, order);
+        }
+
+        @Override
+        Cursor bufferCursor(int order) {
+            return new IntArrayCursor(buffer, size, order);
+        }
+
+        @Override
+        public void accept(int t) {
+            if (size == buffer.length)
+                ensureCapacity();
+            buffer[size++] = t;
+        }
+
+        void forEachSorted(Sink<? super Integer> sink, boolean checkCancel) {
+            Merger m = merge();
+            try {
+                for (Cursor c; (c = m.top()) != null; m.advanceTop()) {
+                    if (checkCancel && sink.cancellationRequested())
+                        break;
+                    sink.accept(((IntCursor) c).head);
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+
+    // Long streams
+
+    abstract static class LongCursor extends Cursor {
+        long head;
+
+        LongCursor(int order) {
+            super(order);
+        }
+
+        @Override
+        final int compareHead(Cursor other) {
+            int c = Long.compare(head, ((LongCursor) other).head);
+            return (c != 0) ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    static final class LongArrayCursor extends LongCursor {
+        private final long[] array;
+        private final int fence;
+        private int index;
+
+        LongArrayCursor(long[] array, int fence, int order) {
+            super(order);
+            this.array = array;
+            this.fence = fence;
+        }
+
+        @Override
+        boolean advance() {
+            if (index < fence) {
+                head = array[index++];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static final class LongFileCursor extends LongCursor {
+        private final RunReader reader;
+
+        LongFileCursor(SpilledRun run, int order) {
+            super(order);
+            this.reader = new RunReader(run.channel, run.count);
+        }
+
+        @Override
+        boolean advance() {
+            if (!reader.next(Long.BYTES))
+                return false;
+            head = reader.buf.getLong();
+            return true;
+        }
+
+        @Override
+        void close() {
+            reader.close();
+        }
+    }
+
+    static final class LongRuns extends Runs implements Sink.OfLong {
+        private long[] buffer;
+
+        LongRuns(boolean parallel) {
+            super(parallel);
+        }
+
+        @Override
+        int capacity() {
+            return (buffer == null) ? 0 : buffer.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            buffer = (buffer == null) ? new long[capacity] :
+                Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        void sortBuffer() {
+            if (parallel)
+                Arrays.parallelSort(buffer, 0, size);
+            else
+                Arrays.sort(buffer, 0, size);
+        }
+
+        @Override
+        void writeBuffer(FileChannel ch) throws IOException {
+            ByteBuffer buf = newBuffer();
+            for (int i = 0; i < size; ++i) {
+                if (buf.remaining() < Long.BYTES)
+                    drain(ch, buf);
+                buf.putLong(buffer[i]);
+            }
+            drain(ch, buf);
+        }
+
+        @Override
+        Cursor fileCursor(SpilledRun run, int order) {
+            return new LongFileCursor(run, order);
+        }
+
+        @Override
+        Cursor bufferCursor(int order) {
+            return new LongArrayCursor(buffer, size, order);
+        }
+
+        @Override
+        public void accept(long t) {
+            if (size == buffer.length)
+                ensureCapacity();
+            buffer[size++] = t;
+        }
+
+        void forEachSorted(Sink<? super Long> sink, boolean checkCancel) {
+            Merger m = merge();
+            try {
+                for (Cursor c; (c = m.top()) != null; m.advanceTop()) {
+                    if (checkCancel && sink.cancellationRequested())
+                        break;
+                    sink.accept(((LongCursor) c).head);
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+
+    // Double streams
+
+    /**
+     * Compares with Double.compare, the total order also used by
+     * Arrays.sort(double[]).
+     */
+    abstract static class DoubleCursor extends Cursor {
+        double head;
+
+        DoubleCursor(int order) {
+            super(order);
+        }
+
+        @Override
+        final int compareHead(Cursor other) {
+            int c = Double.compare(head, ((DoubleCursor) other).head);
+            return (c != 0) ? c : Integer.compare(order, other.order);
+        }
+    }
+
+    static final class DoubleArrayCursor extends DoubleCursor {
+        private final double[] array;
+        private final int fence;
+        private int index;
+
+        DoubleArrayCursor(double[] array, int fence, int order) {
+            super(order);
+            this.array = array;
+            this.fence = fence;
+        }
+
+        @Override
+        boolean advance() {
+            if (index < fence) {
+                head = array[index++];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static final class DoubleFileCursor extends DoubleCursor {
+        private final RunReader reader;
+
+        DoubleFileCursor(SpilledRun run, int order) {
+            super(order);
+            this.reader = new RunReader(run.channel, run.count);
+        }
+
+        @Override
+        boolean advance() {
+            if (!reader.next(Double.BYTES))
+                return false;
+            head = reader.buf.getDouble();
+            return true;
+        }
+
+        @Override
+        void close() {
+            reader.close();
+        }
+    }
+
+    static final class DoubleRuns extends Runs implements Sink.OfDouble {
+        private double[] buffer;
+
+        DoubleRuns(boolean parallel) {
+            super(parallel);
+        }
+
+        @Override
+        int capacity() {
+            return (buffer == null) ? 0 : buffer.length;
+        }
+
+        @Override
+        void resize(int capacity) {
+            buffer = (buffer == null) ? new double[capacity] :
+                Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        void sortBuffer() {
+            if (parallel)
+                Arrays.parallelSort(buffer, 0, size);
+            else
+                Arrays.sort(buffer, 0, size);
+        }
+
+        @Override
+        void writeBuffer(FileChannel ch) throws IOException {
+            ByteBuffer buf = newBuffer();
+            for (int i = 0; i < size; ++i) {
+                if (buf.remaining() < Double.BYTES)
+                    drain(ch, buf);
+                buf.putDouble(buffer[i]);
+            }
+            drain(ch, buf);
+        }
+
+        @Override
+        Cursor fileCursor(SpilledRun run, int order) {
+            return new DoubleFileCursor(run, order);
+        }
+
+        @Override
+        Cursor bufferCursor(int order) {
+            return new DoubleArrayCursor(buffer, size, order);
+        }
+
+        @Override
+        public void accept(double t) {
+            if (size == buffer.length)
+                ensureCapacity();
+            buffer[size++] = t;
+        }
+
+        void forEachSorted(Sink<? super Double> sink, boolean checkCancel) {
+            Merger m = merge();
+            try {
+                for (Cursor c; (c = m.top()) != null; m.advanceTop()) {
+                    if (checkCancel && sink.cancellationRequested())
+                        break;
+                    sink.accept(((DoubleCursor) c).head);
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+
+    // Lazy parallel evaluation
+
+    /**
+     * Base of the spliterators returned for a sorting stage of a
+     * parallel pipeline whose input exceeds the threshold.  On first
+     * traversal, the upstream is copied into runs, sequentially other
+     * than the sorting of each run, and the runs are then merged as
+     * elements are taken.  The result does not split.  The runs are
+     * closed once merged to the end, or else when the pipeline is
+     * closed or by their cleaner.
+     */
+    abstract static class SortedSpliterator<P_IN, P_OUT, R extends Runs & Sink<P_OUT>> {
+        private final PipelineHelper<P_OUT> helper;
+        private Spliterator<P_IN> source;
+        private final R runs;
+        private Merger merger;
+        private long remaining;
+
+        SortedSpliterator(PipelineHelper<P_OUT> helper,
+                          Spliterator<P_IN> source, R runs) {
+            this.helper = helper;
+            this.source = source;
+            this.runs = runs;
+            if (helper instanceof AbstractPipeline)
+                ((AbstractPipeline<?, ?, ?>) helper).onClose(runs::close);
+        }
+
+        /**
+         * Returns the cursor holding the next element, or null if none,
+         * first evaluating the upstream if not yet done.
+         */
+        final Cursor next() {
+            if (merger == null) {
+                helper.wrapAndCopyInto(runs, source);
+                source = null;
+                remaining = runs.count();
+                merger = runs.merge();
+            }
+            Cursor c = merger.top();
+            if (c == null)
+                runs.close();
+            return c;
+        }
+
+        /** Moves past the element held by the cursor returned by next */
+        final void advance() {
+            --remaining;
+            merger.advanceTop();
+        }
+
+        public final long estimateSize() {
+            return (merger == null) ? source.estimateSize() : remaining;
+        }
+
+        public final int characteristics() {
+            return Spliterator.ORDERED;
+        }
+    }
+
+    static final class RefSortedSpliterator<P_IN, T>
+            extends SortedSpliterator<P_IN, T, RefRuns<T>>
+            implements Spliterator<T> {
+        RefSortedSpliterator(PipelineHelper<T> helper, Spliterator<P_IN> source,
+                             Comparator<? super T> comparator) {
+            super(helper, source, new RefRuns<T>(comparator, true));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            Cursor c = next();
+            if (c == null)
+                return false;
+            T t = ((RefCursor<T>) c).head;
+            advance();
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+    }
+
+    static final class IntSortedSpliterator<P_IN>
+            extends SortedSpliterator<P_IN, Integer, IntRuns>
+            implements Spliterator.OfInt {
+        IntSortedSpliterator(PipelineHelper<Integer> helper,
+                             Spliterator<P_IN> source) {
+            super(helper, source, new IntRuns(true));
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            Cursor c = next();
+            if (c == null)
+                return false;
+            int t = ((IntCursor) c).head;
+            advance();
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return null;
+        }
+    }
+
+    static final class LongSortedSpliterator<P_IN>
+            extends SortedSpliterator<P_IN, Long, LongRuns>
+            implements Spliterator.OfLong {
+        LongSortedSpliterator(PipelineHelper<Long> helper,
+                              Spliterator<P_IN> source) {
+            super(helper, source, new LongRuns(true));
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+            Cursor c = next();
+            if (c == null)
+                return false;
+            long t = ((LongCursor) c).head;
+            advance();
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            return null;
+        }
+    }
+
+    static final class DoubleSortedSpliterator<P_IN>
+            extends SortedSpliterator<P_IN, Double, DoubleRuns>
+            implements Spliterator.OfDouble {
+        DoubleSortedSpliterator(PipelineHelper<Double> helper,
+                                Spliterator<P_IN> source) {
+            super(helper, source, new DoubleRuns(true));
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action);
+            Cursor c = next();
+            if (c == null)
+                return false;
+            double t = ((DoubleCursor) c).head;
+            advance();
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return null;
+        }
+    }
+}
@@ -385,6 +385,36 @@ abstract class IntPipeline<E_IN>
             return SliceOps.makeInt(this, n, -1);
     }
 
+    @Override
+    public final Stream<int[]> chunk(int size) {
+        return WindowOps.makeInt(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<int[]> slidingWindow(int size, int step) {
+        return WindowOps.makeInt(this, size, step, false);
+    }
+
+    @Override
+    public final IntStream takeWhile(IntPredicate predicate) {
+        return WhileOps.makeTakeWhileInt(this, predicate);
+    }
+
+    @Override
+    public final IntStream dropWhile(IntPredicate predicate) {
+        return WhileOps.makeDropWhileInt(this, predicate);
+    }
+
+    @Override
+    public final IntStream scan(IntBinaryOperator op) {
+        return ScanOps.makeInt(this, false, 0, op);
+    }
+
+    @Override
+    public final IntStream exclusiveScan(int identity, IntBinaryOperator op) {
+        return ScanOps.makeInt(this, true, identity, op);
+    }
+
     @Override
     public final IntStream sorted() {
         return SortedOps.makeInt(this);
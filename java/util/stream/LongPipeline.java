@@ -366,6 +366,36 @@ abstract class LongPipeline<E_IN>
             return SliceOps.makeLong(this, n, -1);
     }
 
+    @Override
+    public final Stream<long[]> chunk(int size) {
+        return WindowOps.makeLong(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<long[]> slidingWindow(int size, int step) {
+        return WindowOps.makeLong(this, size, step, false);
+    }
+
+    @Override
+    public final LongStream takeWhile(LongPredicate predicate) {
+        return WhileOps.makeTakeWhileLong(this, predicate);
+    }
+
+    @Override
+    public final LongStream dropWhile(LongPredicate predicate) {
+        return WhileOps.makeDropWhileLong(this, predicate);
+    }
+
+    @Override
+    public final LongStream scan(LongBinaryOperator op) {
+        return ScanOps.makeLong(this, false, 0L, op);
+    }
+
+    @Override
+    public final LongStream exclusiveScan(long identity, LongBinaryOperator op) {
+        return ScanOps.makeLong(this, true, identity, op);
+    }
+
     @Override
     public final LongStream sorted() {
         return SortedOps.makeLong(this);
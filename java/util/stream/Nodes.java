@@ -1875,7 +1875,14 @@ final class Nodes {
             assert task.offset + task.length < MAX_ARRAY_SIZE;
             @SuppressWarnings("unchecked")
             T_SINK sink = (T_SINK) task;
-            task.helper.wrapAndCopyInto(sink, rightSplit);
+            StreamProfiler.Report profile = task.helper.getProfile();
+            if (profile == null)
+                task.helper.wrapAndCopyInto(sink, rightSplit);
+            else {
+                long size = rightSplit.estimateSize(), start = System.nanoTime();
+                task.helper.wrapAndCopyInto(sink, rightSplit);
+                profile.recordLeaf(size, task.targetSize, System.nanoTime() - start);
+            }
             task.propagateCompletion();
         }
 
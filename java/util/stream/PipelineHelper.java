@@ -160,6 +160,14 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract<P_IN> Spliterator<P_OUT> wrapSpliterator(Spliterator<P_IN> spliterator);
 
+    /**
+     * Returns the profile of the evaluation of the pipeline, if it is being
+     * profiled by the {@link StreamProfiler}.
+     *
+     * @return the report of the evaluation, or {@code null} if not profiled
+     */
+    abstract StreamProfiler.Report getProfile();
+
     /**
      * Constructs a @{link Node.Builder} compatible with the output shape of
      * this {@code PipelineHelper}.
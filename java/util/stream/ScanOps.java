@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Factory methods for transforming primitive streams into streams of the
+ * running cumulation, or prefix scan, of their elements.  Sequentially, a
+ * scan is evaluated lazily, one element at a time.  In parallel, the
+ * elements are collected into an array, which is cumulated in place by
+ * the parallel prefix tasks of {@link Arrays#parallelPrefix(int[],
+ * IntBinaryOperator) Arrays.parallelPrefix}.
+ *
+ * @since 1.8
+ */
+final class ScanOps {
+
+    private ScanOps() { }
+
+    /**
+     * Flags for scan operations, which produce one element for each
+     * element of their input, neither sorted nor distinct.
+     */
+    private static final int FLAGS = StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT;
+
+    /**
+     * Appends a "scan" operation to the provided IntStream.
+     *
+     * @param upstream an IntStream
+     * @param exclusive true if each element is replaced by the cumulation of
+     *        the elements before it, rather than of those up to and
+     *        including it
+     * @param identity the initial value of an exclusive scan
+     * @param op the function that cumulates elements
+     */
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream, boolean exclusive,
+                             int identity, IntBinaryOperator op) {
+        return new OfInt(upstream, exclusive, identity, op);
+    }
+
+    /**
+     * Appends a "scan" operation to the provided LongStream.
+     *
+     * @param upstream a LongStream
+     * @param exclusive true if each element is replaced by the cumulation of
+     *        the elements before it, rather than of those up to and
+     *        including it
+     * @param identity the initial value of an exclusive scan
+     * @param op the function that cumulates elements
+     */
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream, boolean exclusive,
+                               long identity, LongBinaryOperator op) {
+        return new OfLong(upstream, exclusive, identity, op);
+    }
+
+    /**
+     * Appends a "scan" operation to the provided DoubleStream.
+     *
+     * @param upstream a DoubleStream
+     * @param exclusive true if each element is replaced by the cumulation of
+     *        the elements before it, rather than of those up to and
+     *        including it
+     * @param identity the initial value of an exclusive scan
+     * @param op the function that cumulates elements
+     */
+    static DoubleStream makeDouble(AbstractPipeline<?, Double, ?> upstream, boolean exclusive,
+                                   double identity, DoubleBinaryOperator op) {
+        return new OfDouble(upstream, exclusive, identity, op);
+    }
+
+    /**
+     * Specialized subtype for scanning int streams.
+     */
+    private static final class OfInt extends IntPipeline.StatefulOp<Integer> {
+        private final boolean exclusive;
+        private final int identity;
+        private final IntBinaryOperator op;
+
+        OfInt(AbstractPipeline<?, Integer, ?> upstream, boolean exclusive,
+              int identity, IntBinaryOperator op) {
+            super(upstream, StreamShape.INT_VALUE, FLAGS);
+            this.exclusive = exclusive;
+            this.identity = identity;
+            this.op = Objects.requireNonNull(op);
+        }
+
+        @Override
+        public Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+            return new Sink.ChainedInt<Integer>(sink) {
+                boolean started;
+                int acc;
+
+                @Override
+                public void begin(long size) {
+                    started = false;
+                    downstream.begin(size);
+                }
+
+                @Override
+                public void accept(int t) {
+                    if (exclusive) {
+                        int r = started ? acc : identity;
+                        acc = op.applyAsInt(r, t);
+                        started = true;
+                        downstream.accept(r);
+                    }
+                    else {
+                        acc = started ? op.applyAsInt(acc, t) : t;
+                        started = true;
+                        downstream.accept(acc);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
+                                                       Spliterator<P_IN> spliterator,
+                                                       IntFunction<Integer[]> generator) {
+            Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, true, generator);
+
+            int[] content = n.asPrimitiveArray();
+            if (exclusive)
+                Arrays.parallelExclusivePrefix(content, identity, op);
+            else
+                Arrays.parallelPrefix(content, op);
+
+            return Nodes.node(content);
+        }
+    }
+
+    /**
+     * Specialized subtype for scanning long streams.
+     */
+    private static final class OfLong extends LongPipeline.StatefulOp<Long> {
+        private final boolean exclusive;
+        private final long identity;
+        private final LongBinaryOperator op;
+
+        OfLong(AbstractPipeline<?, Long, ?> upstream, boolean exclusive,
+               long identity, LongBinaryOperator op) {
+            super(upstream, StreamShape.LONG_VALUE, FLAGS);
+            this.exclusive = exclusive;
+            this.identity = identity;
+            this.op = Objects.requireNonNull(op);
+        }
+
+        @Override
+        public Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+            return new Sink.ChainedLong<Long>(sink) {
+                boolean started;
+                long acc;
+
+                @Override
+                public void begin(long size) {
+                    started = false;
+                    downstream.begin(size);
+                }
+
+                @Override
+                public void accept(long t) {
+                    if (exclusive) {
+                        long r = started ? acc : identity;
+                        acc = op.applyAsLong(r, t);
+                        started = true;
+                        downstream.accept(r);
+                    }
+                    else {
+                        acc = started ? op.applyAsLong(acc, t) : t;
+                        started = true;
+                        downstream.accept(acc);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<Long[]> generator) {
+            Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, true, generator);
+
+            long[] content = n.asPrimitiveArray();
+            if (exclusive)
+                Arrays.parallelExclusivePrefix(content, identity, op);
+            else
+                Arrays.parallelPrefix(content, op);
+
+            return Nodes.node(content);
+        }
+    }
+
+    /**
+     * Specialized subtype for scanning double streams.
+     */
+    private static final class OfDouble extends DoublePipeline.StatefulOp<Double> {
+        private final boolean exclusive;
+        private final double identity;
+        private final DoubleBinaryOperator op;
+
+        OfDouble(AbstractPipeline<?, Double, ?> upstream, boolean exclusive,
+                 double identity, DoubleBinaryOperator op) {
+            super(upstream, StreamShape.DOUBLE_VALUE, FLAGS);
+            this.exclusive = exclusive;
+            this.identity = identity;
+            this.op = Objects.requireNonNull(op);
+        }
+
+        @Override
+        public Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
+            return new Sink.ChainedDouble<Double>(sink) {
+                boolean started;
+                double acc;
+
+                @Override
+                public void begin(long size) {
+                    started = false;
+                    downstream.begin(size);
+                }
+
+                @Override
+                public void accept(double t) {
+                    if (exclusive) {
+                        double r = started ? acc : identity;
+                        acc = op.applyAsDouble(r, t);
+                        started = true;
+                        downstream.accept(r);
+                    }
+                    else {
+                        acc = started ? op.applyAsDouble(acc, t) : t;
+                        started = true;
+                        downstream.accept(acc);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public <P_IN> Node<Double> opEvaluateParallel(PipelineHelper<Double> helper,
+                                                      Spliterator<P_IN> spliterator,
+                                                      IntFunction<Double[]> generator) {
+            Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, true, generator);
+
+            double[] content = n.asPrimitiveArray();
+            if (exclusive)
+                Arrays.parallelExclusivePrefix(content, identity, op);
+            else
+                Arrays.parallelPrefix(content, op);
+
+            return Nodes.node(content);
+        }
+    }
+}
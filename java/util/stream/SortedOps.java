@@ -137,12 +137,25 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (ExternalSort.ENABLED)
+                return new SpillingRefSortingSink<>(sink, comparator);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
                 return new RefSortingSink<>(sink, comparator);
         }
 
+        @Override
+        <P_IN> Spliterator<T> opEvaluateParallelLazy(PipelineHelper<T> helper,
+                                                     Spliterator<P_IN> spliterator) {
+            // Merge spilled runs as elements are taken, rather than
+            // collecting everything into one array, if too large
+            if (ExternalSort.exceedsThreshold(helper, spliterator)
+                && !(StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort))
+                return new ExternalSort.RefSortedSpliterator<>(helper, spliterator, comparator);
+            return super.opEvaluateParallelLazy(helper, spliterator);
+        }
+
         @Override
         public <P_IN> Node<T> opEvaluateParallel(PipelineHelper<T> helper,
                                                  Spliterator<P_IN> spliterator,
@@ -176,12 +189,23 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (ExternalSort.ENABLED)
+                return new SpillingIntSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
                 return new IntSortingSink(sink);
         }
 
+        @Override
+        <P_IN> Spliterator<Integer> opEvaluateParallelLazy(PipelineHelper<Integer> helper,
+                                                           Spliterator<P_IN> spliterator) {
+            if (ExternalSort.exceedsThreshold(helper, spliterator)
+                && !StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()))
+                return new ExternalSort.IntSortedSpliterator<>(helper, spliterator);
+            return super.opEvaluateParallelLazy(helper, spliterator);
+        }
+
         @Override
         public <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
                                                        Spliterator<P_IN> spliterator,
@@ -215,12 +239,23 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (ExternalSort.ENABLED)
+                return new SpillingLongSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
             else
                 return new LongSortingSink(sink);
         }
 
+        @Override
+        <P_IN> Spliterator<Long> opEvaluateParallelLazy(PipelineHelper<Long> helper,
+                                                        Spliterator<P_IN> spliterator) {
+            if (ExternalSort.exceedsThreshold(helper, spliterator)
+                && !StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()))
+                return new ExternalSort.LongSortedSpliterator<>(helper, spliterator);
+            return super.opEvaluateParallelLazy(helper, spliterator);
+        }
+
         @Override
         public <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
                                                     Spliterator<P_IN> spliterator,
@@ -254,12 +289,23 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (ExternalSort.ENABLED)
+                return new SpillingDoubleSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
             else
                 return new DoubleSortingSink(sink);
         }
 
+        @Override
+        <P_IN> Spliterator<Double> opEvaluateParallelLazy(PipelineHelper<Double> helper,
+                                                          Spliterator<P_IN> spliterator) {
+            if (ExternalSort.exceedsThreshold(helper, spliterator)
+                && !StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()))
+                return new ExternalSort.DoubleSortedSpliterator<>(helper, spliterator);
+            return super.opEvaluateParallelLazy(helper, spliterator);
+        }
+
         @Override
         public <P_IN> Node<Double> opEvaluateParallel(PipelineHelper<Double> helper,
                                                       Spliterator<P_IN> spliterator,
@@ -405,6 +451,37 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on reference streams whose
+     * elements may not fit in memory, by spilling sorted runs to files.
+     */
+    private static final class SpillingRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private ExternalSort.RefRuns<T> runs;
+
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator) {
+            super(sink, comparator);
+        }
+
+        @Override
+        public void begin(long size) {
+            runs = new ExternalSort.RefRuns<>(comparator, false);
+            runs.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.begin(runs.count());
+            runs.forEachSorted(downstream, cancellationWasRequested);
+            downstream.end();
+            runs = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            runs.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on int streams.
      */
@@ -503,6 +580,37 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on int streams whose elements
+     * may not fit in memory, by spilling sorted runs to files.
+     */
+    private static final class SpillingIntSortingSink extends AbstractIntSortingSink {
+        private ExternalSort.IntRuns runs;
+
+        SpillingIntSortingSink(Sink<? super Integer> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            runs = new ExternalSort.IntRuns(false);
+            runs.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.begin(runs.count());
+            runs.forEachSorted(downstream, cancellationWasRequested);
+            downstream.end();
+            runs = null;
+        }
+
+        @Override
+        public void accept(int t) {
+            runs.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -601,6 +709,37 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on long streams whose elements
+     * may not fit in memory, by spilling sorted runs to files.
+     */
+    private static final class SpillingLongSortingSink extends AbstractLongSortingSink {
+        private ExternalSort.LongRuns runs;
+
+        SpillingLongSortingSink(Sink<? super Long> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            runs = new ExternalSort.LongRuns(false);
+            runs.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.begin(runs.count());
+            runs.forEachSorted(downstream, cancellationWasRequested);
+            downstream.end();
+            runs = null;
+        }
+
+        @Override
+        public void accept(long t) {
+            runs.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -698,4 +837,35 @@ final class SortedOps {
             b.accept(t);
         }
     }
+
+    /**
+     * {@link Sink} for implementing sort on double streams whose elements
+     * may not fit in memory, by spilling sorted runs to files.
+     */
+    private static final class SpillingDoubleSortingSink extends AbstractDoubleSortingSink {
+        private ExternalSort.DoubleRuns runs;
+
+        SpillingDoubleSortingSink(Sink<? super Double> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            runs = new ExternalSort.DoubleRuns(false);
+            runs.begin(size);
+        }
+
+        @Override
+        public void end() {
+            downstream.begin(runs.count());
+            runs.forEachSorted(downstream, cancellationWasRequested);
+            downstream.end();
+            runs = null;
+        }
+
+        @Override
+        public void accept(double t) {
+            runs.accept(t);
+        }
+    }
 }
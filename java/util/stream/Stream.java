@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -370,6 +371,15 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      * <p>This is a <a href="package-summary.html#StreamOps">stateful
      * intermediate operation</a>.
      *
+     * @implNote If the system property {@code
+     * java.util.stream.SortedOps.spillThreshold} is set to a positive
+     * number of elements, larger sorts of elements that are all
+     * {@code String}s or boxed primitive values write sorted runs to
+     * temporary files and merge them, rather than holding all elements
+     * in memory.  Elements read back from such files are equal to, but
+     * not necessarily identical to, the elements that were sorted.
+     * Sorts of elements of other classes are always held in memory.
+     *
      * @return the new stream
      */
     Stream<T> sorted();
@@ -384,6 +394,15 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      * <p>This is a <a href="package-summary.html#StreamOps">stateful
      * intermediate operation</a>.
      *
+     * @implNote If the system property {@code
+     * java.util.stream.SortedOps.spillThreshold} is set to a positive
+     * number of elements, larger sorts of elements that are all
+     * {@code String}s or boxed primitive values write sorted runs to
+     * temporary files and merge them, rather than holding all elements
+     * in memory.  Elements read back from such files are equal to, but
+     * not necessarily identical to, the elements that were sorted.
+     * Sorts of elements of other classes are always held in memory.
+     *
      * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
      *                   <a href="package-summary.html#Statelessness">stateless</a>
      *                   {@code Comparator} to be used to compare stream elements
@@ -478,6 +497,131 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     Stream<T> skip(long n);
 
+    /**
+     * Returns a stream consisting of the elements of this stream grouped,
+     * in encounter order, into consecutive chunks of {@code size}
+     * elements, each of which is a list.  The last chunk holds the remaining
+     * elements, and so is smaller if the number of elements is not a
+     * multiple of {@code size}.  For example, chunks of size 2 of the
+     * elements {@code 1, 2, 3, 4, 5} are {@code [1, 2], [3, 4], [5]}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * In parallel pipelines whose size is known, chunks are formed without
+     * first collecting the elements of this stream: its spliterator is
+     * split, and each part produces the chunks that start in it.
+     *
+     * @param size the number of elements in each chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @since 1.8
+     */
+    default Stream<List<T>> chunk(int size) {
+        return StreamSupport.stream(spliterator(), isParallel()).onClose(this::close).chunk(size);
+    }
+
+    /**
+     * Returns a stream consisting of the windows of {@code size}
+     * consecutive elements of this stream that start every {@code step}
+     * elements, in encounter order, each of which is a list.  Window
+     * {@code k} holds the elements at positions {@code k * step} up to,
+     * but excluding, {@code k * step + size}; only full windows are
+     * included.  Windows overlap if {@code step} is less than {@code
+     * size}, and elements between windows are discarded if it is greater.
+     * For example, windows of size 3 and step 1 of the elements {@code 1,
+     * 2, 3, 4} are {@code [1, 2, 3], [2, 3, 4]}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @implNote
+     * In parallel pipelines whose size is known, windows are formed without
+     * first collecting the elements of this stream: its spliterator is
+     * split, and each part produces the windows that start in it, sharing
+     * with the next part only the elements that those windows need from it.
+     *
+     * @param size the number of elements in each window
+     * @param step the number of elements from the start of one window to
+     *        the start of the next
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @since 1.8
+     */
+    default Stream<List<T>> slidingWindow(int size, int step) {
+        return StreamSupport.stream(spliterator(), isParallel()).onClose(this::close)
+            .slidingWindow(size, step);
+    }
+
+    /**
+     * Returns a stream consisting of the longest prefix of the elements of
+     * this stream, in encounter order, that match the given predicate.
+     * The predicate is not applied to elements after the first that does
+     * not match it.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">short-circuiting
+     * stateful intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @apiNote
+     * As for {@link #limit limit}, this operation can be expensive on
+     * ordered parallel pipelines, since elements must be buffered until it
+     * is known that none before them fails to match.
+     *
+     * @param predicate a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                  <a href="package-summary.html#Statelessness">stateless</a>
+     *                  predicate to apply to elements to determine the
+     *                  longest prefix of elements
+     * @return the new stream
+     * @since 1.8
+     */
+    default Stream<T> takeWhile(Predicate<? super T> predicate) {
+        return StreamSupport.stream(spliterator(), isParallel()).onClose(this::close)
+            .takeWhile(predicate);
+    }
+
+    /**
+     * Returns a stream consisting of the remaining elements of this stream
+     * after dropping the longest prefix of its elements, in encounter
+     * order, that match the given predicate.  The predicate is not applied
+     * to elements after the first that does not match it.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation wraps the {@link #spliterator()
+     * spliterator} of this stream in a new stream, to which the operation
+     * is applied.
+     *
+     * @param predicate a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                  <a href="package-summary.html#Statelessness">stateless</a>
+     *                  predicate to apply to elements to determine the
+     *                  longest prefix of elements to drop
+     * @return the new stream
+     * @since 1.8
+     */
+    default Stream<T> dropWhile(Predicate<? super T> predicate) {
+        return StreamSupport.stream(spliterator(), isParallel()).onClose(this::close)
+            .dropWhile(predicate);
+    }
+
     /**
      * Performs an action for each element of this stream.
      *
@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Records where time is spent in the evaluation of stream pipelines.
+ *
+ * <p>Profiling is disabled by default, and may be switched on and off
+ * at any time, typically through JMX; see {@link StreamProfilerMXBean}.
+ * While it is disabled, the cost to pipelines is a read of a volatile
+ * static field at the start of each terminal operation, plus a null
+ * check of a plain field of the source stage whenever the stages' sinks
+ * are chained together and whenever a parallel leaf task runs, that is,
+ * a few plain reads per leaf task.  While it is enabled, each pipeline
+ * that is evaluated by a terminal operation produces a {@link Report},
+ * in which each stage counts the elements it accepts and the time spent
+ * in it and in its downstream stages, and, for parallel pipelines, each
+ * leaf task records the estimated size of its portion of the source and
+ * the time it took.  Large differences between leaf tasks indicate
+ * skew; leaf tasks larger than their target size indicate a source
+ * spliterator that does not split well.
+ *
+ * <p>Instrumentation times every element at every stage, and so slows
+ * pipelines with cheap stages considerably; the times recorded are
+ * useful for comparison between stages rather than as absolute costs.
+ * Pipelines traversed through {@link BaseStream#iterator()} or {@link
+ * BaseStream#spliterator()} are not profiled.  The work of a stateful
+ * stage of a parallel pipeline that is performed as a barrier between
+ * the upstream and downstream stages, such as a parallel sort, is
+ * included in the elapsed time of the report but not in the time of the
+ * stage.  Streams consumed within a stage, such as those returned by the
+ * mapper of {@code flatMap}, are profiled as pipelines of their own.
+ *
+ * <p>The most recent {@value #MAX_REPORTS} reports are retained.
+ *
+ * @see StreamProfilerMXBean
+ * @since 1.8
+ */
+public final class StreamProfiler implements StreamProfilerMXBean {
+
+    /** The number of reports retained. */
+    public static final int MAX_REPORTS = 64;
+
+    /** The number of buckets in each histogram. */
+    static final int BUCKETS = 64;
+
+    /**
+     * True if profiling is enabled.  Read by AbstractPipeline when a
+     * terminal operation starts.
+     */
+    static volatile boolean enabled;
+
+    private static final StreamProfiler instance = new StreamProfiler();
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    /** The retained reports; guarded by its own monitor */
+    private final ArrayDeque<Report> reports = new ArrayDeque<>(MAX_REPORTS);
+
+    private StreamProfiler() {}
+
+    /**
+     * Returns the profiler.
+     *
+     * @return the profiler
+     */
+    public static StreamProfiler getInstance() {
+        return instance;
+    }
+
+    private static LongAdder[] newHistogram() {
+        LongAdder[] h = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            h[i] = new LongAdder();
+        return h;
+    }
+
+    private static long[] sum(LongAdder[] h) {
+        long[] a = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            a[i] = h[i].sum();
+        return a;
+    }
+
+    /** Returns the histogram bucket for a non-negative value. */
+    static int bucketFor(long v) {
+        return (v <= 0L) ? 0 : 64 - Long.numberOfLeadingZeros(v);
+    }
+
+    private static void updateMax(AtomicLong max, long v) {
+        for (long m; v > (m = max.get()); )
+            if (max.compareAndSet(m, v))
+                break;
+    }
+
+    /**
+     * Returns a short name for the class of an operation or spliterator:
+     * for anonymous classes, the enclosing class and method, such as
+     * {@code ReferencePipeline.map}, and otherwise the class name without
+     * its package.
+     */
+    static String nameOf(Class<?> c) {
+        try {
+            Method m = c.getEnclosingMethod();
+            if (m != null)
+                return m.getDeclaringClass().getSimpleName() + "." + m.getName();
+        } catch (RuntimeException ignore) {
+        }
+        String n = c.getName();
+        return n.substring(n.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Starts a report for a pipeline about to be evaluated.  Called by
+     * AbstractPipeline only when profiling is enabled, with the names
+     * of the source, the intermediate operations in order, and the
+     * terminal operation.
+     */
+    static Report begin(String source, List<String> ops, String terminal,
+                        boolean parallel) {
+        return new Report(sequence.incrementAndGet(), source, ops, terminal,
+                          parallel);
+    }
+
+    void retain(Report r) {
+        synchronized (reports) {
+            if (reports.size() >= MAX_REPORTS)
+                reports.pollFirst();
+            reports.addLast(r);
+        }
+    }
+
+    private static void checkControlPermission() {
+        SecurityManager security = System.getSecurityManager();
+        if (security != null)
+            security.checkPermission(
+                new java.lang.management.ManagementPermission("control"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        checkControlPermission();
+        StreamProfiler.enabled = enabled;
+    }
+
+    public List<Report> getReports() {
+        synchronized (reports) {
+            return new ArrayList<>(reports);
+        }
+    }
+
+    /**
+     * Returns the report of the most recently completed pipeline, or
+     * {@code null} if none is retained.
+     *
+     * @return the latest report, or {@code null} if none
+     */
+    public Report getLatestReport() {
+        synchronized (reports) {
+            return reports.peekLast();
+        }
+    }
+
+    public void reset() {
+        checkControlPermission();
+        synchronized (reports) {
+            reports.clear();
+        }
+    }
+
+    /**
+     * Returns a string summarizing the profiler state.
+     *
+     * @return a string summarizing the profiler state
+     */
+    public String toString() {
+        int n;
+        synchronized (reports) {
+            n = reports.size();
+        }
+        return super.toString() +
+            "[" + (enabled ? "enabled" : "disabled") +
+            ", reports = " + n + "]";
+    }
+
+    /**
+     * The profile of one stage of a pipeline, including its terminal
+     * operation.
+     */
+    public static final class Stage {
+        private final String name;
+        final LongAdder elements = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        /** The time spent in the downstream stage nested in this one */
+        final LongAdder nestedNanos = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the operation of this stage, such as
+         * {@code ReferencePipeline.map}.
+         *
+         * @return the name of the operation
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of elements accepted by this stage.
+         *
+         * @return the number of elements
+         */
+        public long getElementCount() {
+            return elements.sum();
+        }
+
+        /**
+         * Returns the time spent in this stage and, within it, in the
+         * stages downstream of it.
+         *
+         * @return the inclusive time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        /**
+         * Returns the time spent in this stage, excluding its
+         * downstream stages.
+         *
+         * @return the exclusive time in nanoseconds
+         */
+        public long getSelfNanos() {
+            return Math.max(0L, nanos.sum() - nestedNanos.sum());
+        }
+
+        public String toString() {
+            return name + "[elements = " + getElementCount() +
+                ", time = " + getNanos() + "ns, self = " +
+                getSelfNanos() + "ns]";
+        }
+    }
+
+    /**
+     * The profile of the evaluation of one pipeline.
+     */
+    public static final class Report {
+        private final long id;
+        private final String source;
+        private final boolean parallel;
+        private final long startTime;
+        private volatile long elapsedNanos = -1L;
+        /** The intermediate stages in order, then the terminal stage */
+        private final Stage[] stages;
+
+        private final LongAdder leafCount = new LongAdder();
+        private final LongAdder leafNanos = new LongAdder();
+        private final LongAdder leafSizes = new LongAdder();
+        private final LongAdder unsplitLeaves = new LongAdder();
+        private final AtomicLong maxLeafNanos = new AtomicLong();
+        private final AtomicLong maxLeafSize = new AtomicLong();
+        private final LongAdder[] leafSizeHistogram = newHistogram();
+        private final LongAdder[] leafTimeHistogram = newHistogram();
+
+        Report(long id, String source, List<String> ops, String terminal,
+               boolean parallel) {
+            this.id = id;
+            this.source = source;
+            this.parallel = parallel;
+            int n = ops.size();
+            stages = new Stage[n + 1];
+            for (int i = 0; i < n; ++i)
+                stages[i] = new Stage(ops.get(i));
+            stages[n] = new Stage(terminal);
+            this.startTime = System.nanoTime();
+        }
+
+        /** Returns the stage of the intermediate operation at the given index */
+        Stage stage(int index) {
+            return stages[index];
+        }
+
+        /** Returns the stage of the terminal operation */
+        Stage terminalStage() {
+            return stages[stages.length - 1];
+        }
+
+        /**
+         * Records a leaf task, with the estimated size of its source and
+         * the target size it was split for.
+         */
+        void recordLeaf(long size, long targetSize, long nanos) {
+            leafCount.increment();
+            leafNanos.add(nanos);
+            leafSizes.add(size);
+            if (size > targetSize)
+                unsplitLeaves.increment();
+            updateMax(maxLeafNanos, nanos);
+            updateMax(maxLeafSize, size);
+            leafSizeHistogram[bucketFor(size)].increment();
+            leafTimeHistogram[bucketFor(nanos)].increment();
+        }
+
+        /**
+         * Records the end of the evaluation and retains this report.
+         */
+        void complete() {
+            elapsedNanos = System.nanoTime() - startTime;
+            instance.retain(this);
+        }
+
+        /**
+         * Returns the sequence number of this report, in order of the
+         * start of evaluation.
+         *
+         * @return the sequence number
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Returns a description of the pipeline, naming its source and
+         * its operations in order.
+         *
+         * @return a description of the pipeline
+         */
+        public String getPipeline() {
+            StringBuilder sb = new StringBuilder(source);
+            for (Stage s : stages)
+                sb.append(" -> ").append(s.getName());
+            return sb.toString();
+        }
+
+        /**
+         * Returns the name of the class of the source spliterator, or
+         * {@code "(supplier)"} if the source was supplied lazily.
+         *
+         * @return the name of the source
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Returns {@code true} if the pipeline was evaluated in parallel.
+         *
+         * @return {@code true} if parallel
+         */
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        /**
+         * Returns the time taken by the terminal operation, or -1 if it
+         * has not completed.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the stages of the pipeline, the intermediate operations
+         * in order followed by the terminal operation.
+         *
+         * @return the stages
+         */
+        public List<Stage> getStages() {
+            List<Stage> l = new ArrayList<>(stages.length);
+            Collections.addAll(l, stages);
+            return Collections.unmodifiableList(l);
+        }
+
+        /**
+         * Returns the number of leaf tasks of a parallel evaluation.
+         *
+         * @return the number of leaf tasks
+         */
+        public long getLeafTaskCount() {
+            return leafCount.sum();
+        }
+
+        /**
+         * Returns the total time taken by leaf tasks.
+         *
+         * @return the total leaf time in nanoseconds
+         */
+        public long getTotalLeafNanos() {
+            return leafNanos.sum();
+        }
+
+        /**
+         * Returns the longest time taken by a leaf task.
+         *
+         * @return the maximum leaf time in nanoseconds
+         */
+        public long getMaxLeafNanos() {
+            return maxLeafNanos.get();
+        }
+
+        /**
+         * Returns the sum of the estimated sizes of the leaf tasks.
+         *
+         * @return the total leaf size
+         */
+        public long getTotalLeafSize() {
+            return leafSizes.sum();
+        }
+
+        /**
+         * Returns the largest estimated size of a leaf task.
+         *
+         * @return the maximum leaf size
+         */
+        public long getMaxLeafSize() {
+            return maxLeafSize.get();
+        }
+
+        /**
+         * Returns the number of leaf tasks larger than the target size,
+         * whose spliterators could not be split further.
+         *
+         * @return the number of unsplit leaf tasks
+         */
+        public long getUnsplitLeafCount() {
+            return unsplitLeaves.sum();
+        }
+
+        /**
+         * Returns the histogram of the estimated sizes of the leaf
+         * tasks, as an array of 64 counts in which element {@code i}
+         * counts the sizes {@code v} with {@code 2^(i-1) <= v < 2^i},
+         * and element 0 counts sizes of zero.
+         *
+         * @return the leaf size histogram
+         */
+        public long[] getLeafSizeHistogram() {
+            return sum(leafSizeHistogram);
+        }
+
+        /**
+         * Returns the histogram of the times taken by the leaf tasks, in
+         * nanoseconds, with buckets as in {@link #getLeafSizeHistogram}.
+         *
+         * @return the leaf time histogram
+         */
+        public long[] getLeafTimeHistogram() {
+            return sum(leafTimeHistogram);
+        }
+
+        /**
+         * Returns a table of the stages of the pipeline and, for
+         * parallel pipelines, a summary of the leaf tasks.
+         *
+         * @return a multi-line description of this report
+         */
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("pipeline #%d (%s), %,d ns%n  source: %s%n",
+                                    id, parallel ? "parallel" : "sequential",
+                                    elapsedNanos, source));
+            sb.append(String.format("  %-32s %15s %17s %17s%n",
+                                    "stage", "elements", "time ns", "self ns"));
+            for (Stage s : stages)
+                sb.append(String.format("  %-32s %,15d %,17d %,17d%n",
+                                        s.getName(), s.getElementCount(),
+                                        s.getNanos(), s.getSelfNanos()));
+            long leaves = getLeafTaskCount();
+            if (leaves > 0L) {
+                sb.append(String.format(
+                    "  leaf tasks: %,d, unsplit: %,d, size mean/max: %,d/%,d, " +
+                    "time mean/max: %,d/%,d ns%n",
+                    leaves, getUnsplitLeafCount(),
+                    getTotalLeafSize() / leaves, getMaxLeafSize(),
+                    getTotalLeafNanos() / leaves, getMaxLeafNanos()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A sink that times and counts the elements passed to the sink of a
+     * stage, which is inserted in front of it when a pipeline is wrapped.
+     * Instances may be shared by concurrent leaf tasks, so all counts
+     * are accumulated in the stage.
+     */
+    static final class ProfilingSink
+            implements Sink<Object>, IntConsumer, LongConsumer, DoubleConsumer {
+        private final Sink<Object> downstream;
+        private final Stage stage;
+        /**
+         * The stage of the profiling sink nested around this one, if
+         * any.  Set before the pipeline is evaluated.
+         */
+        Stage upstream;
+
+        @SuppressWarnings("unchecked")
+        ProfilingSink(Sink<?> downstream, Stage stage) {
+            this.downstream = (Sink<Object>) downstream;
+            this.stage = stage;
+        }
+
+        private void record(long start, boolean element) {
+            long nanos = System.nanoTime() - start;
+            if (element)
+                stage.elements.increment();
+            stage.nanos.add(nanos);
+            Stage u = upstream;
+            if (u != null)
+                u.nestedNanos.add(nanos);
+        }
+
+        @Override
+        public void begin(long size) {
+            long start = System.nanoTime();
+            downstream.begin(size);
+            record(start, false);
+        }
+
+        @Override
+        public void end() {
+            long start = System.nanoTime();
+            downstream.end();
+            record(start, false);
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+
+        @Override
+        public void accept(Object t) {
+            long start = System.nanoTime();
+            downstream.accept(t);
+            record(start, true);
+        }
+
+        @Override
+        public void accept(int value) {
+            long start = System.nanoTime();
+            downstream.accept(value);
+            record(start, true);
+        }
+
+        @Override
+        public void accept(long value) {
+            long start = System.nanoTime();
+            downstream.accept(value);
+            record(start, true);
+        }
+
+        @Override
+        public void accept(double value) {
+            long start = System.nanoTime();
+            downstream.accept(value);
+            record(start, true);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.List;
+
+/**
+ * The management interface for the {@link StreamProfiler}.
+ *
+ * <p>The profiler is not registered automatically.  To control it
+ * through JMX, register it with an MBean server, for example:
+ *
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     StreamProfiler.getInstance(),
+ *     new ObjectName("java.util.stream:type=StreamProfiler"));
+ * }</pre>
+ *
+ * <p>Reports are exported as composite data with the attributes of
+ * {@link StreamProfiler.Report}, and their stages as composite data
+ * with the attributes of {@link StreamProfiler.Stage}.
+ *
+ * @see java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * @since 1.8
+ */
+public interface StreamProfilerMXBean {
+
+    /**
+     * Returns {@code true} if pipelines are being profiled.
+     *
+     * @return {@code true} if profiling is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables the profiling of pipelines evaluated
+     * subsequently.
+     *
+     * @param enabled {@code true} to enable profiling
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have {@code ManagementPermission("control")}
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the reports of the most recently evaluated pipelines that
+     * were profiled, oldest first.
+     *
+     * @return the retained reports
+     */
+    List<StreamProfiler.Report> getReports();
+
+    /**
+     * Discards all retained reports.
+     *
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have {@code ManagementPermission("control")}
+     */
+    void reset();
+}
@@ -0,0 +1,713 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CountedCompleter;
+import java.util.function.DoublePredicate;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Factory for the "takeWhile" and "dropWhile" operations, which take or
+ * drop the longest prefix of the elements of a stream that satisfy a
+ * predicate.
+ *
+ * <p>In parallel, each leaf task applies the operation to its part of the
+ * input.  For "takeWhile", a leaf at which the predicate fails cancels
+ * the tasks for later parts, whose elements are not needed.  For
+ * "dropWhile", leaves retain all their elements and count how many of
+ * them satisfy the predicate before the first that does not; the counts
+ * are combined to find the prefix to drop from the concatenated result.
+ *
+ * @since 1.8
+ */
+final class WhileOps {
+
+    private WhileOps() { }
+
+    static final int TAKE_FLAGS = StreamOpFlag.NOT_SIZED | StreamOpFlag.IS_SHORT_CIRCUIT;
+
+    static final int DROP_FLAGS = StreamOpFlag.NOT_SIZED;
+
+    @SuppressWarnings("unchecked")
+    private static <T> IntFunction<T[]> castingArray() {
+        return size -> (T[]) new Object[size];
+    }
+
+    /**
+     * Appends a "takeWhile" operation to the provided Stream.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param predicate the predicate that elements must satisfy to be taken
+     */
+    static <T> Stream<T> makeTakeWhileRef(AbstractPipeline<?, T, ?> upstream,
+                                          Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, StreamShape.REFERENCE, TAKE_FLAGS) {
+            @Override
+            <P_IN> Spliterator<T> opEvaluateParallelLazy(PipelineHelper<T> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, WhileOps.<T>castingArray()).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<T> opEvaluateParallel(PipelineHelper<T> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<T[]> generator) {
+                return new TakeWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<T> sink) {
+                return new Sink.ChainedReference<T, T>(sink) {
+                    boolean take = true;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        if (take && (take = predicate.test(t)))
+                            downstream.accept(t);
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return !take || downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a "dropWhile" operation to the provided Stream.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param predicate the predicate that elements must satisfy to be dropped
+     */
+    static <T> Stream<T> makeDropWhileRef(AbstractPipeline<?, T, ?> upstream,
+                                          Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+
+        class Op extends ReferencePipeline.StatefulOp<T, T> implements DropWhileOp<T> {
+            Op() {
+                super(upstream, StreamShape.REFERENCE, DROP_FLAGS);
+            }
+
+            @Override
+            <P_IN> Spliterator<T> opEvaluateParallelLazy(PipelineHelper<T> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, WhileOps.<T>castingArray()).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<T> opEvaluateParallel(PipelineHelper<T> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<T[]> generator) {
+                return new DropWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<T> sink) {
+                return opWrapSink(sink, false);
+            }
+
+            @Override
+            public DropWhileSink<T> opWrapSink(Sink<T> sink, boolean retainAndCount) {
+                class OpSink extends Sink.ChainedReference<T, T> implements DropWhileSink<T> {
+                    long dropCount;
+                    boolean take;
+
+                    OpSink() {
+                        super(sink);
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        boolean taken = take || (take = !predicate.test(t));
+                        if (taken)
+                            downstream.accept(t);
+                        else if (retainAndCount) {
+                            dropCount++;
+                            downstream.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public long getDropCount() {
+                        return dropCount;
+                    }
+                }
+                return new OpSink();
+            }
+        }
+        return new Op();
+    }
+
+    /**
+     * Appends a "takeWhile" operation to the provided IntStream.
+     *
+     * @param upstream an IntStream
+     * @param predicate the predicate that elements must satisfy to be taken
+     */
+    static IntStream makeTakeWhileInt(AbstractPipeline<?, Integer, ?> upstream,
+                                      IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new IntPipeline.StatefulOp<Integer>(upstream, StreamShape.INT_VALUE, TAKE_FLAGS) {
+            @Override
+            <P_IN> Spliterator<Integer> opEvaluateParallelLazy(PipelineHelper<Integer> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Integer[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Integer[]> generator) {
+                return new TakeWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    boolean take = true;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (take && (take = predicate.test(t)))
+                            downstream.accept(t);
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return !take || downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a "dropWhile" operation to the provided IntStream.
+     *
+     * @param upstream an IntStream
+     * @param predicate the predicate that elements must satisfy to be dropped
+     */
+    static IntStream makeDropWhileInt(AbstractPipeline<?, Integer, ?> upstream,
+                                      IntPredicate predicate) {
+        Objects.requireNonNull(predicate);
+
+        class Op extends IntPipeline.StatefulOp<Integer> implements DropWhileOp<Integer> {
+            Op() {
+                super(upstream, StreamShape.INT_VALUE, DROP_FLAGS);
+            }
+
+            @Override
+            <P_IN> Spliterator<Integer> opEvaluateParallelLazy(PipelineHelper<Integer> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Integer[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Integer[]> generator) {
+                return new DropWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+                return opWrapSink(sink, false);
+            }
+
+            @Override
+            public DropWhileSink<Integer> opWrapSink(Sink<Integer> sink, boolean retainAndCount) {
+                class OpSink extends Sink.ChainedInt<Integer> implements DropWhileSink<Integer> {
+                    long dropCount;
+                    boolean take;
+
+                    OpSink() {
+                        super(sink);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        boolean taken = take || (take = !predicate.test(t));
+                        if (taken)
+                            downstream.accept(t);
+                        else if (retainAndCount) {
+                            dropCount++;
+                            downstream.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public long getDropCount() {
+                        return dropCount;
+                    }
+                }
+                return new OpSink();
+            }
+        }
+        return new Op();
+    }
+
+    /**
+     * Appends a "takeWhile" operation to the provided LongStream.
+     *
+     * @param upstream a LongStream
+     * @param predicate the predicate that elements must satisfy to be taken
+     */
+    static LongStream makeTakeWhileLong(AbstractPipeline<?, Long, ?> upstream,
+                                        LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new LongPipeline.StatefulOp<Long>(upstream, StreamShape.LONG_VALUE, TAKE_FLAGS) {
+            @Override
+            <P_IN> Spliterator<Long> opEvaluateParallelLazy(PipelineHelper<Long> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Long[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Long[]> generator) {
+                return new TakeWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    boolean take = true;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        if (take && (take = predicate.test(t)))
+                            downstream.accept(t);
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return !take || downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a "dropWhile" operation to the provided LongStream.
+     *
+     * @param upstream a LongStream
+     * @param predicate the predicate that elements must satisfy to be dropped
+     */
+    static LongStream makeDropWhileLong(AbstractPipeline<?, Long, ?> upstream,
+                                        LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+
+        class Op extends LongPipeline.StatefulOp<Long> implements DropWhileOp<Long> {
+            Op() {
+                super(upstream, StreamShape.LONG_VALUE, DROP_FLAGS);
+            }
+
+            @Override
+            <P_IN> Spliterator<Long> opEvaluateParallelLazy(PipelineHelper<Long> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Long[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Long[]> generator) {
+                return new DropWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+                return opWrapSink(sink, false);
+            }
+
+            @Override
+            public DropWhileSink<Long> opWrapSink(Sink<Long> sink, boolean retainAndCount) {
+                class OpSink extends Sink.ChainedLong<Long> implements DropWhileSink<Long> {
+                    long dropCount;
+                    boolean take;
+
+                    OpSink() {
+                        super(sink);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        boolean taken = take || (take = !predicate.test(t));
+                        if (taken)
+                            downstream.accept(t);
+                        else if (retainAndCount) {
+                            dropCount++;
+                            downstream.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public long getDropCount() {
+                        return dropCount;
+                    }
+                }
+                return new OpSink();
+            }
+        }
+        return new Op();
+    }
+
+    /**
+     * Appends a "takeWhile" operation to the provided DoubleStream.
+     *
+     * @param upstream a DoubleStream
+     * @param predicate the predicate that elements must satisfy to be taken
+     */
+    static DoubleStream makeTakeWhileDouble(AbstractPipeline<?, Double, ?> upstream,
+                                            DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+        return new DoublePipeline.StatefulOp<Double>(upstream, StreamShape.DOUBLE_VALUE, TAKE_FLAGS) {
+            @Override
+            <P_IN> Spliterator<Double> opEvaluateParallelLazy(PipelineHelper<Double> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Double[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Double> opEvaluateParallel(PipelineHelper<Double> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Double[]> generator) {
+                return new TakeWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
+                return new Sink.ChainedDouble<Double>(sink) {
+                    boolean take = true;
+
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        if (take && (take = predicate.test(t)))
+                            downstream.accept(t);
+                    }
+
+                    @Override
+                    public boolean cancellationRequested() {
+                        return !take || downstream.cancellationRequested();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a "dropWhile" operation to the provided DoubleStream.
+     *
+     * @param upstream a DoubleStream
+     * @param predicate the predicate that elements must satisfy to be dropped
+     */
+    static DoubleStream makeDropWhileDouble(AbstractPipeline<?, Double, ?> upstream,
+                                            DoublePredicate predicate) {
+        Objects.requireNonNull(predicate);
+
+        class Op extends DoublePipeline.StatefulOp<Double> implements DropWhileOp<Double> {
+            Op() {
+                super(upstream, StreamShape.DOUBLE_VALUE, DROP_FLAGS);
+            }
+
+            @Override
+            <P_IN> Spliterator<Double> opEvaluateParallelLazy(PipelineHelper<Double> helper,
+                                                           Spliterator<P_IN> spliterator) {
+                return opEvaluateParallel(helper, spliterator, Double[]::new).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<Double> opEvaluateParallel(PipelineHelper<Double> helper,
+                                                Spliterator<P_IN> spliterator,
+                                                IntFunction<Double[]> generator) {
+                return new DropWhileTask<>(this, helper, spliterator, generator).invoke();
+            }
+
+            @Override
+            Sink<Double> opWrapSink(int flags, Sink<Double> sink) {
+                return opWrapSink(sink, false);
+            }
+
+            @Override
+            public DropWhileSink<Double> opWrapSink(Sink<Double> sink, boolean retainAndCount) {
+                class OpSink extends Sink.ChainedDouble<Double> implements DropWhileSink<Double> {
+                    long dropCount;
+                    boolean take;
+
+                    OpSink() {
+                        super(sink);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        boolean taken = take || (take = !predicate.test(t));
+                        if (taken)
+                            downstream.accept(t);
+                        else if (retainAndCount) {
+                            dropCount++;
+                            downstream.accept(t);
+                        }
+                    }
+
+                    @Override
+                    public long getDropCount() {
+                        return dropCount;
+                    }
+                }
+                return new OpSink();
+            }
+        }
+        return new Op();
+    }
+
+    /**
+     * A "dropWhile" operation, which can wrap a sink that retains the
+     * dropped elements for parallel evaluation.
+     *
+     * @param <T> the type of both input and output elements
+     */
+    interface DropWhileOp<T> {
+        /**
+         * Accepts a {@code Sink} which will receive the results of this
+         * operation, and returns a {@code DropWhileSink} which accepts
+         * elements of the input type.
+         *
+         * @param sink sink to which elements should be sent after processing
+         * @param retainAndCount true if elements that would be dropped are
+         *        instead passed to the sink and counted
+         * @return a sink which accepts elements and performs the operation
+         */
+        DropWhileSink<T> opWrapSink(Sink<T> sink, boolean retainAndCount);
+    }
+
+    /**
+     * A sink of a "dropWhile" operation, which counts the elements it
+     * retains that would otherwise have been dropped.
+     *
+     * @param <T> the type of elements
+     */
+    interface DropWhileSink<T> extends Sink<T> {
+        /**
+         * Returns the number of elements retained that would otherwise have
+         * been dropped.
+         *
+         * @return the number of elements that would have been dropped
+         */
+        long getDropCount();
+    }
+
+    /**
+     * {@code ForkJoinTask} implementing "takeWhile" in parallel.  A leaf
+     * at which the predicate fails marks its result as cut short and
+     * cancels the tasks to its right.
+     */
+    private static final class TakeWhileTask<P_IN, P_OUT>
+            extends AbstractShortCircuitTask<P_IN, P_OUT, Node<P_OUT>, TakeWhileTask<P_IN, P_OUT>> {
+        private final AbstractPipeline<P_OUT, P_OUT, ?> op;
+        private final IntFunction<P_OUT[]> generator;
+
+        /** True if the predicate failed for an element of this task */
+        private boolean cut;
+
+        private volatile boolean completed;
+
+        TakeWhileTask(AbstractPipeline<P_OUT, P_OUT, ?> op,
+                      PipelineHelper<P_OUT> helper,
+                      Spliterator<P_IN> spliterator,
+                      IntFunction<P_OUT[]> generator) {
+            super(helper, spliterator);
+            this.op = op;
+            this.generator = generator;
+        }
+
+        TakeWhileTask(TakeWhileTask<P_IN, P_OUT> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+            this.generator = parent.generator;
+        }
+
+        @Override
+        protected TakeWhileTask<P_IN, P_OUT> makeChild(Spliterator<P_IN> spliterator) {
+            return new TakeWhileTask<>(this, spliterator);
+        }
+
+        @Override
+        protected final Node<P_OUT> getEmptyResult() {
+            return Nodes.emptyNode(op.getOutputShape());
+        }
+
+        @Override
+        protected final Node<P_OUT> doLeaf() {
+            Node.Builder<P_OUT> nb = helper.makeNodeBuilder(-1, generator);
+            Sink<P_OUT> opSink = op.opWrapSink(helper.getStreamAndOpFlags(), nb);
+            helper.copyIntoWithCancel(helper.wrapSink(opSink), spliterator);
+            // The node builder never requests cancellation, so the op
+            // sink does exactly when the predicate has failed
+            if (cut = opSink.cancellationRequested())
+                cancelLaterNodes();
+            return nb.build();
+        }
+
+        @Override
+        public final void onCompletion(CountedCompleter<?> caller) {
+            if (!isLeaf()) {
+                Node<P_OUT> result;
+                cut = leftChild.cut || rightChild.cut;
+                if (canceled)
+                    result = getEmptyResult();
+                else if (leftChild.cut)
+                    result = leftChild.getLocalResult();
+                else {
+                    Node<P_OUT> left = leftChild.getLocalResult();
+                    Node<P_OUT> right = rightChild.getLocalResult();
+                    if (left.count() == 0)
+                        result = right;
+                    else if (right.count() == 0)
+                        result = left;
+                    else
+                        result = Nodes.conc(op.getOutputShape(), left, right);
+                }
+                setLocalResult(result);
+            }
+            completed = true;
+            super.onCompletion(caller);
+        }
+
+        @Override
+        protected void cancel() {
+            super.cancel();
+            if (completed)
+                setLocalResult(getEmptyResult());
+        }
+    }
+
+    /**
+     * {@code ForkJoinTask} implementing "dropWhile" in parallel.  Leaves
+     * other than the root retain all their elements, counting those that
+     * would have been dropped, and the root truncates the combined result.
+     */
+    private static final class DropWhileTask<P_IN, P_OUT>
+            extends AbstractTask<P_IN, P_OUT, Node<P_OUT>, DropWhileTask<P_IN, P_OUT>> {
+        private final AbstractPipeline<P_OUT, P_OUT, ?> op;
+        private final IntFunction<P_OUT[]> generator;
+
+        /** The number of leading elements of this task to drop */
+        private long dropCount;
+
+        /** The number of elements of this task */
+        private long thisNodeSize;
+
+        DropWhileTask(AbstractPipeline<P_OUT, P_OUT, ?> op,
+                      PipelineHelper<P_OUT> helper,
+                      Spliterator<P_IN> spliterator,
+                      IntFunction<P_OUT[]> generator) {
+            super(helper, spliterator);
+            assert op instanceof DropWhileOp;
+            this.op = op;
+            this.generator = generator;
+        }
+
+        DropWhileTask(DropWhileTask<P_IN, P_OUT> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+            this.generator = parent.generator;
+        }
+
+        @Override
+        protected DropWhileTask<P_IN, P_OUT> makeChild(Spliterator<P_IN> spliterator) {
+            return new DropWhileTask<>(this, spliterator);
+        }
+
+        @Override
+        protected final Node<P_OUT> doLeaf() {
+            boolean isChild = !isRoot();
+            Node.Builder<P_OUT> nb = helper.makeNodeBuilder(
+                isChild ? helper.exactOutputSizeIfKnown(spliterator) : -1, generator);
+            @SuppressWarnings("unchecked")
+            DropWhileOp<P_OUT> dropOp = (DropWhileOp<P_OUT>) op;
+            DropWhileSink<P_OUT> s = dropOp.opWrapSink(nb, isChild);
+            helper.wrapAndCopyInto(s, spliterator);
+            Node<P_OUT> node = nb.build();
+            thisNodeSize = node.count();
+            dropCount = s.getDropCount();
+            return node;
+        }
+
+        @Override
+        public final void onCompletion(CountedCompleter<?> caller) {
+            if (!isLeaf()) {
+                Node<P_OUT> left = leftChild.getLocalResult();
+                Node<P_OUT> right = rightChild.getLocalResult();
+                dropCount = leftChild.dropCount;
+                if (dropCount == leftChild.thisNodeSize)
+                    dropCount += rightChild.dropCount;
+                thisNodeSize = leftChild.thisNodeSize + rightChild.thisNodeSize;
+                Node<P_OUT> result;
+                if (leftChild.thisNodeSize == 0)
+                    result = right;
+                else if (rightChild.thisNodeSize == 0)
+                    result = left;
+                else
+                    result = Nodes.conc(op.getOutputShape(), left, right);
+                setLocalResult(isRoot() ?
+                               result.truncate(dropCount, thisNodeSize, generator) :
+                               result);
+            }
+            super.onCompletion(caller);
+        }
+    }
+}
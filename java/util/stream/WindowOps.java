@@ -0,0 +1,1150 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * Factory for stateful intermediate operations that group consecutive
+ * elements of their input into windows: chunks, which partition the
+ * input into groups of a given size, and sliding windows, which start
+ * every given number of elements and may overlap.  Windows of reference
+ * streams are lists, and windows of primitive streams are arrays.
+ *
+ * <p>Window {@code k} holds the input elements with indexes {@code
+ * k * step} up to, but excluding, {@code k * step + size}.  Only full
+ * windows are produced, except that a chunk operation, for which step
+ * and size are equal, also produces the partial window at the end of
+ * the input, if any.
+ *
+ * <p>In parallel, if the size of the input is known and its spliterator
+ * is {@code SUBSIZED}, the windows are computed by splitting the input
+ * spliterator: when a split does not fall on a window boundary, the
+ * elements that the last windows of the prefix need from the suffix are
+ * taken from the suffix and shared between the two.  Otherwise the
+ * input is first collected.
+ *
+ * @since 1.8
+ */
+final class WindowOps {
+
+    // No instances
+    private WindowOps() { }
+
+    /**
+     * Flags for window operations, which produce a different number of
+     * elements, neither sorted nor distinct.
+     */
+    private static final int FLAGS =
+        StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED;
+
+    /** The initial capacity of a window of unknown size */
+    static final int INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * Checks window arguments.
+     *
+     * @throws IllegalArgumentException if size or step is not positive
+     */
+    static void checkArguments(int size, int step) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Window size must be positive: " + size);
+        if (step <= 0)
+            throw new IllegalArgumentException("Window step must be positive: " + step);
+    }
+
+    /**
+     * Returns the number of windows of an input of the given size.
+     */
+    static long windowCount(long count, int size, int step, boolean partial) {
+        if (partial)
+            return count / size + ((count % size != 0) ? 1 : 0);
+        return (count < size) ? 0 : (count - size) / step + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> IntFunction<T[]> castingArray() {
+        return size -> (T[]) new Object[size];
+    }
+
+    /**
+     * Appends a window operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements in each window
+     * @param step the distance between the starts of windows
+     * @param partial true if a final partial window is produced, for which
+     *        step must equal size
+     */
+    static <T> Stream<List<T>> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                       int size, int step, boolean partial) {
+        checkArguments(size, step);
+        assert !partial || size == step;
+        return new ReferencePipeline.StatefulOp<T, List<T>>(upstream, StreamShape.REFERENCE,
+                                                            FLAGS) {
+            @Override
+            <P_IN> Spliterator<List<T>> opEvaluateParallelLazy(PipelineHelper<List<T>> helper,
+                                                               Spliterator<P_IN> spliterator) {
+                @SuppressWarnings("unchecked")
+                PipelineHelper<T> h = (PipelineHelper<T>) (PipelineHelper<?>) helper;
+                Spliterator<T> s;
+                long n = h.exactOutputSizeIfKnown(spliterator);
+                if (n >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED))
+                    s = h.wrapSpliterator(spliterator);
+                else {
+                    s = h.evaluate(spliterator, true, WindowOps.<T>castingArray()).spliterator();
+                    n = s.getExactSizeIfKnown();
+                }
+                return new RefWindowSpliterator<>(s, n, size, step, partial);
+            }
+
+            @Override
+            <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<List<T>[]> generator) {
+                // This pipeline is empty, as its depth is zero, and therefore
+                // can be used with the window spliterator
+                return Nodes.collect(this, opEvaluateParallelLazy(helper, spliterator),
+                                     true, generator);
+            }
+
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new Sink.ChainedReference<T, List<T>>(sink) {
+                    private RefWindower<T> windower;
+
+                    @Override
+                    public void begin(long n) {
+                        windower = new RefWindower<>(size, step, partial, n, Long.MAX_VALUE);
+                        windower.downstream = downstream;
+                        downstream.begin((n >= 0) ? windowCount(n, size, step, partial) : -1);
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        windower.accept(t);
+                    }
+
+                    @Override
+                    public void end() {
+                        windower.finish();
+                        windower = null;
+                        downstream.end();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a window operation to the provided IntStream.
+     *
+     * @param upstream an IntStream
+     * @param size the number of elements in each window
+     * @param step the distance between the starts of windows
+     * @param partial true if a final partial window is produced, for which
+     *        step must equal size
+     */
+    static Stream<int[]> makeInt(AbstractPipeline<?, Integer, ?> upstream,
+                                 int size, int step, boolean partial) {
+        checkArguments(size, step);
+        assert !partial || size == step;
+        return new ReferencePipeline.StatefulOp<Integer, int[]>(upstream, StreamShape.INT_VALUE,
+                                                                FLAGS) {
+            @Override
+            <P_IN> Spliterator<int[]> opEvaluateParallelLazy(PipelineHelper<int[]> helper,
+                                                             Spliterator<P_IN> spliterator) {
+                @SuppressWarnings("unchecked")
+                PipelineHelper<Integer> h = (PipelineHelper<Integer>) (PipelineHelper<?>) helper;
+                Spliterator.OfInt s;
+                long n = h.exactOutputSizeIfKnown(spliterator);
+                if (n >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED))
+                    s = (Spliterator.OfInt) h.wrapSpliterator(spliterator);
+                else {
+                    s = ((Node.OfInt) h.evaluate(spliterator, true, Integer[]::new)).spliterator();
+                    n = s.getExactSizeIfKnown();
+                }
+                return new IntWindowSpliterator(s, n, size, step, partial);
+            }
+
+            @Override
+            <P_IN> Node<int[]> opEvaluateParallel(PipelineHelper<int[]> helper,
+                                                  Spliterator<P_IN> spliterator,
+                                                  IntFunction<int[][]> generator) {
+                return Nodes.collect(this, opEvaluateParallelLazy(helper, spliterator),
+                                     true, generator);
+            }
+
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<int[]> sink) {
+                return new Sink.ChainedInt<int[]>(sink) {
+                    private IntWindower windower;
+
+                    @Override
+                    public void begin(long n) {
+                        windower = new IntWindower(size, step, partial, n, Long.MAX_VALUE);
+                        windower.downstream = downstream;
+                        downstream.begin((n >= 0) ? windowCount(n, size, step, partial) : -1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        windower.accept(t);
+                    }
+
+                    @Override
+                    public void end() {
+                        windower.finish();
+                        windower = null;
+                        downstream.end();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a window operation to the provided LongStream.
+     *
+     * @param upstream a LongStream
+     * @param size the number of elements in each window
+     * @param step the distance between the starts of windows
+     * @param partial true if a final partial window is produced, for which
+     *        step must equal size
+     */
+    static Stream<long[]> makeLong(AbstractPipeline<?, Long, ?> upstream,
+                                   int size, int step, boolean partial) {
+        checkArguments(size, step);
+        assert !partial || size == step;
+        return new ReferencePipeline.StatefulOp<Long, long[]>(upstream, StreamShape.LONG_VALUE,
+                                                              FLAGS) {
+            @Override
+            <P_IN> Spliterator<long[]> opEvaluateParallelLazy(PipelineHelper<long[]> helper,
+                                                              Spliterator<P_IN> spliterator) {
+                @SuppressWarnings("unchecked")
+                PipelineHelper<Long> h = (PipelineHelper<Long>) (PipelineHelper<?>) helper;
+                Spliterator.OfLong s;
+                long n = h.exactOutputSizeIfKnown(spliterator);
+                if (n >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED))
+                    s = (Spliterator.OfLong) h.wrapSpliterator(spliterator);
+                else {
+                    s = ((Node.OfLong) h.evaluate(spliterator, true, Long[]::new)).spliterator();
+                    n = s.getExactSizeIfKnown();
+                }
+                return new LongWindowSpliterator(s, n, size, step, partial);
+            }
+
+            @Override
+            <P_IN> Node<long[]> opEvaluateParallel(PipelineHelper<long[]> helper,
+                                                   Spliterator<P_IN> spliterator,
+                                                   IntFunction<long[][]> generator) {
+                return Nodes.collect(this, opEvaluateParallelLazy(helper, spliterator),
+                                     true, generator);
+            }
+
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<long[]> sink) {
+                return new Sink.ChainedLong<long[]>(sink) {
+                    private LongWindower windower;
+
+                    @Override
+                    public void begin(long n) {
+                        windower = new LongWindower(size, step, partial, n, Long.MAX_VALUE);
+                        windower.downstream = downstream;
+                        downstream.begin((n >= 0) ? windowCount(n, size, step, partial) : -1);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        windower.accept(t);
+                    }
+
+                    @Override
+                    public void end() {
+                        windower.finish();
+                        windower = null;
+                        downstream.end();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Appends a window operation to the provided DoubleStream.
+     *
+     * @param upstream a DoubleStream
+     * @param size the number of elements in each window
+     * @param step the distance between the starts of windows
+     * @param partial true if a final partial window is produced, for which
+     *        step must equal size
+     */
+    static Stream<double[]> makeDouble(AbstractPipeline<?, Double, ?> upstream,
+                                       int size, int step, boolean partial) {
+        checkArguments(size, step);
+        assert !partial || size == step;
+        return new ReferencePipeline.StatefulOp<Double, double[]>(upstream, StreamShape.DOUBLE_VALUE,
+                                                                  FLAGS) {
+            @Override
+            <P_IN> Spliterator<double[]> opEvaluateParallelLazy(PipelineHelper<double[]> helper,
+                                                                Spliterator<P_IN> spliterator) {
+                @SuppressWarnings("unchecked")
+                PipelineHelper<Double> h = (PipelineHelper<Double>) (PipelineHelper<?>) helper;
+                Spliterator.OfDouble s;
+                long n = h.exactOutputSizeIfKnown(spliterator);
+                if (n >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED))
+                    s = (Spliterator.OfDouble) h.wrapSpliterator(spliterator);
+                else {
+                    s = ((Node.OfDouble) h.evaluate(spliterator, true, Double[]::new)).spliterator();
+                    n = s.getExactSizeIfKnown();
+                }
+                return new DoubleWindowSpliterator(s, n, size, step, partial);
+            }
+
+            @Override
+            <P_IN> Node<double[]> opEvaluateParallel(PipelineHelper<double[]> helper,
+                                                     Spliterator<P_IN> spliterator,
+                                                     IntFunction<double[][]> generator) {
+                return Nodes.collect(this, opEvaluateParallelLazy(helper, spliterator),
+                                     true, generator);
+            }
+
+            @Override
+            Sink<Double> opWrapSink(int flags, Sink<double[]> sink) {
+                return new Sink.ChainedDouble<double[]>(sink) {
+                    private DoubleWindower windower;
+
+                    @Override
+                    public void begin(long n) {
+                        windower = new DoubleWindower(size, step, partial, n, Long.MAX_VALUE);
+                        windower.downstream = downstream;
+                        downstream.begin((n >= 0) ? windowCount(n, size, step, partial) : -1);
+                    }
+
+                    @Override
+                    public void accept(double t) {
+                        windower.accept(t);
+                    }
+
+                    @Override
+                    public void end() {
+                        windower.finish();
+                        windower = null;
+                        downstream.end();
+                    }
+                };
+            }
+        };
+    }
+
+    // Windowers
+
+    /**
+     * Accumulates elements into windows, passing each window downstream
+     * when complete.  Subclasses hold the window in an array of which the
+     * first {@code filled} elements are valid, growing it up to the
+     * window size as needed.
+     *
+     * @param <W> the type of windows
+     */
+    abstract static class Windower<W> {
+        final int size;
+        final int step;
+        final boolean partial;
+
+        /** The consumer of windows; set before elements are accepted */
+        Consumer<? super W> downstream;
+
+        /** The number of elements to discard before the next window */
+        long skip;
+
+        /** The number of windows still to be produced */
+        long remaining;
+
+        /** The number of elements in the window */
+        int filled;
+
+        /** The capacity of a new window */
+        private int initialCapacity;
+
+        Windower(int size, int step, boolean partial, long sizeIfKnown,
+                 long remaining) {
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+            this.remaining = remaining;
+            this.initialCapacity = (int) Math.min(size, (sizeIfKnown >= 0) ?
+                                                  Math.max(sizeIfKnown, 1L) :
+                                                  INITIAL_CAPACITY);
+        }
+
+        /**
+         * Returns the capacity to which to grow a window of the given
+         * length, or allocate a new window if negative.
+         */
+        final int nextCapacity(int length) {
+            return (length < 0) ? initialCapacity :
+                (int) Math.min(size, Math.max(INITIAL_CAPACITY, (long) length << 1));
+        }
+
+        /** Returns the window, which is full, releasing it */
+        abstract W take();
+
+        /** Returns a copy of the first n elements of the window */
+        abstract W copy(int n);
+
+        /** Moves elements of the window from one index to another */
+        abstract void shift(int from, int to, int n);
+
+        /**
+         * Records that an element was added to the window, passing it
+         * downstream if complete.
+         */
+        final void added() {
+            if (++filled == size) {
+                W w;
+                if (step >= size) {
+                    w = take();
+                    filled = 0;
+                    skip = step - size;
+                    initialCapacity = size;
+                }
+                else {
+                    w = copy(size);
+                    shift(step, 0, size - step);
+                    filled = size - step;
+                }
+                --remaining;
+                downstream.accept(w);
+            }
+        }
+
+        /**
+         * Passes the final partial window downstream, if any.
+         */
+        final void finish() {
+            if (partial && filled > 0 && remaining > 0) {
+                W w = copy(filled);
+                filled = 0;
+                --remaining;
+                downstream.accept(w);
+            }
+        }
+    }
+
+    static final class RefWindower<T> extends Windower<List<T>> implements Consumer<T> {
+        private Object[] window;
+
+        RefWindower(int size, int step, boolean partial, long sizeIfKnown, long remaining) {
+            super(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(T t) {
+            if (skip > 0L)
+                --skip;
+            else if (remaining > 0L) {
+                Object[] w = window;
+                if (w == null)
+                    window = w = new Object[nextCapacity(-1)];
+                else if (filled == w.length)
+                    window = w = Arrays.copyOf(w, nextCapacity(filled));
+                w[filled] = t;
+                added();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        List<T> take() {
+            Object[] w = window;
+            window = null;
+            return (List<T>) Arrays.asList(w);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        List<T> copy(int n) {
+            return (List<T>) Arrays.asList(Arrays.copyOf(window, n));
+        }
+
+        @Override
+        void shift(int from, int to, int n) {
+            System.arraycopy(window, from, window, to, n);
+        }
+    }
+
+    static final class IntWindower extends Windower<int[]> implements IntConsumer {
+        private int[] window;
+
+        IntWindower(int size, int step, boolean partial, long sizeIfKnown, long remaining) {
+            super(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(int t) {
+            if (skip > 0L)
+                --skip;
+            else if (remaining > 0L) {
+                int[] w = window;
+                if (w == null)
+                    window = w = new int[nextCapacity(-1)];
+                else if (filled == w.length)
+                    window = w = Arrays.copyOf(w, nextCapacity(filled));
+                w[filled] = t;
+                added();
+            }
+        }
+
+        @Override
+        int[] take() {
+            int[] w = window;
+            window = null;
+            return w;
+        }
+
+        @Override
+        int[] copy(int n) {
+            return Arrays.copyOf(window, n);
+        }
+
+        @Override
+        void shift(int from, int to, int n) {
+            System.arraycopy(window, from, window, to, n);
+        }
+    }
+
+    static final class LongWindower extends Windower<long[]> implements LongConsumer {
+        private long[] window;
+
+        LongWindower(int size, int step, boolean partial, long sizeIfKnown, long remaining) {
+            super(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(long t) {
+            if (skip > 0L)
+                --skip;
+            else if (remaining > 0L) {
+                long[] w = window;
+                if (w == null)
+                    window = w = new long[nextCapacity(-1)];
+                else if (filled == w.length)
+                    window = w = Arrays.copyOf(w, nextCapacity(filled));
+                w[filled] = t;
+                added();
+            }
+        }
+
+        @Override
+        long[] take() {
+            long[] w = window;
+            window = null;
+            return w;
+        }
+
+        @Override
+        long[] copy(int n) {
+            return Arrays.copyOf(window, n);
+        }
+
+        @Override
+        void shift(int from, int to, int n) {
+            System.arraycopy(window, from, window, to, n);
+        }
+    }
+
+    static final class DoubleWindower extends Windower<double[]> implements DoubleConsumer {
+        private double[] window;
+
+        DoubleWindower(int size, int step, boolean partial, long sizeIfKnown, long remaining) {
+            super(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(double t) {
+            if (skip > 0L)
+                --skip;
+            else if (remaining > 0L) {
+                double[] w = window;
+                if (w == null)
+                    window = w = new double[nextCapacity(-1)];
+                else if (filled == w.length)
+                    window = w = Arrays.copyOf(w, nextCapacity(filled));
+                w[filled] = t;
+                added();
+            }
+        }
+
+        @Override
+        double[] take() {
+            double[] w = window;
+            window = null;
+            return w;
+        }
+
+        @Override
+        double[] copy(int n) {
+            return Arrays.copyOf(window, n);
+        }
+
+        @Override
+        void shift(int from, int to, int n) {
+            System.arraycopy(window, from, window, to, n);
+        }
+    }
+
+    // Spliterators
+
+    /**
+     * A spliterator of the windows of an input of known size, which is the
+     * elements of a head array, then those of a spliterator, then those of
+     * a tail array.  Windows start {@code skip} elements into the input,
+     * and there are exactly {@code remaining} of them.  The head and tail
+     * hold elements taken from a neighbouring spliterator when splitting,
+     * and may be shared with it; they are never modified.
+     *
+     * @param <T_SPLITR> the type of the input spliterator
+     * @param <T_ARR> the type of arrays of input elements
+     * @param <W> the type of windows
+     * @param <K> the type of this spliterator
+     */
+    abstract static class WindowSpliterator<T_SPLITR extends Spliterator<?>, T_ARR, W,
+                                            K extends WindowSpliterator<T_SPLITR, T_ARR, W, K>> {
+        final int size;
+        final int step;
+        final boolean partial;
+
+        T_SPLITR s;
+        T_ARR head;
+        int headIndex, headFence;
+        T_ARR tail;
+        int tailIndex, tailFence;
+        long skip;
+        long remaining;
+
+        /** Created when traversal starts, after which there are no splits */
+        Windower<W> windower;
+
+        WindowSpliterator(T_SPLITR s, T_ARR head, int headFence,
+                          T_ARR tail, int tailFence,
+                          long skip, long remaining,
+                          int size, int step, boolean partial) {
+            this.s = s;
+            this.head = head;
+            this.headFence = headFence;
+            this.tail = tail;
+            this.tailFence = tailFence;
+            this.skip = skip;
+            this.remaining = remaining;
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+        }
+
+        /** Creates a spliterator over part of the input */
+        abstract K makeSpliterator(T_SPLITR s, T_ARR head, int headFence,
+                                   T_ARR tail, int tailFence,
+                                   long skip, long remaining);
+
+        /** Creates a windower for the elements of this spliterator */
+        abstract Windower<W> makeWindower(long sizeIfKnown, long remaining);
+
+        /**
+         * Takes up to n elements from the input spliterator and then the
+         * tail, returning an array of those taken.
+         */
+        abstract T_ARR take(int n);
+
+        /** Returns the length of an array of input elements */
+        abstract int length(T_ARR a);
+
+        /** Passes the given elements of an array to the windower */
+        abstract void push(T_ARR a, int from, int to);
+
+        /** Passes the next input element to the windower, if any */
+        abstract boolean tryAdvanceInput();
+
+        /** Passes the remaining input elements to the windower */
+        abstract void forEachInput();
+
+        @SuppressWarnings("unchecked")
+        final K split() {
+            if (windower != null || s == null)
+                return null;
+            for (;;) {
+                if (remaining < 2L)
+                    return null;
+                T_SPLITR p = (T_SPLITR) s.trySplit();
+                long n;
+                if (p == null || (n = p.getExactSizeIfKnown()) < 0L)
+                    return null;
+                // Index just past the prefix, relative to this spliterator
+                long end = (headFence - headIndex) + n;
+                long k = (end <= skip) ? 0L :
+                    Math.min(remaining, (end - skip + step - 1) / step);
+                if (k == 0L) {
+                    // No window starts in the prefix, which is not needed
+                    skip -= end;
+                    head = null;
+                    headIndex = headFence = 0;
+                    continue;
+                }
+                long lastEnd = skip + (k - 1) * step + size;
+                T_ARR shared = (lastEnd > end) ? take((int) (lastEnd - end)) : null;
+                int sharedLength = (shared == null) ? 0 : length(shared);
+                K prefix = makeSpliterator(p, head, headFence, shared, sharedLength,
+                                           skip, k);
+                prefix.headIndex = headIndex;
+                head = shared;
+                headIndex = 0;
+                headFence = sharedLength;
+                skip = Math.max(0L, skip + k * step - end);
+                remaining -= k;
+                return prefix;
+            }
+        }
+
+        private Windower<W> windower() {
+            Windower<W> w = windower;
+            if (w == null) {
+                long n = (headFence - headIndex) + (tailFence - tailIndex) +
+                    ((s == null) ? 0L : s.getExactSizeIfKnown());
+                windower = w = makeWindower(n, remaining);
+                w.skip = skip;
+            }
+            return w;
+        }
+
+        final boolean advance(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            Windower<W> w = windower();
+            long r = w.remaining;
+            if (r == 0L)
+                return false;
+            w.downstream = action;
+            try {
+                while (w.remaining == r) {
+                    if (headIndex < headFence)
+                        push(head, headIndex, ++headIndex);
+                    else if (s != null && tryAdvanceInput())
+                        continue;
+                    else if (tailIndex < tailFence) {
+                        s = null;
+                        push(tail, tailIndex, ++tailIndex);
+                    }
+                    else {
+                        s = null;
+                        w.finish();
+                        boolean emitted = w.remaining != r;
+                        w.remaining = 0L;
+                        return emitted;
+                    }
+                }
+            } finally {
+                w.downstream = null;
+            }
+            return true;
+        }
+
+        final void forEach(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            Windower<W> w = windower();
+            if (w.remaining == 0L)
+                return;
+            w.downstream = action;
+            try {
+                push(head, headIndex, headFence);
+                headIndex = headFence;
+                if (s != null) {
+                    forEachInput();
+                    s = null;
+                }
+                push(tail, tailIndex, tailFence);
+                tailIndex = tailFence;
+                w.finish();
+                w.remaining = 0L;
+            } finally {
+                w.downstream = null;
+            }
+        }
+
+        public final long estimateSize() {
+            return (windower == null) ? remaining : windower.remaining;
+        }
+
+        public final int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED |
+                Spliterator.NONNULL;
+        }
+    }
+
+    static final class RefWindowSpliterator<T>
+            extends WindowSpliterator<Spliterator<T>, Object[], List<T>, RefWindowSpliterator<T>>
+            implements Spliterator<List<T>>, Consumer<T> {
+        private Object element;
+
+        RefWindowSpliterator(Spliterator<T> s, long count, int size, int step, boolean partial) {
+            this(s, null, 0, null, 0, 0L, windowCount(count, size, step, partial),
+                 size, step, partial);
+        }
+
+        RefWindowSpliterator(Spliterator<T> s, Object[] head, int headFence,
+                             Object[] tail, int tailFence, long skip, long remaining,
+                             int size, int step, boolean partial) {
+            super(s, head, headFence, tail, tailFence, skip, remaining, size, step, partial);
+        }
+
+        @Override
+        RefWindowSpliterator<T> makeSpliterator(Spliterator<T> s, Object[] head, int headFence,
+                                                Object[] tail, int tailFence,
+                                                long skip, long remaining) {
+            return new RefWindowSpliterator<>(s, head, headFence, tail, tailFence,
+                                              skip, remaining, size, step, partial);
+        }
+
+        @Override
+        Windower<List<T>> makeWindower(long sizeIfKnown, long remaining) {
+            return new RefWindower<T>(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(T t) {
+            element = t;
+        }
+
+        @Override
+        Object[] take(int n) {
+            Object[] a = new Object[n];
+            int i = 0;
+            while (i < n && s.tryAdvance(this)) {
+                a[i++] = element;
+                element = null;
+            }
+            while (i < n && tailIndex < tailFence)
+                a[i++] = tail[tailIndex++];
+            return (i < n) ? Arrays.copyOf(a, i) : a;
+        }
+
+        @Override
+        int length(Object[] a) {
+            return a.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void push(Object[] a, int from, int to) {
+            RefWindower<T> w = (RefWindower<T>) windower;
+            for (int i = from; i < to; ++i)
+                w.accept((T) a[i]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean tryAdvanceInput() {
+            return s.tryAdvance((RefWindower<T>) windower);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEachInput() {
+            s.forEachRemaining((RefWindower<T>) windower);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            return advance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super List<T>> action) {
+            forEach(action);
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            return split();
+        }
+    }
+
+    static final class IntWindowSpliterator
+            extends WindowSpliterator<Spliterator.OfInt, int[], int[], IntWindowSpliterator>
+            implements Spliterator<int[]>, IntConsumer {
+        private int element;
+
+        IntWindowSpliterator(Spliterator.OfInt s, long count, int size, int step, boolean partial) {
+            this(s, null, 0, null, 0, 0L, windowCount(count, size, step, partial),
+                 size, step, partial);
+        }
+
+        IntWindowSpliterator(Spliterator.OfInt s, int[] head, int headFence,
+                             int[] tail, int tailFence, long skip, long remaining,
+                             int size, int step, boolean partial) {
+            super(s, head, headFence, tail, tailFence, skip, remaining, size, step, partial);
+        }
+
+        @Override
+        IntWindowSpliterator makeSpliterator(Spliterator.OfInt s, int[] head, int headFence,
+                                             int[] tail, int tailFence,
+                                             long skip, long remaining) {
+            return new IntWindowSpliterator(s, head, headFence, tail, tailFence,
+                                            skip, remaining, size, step, partial);
+        }
+
+        @Override
+        Windower<int[]> makeWindower(long sizeIfKnown, long remaining) {
+            return new IntWindower(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(int t) {
+            element = t;
+        }
+
+        @Override
+        int[] take(int n) {
+            int[] a = new int[n];
+            int i = 0;
+            while (i < n && s.tryAdvance((IntConsumer) this))
+                a[i++] = element;
+            while (i < n && tailIndex < tailFence)
+                a[i++] = tail[tailIndex++];
+            return (i < n) ? Arrays.copyOf(a, i) : a;
+        }
+
+        @Override
+        int length(int[] a) {
+            return a.length;
+        }
+
+        @Override
+        void push(int[] a, int from, int to) {
+            IntWindower w = (IntWindower) windower;
+            for (int i = from; i < to; ++i)
+                w.accept(a[i]);
+        }
+
+        @Override
+        boolean tryAdvanceInput() {
+            return s.tryAdvance((IntWindower) windower);
+        }
+
+        @Override
+        void forEachInput() {
+            s.forEachRemaining((IntWindower) windower);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            return advance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super int[]> action) {
+            forEach(action);
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            return split();
+        }
+    }
+
+    static final class LongWindowSpliterator
+            extends WindowSpliterator<Spliterator.OfLong, long[], long[], LongWindowSpliterator>
+            implements Spliterator<long[]>, LongConsumer {
+        private long element;
+
+        LongWindowSpliterator(Spliterator.OfLong s, long count, int size, int step, boolean partial) {
+            this(s, null, 0, null, 0, 0L, windowCount(count, size, step, partial),
+                 size, step, partial);
+        }
+
+        LongWindowSpliterator(Spliterator.OfLong s, long[] head, int headFence,
+                              long[] tail, int tailFence, long skip, long remaining,
+                              int size, int step, boolean partial) {
+            super(s, head, headFence, tail, tailFence, skip, remaining, size, step, partial);
+        }
+
+        @Override
+        LongWindowSpliterator makeSpliterator(Spliterator.OfLong s, long[] head, int headFence,
+                                              long[] tail, int tailFence,
+                                              long skip, long remaining) {
+            return new LongWindowSpliterator(s, head, headFence, tail, tailFence,
+                                             skip, remaining, size, step, partial);
+        }
+
+        @Override
+        Windower<long[]> makeWindower(long sizeIfKnown, long remaining) {
+            return new LongWindower(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(long t) {
+            element = t;
+        }
+
+        @Override
+        long[] take(int n) {
+            long[] a = new long[n];
+            int i = 0;
+            while (i < n && s.tryAdvance((LongConsumer) this))
+                a[i++] = element;
+            while (i < n && tailIndex < tailFence)
+                a[i++] = tail[tailIndex++];
+            return (i < n) ? Arrays.copyOf(a, i) : a;
+        }
+
+        @Override
+        int length(long[] a) {
+            return a.length;
+        }
+
+        @Override
+        void push(long[] a, int from, int to) {
+            LongWindower w = (LongWindower) windower;
+            for (int i = from; i < to; ++i)
+                w.accept(a[i]);
+        }
+
+        @Override
+        boolean tryAdvanceInput() {
+            return s.tryAdvance((LongWindower) windower);
+        }
+
+        @Override
+        void forEachInput() {
+            s.forEachRemaining((LongWindower) windower);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super long[]> action) {
+            return advance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super long[]> action) {
+            forEach(action);
+        }
+
+        @Override
+        public Spliterator<long[]> trySplit() {
+            return split();
+        }
+    }
+
+    static final class DoubleWindowSpliterator
+            extends WindowSpliterator<Spliterator.OfDouble, double[], double[], DoubleWindowSpliterator>
+            implements Spliterator<double[]>, DoubleConsumer {
+        private double element;
+
+        DoubleWindowSpliterator(Spliterator.OfDouble s, long count, int size, int step,
+                                boolean partial) {
+            this(s, null, 0, null, 0, 0L, windowCount(count, size, step, partial),
+                 size, step, partial);
+        }
+
+        DoubleWindowSpliterator(Spliterator.OfDouble s, double[] head, int headFence,
+                                double[] tail, int tailFence, long skip, long remaining,
+                                int size, int step, boolean partial) {
+            super(s, head, headFence, tail, tailFence, skip, remaining, size, step, partial);
+        }
+
+        @Override
+        DoubleWindowSpliterator makeSpliterator(Spliterator.OfDouble s, double[] head,
+                                                int headFence, double[] tail, int tailFence,
+                                                long skip, long remaining) {
+            return new DoubleWindowSpliterator(s, head, headFence, tail, tailFence,
+                                               skip, remaining, size, step, partial);
+        }
+
+        @Override
+        Windower<double[]> makeWindower(long sizeIfKnown, long remaining) {
+            return new DoubleWindower(size, step, partial, sizeIfKnown, remaining);
+        }
+
+        @Override
+        public void accept(double t) {
+            element = t;
+        }
+
+        @Override
+        double[] take(int n) {
+            double[] a = new double[n];
+            int i = 0;
+            while (i < n && s.tryAdvance((DoubleConsumer) this))
+                a[i++] = element;
+            while (i < n && tailIndex < tailFence)
+                a[i++] = tail[tailIndex++];
+            return (i < n) ? Arrays.copyOf(a, i) : a;
+        }
+
+        @Override
+        int length(double[] a) {
+            return a.length;
+        }
+
+        @Override
+        void push(double[] a, int from, int to) {
+            DoubleWindower w = (DoubleWindower) windower;
+            for (int i = from; i < to; ++i)
+                w.accept(a[i]);
+        }
+
+        @Override
+        boolean tryAdvanceInput() {
+            return s.tryAdvance((DoubleWindower) windower);
+        }
+
+        @Override
+        void forEachInput() {
+            s.forEachRemaining((DoubleWindower) windower);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super double[]> action) {
+            return advance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super double[]> action) {
+            forEach(action);
+        }
+
+        @Override
+        public Spliterator<double[]> trySplit() {
+            return split();
+        }
+    }
+}